@@ -0,0 +1,107 @@
+package com.pathplanner.lib.commands;
+
+import com.pathplanner.lib.trajectory.PathPlannerTrajectory;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+
+/**
+ * Predicts where the robot will be once a requested path and its trajectory are ready, based on how
+ * long previous requests took to be answered
+ */
+final class PathRequestPredictor {
+  private static final double LATENCY_SMOOTHING = 0.2;
+  private static final double START_TOLERANCE = 0.25;
+
+  private double latencyEstimate;
+
+  /**
+   * Create a new predictor
+   *
+   * @param initialLatency Latency to assume before any request has been answered, in seconds
+   */
+  PathRequestPredictor(double initialLatency) {
+    this.latencyEstimate = initialLatency;
+  }
+
+  /**
+   * Get the expected time from requesting a path to having its trajectory
+   *
+   * @return The latency estimate, in seconds
+   */
+  double getLatencyEstimate() {
+    return latencyEstimate;
+  }
+
+  /**
+   * Update the latency estimate with the latency of an answered request. The estimate is smoothed,
+   * so a single slow request doesn't throw off the predictions.
+   *
+   * @param latency Time from requesting a path to having its trajectory, in seconds
+   */
+  void recordLatency(double latency) {
+    latencyEstimate += LATENCY_SMOOTHING * (latency - latencyEstimate);
+  }
+
+  /**
+   * Check if a path starts close enough to the robot to be followed, either to where the robot is
+   * now or to where it is predicted to be once a new path would be ready
+   *
+   * @param start The start position of the path
+   * @param trajectory The trajectory being followed, or null if there is none
+   * @param trajectoryTime The current time along the trajectory being followed
+   * @param currentPose The current pose of the robot
+   * @param currentSpeeds The current robot relative speeds of the robot
+   * @return True if the path starts close to the robot
+   */
+  boolean isNearRobot(
+      Translation2d start,
+      PathPlannerTrajectory trajectory,
+      double trajectoryTime,
+      Pose2d currentPose,
+      ChassisSpeeds currentSpeeds) {
+    return start.getDistance(currentPose.getTranslation()) < START_TOLERANCE
+        || start.getDistance(
+                predictPose(trajectory, trajectoryTime, currentPose, currentSpeeds, latencyEstimate)
+                    .getTranslation())
+            < START_TOLERANCE;
+  }
+
+  /**
+   * Predict the pose of the robot after some time. The robot is assumed to keep following the
+   * current trajectory, relative to where it actually is, or to keep its current speeds if there is
+   * no trajectory.
+   *
+   * @param trajectory The trajectory being followed, or null if there is none
+   * @param trajectoryTime The current time along the trajectory being followed
+   * @param currentPose The current pose of the robot
+   * @param currentSpeeds The current robot relative speeds of the robot
+   * @param dt How far ahead to predict, in seconds
+   * @return The predicted pose
+   */
+  static Pose2d predictPose(
+      PathPlannerTrajectory trajectory,
+      double trajectoryTime,
+      Pose2d currentPose,
+      ChassisSpeeds currentSpeeds,
+      double dt) {
+    if (trajectory != null) {
+      var nowState = trajectory.sample(trajectoryTime);
+      var predictedState = trajectory.sample(trajectoryTime + dt);
+
+      return currentPose.plus(new Transform2d(nowState.pose, predictedState.pose));
+    }
+
+    ChassisSpeeds fieldSpeeds =
+        ChassisSpeeds.fromRobotRelativeSpeeds(currentSpeeds, currentPose.getRotation());
+
+    return new Pose2d(
+        currentPose.getX() + fieldSpeeds.vxMetersPerSecond * dt,
+        currentPose.getY() + fieldSpeeds.vyMetersPerSecond * dt,
+        currentPose
+            .getRotation()
+            .plus(Rotation2d.fromRadians(fieldSpeeds.omegaRadiansPerSecond * dt)));
+  }
+}
@@ -15,12 +15,22 @@ import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import edu.wpi.first.wpilibj2.command.Subsystem;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiConsumer;
 import java.util.function.BooleanSupplier;
 import java.util.function.Supplier;
 
 /** Command group that will pathfind to the start of a path, then follow that path */
 public class PathfindThenFollowPath extends SequentialCommandGroup {
+  private static final double JOIN_PATH_HORIZON = 1.0;
+  private static final double JOIN_PATH_REBUILD_DISTANCE = 0.1;
+  private static final double JOIN_PATH_TOLERANCE = 0.25;
+
+  // Join path being built in the background for the predicted end of pathfinding
+  private final SpeculativeJoinPath speculativeJoinPath =
+      new SpeculativeJoinPath(
+          JOIN_PATH_REBUILD_DISTANCE, JOIN_PATH_TOLERANCE, ForkJoinPool.commonPool());
+
   /**
    * Constructs a new PathfindThenFollowPath command group.
    *
@@ -49,7 +59,7 @@ public class PathfindThenFollowPath extends SequentialCommandGroup {
       RobotConfig robotConfig,
       BooleanSupplier shouldFlipPath,
       Subsystem... requirements) {
-    addCommands(
+    PathfindingCommand pathfindingCommand =
         new PathfindingCommand(
             goalPath,
             pathfindingConstraints,
@@ -59,7 +69,35 @@ public class PathfindThenFollowPath extends SequentialCommandGroup {
             controller,
             robotConfig,
             shouldFlipPath,
-            requirements),
+            requirements);
+
+    // Start building the join path before pathfinding finishes, so it is ready without having to
+    // generate it while the robot is moving fast
+    pathfindingCommand.setEndStateConsumer(
+        JOIN_PATH_HORIZON,
+        endState -> {
+          if (goalPath.numPoints() < 2) {
+            return;
+          }
+
+          Pose2d startPose = endState.pose;
+          ChassisSpeeds startSpeeds =
+              ChassisSpeeds.fromFieldRelativeSpeeds(endState.fieldSpeeds, startPose.getRotation());
+          boolean shouldFlip = shouldFlipPath.getAsBoolean();
+          speculativeJoinPath.update(
+              startPose,
+              () -> {
+                PathPlannerPath joinPath =
+                    createJoinPath(
+                        goalPath, pathfindingConstraints, startPose, startSpeeds, shouldFlip);
+                // Generate the trajectory now, so following the path doesn't have to
+                joinPath.getIdealTrajectory(robotConfig);
+                return joinPath;
+              });
+        });
+
+    addCommands(
+        pathfindingCommand,
         // Use a deferred command to generate an on-the-fly path to join
         // the end of the pathfinding command to the start of the path
         Commands.defer(
@@ -69,44 +107,17 @@ public class PathfindThenFollowPath extends SequentialCommandGroup {
               }
 
               Pose2d startPose = poseSupplier.get();
-              ChassisSpeeds startSpeeds = currentRobotRelativeSpeeds.get();
-              ChassisSpeeds startFieldSpeeds =
-                  ChassisSpeeds.fromRobotRelativeSpeeds(startSpeeds, startPose.getRotation());
-              Rotation2d startHeading =
-                  new Rotation2d(
-                      startFieldSpeeds.vxMetersPerSecond, startFieldSpeeds.vyMetersPerSecond);
-
-              Pose2d endWaypoint =
-                  new Pose2d(goalPath.getPoint(0).position, goalPath.getInitialHeading());
-              boolean shouldFlip = shouldFlipPath.getAsBoolean() && !goalPath.preventFlipping;
-              if (shouldFlip) {
-                endWaypoint = FlippingUtil.flipFieldPose(endWaypoint);
-              }
-
-              GoalEndState endState;
-              if (goalPath.getIdealStartingState() != null) {
-                Rotation2d endRot = goalPath.getIdealStartingState().rotation();
-                if (shouldFlip) {
-                  endRot = FlippingUtil.flipFieldRotation(endRot);
-                }
-                endState = new GoalEndState(goalPath.getIdealStartingState().velocityMPS(), endRot);
-              } else {
-                endState =
-                    new GoalEndState(
-                        pathfindingConstraints.maxVelocityMPS(), startPose.getRotation());
+              PathPlannerPath joinPath = speculativeJoinPath.take(startPose);
+              if (joinPath == null) {
+                joinPath =
+                    createJoinPath(
+                        goalPath,
+                        pathfindingConstraints,
+                        startPose,
+                        currentRobotRelativeSpeeds.get(),
+                        shouldFlipPath.getAsBoolean());
               }
 
-              PathPlannerPath joinPath =
-                  new PathPlannerPath(
-                      PathPlannerPath.waypointsFromPoses(
-                          new Pose2d(startPose.getTranslation(), startHeading), endWaypoint),
-                      pathfindingConstraints,
-                      new IdealStartingState(
-                          Math.hypot(startSpeeds.vxMetersPerSecond, startSpeeds.vyMetersPerSecond),
-                          startPose.getRotation()),
-                      endState);
-              joinPath.preventFlipping = true;
-
               return new FollowPathCommand(
                   joinPath,
                   poseSupplier,
@@ -128,4 +139,62 @@ public class PathfindThenFollowPath extends SequentialCommandGroup {
             shouldFlipPath,
             requirements));
   }
+
+  @Override
+  public void initialize() {
+    speculativeJoinPath.clear();
+    super.initialize();
+  }
+
+  /**
+   * Create a path from the robot's pose to the start of the goal path
+   *
+   * @param goalPath the goal path to follow
+   * @param pathfindingConstraints the path constraints for pathfinding
+   * @param startPose the pose of the robot at the start of the join path
+   * @param startSpeeds the robot relative speeds of the robot at the start of the join path
+   * @param shouldFlipPath should the goal path be flipped to the other side of the field
+   * @return The join path
+   */
+  private static PathPlannerPath createJoinPath(
+      PathPlannerPath goalPath,
+      PathConstraints pathfindingConstraints,
+      Pose2d startPose,
+      ChassisSpeeds startSpeeds,
+      boolean shouldFlipPath) {
+    ChassisSpeeds startFieldSpeeds =
+        ChassisSpeeds.fromRobotRelativeSpeeds(startSpeeds, startPose.getRotation());
+    Rotation2d startHeading =
+        new Rotation2d(startFieldSpeeds.vxMetersPerSecond, startFieldSpeeds.vyMetersPerSecond);
+
+    Pose2d endWaypoint = new Pose2d(goalPath.getPoint(0).position, goalPath.getInitialHeading());
+    boolean shouldFlip = shouldFlipPath && !goalPath.preventFlipping;
+    if (shouldFlip) {
+      endWaypoint = FlippingUtil.flipFieldPose(endWaypoint);
+    }
+
+    GoalEndState endState;
+    if (goalPath.getIdealStartingState() != null) {
+      Rotation2d endRot = goalPath.getIdealStartingState().rotation();
+      if (shouldFlip) {
+        endRot = FlippingUtil.flipFieldRotation(endRot);
+      }
+      endState = new GoalEndState(goalPath.getIdealStartingState().velocityMPS(), endRot);
+    } else {
+      endState = new GoalEndState(pathfindingConstraints.maxVelocityMPS(), startPose.getRotation());
+    }
+
+    PathPlannerPath joinPath =
+        new PathPlannerPath(
+            PathPlannerPath.waypointsFromPoses(
+                new Pose2d(startPose.getTranslation(), startHeading), endWaypoint),
+            pathfindingConstraints,
+            new IdealStartingState(
+                Math.hypot(startSpeeds.vxMetersPerSecond, startSpeeds.vyMetersPerSecond),
+                startPose.getRotation()),
+            endState);
+    joinPath.preventFlipping = true;
+
+    return joinPath;
+  }
 }
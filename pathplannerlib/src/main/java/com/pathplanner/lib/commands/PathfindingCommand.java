@@ -8,14 +8,19 @@ import com.pathplanner.lib.config.RobotConfig;
 import com.pathplanner.lib.controllers.PPHolonomicDriveController;
 import com.pathplanner.lib.controllers.PathFollowingController;
 import com.pathplanner.lib.path.*;
+import com.pathplanner.lib.pathfinding.Pathfinder;
 import com.pathplanner.lib.pathfinding.Pathfinding;
+import com.pathplanner.lib.pathfinding.PathfindingTrajectoryGenerator;
+import com.pathplanner.lib.pathfinding.PathfindingTrajectoryGenerator.GeneratedTrajectory;
 import com.pathplanner.lib.trajectory.PathPlannerTrajectory;
+import com.pathplanner.lib.trajectory.PathPlannerTrajectoryState;
 import com.pathplanner.lib.util.*;
 import edu.wpi.first.hal.FRCNetComm.tResourceType;
 import edu.wpi.first.hal.HAL;
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.system.plant.DCMotor;
 import edu.wpi.first.units.measure.LinearVelocity;
@@ -25,10 +30,15 @@ import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.Subsystem;
 import java.util.function.BiConsumer;
 import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /** Base pathfinding command */
 public class PathfindingCommand extends Command {
+  private static final double MIN_REQUEST_INTERVAL = 0.5;
+  private static final double SPLICE_HORIZON = 0.1;
+  private static final double SPLICE_BLEND_TIME = 0.3;
+
   private static int instances = 0;
 
   private final Timer timer = new Timer();
@@ -44,13 +54,27 @@ public class PathfindingCommand extends Command {
   private final RobotConfig robotConfig;
   private final BooleanSupplier shouldFlipPath;
 
+  private Pathfinder pathfinder = null;
+  private PathfindingTrajectoryGenerator trajectoryGenerator = null;
   private PathPlannerPath currentPath;
   private PathPlannerTrajectory currentTrajectory;
 
   private double timeOffset = 0;
 
+  // Average time from requesting a path to having its trajectory, kept between runs of the command
+  private final PathRequestPredictor predictor = new PathRequestPredictor(0.05);
+  private double requestTime = 0;
+  private double requestLatency = 0;
+  private Pose2d requestPose = null;
+  private ChassisSpeeds requestSpeeds = new ChassisSpeeds();
+  private boolean requestAnswered = false;
+  private boolean requestPending = false;
+
   private boolean finish = false;
 
+  private double endStateHorizon = 0;
+  private Consumer<PathPlannerTrajectoryState> endStateConsumer = null;
+
   /**
    * Constructs a new base pathfinding command that will generate a path towards the given path.
    *
@@ -248,11 +272,18 @@ public class PathfindingCommand extends Command {
     currentTrajectory = null;
     timeOffset = 0;
     finish = false;
+    requestPose = null;
+    requestPending = false;
 
     Pose2d currentPose = poseSupplier.get();
 
     controller.reset(currentPose, speedsSupplier.get());
 
+    // Use a separate session so other pathfinding commands don't change this command's goal. It is
+    // created for each run, so it always comes from the current pathfinder.
+    pathfinder = Pathfinding.createSession();
+    trajectoryGenerator = new PathfindingTrajectoryGenerator(pathfinder, robotConfig);
+
     if (targetPath != null) {
       originalTargetPose =
           new Pose2d(this.targetPath.getPoint(0).position, originalTargetPose.getRotation());
@@ -266,8 +297,8 @@ public class PathfindingCommand extends Command {
       output.accept(new ChassisSpeeds(), DriveFeedforwards.zeros(robotConfig.numModules));
       finish = true;
     } else {
-      Pathfinding.setStartPosition(currentPose.getTranslation());
-      Pathfinding.setGoalPosition(targetPose.getTranslation());
+      requestPath(currentPose, speedsSupplier.get());
+      pathfinder.setGoalPosition(targetPose.getTranslation());
     }
   }
 
@@ -291,70 +322,46 @@ public class PathfindingCommand extends Command {
                     .getDistance(currentTrajectory.getEndState().pose.getTranslation())
                 < 2.0;
 
-    if (!skipUpdates && Pathfinding.isNewPathAvailable()) {
-      currentPath = Pathfinding.getCurrentPath(constraints, goalEndState);
-
-      if (currentPath != null) {
-        currentTrajectory =
-            new PathPlannerTrajectory(
-                currentPath, currentSpeeds, currentPose.getRotation(), robotConfig);
-        if (!Double.isFinite(currentTrajectory.getTotalTimeSeconds())) {
-          finish = true;
-          return;
-        }
-
-        // Find the two closest states in front of and behind robot
-        int closestState1Idx = 0;
-        int closestState2Idx = 1;
-        while (closestState2Idx < currentTrajectory.getStates().size() - 1) {
-          double closest2Dist =
-              currentTrajectory
-                  .getState(closestState2Idx)
-                  .pose
-                  .getTranslation()
-                  .getDistance(currentPose.getTranslation());
-          double nextDist =
-              currentTrajectory
-                  .getState(closestState2Idx + 1)
-                  .pose
-                  .getTranslation()
-                  .getDistance(currentPose.getTranslation());
-          if (nextDist < closest2Dist) {
-            closestState1Idx++;
-            closestState2Idx++;
-          } else {
-            break;
-          }
+    if (!skipUpdates) {
+      // Trajectories are generated in the background, so this never waits for them
+      var generated = trajectoryGenerator.poll(constraints, goalEndState);
+      double now = Timer.getFPGATimestamp();
+
+      if (generated != null) {
+        Translation2d start = generated.path().getPoint(0).position;
+        boolean fromRequest =
+            requestPose != null && start.getDistance(requestPose.getTranslation()) < 1e-3;
+
+        if (fromRequest && !requestAnswered) {
+          // The first path found from the requested start, which is where the robot is predicted
+          // to be at the time it was expected
+          double elapsed = now - requestTime;
+          predictor.recordLatency(elapsed);
+          requestAnswered = true;
+          useGeneratedPath(generated, elapsed - requestLatency);
+        } else if (predictor.isNearRobot(
+            start, currentTrajectory, timer.get() + timeOffset, currentPose, currentSpeeds)) {
+          // An improvement found by the anytime search, or a replan around new obstacles. These
+          // start from an earlier request, so follow them from the point closest to the robot.
+          useGeneratedPath(
+              generated,
+              generated.trajectory().projectOnto(currentPose.getTranslation()).timeSeconds());
+        } else {
+          // The robot has moved too far from the start of this path. Keep following the current
+          // trajectory, and ask for the path again from where the robot will be once it is ready.
+          requestPending = true;
         }
 
-        // Use the closest 2 states to interpolate what the time offset should be
-        // This will account for the delay in pathfinding
-        var closestState1 = currentTrajectory.getState(closestState1Idx);
-        var closestState2 = currentTrajectory.getState(closestState2Idx);
-
-        double d =
-            closestState1.pose.getTranslation().getDistance(closestState2.pose.getTranslation());
-        double t =
-            (currentPose.getTranslation().getDistance(closestState1.pose.getTranslation())) / d;
-        t = MathUtil.clamp(t, 0.0, 1.0);
-
-        timeOffset = MathUtil.interpolate(closestState1.timeSeconds, closestState2.timeSeconds, t);
-
-        // If the robot is stationary and at the start of the path, set the time offset to the next
-        // loop
-        // This can prevent an issue where the robot will remain stationary if new paths come in
-        // every loop
-        if (timeOffset <= 0.02
-            && Math.hypot(currentSpeeds.vxMetersPerSecond, currentSpeeds.vyMetersPerSecond) < 0.1) {
-          timeOffset = 0.02;
+        if (finish) {
+          return;
         }
-
-        PathPlannerLogging.logActivePath(currentPath);
-        PPLibTelemetry.setCurrentPath(currentPath);
       }
 
-      timer.reset();
-      timer.start();
+      // Limit how often paths are requested again, so the pathfinder isn't kept replanning when
+      // its paths keep arriving after the robot has moved on
+      if (requestPending && now - requestTime >= MIN_REQUEST_INTERVAL) {
+        requestPath(currentPose, currentSpeeds);
+      }
     }
 
     if (currentTrajectory != null) {
@@ -379,7 +386,135 @@ public class PathfindingCommand extends Command {
           targetSpeeds.omegaRadiansPerSecond);
 
       output.accept(targetSpeeds, targetState.feedforwards);
+
+      if (endStateConsumer != null) {
+        var endState = predictEndState();
+        if (endState.timeSeconds <= endStateHorizon) {
+          endStateConsumer.accept(endState);
+        }
+      }
+    }
+  }
+
+  /**
+   * Set a function that will be given the predicted state of the robot when this command finishes,
+   * once it is expected to finish soon. This lets the command that runs next prepare for that state
+   * ahead of time.
+   *
+   * @param horizonSeconds How long before this command is expected to finish to start giving the
+   *     predicted state
+   * @param consumer Function that accepts the predicted state every loop. The time of the state is
+   *     the time until this command is expected to finish.
+   */
+  void setEndStateConsumer(double horizonSeconds, Consumer<PathPlannerTrajectoryState> consumer) {
+    endStateHorizon = horizonSeconds;
+    endStateConsumer = consumer;
+  }
+
+  /**
+   * Predict the state of the robot when this command finishes, assuming it keeps following the
+   * current trajectory
+   *
+   * @return The predicted state, with its time set to the time until this command finishes
+   */
+  private PathPlannerTrajectoryState predictEndState() {
+    double now = timer.get() + timeOffset;
+
+    if (targetPath != null && !targetPath.isChoreoPath()) {
+      // Same as isFinished, this finishes once the target is within the robot's stopping distance
+      for (var state : currentTrajectory.getStates()) {
+        if (state.timeSeconds < now) {
+          continue;
+        }
+
+        double stoppingDistance =
+            Math.pow(state.linearVelocity, 2) / (2 * constraints.maxAccelerationMPSSq());
+        if (state.pose.getTranslation().getDistance(targetPose.getTranslation())
+            <= stoppingDistance) {
+          return state.copyWithTime(state.timeSeconds - now);
+        }
+      }
     }
+
+    var endState = currentTrajectory.getEndState();
+    return endState.copyWithTime(Math.max(0.0, endState.timeSeconds - now));
+  }
+
+  /**
+   * Request a new path that starts where the robot is expected to be once the path and its
+   * trajectory are ready, based on the latency of previous requests
+   *
+   * @param currentPose The current pose of the robot
+   * @param currentSpeeds The current robot relative speeds of the robot
+   */
+  private void requestPath(Pose2d currentPose, ChassisSpeeds currentSpeeds) {
+    requestTime = Timer.getFPGATimestamp();
+    requestLatency = predictor.getLatencyEstimate();
+    requestAnswered = false;
+    requestPending = false;
+
+    requestPose =
+        PathRequestPredictor.predictPose(
+            currentTrajectory,
+            timer.get() + timeOffset,
+            currentPose,
+            currentSpeeds,
+            requestLatency);
+    if (currentTrajectory != null) {
+      var predictedState = currentTrajectory.sample(timer.get() + timeOffset + requestLatency);
+      requestSpeeds =
+          ChassisSpeeds.fromFieldRelativeSpeeds(
+              predictedState.fieldSpeeds, requestPose.getRotation());
+    } else {
+      requestSpeeds = currentSpeeds;
+    }
+
+    trajectoryGenerator.setStartState(requestPose, requestSpeeds);
+  }
+
+  /**
+   * Start following a generated trajectory. If a trajectory is already being followed, the new one
+   * is spliced onto it so the target state doesn't jump.
+   *
+   * @param generated The generated path and trajectory
+   * @param startTime The time along the new trajectory that the robot should be at now
+   */
+  private void useGeneratedPath(GeneratedTrajectory generated, double startTime) {
+    PathPlannerTrajectory trajectory = generated.trajectory();
+    if (!Double.isFinite(trajectory.getTotalTimeSeconds())) {
+      finish = true;
+      return;
+    }
+
+    currentPath = generated.path();
+    PathPlannerLogging.logActivePath(currentPath);
+    PPLibTelemetry.setCurrentPath(currentPath);
+
+    if (currentTrajectory != null) {
+      // Keep following the current trajectory for a moment, then blend into the new one. The part
+      // of the current trajectory that has already been followed is dropped, so the spliced
+      // trajectory starts now.
+      currentTrajectory =
+          currentTrajectory
+              .startingAt(timer.get() + timeOffset)
+              .splice(trajectory, -startTime, SPLICE_HORIZON, SPLICE_BLEND_TIME);
+      timeOffset = 0;
+    } else {
+      currentTrajectory = trajectory;
+      timeOffset = MathUtil.clamp(startTime, 0.0, trajectory.getTotalTimeSeconds());
+
+      // If the robot is stationary and at the start of the path, set the time offset to the next
+      // loop
+      // This can prevent an issue where the robot will remain stationary if new paths come in
+      // every loop
+      if (timeOffset <= 0.02
+          && Math.hypot(requestSpeeds.vxMetersPerSecond, requestSpeeds.vyMetersPerSecond) < 0.1) {
+        timeOffset = 0.02;
+      }
+    }
+
+    timer.reset();
+    timer.start();
   }
 
   @Override
@@ -418,6 +553,14 @@ public class PathfindingCommand extends Command {
     }
 
     PathPlannerLogging.logActivePath(null);
+
+    // Stop the session from planning for, or replanning, a path that is no longer being followed,
+    // and release it. The pathfinder does not keep sessions that are no longer referenced.
+    if (pathfinder != null) {
+      pathfinder.pause();
+      pathfinder = null;
+      trajectoryGenerator = null;
+    }
   }
 
   /**
@@ -0,0 +1,82 @@
+package com.pathplanner.lib.commands;
+
+import com.pathplanner.lib.path.PathPlannerPath;
+import edu.wpi.first.math.geometry.Pose2d;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * A join path that is built in the background ahead of time, from the pose the robot is predicted
+ * to be in when it starts following it
+ */
+final class SpeculativeJoinPath {
+  private final double rebuildDistance;
+  private final double tolerance;
+  private final Executor executor;
+
+  private Pose2d startPose = null;
+  private CompletableFuture<PathPlannerPath> path = null;
+
+  /**
+   * Create a new speculative join path
+   *
+   * @param rebuildDistance How far the predicted start has to move from the start of the path being
+   *     built before it is built again, in meters
+   * @param tolerance How far the actual start can be from the start of the built path for it to be
+   *     used, in meters
+   * @param executor Executor to build paths on
+   */
+  SpeculativeJoinPath(double rebuildDistance, double tolerance, Executor executor) {
+    this.rebuildDistance = rebuildDistance;
+    this.tolerance = tolerance;
+    this.executor = executor;
+  }
+
+  /**
+   * Start building the join path for a predicted start pose in the background. Nothing is done if
+   * the path already being built starts close enough to the predicted start.
+   *
+   * @param predictedStart The pose the robot is predicted to be in at the start of the join path
+   * @param builder Function that builds the join path from the predicted start. This is called on
+   *     the executor.
+   */
+  void update(Pose2d predictedStart, Supplier<PathPlannerPath> builder) {
+    if (startPose != null
+        && startPose.getTranslation().getDistance(predictedStart.getTranslation())
+            <= rebuildDistance) {
+      return;
+    }
+
+    startPose = predictedStart;
+    path = CompletableFuture.supplyAsync(builder, executor);
+  }
+
+  /**
+   * Get the join path that was built in the background, if it is finished and starts close enough
+   * to where the robot actually is. The path is thrown away either way, so it is only used once.
+   *
+   * @param actualStart The current pose of the robot
+   * @return The join path, or null if it can't be used
+   */
+  PathPlannerPath take(Pose2d actualStart) {
+    Pose2d builtStart = startPose;
+    CompletableFuture<PathPlannerPath> built = path;
+    clear();
+
+    if (built == null
+        || !built.isDone()
+        || built.isCompletedExceptionally()
+        || builtStart.getTranslation().getDistance(actualStart.getTranslation()) > tolerance) {
+      return null;
+    }
+
+    return built.join();
+  }
+
+  /** Throw away the join path, whether or not it has finished building */
+  void clear() {
+    startPose = null;
+    path = null;
+  }
+}
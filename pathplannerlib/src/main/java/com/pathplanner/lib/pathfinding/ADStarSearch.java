@@ -0,0 +1,380 @@
+package com.pathplanner.lib.pathfinding;
+
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import edu.wpi.first.math.Pair;
+import java.util.*;
+
+/**
+ * State of an Anytime Dynamic A* search. The search is done backwards from the goal, so it can be
+ * repaired when the start position changes, and the path can be improved over multiple calls by
+ * lowering the inflation of the heuristic.
+ */
+final class ADStarSearch {
+  private final HashMap<GridPosition, Double> g = new HashMap<>();
+  private final HashMap<GridPosition, Double> rhs = new HashMap<>();
+  private final HashMap<GridPosition, Pair<Double, Double>> open = new HashMap<>();
+  private final HashMap<GridPosition, Pair<Double, Double>> incons = new HashMap<>();
+  private final Set<GridPosition> closed = new HashSet<>();
+
+  private AnytimeSchedule schedule = AnytimeSchedule.defaults();
+  private double eps = schedule.initialInflation();
+  private boolean outOfTime = false;
+  private long expansions = 0;
+
+  /**
+   * Get the current inflation of the heuristic
+   *
+   * @return The heuristic inflation. The path found is at most this many times the optimal cost.
+   */
+  double getEps() {
+    return eps;
+  }
+
+  /**
+   * Get if the path can still be improved. This is false once the path is optimal, or an
+   * improvement ran out of time.
+   *
+   * @return True if {@link #improvePath(GridPosition, GridPosition, GridSnapshot)} can improve the
+   *     path
+   */
+  boolean canImprove() {
+    return eps > 1.0 && !outOfTime;
+  }
+
+  /**
+   * Get the total number of nodes expanded by this search, including previous searches
+   *
+   * @return Number of node expansions
+   */
+  long getExpansions() {
+    return expansions;
+  }
+
+  /**
+   * Clear the search and start a new one
+   *
+   * @param sStart Start node
+   * @param sGoal Goal node
+   * @param grid Grid to search
+   * @param schedule How the path should be improved over time
+   */
+  void reset(GridPosition sStart, GridPosition sGoal, GridSnapshot grid, AnytimeSchedule schedule) {
+    g.clear();
+    rhs.clear();
+    open.clear();
+    incons.clear();
+    closed.clear();
+
+    for (int x = 0; x < grid.nodesX; x++) {
+      for (int y = 0; y < grid.nodesY; y++) {
+        g.put(new GridPosition(x, y), Double.POSITIVE_INFINITY);
+        rhs.put(new GridPosition(x, y), Double.POSITIVE_INFINITY);
+      }
+    }
+
+    rhs.put(sGoal, 0.0);
+
+    this.schedule = schedule;
+    eps = schedule.initialInflation();
+    outOfTime = false;
+
+    open.put(sGoal, key(sGoal, sStart));
+  }
+
+  /**
+   * Stop inflating the heuristic. Used when an optimal path is already known from another search,
+   * so the next call to {@link #computeOrImprovePath(GridPosition, GridPosition, GridSnapshot)}
+   * will build the optimal search tree directly.
+   *
+   * @param sStart Start node
+   */
+  void disableInflation(GridPosition sStart) {
+    eps = 1.0;
+    open.replaceAll((s, v) -> key(s, sStart));
+  }
+
+  /**
+   * Lower the heuristic inflation by the schedule's step and improve the current path. If the
+   * improvement runs out of time, the rest of it is finished by the next call to {@link
+   * #computeOrImprovePath(GridPosition, GridPosition, GridSnapshot)}, and no more improvements are
+   * made until the search is reset.
+   *
+   * @param sStart Start node
+   * @param sGoal Goal node
+   * @param grid Grid to search
+   * @return True if the path was improved, false if it can't be improved or ran out of time
+   */
+  boolean improvePath(GridPosition sStart, GridPosition sGoal, GridSnapshot grid) {
+    if (!canImprove()) {
+      return false;
+    }
+
+    long startNanos = System.nanoTime();
+    eps = Math.max(1.0, eps - schedule.inflationStep());
+    open.putAll(incons);
+
+    open.replaceAll((s, v) -> key(s, sStart));
+    closed.clear();
+    if (!computeOrImprovePath(sStart, sGoal, grid, startNanos, schedule.improvementBudgetNanos())) {
+      outOfTime = true;
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Run the search until the path from the start node is found with the current inflation
+   *
+   * @param sStart Start node
+   * @param sGoal Goal node
+   * @param grid Grid to search
+   */
+  void computeOrImprovePath(GridPosition sStart, GridPosition sGoal, GridSnapshot grid) {
+    computeOrImprovePath(sStart, sGoal, grid, System.nanoTime(), Long.MAX_VALUE);
+  }
+
+  /**
+   * Run the search until the path from the start node is found with the current inflation, or the
+   * time budget runs out
+   *
+   * @return True if the path was found, false if the search ran out of time
+   */
+  private boolean computeOrImprovePath(
+      GridPosition sStart,
+      GridPosition sGoal,
+      GridSnapshot grid,
+      long startNanos,
+      long budgetNanos) {
+    while (true) {
+      var sv = topKey();
+      if (sv == null) {
+        return true;
+      }
+      var s = sv.getFirst();
+      var v = sv.getSecond();
+
+      if (comparePair(v, key(sStart, sStart)) >= 0 && rhs.get(sStart).equals(g.get(sStart))) {
+        return true;
+      }
+
+      if (budgetNanos != Long.MAX_VALUE && System.nanoTime() - startNanos > budgetNanos) {
+        return false;
+      }
+
+      open.remove(s);
+      expansions++;
+
+      if (g.get(s) > rhs.get(s)) {
+        g.put(s, rhs.get(s));
+        closed.add(s);
+
+        for (GridPosition sn : grid.getOpenNeighbors(s)) {
+          updateState(sn, sStart, sGoal, grid);
+        }
+      } else {
+        g.put(s, Double.POSITIVE_INFINITY);
+        for (GridPosition sn : grid.getOpenNeighbors(s)) {
+          updateState(sn, sStart, sGoal, grid);
+        }
+        updateState(s, sStart, sGoal, grid);
+      }
+    }
+  }
+
+  /**
+   * Get the path found by the search
+   *
+   * @param sStart Start node
+   * @param sGoal Goal node
+   * @param grid Grid that was searched
+   * @return Every node along the path, including the start and goal. If the costs lead back to a
+   *     node already on the path, the path stops before it and does not reach the goal.
+   */
+  List<GridPosition> extractPath(GridPosition sStart, GridPosition sGoal, GridSnapshot grid) {
+    if (sGoal.equals(sStart)) {
+      return new ArrayList<>();
+    }
+
+    List<GridPosition> path = new ArrayList<>();
+    Set<GridPosition> visited = new HashSet<>();
+    path.add(sStart);
+    visited.add(sStart);
+
+    var s = sStart;
+
+    // A path can't be longer than the number of nodes without revisiting one
+    int maxSteps = grid.nodesX * grid.nodesY;
+    for (int k = 0; k < maxSteps; k++) {
+      // Move to the neighbor the rest of the path is cheapest through, the same way rhs is found.
+      // Moves that cut the corner of an obstacle cost infinity, so they are never taken.
+      GridPosition next = sGoal;
+      double nextCost = Double.POSITIVE_INFINITY;
+      for (GridPosition x : grid.getOpenNeighbors(s)) {
+        if (x.equals(s)) {
+          continue;
+        }
+
+        double cost = grid.cost(s, x) + g.get(x);
+        if (cost < nextCost) {
+          next = x;
+          nextCost = cost;
+        }
+      }
+      if (!visited.add(next)) {
+        // The costs are out of date and lead in a loop
+        break;
+      }
+      s = next;
+
+      path.add(s);
+      if (s.equals(sGoal)) {
+        break;
+      }
+    }
+
+    return path;
+  }
+
+  /**
+   * Get a path to a goal near the goal the search was started from, without searching again. The
+   * path to the search goal is followed until the node where leaving it for the new goal is the
+   * cheapest, which is found with a small search around the new goal. The path is at most {@code 2
+   * * maxDetour} longer than the optimal path.
+   *
+   * @param sStart Start node
+   * @param sSearchGoal Goal node the search was started from
+   * @param sGoal New goal node
+   * @param grid Grid that was searched
+   * @param maxDetour Max cost of the new part of the path
+   * @return Every node along the path, including the start and goal. Empty if the path to the
+   *     search goal does not come close enough to the new goal.
+   */
+  List<GridPosition> extractPathToMovedGoal(
+      GridPosition sStart,
+      GridPosition sSearchGoal,
+      GridPosition sGoal,
+      GridSnapshot grid,
+      double maxDetour) {
+    List<GridPosition> path = extractPath(sStart, sSearchGoal, grid);
+    if (path.isEmpty() || !path.get(path.size() - 1).equals(sSearchGoal)) {
+      return new ArrayList<>();
+    }
+
+    // Cost of reaching the new goal from every node close to it
+    Map<GridPosition, Double> dist = new HashMap<>();
+    Map<GridPosition, GridPosition> toGoal = new HashMap<>();
+    PriorityQueue<Pair<GridPosition, Double>> queue =
+        new PriorityQueue<>(Comparator.comparingDouble(Pair::getSecond));
+    dist.put(sGoal, 0.0);
+    queue.add(Pair.of(sGoal, 0.0));
+    while (!queue.isEmpty()) {
+      var entry = queue.poll();
+      GridPosition s = entry.getFirst();
+      if (entry.getSecond() > dist.get(s)) {
+        continue;
+      }
+
+      for (GridPosition sn : grid.getOpenNeighbors(s)) {
+        double d = entry.getSecond() + grid.cost(sn, s);
+        if (d <= maxDetour && d < dist.getOrDefault(sn, Double.POSITIVE_INFINITY)) {
+          dist.put(sn, d);
+          toGoal.put(sn, s);
+          queue.add(Pair.of(sn, d));
+        }
+      }
+    }
+
+    int best = -1;
+    double bestCost = Double.POSITIVE_INFINITY;
+    double costSoFar = 0.0;
+    for (int i = 0; i < path.size(); i++) {
+      if (i > 0) {
+        costSoFar += grid.lineCost(path.get(i - 1), path.get(i));
+      }
+
+      Double d = dist.get(path.get(i));
+      if (d != null && costSoFar + d < bestCost) {
+        best = i;
+        bestCost = costSoFar + d;
+      }
+    }
+
+    if (best < 0 || !Double.isFinite(bestCost)) {
+      return new ArrayList<>();
+    }
+
+    List<GridPosition> newPath = new ArrayList<>(path.subList(0, best + 1));
+    for (GridPosition s = path.get(best); !s.equals(sGoal); ) {
+      s = toGoal.get(s);
+      newPath.add(s);
+    }
+    return newPath;
+  }
+
+  /**
+   * Get the cost of the path found by the search
+   *
+   * @param sStart Start node
+   * @return Cost of the path from the start node, or infinity if no path was found
+   */
+  double pathCost(GridPosition sStart) {
+    return g.getOrDefault(sStart, Double.POSITIVE_INFINITY);
+  }
+
+  private void updateState(
+      GridPosition s, GridPosition sStart, GridPosition sGoal, GridSnapshot grid) {
+    if (!s.equals(sGoal)) {
+      rhs.put(s, Double.POSITIVE_INFINITY);
+
+      for (GridPosition x : grid.getOpenNeighbors(s)) {
+        rhs.put(s, Math.min(rhs.get(s), g.get(x) + grid.cost(s, x)));
+      }
+    }
+
+    open.remove(s);
+
+    if (!g.get(s).equals(rhs.get(s))) {
+      if (!closed.contains(s)) {
+        open.put(s, key(s, sStart));
+      } else {
+        incons.put(s, Pair.of(0.0, 0.0));
+      }
+    }
+  }
+
+  private Pair<Double, Double> key(GridPosition s, GridPosition sStart) {
+    if (g.get(s) > rhs.get(s)) {
+      return Pair.of(rhs.get(s) + eps * heuristic(sStart, s), rhs.get(s));
+    } else {
+      return Pair.of(g.get(s) + heuristic(sStart, s), g.get(s));
+    }
+  }
+
+  private Pair<GridPosition, Pair<Double, Double>> topKey() {
+    Map.Entry<GridPosition, Pair<Double, Double>> min = null;
+    for (var entry : open.entrySet()) {
+      if (min == null || comparePair(entry.getValue(), min.getValue()) < 0) {
+        min = entry;
+      }
+    }
+
+    if (min == null) {
+      return null;
+    }
+
+    return Pair.of(min.getKey(), min.getValue());
+  }
+
+  private double heuristic(GridPosition sStart, GridPosition sGoal) {
+    return Math.hypot(sGoal.x() - sStart.x(), sGoal.y() - sStart.y());
+  }
+
+  private int comparePair(Pair<Double, Double> a, Pair<Double, Double> b) {
+    int first = Double.compare(a.getFirst(), b.getFirst());
+    if (first == 0) {
+      return Double.compare(a.getSecond(), b.getSecond());
+    } else {
+      return first;
+    }
+  }
+}
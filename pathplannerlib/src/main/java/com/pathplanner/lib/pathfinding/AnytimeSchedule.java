@@ -0,0 +1,82 @@
+package com.pathplanner.lib.pathfinding;
+
+/**
+ * Controls how AD* trades path quality against how often a new path is published. The first path is
+ * found with an inflated heuristic, which is fast but may be longer than the optimal path. Each
+ * improvement lowers the inflation until it reaches 1.0, where the path is optimal.
+ *
+ * <p>Every new path causes the pathfinding command to regenerate its trajectory, so publishing
+ * fewer, larger improvements lowers the load on the robot.
+ *
+ * @param initialInflation Inflation of the heuristic for the first path. The first path costs at
+ *     most this many times the optimal path. Must be at least 1.0.
+ * @param inflationStep How much the inflation is lowered by each improvement. Must be greater than
+ *     0.
+ * @param improvementTimeBudgetSeconds Time allowed for each improvement, in seconds. If an
+ *     improvement takes longer, the current path is kept and no more improvements are made until
+ *     the goal changes. Use infinity for no limit.
+ * @param minCostImprovement Fraction of the cost of the last published path that an improved path
+ *     must save before it is published, such as 0.05 for 5%. Use 0 to publish every improvement.
+ */
+public record AnytimeSchedule(
+    double initialInflation,
+    double inflationStep,
+    double improvementTimeBudgetSeconds,
+    double minCostImprovement) {
+  /**
+   * Create a new anytime schedule
+   *
+   * @throws IllegalArgumentException if the inflation is below 1.0, the step is not positive, the
+   *     time budget is not positive, or the cost improvement is not between 0 and 1
+   */
+  public AnytimeSchedule {
+    if (!(initialInflation >= 1.0)) {
+      throw new IllegalArgumentException("Initial inflation must be at least 1.0");
+    }
+    if (!(inflationStep > 0.0)) {
+      throw new IllegalArgumentException("Inflation step must be greater than 0");
+    }
+    if (!(improvementTimeBudgetSeconds > 0.0)) {
+      throw new IllegalArgumentException("Improvement time budget must be greater than 0");
+    }
+    if (!(minCostImprovement >= 0.0 && minCostImprovement < 1.0)) {
+      throw new IllegalArgumentException("Minimum cost improvement must be in [0, 1)");
+    }
+  }
+
+  /**
+   * Get the schedule used by default. The first path is found with an inflation of 2.5, which is
+   * lowered by 0.5 each improvement, and every improvement is published.
+   *
+   * @return The default schedule
+   */
+  public static AnytimeSchedule defaults() {
+    return new AnytimeSchedule(2.5, 0.5, Double.POSITIVE_INFINITY, 0.0);
+  }
+
+  /**
+   * Get the time allowed for each improvement
+   *
+   * @return The time budget, in nanoseconds
+   */
+  long improvementBudgetNanos() {
+    if (improvementTimeBudgetSeconds * 1e9 >= Long.MAX_VALUE) {
+      return Long.MAX_VALUE;
+    }
+    return (long) (improvementTimeBudgetSeconds * 1e9);
+  }
+
+  /**
+   * Check if an improved path saves enough to be published
+   *
+   * @param publishedCost Cost of the last published path, or infinity if its cost is unknown
+   * @param improvedCost Cost of the improved path
+   * @return True if the improved path should be published
+   */
+  boolean isWorthPublishing(double publishedCost, double improvedCost) {
+    if (!Double.isFinite(publishedCost)) {
+      return true;
+    }
+    return improvedCost <= publishedCost * (1.0 - minCostImprovement);
+  }
+}
@@ -0,0 +1,235 @@
+package com.pathplanner.lib.pathfinding;
+
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import java.util.*;
+
+/**
+ * Cost to reach a single goal from every node of the grid. Once the field has been computed, a path
+ * from any start node can be extracted by following the cost downhill, which only takes time
+ * proportional to the length of the path. When obstacles change, the field is repaired with LPA*
+ * instead of being recomputed, so only the nodes whose cost actually changed are updated.
+ *
+ * <p>A field is not modified once it has been computed. Repairing it returns a new field, so a
+ * field can be shared between threads while another thread repairs it.
+ */
+final class GoalCostField {
+  private final GridPosition goal;
+  private final int nodesX;
+  private final int nodesY;
+
+  private final double[] g;
+  private final double[] rhs;
+  private final PriorityQueue<QueueEntry> open =
+      new PriorityQueue<>(Comparator.comparingDouble(QueueEntry::key));
+
+  private GridSnapshot grid;
+
+  /**
+   * Compute the cost field for a goal
+   *
+   * @param goal Goal node. This should not be an obstacle.
+   * @param grid Grid to compute the field on
+   */
+  GoalCostField(GridPosition goal, GridSnapshot grid) {
+    this.goal = goal;
+    this.nodesX = grid.nodesX;
+    this.nodesY = grid.nodesY;
+    this.grid = grid;
+
+    this.g = new double[nodesX * nodesY];
+    this.rhs = new double[nodesX * nodesY];
+    Arrays.fill(g, Double.POSITIVE_INFINITY);
+    Arrays.fill(rhs, Double.POSITIVE_INFINITY);
+
+    rhs[index(goal)] = 0.0;
+    open.add(new QueueEntry(index(goal), 0.0));
+    computeCosts();
+  }
+
+  private GoalCostField(GoalCostField other) {
+    this.goal = other.goal;
+    this.nodesX = other.nodesX;
+    this.nodesY = other.nodesY;
+    this.grid = other.grid;
+
+    this.g = other.g.clone();
+    this.rhs = other.rhs.clone();
+    this.open.addAll(other.open);
+  }
+
+  /**
+   * Get the goal node of this field
+   *
+   * @return The goal node
+   */
+  GridPosition getGoal() {
+    return goal;
+  }
+
+  /**
+   * Check if this field was computed on the given grid
+   *
+   * @param grid The grid to check
+   * @return True if the field is up to date with the grid
+   */
+  boolean isUpToDate(GridSnapshot grid) {
+    return this.grid == grid;
+  }
+
+  /**
+   * Repair the field after the obstacles or clearance cost of the grid have changed. Only the nodes
+   * next to a changed node, and the nodes whose cost depends on them, will be updated.
+   *
+   * @param newGrid The new grid
+   * @return A field up to date with the new grid. This field is returned if it is already up to
+   *     date, otherwise this field is left unchanged.
+   */
+  GoalCostField repaired(GridSnapshot newGrid) {
+    if (newGrid == grid) {
+      return this;
+    }
+
+    GoalCostField field = new GoalCostField(this);
+    field.update(newGrid);
+    return field;
+  }
+
+  private void update(GridSnapshot newGrid) {
+    GridSnapshot oldGrid = grid;
+    grid = newGrid;
+
+    Set<Integer> affected = new HashSet<>();
+    for (int x = 0; x < nodesX; x++) {
+      for (int y = 0; y < nodesY; y++) {
+        GridPosition pos = new GridPosition(x, y);
+        if (oldGrid.isObstacle(pos) != newGrid.isObstacle(pos)
+            || oldGrid.clearanceCost(pos) != newGrid.clearanceCost(pos)) {
+          // Every edge that touches or cuts the corner of this node has an endpoint in this block
+          for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+              if (grid.inBounds(x + dx, y + dy)) {
+                affected.add(((y + dy) * nodesX) + x + dx);
+              }
+            }
+          }
+        }
+      }
+    }
+
+    for (int s : affected) {
+      updateState(s);
+    }
+    computeCosts();
+  }
+
+  /**
+   * Get the cost of the cheapest path from a node to the goal
+   *
+   * @param s The node
+   * @return Cost to the goal, or infinity if the goal cannot be reached
+   */
+  double costToGoal(GridPosition s) {
+    if (!grid.inBounds(s.x(), s.y())) {
+      return Double.POSITIVE_INFINITY;
+    }
+
+    return g[index(s)];
+  }
+
+  /**
+   * Extract the cheapest path from a start node to the goal
+   *
+   * @param sStart Start node
+   * @return Every node along the path, including the start and goal. Empty if the goal cannot be
+   *     reached.
+   */
+  List<GridPosition> extractPath(GridPosition sStart) {
+    List<GridPosition> path = new ArrayList<>();
+    if (sStart.equals(goal) || !Double.isFinite(costToGoal(sStart))) {
+      return path;
+    }
+
+    GridPosition s = sStart;
+    path.add(s);
+    while (!s.equals(goal)) {
+      GridPosition best = null;
+      double bestCost = Double.POSITIVE_INFINITY;
+      for (GridPosition sn : grid.getOpenNeighbors(s)) {
+        if (sn.equals(s)) {
+          continue;
+        }
+
+        double c = grid.cost(s, sn) + g[index(sn)];
+        if (c < bestCost) {
+          bestCost = c;
+          best = sn;
+        }
+      }
+
+      if (best == null) {
+        // Only possible if the field is inconsistent, which should never happen
+        return new ArrayList<>();
+      }
+
+      s = best;
+      path.add(s);
+    }
+
+    return path;
+  }
+
+  private void computeCosts() {
+    while (!open.isEmpty()) {
+      QueueEntry entry = open.poll();
+      int s = entry.index();
+      if (g[s] == rhs[s] || entry.key() != Math.min(g[s], rhs[s])) {
+        // Outdated entry
+        continue;
+      }
+
+      GridPosition pos = position(s);
+      if (g[s] > rhs[s]) {
+        g[s] = rhs[s];
+        for (GridPosition sn : grid.getOpenNeighbors(pos)) {
+          updateState(index(sn));
+        }
+      } else {
+        g[s] = Double.POSITIVE_INFINITY;
+        for (GridPosition sn : grid.getOpenNeighbors(pos)) {
+          updateState(index(sn));
+        }
+        updateState(s);
+      }
+    }
+  }
+
+  private void updateState(int s) {
+    GridPosition pos = position(s);
+
+    if (!pos.equals(goal)) {
+      rhs[s] = Double.POSITIVE_INFINITY;
+      if (!grid.isObstacle(pos)) {
+        for (GridPosition sn : grid.getOpenNeighbors(pos)) {
+          if (sn.equals(pos)) {
+            continue;
+          }
+          rhs[s] = Math.min(rhs[s], g[index(sn)] + grid.cost(pos, sn));
+        }
+      }
+    }
+
+    if (g[s] != rhs[s]) {
+      open.add(new QueueEntry(s, Math.min(g[s], rhs[s])));
+    }
+  }
+
+  private int index(GridPosition pos) {
+    return (pos.y() * nodesX) + pos.x();
+  }
+
+  private GridPosition position(int idx) {
+    return new GridPosition(idx % nodesX, idx / nodesX);
+  }
+
+  private record QueueEntry(int index, double key) {}
+}
@@ -0,0 +1,58 @@
+package com.pathplanner.lib.pathfinding;
+
+import com.pathplanner.lib.config.RobotConfig;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.trajectory.PathPlannerTrajectory;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+
+/**
+ * Result of choosing the fastest goal to reach out of several candidates
+ *
+ * @param goalIndex Index of the chosen goal in the list of candidates, or -1 if none of them could
+ *     be reached
+ * @param path The path to the chosen goal, or null if none of them could be reached
+ * @param estimatedTimeSeconds Estimated time to follow the path, from the trajectory generated for
+ *     it. Infinity if none of the goals could be reached.
+ */
+public record GoalSelectionResult(
+    int goalIndex, PathPlannerPath path, double estimatedTimeSeconds) {
+  /**
+   * Get if any of the goals could be reached
+   *
+   * @return True if a goal was chosen
+   */
+  public boolean hasPath() {
+    return path != null;
+  }
+
+  /**
+   * Create a result for when none of the goals could be reached
+   *
+   * @return The empty result
+   */
+  static GoalSelectionResult none() {
+    return new GoalSelectionResult(-1, null, Double.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Estimate how long it will take to follow a path by generating its trajectory
+   *
+   * @param path The path to follow, or null if there is no path
+   * @param startPose The pose of the robot at the start of the path
+   * @param startSpeeds The robot-relative speeds of the robot at the start of the path
+   * @param robotConfig The robot configuration
+   * @return Total time of the trajectory, in seconds. Infinity if there is no path.
+   */
+  static double estimateTime(
+      PathPlannerPath path, Pose2d startPose, ChassisSpeeds startSpeeds, RobotConfig robotConfig) {
+    if (path == null) {
+      return Double.POSITIVE_INFINITY;
+    }
+
+    double time =
+        new PathPlannerTrajectory(path, startSpeeds, startPose.getRotation(), robotConfig)
+            .getTotalTimeSeconds();
+    return Double.isFinite(time) ? time : Double.POSITIVE_INFINITY;
+  }
+}
@@ -0,0 +1,362 @@
+package com.pathplanner.lib.pathfinding;
+
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import edu.wpi.first.math.MathUtil;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Snapshot of the pathfinding grid and its obstacles. A snapshot is never modified after it is
+ * created, so it can be used by a search while new obstacles are being set.
+ *
+ * <p>The per-node costs and distances are stored by row. A snapshot created with {@link
+ * #withChanges(BitSet, BitSet, IntToDoubleFunction, IntToDoubleFunction)} shares every row without
+ * a changed node with the snapshot it was created from, so small obstacle updates only copy a few
+ * rows.
+ */
+final class GridSnapshot {
+  /** Number of nodes in the X direction */
+  final int nodesX;
+  /** Number of nodes in the Y direction */
+  final int nodesY;
+
+  private final BitSet obstacles;
+  private final double[][] clearanceCost;
+  private final double[][] obstacleDistance;
+
+  /**
+   * Create a new grid snapshot
+   *
+   * @param nodesX Number of nodes in the X direction
+   * @param nodesY Number of nodes in the Y direction
+   * @param obstacles Obstacle nodes, indexed by {@code y * nodesX + x}. This is copied.
+   * @param clearanceCost Additional cost multiplier for moving through each node, indexed by {@code
+   *     y * nodesX + x}. Can be empty if there is no clearance cost.
+   * @param obstacleDistance Distance from each node to the closest obstacle before inflation, in
+   *     nodes, indexed by {@code y * nodesX + x}
+   */
+  GridSnapshot(
+      int nodesX, int nodesY, BitSet obstacles, double[] clearanceCost, double[] obstacleDistance) {
+    this(
+        nodesX,
+        nodesY,
+        (BitSet) obstacles.clone(),
+        toRows(clearanceCost, nodesX, nodesY),
+        toRows(obstacleDistance, nodesX, nodesY));
+  }
+
+  private GridSnapshot(
+      int nodesX,
+      int nodesY,
+      BitSet obstacles,
+      double[][] clearanceCost,
+      double[][] obstacleDistance) {
+    this.nodesX = nodesX;
+    this.nodesY = nodesY;
+    this.obstacles = obstacles;
+    this.clearanceCost = clearanceCost;
+    this.obstacleDistance = obstacleDistance;
+  }
+
+  /**
+   * Create a snapshot with new values for some nodes. Rows without a changed node are shared with
+   * this snapshot instead of being copied.
+   *
+   * @param obstacles Obstacle nodes of the new snapshot, indexed by {@code y * nodesX + x}. This is
+   *     copied.
+   * @param changedNodes Nodes whose clearance cost or obstacle distance changed
+   * @param clearanceCost New clearance cost of a changed node, by index. Ignored if there is no
+   *     clearance cost.
+   * @param obstacleDistance New obstacle distance of a changed node, by index
+   * @return The new snapshot
+   */
+  GridSnapshot withChanges(
+      BitSet obstacles,
+      BitSet changedNodes,
+      IntToDoubleFunction clearanceCost,
+      IntToDoubleFunction obstacleDistance) {
+    double[][] newClearance = this.clearanceCost.clone();
+    double[][] newDistance = this.obstacleDistance.clone();
+
+    int copiedRow = -1;
+    for (int i = changedNodes.nextSetBit(0); i >= 0; i = changedNodes.nextSetBit(i + 1)) {
+      int row = i / nodesX;
+      if (row != copiedRow) {
+        // Changed nodes are visited in index order, so each row only needs to be copied once
+        if (newClearance.length != 0) {
+          newClearance[row] = newClearance[row].clone();
+        }
+        newDistance[row] = newDistance[row].clone();
+        copiedRow = row;
+      }
+
+      if (newClearance.length != 0) {
+        newClearance[row][i % nodesX] = clearanceCost.applyAsDouble(i);
+      }
+      newDistance[row][i % nodesX] = obstacleDistance.applyAsDouble(i);
+    }
+
+    return new GridSnapshot(nodesX, nodesY, (BitSet) obstacles.clone(), newClearance, newDistance);
+  }
+
+  /**
+   * Find the nodes whose obstacles or clearance cost differ from another snapshot of the same grid.
+   * Rows that are shared between the snapshots are skipped, so this only compares the rows that
+   * were copied by {@link #withChanges(BitSet, BitSet, IntToDoubleFunction, IntToDoubleFunction)}.
+   *
+   * @param other Another snapshot with the same size
+   * @return The changed nodes, indexed by {@code y * nodesX + x}
+   */
+  BitSet changedNodes(GridSnapshot other) {
+    BitSet changed = (BitSet) obstacles.clone();
+    changed.xor(other.obstacles);
+
+    if (clearanceCost.length != other.clearanceCost.length) {
+      changed.set(0, nodesX * nodesY);
+      return changed;
+    }
+
+    for (int y = 0; y < clearanceCost.length; y++) {
+      if (clearanceCost[y] == other.clearanceCost[y]) {
+        continue;
+      }
+
+      for (int x = 0; x < nodesX; x++) {
+        if (clearanceCost[y][x] != other.clearanceCost[y][x]) {
+          changed.set((y * nodesX) + x);
+        }
+      }
+    }
+
+    return changed;
+  }
+
+  private static double[][] toRows(double[] values, int nodesX, int nodesY) {
+    if (values.length == 0) {
+      return new double[0][];
+    }
+
+    double[][] rows = new double[nodesY][];
+    for (int y = 0; y < nodesY; y++) {
+      rows[y] = Arrays.copyOfRange(values, y * nodesX, (y + 1) * nodesX);
+    }
+    return rows;
+  }
+
+  boolean inBounds(int x, int y) {
+    return x >= 0 && x < nodesX && y >= 0 && y < nodesY;
+  }
+
+  /** Check if every move has the same cost per unit of distance, i.e. there is no clearance cost */
+  boolean hasUniformCost() {
+    return clearanceCost.length == 0;
+  }
+
+  boolean isObstacle(GridPosition pos) {
+    return inBounds(pos.x(), pos.y()) && obstacles.get(pos.y() * nodesX + pos.x());
+  }
+
+  /**
+   * Check if moving between two adjacent nodes would collide with an obstacle. Diagonal moves are
+   * not allowed to cut the corner of an obstacle.
+   */
+  boolean isCollision(GridPosition sStart, GridPosition sEnd) {
+    if (isObstacle(sStart) || isObstacle(sEnd)) {
+      return true;
+    }
+
+    if (sStart.x() != sEnd.x() && sStart.y() != sEnd.y()) {
+      GridPosition s1;
+      GridPosition s2;
+
+      if (sEnd.x() - sStart.x() == sStart.y() - sEnd.y()) {
+        s1 = new GridPosition(Math.min(sStart.x(), sEnd.x()), Math.min(sStart.y(), sEnd.y()));
+        s2 = new GridPosition(Math.max(sStart.x(), sEnd.x()), Math.max(sStart.y(), sEnd.y()));
+      } else {
+        s1 = new GridPosition(Math.min(sStart.x(), sEnd.x()), Math.max(sStart.y(), sEnd.y()));
+        s2 = new GridPosition(Math.max(sStart.x(), sEnd.x()), Math.min(sStart.y(), sEnd.y()));
+      }
+
+      return isObstacle(s1) || isObstacle(s2);
+    }
+
+    return false;
+  }
+
+  /** Cost of moving between two adjacent nodes, or infinity if the move is blocked */
+  double cost(GridPosition sStart, GridPosition sEnd) {
+    if (isCollision(sStart, sEnd)) {
+      return Double.POSITIVE_INFINITY;
+    }
+
+    return lineCost(sStart, sEnd);
+  }
+
+  /**
+   * Cost of moving in a straight line between two nodes. This does not check for collisions, use
+   * {@link #lineOfSight(GridPosition, GridPosition)} first if that is needed.
+   *
+   * <p>The clearance cost is averaged over every node the line crosses, with the start and end
+   * nodes counting half since only half of each is crossed. A move between neighbors costs the same
+   * as before, and a long line that passes close to an obstacle costs more even if both of its ends
+   * are far from it.
+   */
+  double lineCost(GridPosition sStart, GridPosition sEnd) {
+    double dist = Math.hypot(sEnd.x() - sStart.x(), sEnd.y() - sStart.y());
+    if (clearanceCost.length == 0) {
+      return dist;
+    }
+
+    double endsCost = (clearanceCost(sStart) + clearanceCost(sEnd)) / 2.0;
+    if (Math.abs(sEnd.x() - sStart.x()) <= 1 && Math.abs(sEnd.y() - sStart.y()) <= 1) {
+      return dist * (1.0 + endsCost);
+    }
+
+    List<GridPosition> cells = traceLine(sStart, sEnd);
+    double totalCost = endsCost;
+    for (int i = 1; i < cells.size() - 1; i++) {
+      totalCost += clearanceCost(cells.get(i));
+    }
+
+    return dist * (1.0 + (totalCost / (cells.size() - 1)));
+  }
+
+  /** Additional cost multiplier for moving through a node, or 0 if there is no clearance cost */
+  double clearanceCost(GridPosition pos) {
+    if (clearanceCost.length == 0 || !inBounds(pos.x(), pos.y())) {
+      return 0.0;
+    }
+
+    return clearanceCost[pos.y()][pos.x()];
+  }
+
+  /**
+   * Distance from a position to the closest obstacle before inflation, interpolated between the
+   * centers of the surrounding nodes
+   *
+   * @param x X position, in nodes
+   * @param y Y position, in nodes
+   * @return Distance to the closest obstacle, in nodes. Very large if there are no obstacles.
+   */
+  double obstacleDistance(double x, double y) {
+    double fx = MathUtil.clamp(x - 0.5, 0.0, nodesX - 1.0);
+    double fy = MathUtil.clamp(y - 0.5, 0.0, nodesY - 1.0);
+    int x0 = Math.min((int) fx, nodesX - 2);
+    int y0 = Math.min((int) fy, nodesY - 2);
+    double tx = fx - x0;
+    double ty = fy - y0;
+
+    double d00 = nodeDistance(x0, y0);
+    double d10 = nodeDistance(x0 + 1, y0);
+    double d01 = nodeDistance(x0, y0 + 1);
+    double d11 = nodeDistance(x0 + 1, y0 + 1);
+    return (d00 * (1 - tx) + d10 * tx) * (1 - ty) + (d01 * (1 - tx) + d11 * tx) * ty;
+  }
+
+  private double nodeDistance(int x, int y) {
+    if (!inBounds(x, y)) {
+      return 0.0;
+    }
+
+    // Infinite distances would poison the interpolation when there are no obstacles
+    return Math.min(obstacleDistance[y][x], nodesX + nodesY);
+  }
+
+  /** Check if there is an unobstructed straight line between two nodes */
+  boolean lineOfSight(GridPosition s1, GridPosition s2) {
+    int x0 = s1.x();
+    int y0 = s1.y();
+    int x1 = s2.x();
+    int y1 = s2.y();
+
+    int dx = Math.abs(x1 - x0);
+    int dy = Math.abs(y1 - y0);
+    int x = x0;
+    int y = y0;
+    int n = 1 + dx + dy;
+    int xInc = (x1 > x0) ? 1 : -1;
+    int yInc = (y1 > y0) ? 1 : -1;
+    int error = dx - dy;
+    dx *= 2;
+    dy *= 2;
+
+    for (; n > 0; n--) {
+      if (isObstacle(new GridPosition(x, y))) {
+        return false;
+      }
+
+      if (error > 0) {
+        x += xInc;
+        error -= dy;
+      } else if (error < 0) {
+        y += yInc;
+        error += dx;
+      } else {
+        x += xInc;
+        y += yInc;
+        error -= dy;
+        error += dx;
+        n--;
+      }
+    }
+
+    return true;
+  }
+
+  /** Get all neighbors of a node that are within the grid and not an obstacle */
+  List<GridPosition> getOpenNeighbors(GridPosition s) {
+    List<GridPosition> ret = new ArrayList<>();
+
+    for (int xMove = -1; xMove <= 1; xMove++) {
+      for (int yMove = -1; yMove <= 1; yMove++) {
+        GridPosition sNext = new GridPosition(s.x() + xMove, s.y() + yMove);
+        if (!isObstacle(sNext) && inBounds(sNext.x(), sNext.y())) {
+          ret.add(sNext);
+        }
+      }
+    }
+    return ret;
+  }
+
+  /**
+   * Get all nodes crossed by a straight line between two nodes, in order. This uses the same
+   * traversal as {@link #lineOfSight(GridPosition, GridPosition)}.
+   */
+  static List<GridPosition> traceLine(GridPosition s1, GridPosition s2) {
+    List<GridPosition> cells = new ArrayList<>();
+
+    int dx = Math.abs(s2.x() - s1.x());
+    int dy = Math.abs(s2.y() - s1.y());
+    int x = s1.x();
+    int y = s1.y();
+    int n = 1 + dx + dy;
+    int xInc = (s2.x() > s1.x()) ? 1 : -1;
+    int yInc = (s2.y() > s1.y()) ? 1 : -1;
+    int error = dx - dy;
+    dx *= 2;
+    dy *= 2;
+
+    for (; n > 0; n--) {
+      cells.add(new GridPosition(x, y));
+
+      if (error > 0) {
+        x += xInc;
+        error -= dy;
+      } else if (error < 0) {
+        y += yInc;
+        error += dx;
+      } else {
+        x += xInc;
+        y += yInc;
+        error -= dy;
+        error += dx;
+        n--;
+      }
+    }
+
+    return cells;
+  }
+}
@@ -0,0 +1,462 @@
+package com.pathplanner.lib.pathfinding;
+
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import java.util.*;
+
+/**
+ * Abstract graph used for hierarchical pathfinding (HPA*). The grid is split into square clusters,
+ * and the graph connects the entrances between neighboring clusters. A search over this graph only
+ * needs to look at a few nodes per cluster, then the path is refined on the grid inside the
+ * clusters it crosses. When obstacles change, only the clusters containing changed nodes are
+ * rebuilt.
+ */
+final class HierarchicalGraph {
+  private static final int MAX_SINGLE_TRANSITION_LENGTH = 6;
+
+  private final int nodesX;
+  private final int nodesY;
+  private final int clusterSize;
+  private final int clustersX;
+  private final int clustersY;
+
+  private final boolean[] blocked;
+  private final Map<Integer, List<GridPosition[]>> borderTransitions = new HashMap<>();
+  private final Map<GridPosition, Set<GridPosition>> interEdges = new HashMap<>();
+  private final List<Map<GridPosition, Map<GridPosition, Double>>> intraEdges = new ArrayList<>();
+
+  private GridSnapshot grid;
+
+  /**
+   * Build the abstract graph for a grid
+   *
+   * @param grid The grid to build the graph from
+   * @param clusterSize Width and height of each cluster, in nodes
+   */
+  HierarchicalGraph(GridSnapshot grid, int clusterSize) {
+    this.nodesX = grid.nodesX;
+    this.nodesY = grid.nodesY;
+    this.clusterSize = clusterSize;
+    this.clustersX = (int) Math.ceil((double) nodesX / clusterSize);
+    this.clustersY = (int) Math.ceil((double) nodesY / clusterSize);
+    this.blocked = new boolean[nodesX * nodesY];
+    this.grid = grid;
+
+    for (int x = 0; x < nodesX; x++) {
+      for (int y = 0; y < nodesY; y++) {
+        blocked[y * nodesX + x] = grid.isObstacle(new GridPosition(x, y));
+      }
+    }
+
+    for (int c = 0; c < clustersX * clustersY; c++) {
+      intraEdges.add(new HashMap<>());
+    }
+    for (int c = 0; c < clustersX * clustersY; c++) {
+      buildBorders(c);
+    }
+    for (int c = 0; c < clustersX * clustersY; c++) {
+      buildIntraEdges(c);
+    }
+  }
+
+  /**
+   * Find a path between two nodes. The graph will first be updated for any obstacles in the grid
+   * that changed since the last search.
+   *
+   * @param sStart Start node
+   * @param sGoal Goal node
+   * @param newGrid The grid to search. Must have the same size as the grid used to build the graph.
+   * @return Every node along the path, including the start and goal. Empty if no path was found.
+   */
+  List<GridPosition> findPath(GridPosition sStart, GridPosition sGoal, GridSnapshot newGrid) {
+    update(newGrid);
+
+    if (sStart.equals(sGoal)) {
+      return new ArrayList<>();
+    }
+
+    int startCluster = clusterOf(sStart);
+    int goalCluster = clusterOf(sGoal);
+
+    // Temporarily connect the start and goal to the entrances of their clusters
+    ClusterSearch fromStart = new ClusterSearch(sStart, startCluster);
+    ClusterSearch fromGoal = new ClusterSearch(sGoal, goalCluster);
+    Map<GridPosition, Double> startEdges = fromStart.costsTo(clusterNodes(startCluster));
+    Map<GridPosition, Double> goalEdges = fromGoal.costsTo(clusterNodes(goalCluster));
+    if (startCluster == goalCluster) {
+      double direct = fromStart.costTo(sGoal);
+      if (Double.isFinite(direct)) {
+        startEdges.put(sGoal, direct);
+      }
+    }
+
+    List<GridPosition> abstractPath = searchAbstract(sStart, sGoal, startEdges, goalEdges);
+    if (abstractPath.isEmpty()) {
+      return abstractPath;
+    }
+
+    // Refine the abstract path into grid nodes, only searching the clusters the path crosses
+    List<GridPosition> path = new ArrayList<>();
+    path.add(sStart);
+    for (int i = 1; i < abstractPath.size(); i++) {
+      GridPosition from = abstractPath.get(i - 1);
+      GridPosition to = abstractPath.get(i);
+
+      if (clusterOf(from) != clusterOf(to)) {
+        // Entrance transition, these nodes are adjacent
+        path.add(to);
+      } else {
+        ClusterSearch search =
+            from.equals(sStart) ? fromStart : new ClusterSearch(from, clusterOf(from));
+        List<GridPosition> segment = search.pathTo(to);
+        path.addAll(segment.subList(1, segment.size()));
+      }
+    }
+
+    return path;
+  }
+
+  private List<GridPosition> searchAbstract(
+      GridPosition sStart,
+      GridPosition sGoal,
+      Map<GridPosition, Double> startEdges,
+      Map<GridPosition, Double> goalEdges) {
+    Map<GridPosition, Double> g = new HashMap<>();
+    Map<GridPosition, GridPosition> parent = new HashMap<>();
+    Set<GridPosition> closed = new HashSet<>();
+    PriorityQueue<OpenEntry> open = new PriorityQueue<>(Comparator.comparingDouble(OpenEntry::f));
+
+    g.put(sStart, 0.0);
+    open.add(new OpenEntry(sStart, heuristic(sStart, sGoal), 0.0));
+
+    while (!open.isEmpty()) {
+      OpenEntry entry = open.poll();
+      GridPosition s = entry.pos();
+      if (closed.contains(s) || entry.g() > g.get(s)) {
+        continue;
+      }
+
+      if (s.equals(sGoal)) {
+        List<GridPosition> path = new ArrayList<>();
+        path.add(s);
+        while (!s.equals(sStart)) {
+          s = parent.get(s);
+          path.add(s);
+        }
+        Collections.reverse(path);
+        return path;
+      }
+
+      closed.add(s);
+
+      // The start can also be an entrance, so it keeps its crossing into the next cluster
+      Map<GridPosition, Double> neighbors = new HashMap<>();
+      if (s.equals(sStart)) {
+        neighbors.putAll(startEdges);
+      } else {
+        neighbors.putAll(intraEdges.get(clusterOf(s)).getOrDefault(s, Map.of()));
+      }
+      for (GridPosition n : interEdges.getOrDefault(s, Set.of())) {
+        neighbors.merge(n, grid.cost(s, n), Math::min);
+      }
+      if (goalEdges.containsKey(s)) {
+        neighbors.merge(sGoal, goalEdges.get(s), Math::min);
+      }
+
+      for (var neighbor : neighbors.entrySet()) {
+        GridPosition sn = neighbor.getKey();
+        double newG = g.get(s) + neighbor.getValue();
+        if (!closed.contains(sn) && newG < g.getOrDefault(sn, Double.POSITIVE_INFINITY)) {
+          g.put(sn, newG);
+          parent.put(sn, s);
+          open.add(new OpenEntry(sn, newG + heuristic(sn, sGoal), newG));
+        }
+      }
+    }
+
+    return new ArrayList<>();
+  }
+
+  /** Rebuild the clusters that contain nodes whose obstacle state changed */
+  private void update(GridSnapshot newGrid) {
+    this.grid = newGrid;
+
+    Set<Integer> dirtyClusters = new HashSet<>();
+    for (int x = 0; x < nodesX; x++) {
+      for (int y = 0; y < nodesY; y++) {
+        boolean isObstacle = newGrid.isObstacle(new GridPosition(x, y));
+        if (blocked[y * nodesX + x] != isObstacle) {
+          blocked[y * nodesX + x] = isObstacle;
+          dirtyClusters.add(clusterOf(new GridPosition(x, y)));
+        }
+      }
+    }
+
+    if (dirtyClusters.isEmpty()) {
+      return;
+    }
+
+    // Entrances on the borders of a dirty cluster also change the nodes of its neighbors
+    Set<Integer> intraDirty = new HashSet<>(dirtyClusters);
+    for (int c : dirtyClusters) {
+      buildBorders(c);
+
+      int cx = c % clustersX;
+      int cy = c / clustersX;
+      if (cx > 0) {
+        buildBorder(c - 1, true);
+        intraDirty.add(c - 1);
+      }
+      if (cy > 0) {
+        buildBorder(c - clustersX, false);
+        intraDirty.add(c - clustersX);
+      }
+      if (cx < clustersX - 1) {
+        intraDirty.add(c + 1);
+      }
+      if (cy < clustersY - 1) {
+        intraDirty.add(c + clustersX);
+      }
+    }
+
+    for (int c : intraDirty) {
+      buildIntraEdges(c);
+    }
+  }
+
+  /** Build the borders on the right and top sides of a cluster */
+  private void buildBorders(int cluster) {
+    buildBorder(cluster, true);
+    buildBorder(cluster, false);
+  }
+
+  /**
+   * Find the entrances along one border of a cluster
+   *
+   * @param cluster The cluster
+   * @param right True for the border with the cluster to the right, false for the border with the
+   *     cluster above
+   */
+  private void buildBorder(int cluster, boolean right) {
+    int borderId = (cluster * 2) + (right ? 0 : 1);
+    for (GridPosition[] transition : borderTransitions.getOrDefault(borderId, List.of())) {
+      removeInterEdge(transition[0], transition[1]);
+    }
+    borderTransitions.remove(borderId);
+
+    int cx = cluster % clustersX;
+    int cy = cluster / clustersX;
+    if ((right && cx >= clustersX - 1) || (!right && cy >= clustersY - 1)) {
+      return;
+    }
+
+    List<GridPosition[]> transitions = new ArrayList<>();
+    int length =
+        right
+            ? Math.min(clusterSize, nodesY - (cy * clusterSize))
+            : Math.min(clusterSize, nodesX - (cx * clusterSize));
+
+    int runStart = -1;
+    for (int i = 0; i <= length; i++) {
+      boolean open = i < length && isOpenAcross(cx, cy, right, i);
+      if (open && runStart == -1) {
+        runStart = i;
+      } else if (!open && runStart != -1) {
+        int runEnd = i - 1;
+        // Short entrances get a single transition in the middle, long entrances get one at each
+        // end and one in the middle so paths crossing them don't need to detour to the ends
+        transitions.add(transitionAt(cx, cy, right, (runStart + runEnd) / 2));
+        if (runEnd - runStart + 1 >= MAX_SINGLE_TRANSITION_LENGTH) {
+          transitions.add(transitionAt(cx, cy, right, runStart));
+          transitions.add(transitionAt(cx, cy, right, runEnd));
+        }
+        runStart = -1;
+      }
+    }
+
+    for (GridPosition[] transition : transitions) {
+      interEdges.computeIfAbsent(transition[0], k -> new HashSet<>()).add(transition[1]);
+      interEdges.computeIfAbsent(transition[1], k -> new HashSet<>()).add(transition[0]);
+    }
+    borderTransitions.put(borderId, transitions);
+  }
+
+  private boolean isOpenAcross(int cx, int cy, boolean right, int i) {
+    GridPosition[] transition = transitionAt(cx, cy, right, i);
+    return !blocked[index(transition[0])] && !blocked[index(transition[1])];
+  }
+
+  private GridPosition[] transitionAt(int cx, int cy, boolean right, int i) {
+    if (right) {
+      int x = ((cx + 1) * clusterSize) - 1;
+      int y = (cy * clusterSize) + i;
+      return new GridPosition[] {new GridPosition(x, y), new GridPosition(x + 1, y)};
+    } else {
+      int x = (cx * clusterSize) + i;
+      int y = ((cy + 1) * clusterSize) - 1;
+      return new GridPosition[] {new GridPosition(x, y), new GridPosition(x, y + 1)};
+    }
+  }
+
+  private void removeInterEdge(GridPosition a, GridPosition b) {
+    Set<GridPosition> aEdges = interEdges.get(a);
+    if (aEdges != null) {
+      aEdges.remove(b);
+      if (aEdges.isEmpty()) {
+        interEdges.remove(a);
+      }
+    }
+
+    Set<GridPosition> bEdges = interEdges.get(b);
+    if (bEdges != null) {
+      bEdges.remove(a);
+      if (bEdges.isEmpty()) {
+        interEdges.remove(b);
+      }
+    }
+  }
+
+  private void buildIntraEdges(int cluster) {
+    Map<GridPosition, Map<GridPosition, Double>> edges = new HashMap<>();
+    Set<GridPosition> nodes = clusterNodes(cluster);
+
+    for (GridPosition node : nodes) {
+      Map<GridPosition, Double> costs = new ClusterSearch(node, cluster).costsTo(nodes);
+      costs.remove(node);
+      edges.put(node, costs);
+    }
+
+    intraEdges.set(cluster, edges);
+  }
+
+  /** Get all abstract nodes in a cluster */
+  private Set<GridPosition> clusterNodes(int cluster) {
+    Set<GridPosition> nodes = new HashSet<>();
+
+    int cx = cluster % clustersX;
+    int cy = cluster / clustersX;
+    List<Integer> borders = new ArrayList<>(List.of(cluster * 2, (cluster * 2) + 1));
+    if (cx > 0) {
+      borders.add((cluster - 1) * 2);
+    }
+    if (cy > 0) {
+      borders.add(((cluster - clustersX) * 2) + 1);
+    }
+
+    for (int borderId : borders) {
+      for (GridPosition[] transition : borderTransitions.getOrDefault(borderId, List.of())) {
+        for (GridPosition node : transition) {
+          if (clusterOf(node) == cluster) {
+            nodes.add(node);
+          }
+        }
+      }
+    }
+
+    return nodes;
+  }
+
+  private int clusterOf(GridPosition pos) {
+    return ((pos.y() / clusterSize) * clustersX) + (pos.x() / clusterSize);
+  }
+
+  private int index(GridPosition pos) {
+    return (pos.y() * nodesX) + pos.x();
+  }
+
+  private static double heuristic(GridPosition s1, GridPosition s2) {
+    return Math.hypot(s2.x() - s1.x(), s2.y() - s1.y());
+  }
+
+  /** Dijkstra search from a single node that cannot leave the node's cluster */
+  private class ClusterSearch {
+    private final int minX;
+    private final int minY;
+    private final int width;
+    private final int height;
+    private final double[] dist;
+    private final int[] parent;
+
+    ClusterSearch(GridPosition source, int cluster) {
+      minX = (cluster % clustersX) * clusterSize;
+      minY = (cluster / clustersX) * clusterSize;
+      width = Math.min(clusterSize, nodesX - minX);
+      height = Math.min(clusterSize, nodesY - minY);
+
+      dist = new double[width * height];
+      parent = new int[width * height];
+      Arrays.fill(dist, Double.POSITIVE_INFINITY);
+      Arrays.fill(parent, -1);
+
+      PriorityQueue<OpenEntry> open = new PriorityQueue<>(Comparator.comparingDouble(OpenEntry::f));
+      dist[localIndex(source.x(), source.y())] = 0.0;
+      open.add(new OpenEntry(source, 0.0, 0.0));
+
+      while (!open.isEmpty()) {
+        OpenEntry entry = open.poll();
+        GridPosition s = entry.pos();
+        int sIdx = localIndex(s.x(), s.y());
+        if (entry.g() > dist[sIdx]) {
+          continue;
+        }
+
+        for (int dx = -1; dx <= 1; dx++) {
+          for (int dy = -1; dy <= 1; dy++) {
+            int nx = s.x() + dx;
+            int ny = s.y() + dy;
+            if ((dx == 0 && dy == 0)
+                || nx < minX
+                || nx >= minX + width
+                || ny < minY
+                || ny >= minY + height
+                || blocked[(ny * nodesX) + nx]
+                || blocked[(s.y() * nodesX) + nx]
+                || blocked[(ny * nodesX) + s.x()]) {
+              continue;
+            }
+
+            GridPosition sn = new GridPosition(nx, ny);
+            int nIdx = localIndex(nx, ny);
+            double newDist = entry.g() + grid.lineCost(s, sn);
+            if (newDist < dist[nIdx]) {
+              dist[nIdx] = newDist;
+              parent[nIdx] = sIdx;
+              open.add(new OpenEntry(sn, newDist, newDist));
+            }
+          }
+        }
+      }
+    }
+
+    double costTo(GridPosition target) {
+      return dist[localIndex(target.x(), target.y())];
+    }
+
+    Map<GridPosition, Double> costsTo(Set<GridPosition> targets) {
+      Map<GridPosition, Double> costs = new HashMap<>();
+      for (GridPosition target : targets) {
+        double d = costTo(target);
+        if (Double.isFinite(d)) {
+          costs.put(target, d);
+        }
+      }
+      return costs;
+    }
+
+    List<GridPosition> pathTo(GridPosition target) {
+      List<GridPosition> path = new ArrayList<>();
+      int idx = localIndex(target.x(), target.y());
+      while (idx != -1) {
+        path.add(new GridPosition(minX + (idx % width), minY + (idx / width)));
+        idx = parent[idx];
+      }
+      Collections.reverse(path);
+      return path;
+    }
+
+    private int localIndex(int x, int y) {
+      return ((y - minY) * width) + (x - minX);
+    }
+  }
+
+  private record OpenEntry(GridPosition pos, double f, double g) {}
+}
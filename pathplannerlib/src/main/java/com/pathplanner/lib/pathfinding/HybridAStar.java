@@ -0,0 +1,347 @@
+package com.pathplanner.lib.pathfinding;
+
+import com.pathplanner.lib.path.Waypoint;
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.*;
+
+/**
+ * Hybrid A* search over continuous (x, y, heading of travel) states. Each expansion drives a short
+ * arc with one of a few curvatures, limited by the minimum turning radius, so every path found can
+ * be driven without slowing down for sharp corners. The states are grouped into grid cells and
+ * heading bins to keep the search finite, and the cost to reach the goal on the grid is used as the
+ * heuristic.
+ *
+ * <p>All positions are in units of grid nodes, where node (x, y) covers [x, x + 1) x [y, y + 1).
+ */
+final class HybridAStar {
+  private static final int HEADING_BINS = 16;
+  private static final double STEP_LENGTH = 1.5;
+  private static final double SAMPLE_SPACING = 0.25;
+  private static final int MAX_EXPANSIONS = 10000;
+  private static final double TURN_PENALTY = 0.05;
+  private static final double MAX_ARC_PER_SEGMENT = Math.PI / 2.0;
+
+  /**
+   * A continuous position along a path
+   *
+   * @param x X position, in nodes
+   * @param y Y position, in nodes
+   * @param heading Heading of travel at this position, in radians
+   */
+  record PathState(double x, double y, double heading) {}
+
+  /**
+   * A path found by hybrid A*
+   *
+   * @param segments The anchors of the path. The path between consecutive anchors is a straight
+   *     line or a single arc, with a heading change of at most 90 degrees.
+   * @param cells Every node the path passes through, including the start and goal
+   * @param cost Cost of the path, in nodes of travel including the clearance cost
+   */
+  record Result(List<PathState> segments, List<GridPosition> cells, double cost) {}
+
+  private record Node(
+      double x,
+      double y,
+      double heading,
+      double curvature,
+      double length,
+      double g,
+      double f,
+      int parent) {}
+
+  private HybridAStar() {}
+
+  /**
+   * Find a drivable path between two positions
+   *
+   * @param startX Start X position, in nodes. Must not be in an obstacle.
+   * @param startY Start Y position, in nodes
+   * @param goalX Goal X position, in nodes. Must not be in an obstacle.
+   * @param goalY Goal Y position, in nodes
+   * @param grid The grid to search
+   * @param costToGo Cost field of the goal node, used as the heuristic
+   * @param turningRadius Minimum turning radius, in nodes
+   * @param startHeading Heading the robot is already moving in, in radians, or NaN if the robot is
+   *     not moving. Starting in any other direction costs the length of the arc needed to turn to
+   *     it, which is included in the cost of the path.
+   * @return The path, or null if no path was found within the expansion limit
+   */
+  static Result findPath(
+      double startX,
+      double startY,
+      double goalX,
+      double goalY,
+      GridSnapshot grid,
+      GoalCostField costToGo,
+      double turningRadius,
+      double startHeading) {
+    double h = heuristic(startX, startY, goalX, goalY, costToGo);
+    if (!Double.isFinite(h)) {
+      return null;
+    }
+
+    double[] curvatures = {
+      0.0, 0.5 / turningRadius, -0.5 / turningRadius, 1.0 / turningRadius, -1.0 / turningRadius
+    };
+
+    List<Node> nodes = new ArrayList<>();
+    float[] bestG = new float[grid.nodesX * grid.nodesY * HEADING_BINS];
+    Arrays.fill(bestG, Float.POSITIVE_INFINITY);
+    PriorityQueue<Integer> open =
+        new PriorityQueue<>(Comparator.comparingDouble(i -> nodes.get(i).f()));
+
+    // The robot can start moving in any direction, but one it is already moving in is the cheapest
+    for (int b = 0; b < HEADING_BINS; b++) {
+      double heading = (2.0 * Math.PI * b) / HEADING_BINS;
+      double g =
+          Double.isNaN(startHeading)
+              ? 0.0
+              : turningRadius * Math.abs(angleDiff(heading, startHeading));
+      nodes.add(new Node(startX, startY, heading, 0.0, 0.0, g, g + h, -1));
+      open.add(nodes.size() - 1);
+    }
+
+    int expansions = 0;
+    while (!open.isEmpty() && expansions < MAX_EXPANSIONS) {
+      int index = open.poll();
+      Node node = nodes.get(index);
+
+      int key = key(node.x(), node.y(), node.heading(), grid.nodesX);
+      if ((float) node.g() > bestG[key]) {
+        continue;
+      }
+      expansions++;
+
+      // Try to finish with a single arc, if the goal can be reached without turning too sharply
+      Node goal = connect(node, index, goalX, goalY, grid, turningRadius);
+      if (goal != null) {
+        nodes.add(goal);
+        return buildResult(nodes, nodes.size() - 1);
+      }
+
+      for (double curvature : curvatures) {
+        Node next = drive(node, index, curvature, STEP_LENGTH, grid);
+        if (next == null) {
+          continue;
+        }
+
+        int nextKey = key(next.x(), next.y(), next.heading(), grid.nodesX);
+        if (next.g() < bestG[nextKey]) {
+          double nextH = heuristic(next.x(), next.y(), goalX, goalY, costToGo);
+          if (!Double.isFinite(nextH)) {
+            continue;
+          }
+
+          bestG[nextKey] = (float) next.g();
+          nodes.add(
+              new Node(
+                  next.x(),
+                  next.y(),
+                  next.heading(),
+                  next.curvature(),
+                  next.length(),
+                  next.g(),
+                  next.g() + nextH,
+                  index));
+          open.add(nodes.size() - 1);
+        }
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Create the waypoints of a path found by hybrid A*. Each segment becomes a single cubic Bezier
+   * curve that closely follows its arc, so the curvature of the final path stays close to the
+   * curvature of the search.
+   *
+   * @param segments The segments of the path
+   * @param nodeSize Size of a node, in meters
+   * @return The path waypoints, in field coordinates
+   */
+  static List<Waypoint> createWaypoints(List<PathState> segments, double nodeSize) {
+    double[] controlLengths = new double[segments.size() - 1];
+    for (int i = 0; i < controlLengths.length; i++) {
+      PathState a = segments.get(i);
+      PathState b = segments.get(i + 1);
+      double chord = Math.hypot(b.x() - a.x(), b.y() - a.y()) * nodeSize;
+      double turn = Math.abs(angleDiff(b.heading(), a.heading()));
+
+      if (turn < 1e-3) {
+        controlLengths[i] = chord / 3.0;
+      } else {
+        // Standard cubic approximation of a circular arc
+        double radius = chord / (2.0 * Math.sin(turn / 2.0));
+        controlLengths[i] = (4.0 / 3.0) * Math.tan(turn / 4.0) * radius;
+      }
+    }
+
+    List<Waypoint> waypoints = new ArrayList<>();
+    for (int i = 0; i < segments.size(); i++) {
+      PathState state = segments.get(i);
+      Translation2d anchor = new Translation2d(state.x() * nodeSize, state.y() * nodeSize);
+      Translation2d direction =
+          new Translation2d(Math.cos(state.heading()), Math.sin(state.heading()));
+
+      Translation2d prevControl =
+          i > 0 ? anchor.minus(direction.times(controlLengths[i - 1])) : null;
+      Translation2d nextControl =
+          i < controlLengths.length ? anchor.plus(direction.times(controlLengths[i])) : null;
+      waypoints.add(new Waypoint(prevControl, anchor, nextControl));
+    }
+
+    return waypoints;
+  }
+
+  /**
+   * Connect a node to the goal with the arc that starts at the node's heading, or return null if
+   * the arc is too sharp or hits an obstacle
+   */
+  private static Node connect(
+      Node from,
+      int fromIndex,
+      double goalX,
+      double goalY,
+      GridSnapshot grid,
+      double turningRadius) {
+    double chord = Math.hypot(goalX - from.x(), goalY - from.y());
+    double offset = angleDiff(Math.atan2(goalY - from.y(), goalX - from.x()), from.heading());
+    if (Math.abs(offset) > MAX_ARC_PER_SEGMENT / 2.0
+        || chord < 2.0 * turningRadius * Math.abs(Math.sin(offset))) {
+      return null;
+    }
+
+    // An arc turns twice as far as the angle between its start heading and its chord
+    double curvature = (2.0 * Math.sin(offset)) / chord;
+    double length = Math.abs(offset) < 1e-6 ? chord : (2.0 * offset) / curvature;
+    return drive(from, fromIndex, curvature, length, grid);
+  }
+
+  /** Drive an arc from a node, or return null if it hits an obstacle */
+  private static Node drive(
+      Node from, int fromIndex, double curvature, double length, GridSnapshot grid) {
+    int samples = Math.max(1, (int) Math.ceil(length / SAMPLE_SPACING));
+    double x = from.x();
+    double y = from.y();
+    double heading = from.heading();
+    double clearanceSum = 0.0;
+
+    for (int i = 1; i <= samples; i++) {
+      double s = (length * i) / samples;
+      double[] pos = arcPoint(from.x(), from.y(), from.heading(), curvature, s);
+      x = pos[0];
+      y = pos[1];
+      heading = from.heading() + curvature * s;
+
+      if (isBlocked(x, y, grid)) {
+        return null;
+      }
+      clearanceSum += clearance(x, y, grid);
+    }
+
+    double g = from.g() + length * (1.0 + clearanceSum / samples);
+    if (curvature != 0.0) {
+      g += TURN_PENALTY * length;
+    }
+
+    return new Node(x, y, normalize(heading), curvature, length, g, 0.0, fromIndex);
+  }
+
+  private static double[] arcPoint(
+      double x, double y, double heading, double curvature, double length) {
+    if (curvature == 0.0) {
+      return new double[] {x + length * Math.cos(heading), y + length * Math.sin(heading)};
+    }
+
+    double end = heading + curvature * length;
+    return new double[] {
+      x + (Math.sin(end) - Math.sin(heading)) / curvature,
+      y + (Math.cos(heading) - Math.cos(end)) / curvature
+    };
+  }
+
+  private static Result buildResult(List<Node> nodes, int goalIndex) {
+    List<Node> path = new ArrayList<>();
+    for (int i = goalIndex; i >= 0; i = nodes.get(i).parent()) {
+      path.add(nodes.get(i));
+    }
+    Collections.reverse(path);
+
+    // Merge consecutive arcs with the same curvature, so each segment is a single arc or line
+    List<PathState> segments = new ArrayList<>();
+    segments.add(new PathState(path.get(0).x(), path.get(0).y(), path.get(0).heading()));
+    double arcSoFar = 0.0;
+    for (int i = 1; i < path.size(); i++) {
+      Node node = path.get(i);
+      boolean last = i == path.size() - 1;
+      boolean curvatureChanges = !last && path.get(i + 1).curvature() != node.curvature();
+      arcSoFar += Math.abs(node.curvature()) * STEP_LENGTH;
+
+      boolean arcTooLong =
+          arcSoFar + Math.abs(node.curvature()) * STEP_LENGTH > MAX_ARC_PER_SEGMENT;
+      if (last || curvatureChanges || arcTooLong) {
+        segments.add(new PathState(node.x(), node.y(), node.heading()));
+        arcSoFar = 0.0;
+      }
+    }
+
+    // Sample the same points along each arc that were checked for collisions, since the chord
+    // between two nodes can cut through obstacles the arc goes around
+    List<GridPosition> cells = new ArrayList<>();
+    for (int i = 1; i < path.size(); i++) {
+      Node from = path.get(i - 1);
+      Node to = path.get(i);
+      int samples = Math.max(1, (int) Math.ceil(to.length() / SAMPLE_SPACING));
+      for (int j = 0; j <= samples; j++) {
+        double[] pos =
+            arcPoint(
+                from.x(), from.y(), from.heading(), to.curvature(), (to.length() * j) / samples);
+        GridPosition cell = new GridPosition((int) Math.floor(pos[0]), (int) Math.floor(pos[1]));
+        if (cells.isEmpty() || !cells.get(cells.size() - 1).equals(cell)) {
+          cells.add(cell);
+        }
+      }
+    }
+
+    return new Result(segments, cells, nodes.get(goalIndex).g());
+  }
+
+  /**
+   * Estimate the cost to the goal. The grid cost already accounts for obstacles and clearance, but
+   * is found on the 8-connected grid, so it can slightly overestimate. This trades a little
+   * optimality for far fewer expansions.
+   */
+  private static double heuristic(
+      double x, double y, double goalX, double goalY, GoalCostField costToGo) {
+    GridPosition cell = new GridPosition((int) Math.floor(x), (int) Math.floor(y));
+    return Math.max(Math.hypot(goalX - x, goalY - y), costToGo.costToGoal(cell) - 1.0);
+  }
+
+  private static boolean isBlocked(double x, double y, GridSnapshot grid) {
+    int cx = (int) Math.floor(x);
+    int cy = (int) Math.floor(y);
+    return !grid.inBounds(cx, cy) || grid.isObstacle(new GridPosition(cx, cy));
+  }
+
+  private static double clearance(double x, double y, GridSnapshot grid) {
+    return grid.clearanceCost(new GridPosition((int) Math.floor(x), (int) Math.floor(y)));
+  }
+
+  private static int key(double x, double y, double heading, int nodesX) {
+    int bin = (int) Math.floor(normalize(heading) / (2.0 * Math.PI) * HEADING_BINS) % HEADING_BINS;
+    return ((int) Math.floor(y) * nodesX + (int) Math.floor(x)) * HEADING_BINS + bin;
+  }
+
+  private static double normalize(double angle) {
+    double a = angle % (2.0 * Math.PI);
+    return a < 0.0 ? a + 2.0 * Math.PI : a;
+  }
+
+  private static double angleDiff(double a, double b) {
+    double d = normalize(a - b);
+    return d > Math.PI ? d - 2.0 * Math.PI : d;
+  }
+}
@@ -0,0 +1,122 @@
+package com.pathplanner.lib.pathfinding;
+
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import java.util.*;
+
+/**
+ * Lazy Theta* any-angle search. Nodes are expanded on the same 8-connected grid as AD*, but each
+ * node's parent may be any node it has line of sight to, so the resulting paths are already close
+ * to taut and only have a vertex where they need to turn around an obstacle.
+ */
+final class LazyThetaStar {
+  private LazyThetaStar() {}
+
+  /**
+   * Find a path between two nodes
+   *
+   * @param sStart Start node
+   * @param sGoal Goal node
+   * @param grid Grid to search
+   * @return The vertices of the path, including the start and goal. Consecutive vertices are
+   *     connected by a straight line with no obstacles. Empty if no path was found.
+   */
+  static List<GridPosition> findPath(GridPosition sStart, GridPosition sGoal, GridSnapshot grid) {
+    if (sStart.equals(sGoal)) {
+      return new ArrayList<>();
+    }
+
+    Map<GridPosition, Double> g = new HashMap<>();
+    Map<GridPosition, GridPosition> parent = new HashMap<>();
+    Set<GridPosition> closed = new HashSet<>();
+    PriorityQueue<OpenEntry> open = new PriorityQueue<>(Comparator.comparingDouble(OpenEntry::f));
+
+    g.put(sStart, 0.0);
+    parent.put(sStart, sStart);
+    open.add(new OpenEntry(sStart, heuristic(sStart, sGoal), 0.0));
+
+    while (!open.isEmpty()) {
+      OpenEntry entry = open.poll();
+      GridPosition s = entry.pos();
+      if (closed.contains(s) || entry.g() > g.get(s)) {
+        // Outdated entry
+        continue;
+      }
+
+      setVertex(s, g, parent, closed, grid);
+
+      if (s.equals(sGoal)) {
+        return buildPath(sStart, sGoal, parent);
+      }
+
+      closed.add(s);
+
+      GridPosition sParent = parent.get(s);
+      for (GridPosition sn : grid.getOpenNeighbors(s)) {
+        if (closed.contains(sn) || grid.isCollision(s, sn)) {
+          continue;
+        }
+
+        // Assume line of sight from the parent of s. This is checked once sn is expanded
+        double newG = g.get(sParent) + grid.lineCost(sParent, sn);
+        if (newG < g.getOrDefault(sn, Double.POSITIVE_INFINITY)) {
+          g.put(sn, newG);
+          parent.put(sn, sParent);
+          open.add(new OpenEntry(sn, newG + heuristic(sn, sGoal), newG));
+        }
+      }
+    }
+
+    return new ArrayList<>();
+  }
+
+  private static void setVertex(
+      GridPosition s,
+      Map<GridPosition, Double> g,
+      Map<GridPosition, GridPosition> parent,
+      Set<GridPosition> closed,
+      GridSnapshot grid) {
+    GridPosition sParent = parent.get(s);
+    if (grid.lineOfSight(sParent, s)) {
+      return;
+    }
+
+    // No line of sight to the assumed parent, use the best expanded neighbor instead
+    double bestG = Double.POSITIVE_INFINITY;
+    GridPosition bestParent = sParent;
+    for (GridPosition sn : grid.getOpenNeighbors(s)) {
+      if (!closed.contains(sn)) {
+        continue;
+      }
+
+      double newG = g.get(sn) + grid.cost(sn, s);
+      if (newG < bestG) {
+        bestG = newG;
+        bestParent = sn;
+      }
+    }
+
+    g.put(s, bestG);
+    parent.put(s, bestParent);
+  }
+
+  private static List<GridPosition> buildPath(
+      GridPosition sStart, GridPosition sGoal, Map<GridPosition, GridPosition> parent) {
+    List<GridPosition> path = new ArrayList<>();
+
+    GridPosition s = sGoal;
+    path.add(s);
+    while (!s.equals(sStart)) {
+      s = parent.get(s);
+      path.add(s);
+    }
+
+    Collections.reverse(path);
+    return path;
+  }
+
+  private static double heuristic(GridPosition s1, GridPosition s2) {
+    return Math.hypot(s2.x() - s1.x(), s2.y() - s1.y());
+  }
+
+  private record OpenEntry(GridPosition pos, double f, double g) {}
+}
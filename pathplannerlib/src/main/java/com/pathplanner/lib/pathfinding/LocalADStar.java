@@ -1,128 +1,630 @@
 package com.pathplanner.lib.pathfinding;
 
+import com.pathplanner.lib.config.RobotConfig;
 import com.pathplanner.lib.path.*;
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.Pair;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Filesystem;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
 
 /**
- * Implementation of AD* running locally in a background thread
+ * Implementation of AD* running locally in a background thread. Additional independent sessions can
+ * be created with {@link #createSession()}, which run their searches in parallel on a shared thread
+ * pool.
  *
  * <p>I would like to apologize to anyone trying to understand this code. The implementation I
  * translated it from was much worse.
  */
 public class LocalADStar implements Pathfinder {
   private static final double SMOOTHING_ANCHOR_PCT = 0.8;
-  private static final double EPS = 2.5;
+  private static final double HPA_CLUSTER_SIZE_METERS = 2.0;
+  private static final double DEFAULT_TURNING_RADIUS = 1.0;
+  private static final double MAX_TURNING_RADIUS = 3.0;
+  private static final double DEFAULT_CRUISE_VELOCITY = 3.0;
+  // Slower than this, the robot can start a drivable path in any direction
+  private static final double MIN_START_HEADING_SPEED = 0.25;
+
+  private static final double DEFAULT_FIELD_LENGTH = 16.54;
+  private static final double DEFAULT_FIELD_WIDTH = 8.02;
+  private static final double DEFAULT_NODE_SIZE = 0.2;
+
+  private final double nodeSize;
+  private final int nodesX;
+  private final int nodesY;
+
+  // Obstacle nodes are stored as bits at index y * nodesX + x
+  private final ObstacleMap obstacleMap;
+  private long appliedObstacleVersion;
+  private BitSet appliedObstacles;
+  private BitSet requestObstacleNodes = new BitSet();
+  private ObstaclePrediction requestPrediction = ObstaclePrediction.EMPTY;
+
+  // Obstacle map snapshots are applied in the background. Snapshots that are published faster than
+  // they can be applied are skipped, so only the newest one is applied.
+  private final Object pendingObstacleLock = new Object();
+  private final Object obstacleApplyLock = new Object();
+  private boolean obstacleApplyScheduled = false;
+  private Translation2d pendingRobotPos = null;
+  private PathfindingSession pendingCaller = null;
+
+  private final double robotRadius;
+  private final double clearanceDistance;
+  private final double clearanceWeight;
+  private ObstacleDistanceField distanceField;
+  private GridSnapshot requestGrid;
+
+  private SearchMode requestSearchMode = SearchMode.kADStar;
+  private AnytimeSchedule requestAnytimeSchedule = AnytimeSchedule.defaults();
+  private HierarchicalGraph hierarchicalGraph = null;
+  private QuadtreeGraph quadtreeGraph = null;
+  private volatile double turningRadius = DEFAULT_TURNING_RADIUS;
+  private volatile double cruiseVelocity = DEFAULT_CRUISE_VELOCITY;
+  private volatile boolean pathSmoothing = true;
+
+  private final Map<String, Translation2d> requestRegisteredGoals = new HashMap<>();
+  private Set<GridPosition> requestRegisteredGoalNodes = new HashSet<>();
+  private boolean registeredGoalMoved = false;
+  // Fields are computed or repaired without a lock, then published here
+  private final Map<GridPosition, GoalCostField> goalCostFields = new ConcurrentHashMap<>();
 
-  private double fieldLength = 16.54;
-  private double fieldWidth = 8.02;
-
-  private double nodeSize = 0.2;
+  private final Thread planningThread;
+  private final PathfindingSession defaultSession;
+  private final Set<PathfindingSession> sessions =
+      Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+  private ExecutorService sessionExecutor = null;
+
+  // Obstacle updates get their own thread, so they never wait behind a long search on the session
+  // thread pool
+  private final ExecutorService obstacleExecutor =
+      Executors.newSingleThreadExecutor(
+          r -> {
+            Thread t = new Thread(r);
+            t.setDaemon(true);
+            t.setName("ADStar Obstacle Thread");
+            return t;
+          });
 
-  private int nodesX = (int) Math.ceil(fieldLength / nodeSize);
-  private int nodesY = (int) Math.ceil(fieldWidth / nodeSize);
+  private final ReadWriteLock requestLock = new ReentrantReadWriteLock();
 
-  private final HashMap<GridPosition, Double> g = new HashMap<>();
-  private final HashMap<GridPosition, Double> rhs = new HashMap<>();
-  private final HashMap<GridPosition, Pair<Double, Double>> open = new HashMap<>();
-  private final HashMap<GridPosition, Pair<Double, Double>> incons = new HashMap<>();
-  private final Set<GridPosition> closed = new HashSet<>();
-  private final Set<GridPosition> staticObstacles = new HashSet<>();
-  private final Set<GridPosition> dynamicObstacles = new HashSet<>();
-  private final Set<GridPosition> requestObstacles = new HashSet<>();
+  private static final long METRICS_PUBLISH_PERIOD_NANOS = 100_000_000L;
+  private final PathfindingMetrics metrics = new PathfindingMetrics();
+  private volatile boolean publishMetrics = false;
+  private long lastMetricsPublishNanos = 0;
+
+  /** The search algorithm used by the planning thread */
+  public enum SearchMode {
+    /**
+     * Anytime Dynamic A*. Quickly finds an initial path on the 8-connected grid, then continues to
+     * improve it in the background.
+     */
+    kADStar,
+    /**
+     * Lazy Theta*. Finds a single near-taut any-angle path, which results in fewer waypoints and
+     * cheaper path and trajectory generation.
+     */
+    kLazyThetaStar,
+    /**
+     * Hierarchical A* (HPA*). Searches a precomputed graph of the entrances between clusters of the
+     * grid, then refines the path only inside the clusters it crosses. This scales much better than
+     * the other modes with high resolution navgrids, at the cost of slightly suboptimal paths.
+     */
+    kHierarchical,
+    /**
+     * A* over the open cells of a quadtree. Large open areas are merged into a few big cells, so
+     * the search looks at far fewer nodes than the grid, while keeping full resolution near
+     * obstacles. Paths are slightly suboptimal.
+     */
+    kQuadtree,
+    /**
+     * Hybrid A*. Searches continuous positions and headings using short arcs that respect a minimum
+     * turning radius, so the path can be followed at speed without slowing for sharp corners. The
+     * turning radius is set with {@link #setKinematicLimits(PathConstraints)}. Falls back to Lazy
+     * Theta* if no drivable path is found.
+     */
+    kHybridAStar,
+    /**
+     * Space-time A*. Searches over nodes and the time the robot will reach them, so paths avoid
+     * where the obstacles set with {@link #setMovingObstacles(List, Translation2d)} are predicted
+     * to be instead of where they are now. The travel time is estimated from the max velocity set
+     * with {@link #setKinematicLimits(PathConstraints)}. Falls back to Lazy Theta* if no path is
+     * found.
+     */
+    kSpaceTime
+  }
 
-  private GridPosition requestStart;
-  private Translation2d requestRealStartPos;
-  private GridPosition requestGoal;
-  private Translation2d requestRealGoalPos;
+  /**
+   * Obstacles and search settings shared by every session, captured at the start of a planning loop
+   *
+   * @param grid Snapshot of the obstacles
+   * @param searchMode The search algorithm to use
+   * @param hpaGraph The abstract graph for hierarchical search, or null if it has not been built
+   * @param quadtree The quadtree for quadtree search, or null if it has not been built
+   * @param registeredGoals Nodes of the registered goals
+   * @param prediction The moving obstacles
+   * @param anytimeSchedule How AD* improves its paths over time
+   */
+  record PlanningState(
+      GridSnapshot grid,
+      SearchMode searchMode,
+      HierarchicalGraph hpaGraph,
+      QuadtreeGraph quadtree,
+      Set<GridPosition> registeredGoals,
+      ObstaclePrediction prediction,
+      AnytimeSchedule anytimeSchedule) {
+    /**
+     * Check if the path to a goal should come from the cached costs of a registered goal. The
+     * cached costs don't know about moving obstacles, so they are not used when planning against
+     * their predicted motion.
+     */
+    boolean usesCachedPath(GridPosition goal) {
+      return registeredGoals.contains(goal)
+          && (searchMode != SearchMode.kSpaceTime || prediction.isEmpty());
+    }
+  }
 
-  private double eps;
+  /**
+   * A path found by a search mode that creates its own waypoints
+   *
+   * @param waypoints Waypoints of the path
+   * @param cells Every node the path passes through, including the start and goal
+   * @param cost Cost of the path, in nodes
+   */
+  record SearchPath(List<Waypoint> waypoints, List<GridPosition> cells, double cost) {}
 
-  private final Thread planningThread;
-  private boolean requestMinor = true;
-  private boolean requestMajor = true;
-  private boolean requestReset = true;
-  private boolean newPathAvailable = false;
+  /** Create a new pathfinder that runs AD* locally in a background thread */
+  public LocalADStar() {
+    this(0.0, 0.0, 0.0);
+  }
 
-  private final ReadWriteLock pathLock = new ReentrantReadWriteLock();
-  private final ReadWriteLock requestLock = new ReentrantReadWriteLock();
+  /**
+   * Create a new pathfinder that runs AD* locally in a background thread, accounting for the size
+   * of the robot. Obstacles in the navgrid and dynamic obstacles will be inflated by the robot's
+   * radius, so the same navgrid can be used by robots of any size.
+   *
+   * @param robotRadiusMeters Radius of the robot's footprint in meters. Any node closer than this
+   *     to an obstacle will be treated as an obstacle.
+   * @param clearanceMeters Distance in meters from the inflated obstacles where the clearance cost
+   *     will be applied
+   * @param clearanceWeight Weight of the clearance cost. Moving through a node touching an inflated
+   *     obstacle will cost {@code 1 + clearanceWeight} times as much as moving through open space.
+   *     Set to 0 to disable the clearance cost.
+   */
+  public LocalADStar(double robotRadiusMeters, double clearanceMeters, double clearanceWeight) {
+    this(loadDeployNavGrid(), robotRadiusMeters, clearanceMeters, clearanceWeight);
+  }
 
-  private List<Waypoint> currentWaypoints = new ArrayList<>();
-  private List<GridPosition> currentPathFull = new ArrayList<>();
+  /**
+   * Create a new pathfinder that runs AD* locally in a background thread, using the given navgrid
+   * instead of the one in the deploy directory
+   *
+   * @param navGrid The navgrid containing the static obstacles
+   * @param robotRadiusMeters Radius of the robot's footprint in meters. Any node closer than this
+   *     to an obstacle will be treated as an obstacle.
+   * @param clearanceMeters Distance in meters from the inflated obstacles where the clearance cost
+   *     will be applied
+   * @param clearanceWeight Weight of the clearance cost. Set to 0 to disable the clearance cost.
+   */
+  public LocalADStar(
+      NavGrid navGrid, double robotRadiusMeters, double clearanceMeters, double clearanceWeight) {
+    this.robotRadius = robotRadiusMeters;
+    this.clearanceDistance = clearanceMeters;
+    this.clearanceWeight = clearanceWeight;
 
-  /** Create a new pathfinder that runs AD* locally in a background thread */
-  public LocalADStar() {
     planningThread = new Thread(this::runThread);
+    defaultSession = new PathfindingSession(this, null);
 
-    requestStart = new GridPosition(0, 0);
-    requestRealStartPos = Translation2d.kZero;
-    requestGoal = new GridPosition(0, 0);
-    requestRealGoalPos = Translation2d.kZero;
-
-    staticObstacles.clear();
-    dynamicObstacles.clear();
-
-    File navGridFile = new File(Filesystem.getDeployDirectory(), "pathplanner/navgrid.json");
-    if (navGridFile.exists()) {
-      try (BufferedReader br = new BufferedReader(new FileReader(navGridFile))) {
-        StringBuilder fileContentBuilder = new StringBuilder();
-        String line;
-        while ((line = br.readLine()) != null) {
-          fileContentBuilder.append(line);
-        }
+    nodeSize = navGrid.getNodeSize();
+    nodesX = navGrid.getNodesX();
+    nodesY = navGrid.getNodesY();
+
+    obstacleMap = new ObstacleMap(navGrid);
+    appliedObstacleVersion = obstacleMap.getSnapshot().getVersion();
+    appliedObstacles = obstacleMap.getSnapshot().getLayer(ObstacleMap.Layer.kStatic);
+
+    distanceField = new ObstacleDistanceField(nodesX, nodesY);
+    for (int i = appliedObstacles.nextSetBit(0); i >= 0; i = appliedObstacles.nextSetBit(i + 1)) {
+      distanceField.setObstacle(i % nodesX, i / nodesX);
+    }
+    initRequestGrid();
+    obstacleMap.addListener(snapshot -> scheduleObstacleApply());
+
+    planningThread.setDaemon(true);
+    planningThread.setName("ADStar Planning Thread");
+    planningThread.start();
+  }
+
+  /**
+   * Load the navgrid from the deploy directory. The binary navgrid is preferred if it exists, since
+   * it loads much faster than the JSON navgrid created by the GUI.
+   *
+   * @return The loaded navgrid, or an empty navgrid if none could be loaded
+   */
+  private static NavGrid loadDeployNavGrid() {
+    File binaryFile = new File(Filesystem.getDeployDirectory(), "pathplanner/navgrid.bin");
+    File jsonFile = new File(Filesystem.getDeployDirectory(), "pathplanner/navgrid.json");
+
+    try {
+      if (binaryFile.exists()) {
+        return NavGrid.fromBinaryFile(binaryFile);
+      } else if (jsonFile.exists()) {
+        return NavGrid.fromJsonFile(jsonFile);
+      }
+    } catch (IOException e) {
+      DriverStation.reportError("Failed to read navgrid, using an empty field", e.getStackTrace());
+    } catch (ParseException e) {
+      DriverStation.reportError(
+          "Failed to parse JSON in navgrid, using an empty field", e.getStackTrace());
+    } catch (RuntimeException e) {
+      DriverStation.reportError("Invalid navgrid, using an empty field", e.getStackTrace());
+    }
+
+    return NavGrid.empty(DEFAULT_NODE_SIZE, DEFAULT_FIELD_LENGTH, DEFAULT_FIELD_WIDTH);
+  }
+
+  /**
+   * Set the search algorithm that will be used to find paths. Changing the search mode will cause
+   * the current path of every session to be recalculated.
+   *
+   * <p>Switching to {@link SearchMode#kHierarchical} or {@link SearchMode#kQuadtree} for the first
+   * time will build its graph from the current obstacles, so this should be done during robot
+   * initialization.
+   *
+   * @param searchMode The search algorithm to use
+   */
+  public void setSearchMode(SearchMode searchMode) {
+    requestLock.writeLock().lock();
+    if (searchMode == SearchMode.kHierarchical && hierarchicalGraph == null) {
+      int clusterSize = Math.max(4, (int) Math.round(HPA_CLUSTER_SIZE_METERS / nodeSize));
+      hierarchicalGraph = new HierarchicalGraph(requestGrid, clusterSize);
+    } else if (searchMode == SearchMode.kQuadtree && quadtreeGraph == null) {
+      quadtreeGraph = new QuadtreeGraph(requestGrid);
+    }
+
+    boolean changed = searchMode != requestSearchMode;
+    requestSearchMode = searchMode;
+    if (changed) {
+      // Moving obstacles are only left out of the grid when planning against their motion
+      applyObstacleMap();
+    }
+    requestLock.writeLock().unlock();
+
+    if (changed) {
+      for (PathfindingSession session : getSessions()) {
+        session.restart();
+      }
+    }
+  }
+
+  /**
+   * Set how {@link SearchMode#kADStar} improves its paths over time. A lower initial inflation
+   * finds a better first path but takes longer, and a larger step or minimum cost improvement
+   * publishes fewer new paths, so the pathfinding command regenerates its trajectory less often.
+   * Changing the schedule will cause the current path of every session to be recalculated.
+   *
+   * @param schedule The anytime schedule to use
+   */
+  public void setAnytimeSchedule(AnytimeSchedule schedule) {
+    requestLock.writeLock().lock();
+    boolean changed = !schedule.equals(requestAnytimeSchedule);
+    requestAnytimeSchedule = schedule;
+    SearchMode searchMode = requestSearchMode;
+    requestLock.writeLock().unlock();
+
+    if (changed && searchMode == SearchMode.kADStar) {
+      for (PathfindingSession session : getSessions()) {
+        session.restart();
+      }
+    }
+  }
+
+  /**
+   * Set the limits used by {@link SearchMode#kHybridAStar} to keep paths drivable, and by {@link
+   * SearchMode#kSpaceTime} to estimate when the robot will reach each node. The minimum turning
+   * radius is the radius the robot can follow at its max velocity without exceeding its max
+   * acceleration. It is limited to at least 2 nodes, and at most 3 meters so paths can still fit
+   * through gaps on the field.
+   *
+   * @param constraints The constraints the robot will follow paths with
+   */
+  public void setKinematicLimits(PathConstraints constraints) {
+    double radius = Math.pow(constraints.maxVelocityMPS(), 2) / constraints.maxAccelerationMPSSq();
+    if (!Double.isFinite(radius)) {
+      radius = MAX_TURNING_RADIUS;
+    }
+    turningRadius = MathUtil.clamp(radius, 2.0 * nodeSize, MAX_TURNING_RADIUS);
+
+    if (Double.isFinite(constraints.maxVelocityMPS()) && constraints.maxVelocityMPS() > 0.0) {
+      cruiseVelocity = constraints.maxVelocityMPS();
+    }
+
+    SearchMode searchMode = getPlanningState().searchMode();
+    if (searchMode == SearchMode.kHybridAStar || searchMode == SearchMode.kSpaceTime) {
+      for (PathfindingSession session : getSessions()) {
+        session.restart();
+      }
+    }
+  }
+
+  /**
+   * Enable or disable smoothing of the paths found on the grid. When enabled, each path is pulled
+   * tight and smoothed with an elastic band that keeps its distance from obstacles, instead of only
+   * rounding its corners. This takes a little more time for each path, but results in gentler turns
+   * that can be followed faster. Enabled by default.
+   *
+   * @param enabled True to smooth paths
+   */
+  public void setPathSmoothingEnabled(boolean enabled) {
+    pathSmoothing = enabled;
+  }
+
+  /**
+   * Register a goal position that will be pathfound to frequently, such as a scoring location. The
+   * cost to reach this goal from every node will be computed once in the background and cached.
+   * Pathfinding to a registered goal only needs to follow the cached costs, so a path can be found
+   * almost instantly from any start position, and changes to the obstacles will only repair the
+   * affected part of the cached costs.
+   *
+   * <p>A request will use the cached costs if its goal position is in the same node as a registered
+   * goal.
+   *
+   * @param name Name of the goal. Registering a goal with the same name again will replace it.
+   * @param goalPosition Goal position on the field
+   */
+  public void registerGoal(String name, Translation2d goalPosition) {
+    requestLock.writeLock().lock();
+    requestRegisteredGoals.put(name, goalPosition);
+    updateRegisteredGoalNodes();
+    requestLock.writeLock().unlock();
+  }
+
+  /**
+   * Remove a registered goal and its cached costs
+   *
+   * @param name Name of the goal
+   */
+  public void unregisterGoal(String name) {
+    requestLock.writeLock().lock();
+    requestRegisteredGoals.remove(name);
+    updateRegisteredGoalNodes();
+    requestLock.writeLock().unlock();
+  }
+
+  /**
+   * Create a new pathfinding session with its own start, goal, and current path. Sessions share the
+   * obstacles of this pathfinder, and their searches run on a thread pool sized to the number of
+   * available cores, so multiple sessions can plan at the same time.
+   *
+   * @return The new session
+   */
+  @Override
+  public PathfindingSession createSession() {
+    PathfindingSession session = new PathfindingSession(this, getSessionExecutor());
+    sessions.add(session);
+    return session;
+  }
+
+  /**
+   * Find a path between two positions on the calling thread, without changing the request of any
+   * session. The first path found is always returned, even if it took longer than the time budget.
+   *
+   * <p>The time budget only applies to {@link SearchMode#kADStar} on a grid with clearance cost,
+   * where it limits how long the first path is improved towards the optimal path. It is not used
+   * anywhere else. Without clearance cost, the optimal path is found directly with jump point
+   * search, which does not check the budget and always runs to completion. Every other search mode
+   * also runs a single search to completion, and goals registered with {@link #registerGoal} read
+   * the path from their cached cost field.
+   *
+   * @param startPosition Start position on the field. If this is within an obstacle it will be
+   *     moved to the nearest non-obstacle node.
+   * @param goalPosition Goal position on the field. If this is within an obstacle it will be moved
+   *     to the nearest non-obstacle node.
+   * @param constraints The path constraints to use when creating the path
+   * @param goalEndState The goal end state to use when creating the path
+   * @param timeBudgetSeconds Time allowed to improve the first path with AD*, in seconds. Ignored
+   *     by every other way of finding the path.
+   * @return The best path found, and its cost
+   */
+  @Override
+  public PathfindingResult findPath(
+      Translation2d startPosition,
+      Translation2d goalPosition,
+      PathConstraints constraints,
+      GoalEndState goalEndState,
+      double timeBudgetSeconds) {
+    return findPath(
+        startPosition,
+        goalPosition,
+        constraints,
+        goalEndState,
+        System.nanoTime() + (long) (timeBudgetSeconds * 1e9));
+  }
+
+  /**
+   * Find a path between two positions on the session thread pool, without changing the request of
+   * any session. See {@link #findPath(Translation2d, Translation2d, PathConstraints, GoalEndState,
+   * double)}.
+   *
+   * @param startPosition Start position on the field
+   * @param goalPosition Goal position on the field
+   * @param constraints The path constraints to use when creating the path
+   * @param goalEndState The goal end state to use when creating the path
+   * @param timeBudgetSeconds Time allowed to improve the first path with AD*, in seconds. This
+   *     starts when this method is called, so it includes time spent waiting for a free thread.
+   * @return Future that will complete with the best path found within the time budget
+   */
+  public CompletableFuture<PathfindingResult> findPathAsync(
+      Translation2d startPosition,
+      Translation2d goalPosition,
+      PathConstraints constraints,
+      GoalEndState goalEndState,
+      double timeBudgetSeconds) {
+    long deadline = System.nanoTime() + (long) (timeBudgetSeconds * 1e9);
+    return CompletableFuture.supplyAsync(
+        () -> findPath(startPosition, goalPosition, constraints, goalEndState, deadline),
+        getSessionExecutor());
+  }
+
+  /**
+   * Find which of several goals is the fastest to reach, without changing the request of any
+   * session. The paths to all of the goals are found in parallel on the session thread pool, and
+   * each thread also generates the trajectory for its path to estimate the time to reach the goal.
+   *
+   * @param startPose The current pose of the robot
+   * @param startSpeeds The current robot-relative speeds of the robot
+   * @param goals The candidate goal poses. The robot will stop at the chosen goal, facing the
+   *     rotation of its pose.
+   * @param constraints The path constraints to use when creating the paths
+   * @param robotConfig The robot configuration, used to generate the trajectories
+   * @param timeBudgetSeconds Time allowed to find and improve the paths, in seconds. The budget is
+   *     split evenly between the goals that have to share a thread, so each path gets the same time
+   *     to improve and their times can be compared fairly. Once a path has been found, goals that
+   *     are still waiting for a thread when the budget runs out are skipped.
+   * @return The fastest goal to reach and the path to it
+   */
+  @Override
+  public GoalSelectionResult findBestGoal(
+      Pose2d startPose,
+      ChassisSpeeds startSpeeds,
+      List<Pose2d> goals,
+      PathConstraints constraints,
+      RobotConfig robotConfig,
+      double timeBudgetSeconds) {
+    long budgetNanos = (long) (timeBudgetSeconds * 1e9);
+    long deadline = System.nanoTime() + budgetNanos;
+    if (goals.isEmpty()) {
+      return GoalSelectionResult.none();
+    }
 
-        String fileContent = fileContentBuilder.toString();
-        JSONObject json = (JSONObject) new JSONParser().parse(fileContent);
-
-        nodeSize = ((Number) json.get("nodeSizeMeters")).doubleValue();
-        JSONArray grid = (JSONArray) json.get("grid");
-        nodesY = grid.size();
-        for (int row = 0; row < grid.size(); row++) {
-          JSONArray rowArray = (JSONArray) grid.get(row);
-          if (row == 0) {
-            nodesX = rowArray.size();
-          }
-          for (int col = 0; col < rowArray.size(); col++) {
-            boolean isObstacle = (boolean) rowArray.get(col);
-            if (isObstacle) {
-              staticObstacles.add(new GridPosition(col, row));
-            }
-          }
+    // Each thread runs its goals one after another, so each goal gets an equal share of the budget
+    int rounds = (goals.size() + sessionThreadCount() - 1) / sessionThreadCount();
+    long sliceNanos = budgetNanos / rounds;
+
+    AtomicBoolean pathFound = new AtomicBoolean(false);
+    List<AtomicBoolean> started = new ArrayList<>();
+    List<CompletableFuture<GoalSelectionResult>> candidates = new ArrayList<>();
+    for (int i = 0; i < goals.size(); i++) {
+      int goalIndex = i;
+      Pose2d goal = goals.get(i);
+      AtomicBoolean goalStarted = new AtomicBoolean(false);
+      started.add(goalStarted);
+      candidates.add(
+          CompletableFuture.supplyAsync(
+              () -> {
+                goalStarted.set(true);
+                PathfindingResult result =
+                    findPath(
+                        startPose.getTranslation(),
+                        goal.getTranslation(),
+                        constraints,
+                        new GoalEndState(0.0, goal.getRotation()),
+                        System.nanoTime() + sliceNanos);
+                if (result.hasPath()) {
+                  pathFound.set(true);
+                }
+                return new GoalSelectionResult(
+                    goalIndex,
+                    result.path(),
+                    GoalSelectionResult.estimateTime(
+                        result.path(), startPose, startSpeeds, robotConfig));
+              },
+              getSessionExecutor()));
+    }
+
+    try {
+      CompletableFuture.allOf(candidates.toArray(new CompletableFuture<?>[0]))
+          .get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException | ExecutionException e) {
+      // Unfinished goals are handled below, and failed goals are skipped
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    // Once a path has been found, goals still waiting behind other work for a thread are skipped.
+    // Goals that have started only improve their path until the end of their own slice, so they
+    // are still waited for.
+    if (pathFound.get()) {
+      for (int i = 0; i < candidates.size(); i++) {
+        if (!started.get(i).get()) {
+          candidates.get(i).cancel(false);
         }
+      }
+    }
+
+    GoalSelectionResult best = GoalSelectionResult.none();
+    for (var candidate : candidates) {
+      GoalSelectionResult result;
+      try {
+        result = candidate.join();
+      } catch (CancellationException | CompletionException e) {
+        continue;
+      }
 
-        JSONObject fieldSize = (JSONObject) json.get("field_size");
-        fieldLength = ((Number) fieldSize.get("x")).doubleValue();
-        fieldWidth = ((Number) fieldSize.get("y")).doubleValue();
-      } catch (Exception e) {
-        // Do nothing, use defaults
+      if (result.estimatedTimeSeconds() < best.estimatedTimeSeconds()) {
+        best = result;
       }
     }
 
-    requestObstacles.clear();
-    requestObstacles.addAll(staticObstacles);
-    requestObstacles.addAll(dynamicObstacles);
+    return best;
+  }
 
-    requestReset = true;
-    requestMajor = true;
-    requestMinor = true;
+  /**
+   * Get the metrics of this pathfinder, shared by all of its sessions
+   *
+   * @return The pathfinder's metrics
+   */
+  @Override
+  public Optional<PathfindingMetrics> getMetrics() {
+    return Optional.of(metrics);
+  }
 
-    newPathAvailable = false;
+  /**
+   * Enable or disable publishing this pathfinder's metrics to NetworkTables under {@code
+   * /PathPlanner/Pathfinding/}. When enabled, the metrics are published by the planning thread 10
+   * times per second.
+   *
+   * @param enabled True to publish metrics
+   */
+  public void setMetricsPublishingEnabled(boolean enabled) {
+    publishMetrics = enabled;
+  }
 
-    planningThread.setDaemon(true);
-    planningThread.setName("ADStar Planning Thread");
-    planningThread.start();
+  /**
+   * Stop the planning thread and the thread pools of this pathfinder. Sessions stop planning, and
+   * the pathfinder should not be used after this. This is only needed when several pathfinders are
+   * created over the life of a program, such as in tests.
+   */
+  public void shutdown() {
+    planningThread.interrupt();
+    obstacleExecutor.shutdownNow();
+    synchronized (this) {
+      if (sessionExecutor != null) {
+        sessionExecutor.shutdownNow();
+      }
+    }
+  }
+
+  PathfindingMetrics getPathfindingMetrics() {
+    return metrics;
   }
 
   /**
@@ -132,7 +634,7 @@ public class LocalADStar implements Pathfinder {
    */
   @Override
   public boolean isNewPathAvailable() {
-    return newPathAvailable;
+    return defaultSession.isNewPathAvailable();
   }
 
   /**
@@ -144,20 +646,7 @@ public class LocalADStar implements Pathfinder {
    */
   @Override
   public PathPlannerPath getCurrentPath(PathConstraints constraints, GoalEndState goalEndState) {
-    List<Waypoint> waypoints;
-
-    pathLock.readLock().lock();
-    waypoints = new ArrayList<>(currentWaypoints);
-    pathLock.readLock().unlock();
-
-    newPathAvailable = false;
-
-    if (waypoints.size() < 2) {
-      // Not enough points. Something got borked somewhere
-      return null;
-    }
-
-    return new PathPlannerPath(waypoints, constraints, null, goalEndState);
+    return defaultSession.getCurrentPath(constraints, goalEndState);
   }
 
   /**
@@ -168,17 +657,18 @@ public class LocalADStar implements Pathfinder {
    */
   @Override
   public void setStartPosition(Translation2d startPosition) {
-    GridPosition startPos = findClosestNonObstacle(getGridPos(startPosition), requestObstacles);
-
-    if (startPos != null && !startPos.equals(requestStart)) {
-      requestLock.writeLock().lock();
-      requestStart = startPos;
-      requestRealStartPos = startPosition;
+    defaultSession.setStartPosition(startPosition);
+  }
 
-      requestMinor = true;
-      newPathAvailable = false;
-      requestLock.writeLock().unlock();
-    }
+  /**
+   * Set the velocity of the robot at the start position. {@link SearchMode#kHybridAStar} uses this
+   * to start the path in the direction the robot is already moving.
+   *
+   * @param velocityMPS Field-relative velocity of the robot, in meters per second
+   */
+  @Override
+  public void setStartVelocity(Translation2d velocityMPS) {
+    defaultSession.setStartVelocity(velocityMPS);
   }
 
   /**
@@ -189,24 +679,28 @@ public class LocalADStar implements Pathfinder {
    */
   @Override
   public void setGoalPosition(Translation2d goalPosition) {
-    GridPosition gridPos = findClosestNonObstacle(getGridPos(goalPosition), requestObstacles);
-
-    if (gridPos != null) {
-      requestLock.writeLock().lock();
-      requestGoal = gridPos;
-      requestRealGoalPos = goalPosition;
+    defaultSession.setGoalPosition(goalPosition);
+  }
 
-      requestMinor = true;
-      requestMajor = true;
-      requestReset = true;
-      newPathAvailable = false;
-      requestLock.writeLock().unlock();
-    }
+  /**
+   * Stop working on the current path of the default session until a new start or goal position is
+   * set. Obstacle updates will not recalculate the path while it is paused.
+   */
+  @Override
+  public void pause() {
+    defaultSession.pause();
   }
 
   /**
    * Set the dynamic obstacles that should be avoided while pathfinding.
    *
+   * <p>These are stored in the {@link ObstacleMap.Layer#kVision} layer of the obstacle map, and are
+   * applied asynchronously on a dedicated background thread, so this can be called every loop.
+   * Paths found right after this returns may not avoid the new obstacles yet. Updates that arrive
+   * faster than they can be applied are coalesced, so only the newest one is applied, and an update
+   * that doesn't change which nodes are blocked is ignored. A path is only recalculated if a newly
+   * blocked node is on it.
+   *
    * @param obs A List of Translation2d pairs representing obstacles. Each Translation2d represents
    *     opposite corners of a bounding box.
    * @param currentRobotPos The current position of the robot. This is needed to change the start
@@ -215,182 +709,652 @@ public class LocalADStar implements Pathfinder {
   @Override
   public void setDynamicObstacles(
       List<Pair<Translation2d, Translation2d>> obs, Translation2d currentRobotPos) {
-    Set<GridPosition> newObs = new HashSet<>();
+    setDynamicObstacles(obs, currentRobotPos, defaultSession);
+  }
 
-    for (var obstacle : obs) {
-      var gridPos1 = getGridPos(obstacle.getFirst());
-      var gridPos2 = getGridPos(obstacle.getSecond());
+  /**
+   * Set the dynamic obstacles shared by every session, to be applied in the background
+   *
+   * @param obs A List of Translation2d pairs representing obstacles
+   * @param currentRobotPos The current position of the robot using the calling session
+   * @param caller The session that set the obstacles
+   */
+  void setDynamicObstacles(
+      List<Pair<Translation2d, Translation2d>> obs,
+      Translation2d currentRobotPos,
+      PathfindingSession caller) {
+    setPendingCaller(currentRobotPos, caller);
+    obstacleMap.setLayerBoxes(ObstacleMap.Layer.kVision, obs);
+  }
 
-      int minX = Math.min(gridPos1.x, gridPos2.x);
-      int maxX = Math.max(gridPos1.x, gridPos2.x);
+  /**
+   * Get the obstacle map used by this pathfinder. Snapshots of the map can be read from any thread
+   * without blocking the planner. Changes to the {@link ObstacleMap.Layer#kUser} layer, or any
+   * other layer, are applied in the background like dynamic obstacles.
+   *
+   * @return The obstacle map
+   */
+  public ObstacleMap getObstacleMap() {
+    return obstacleMap;
+  }
 
-      int minY = Math.min(gridPos1.y, gridPos2.y);
-      int maxY = Math.max(gridPos1.y, gridPos2.y);
+  /** Remember which session to replan from its current position when the next update is applied */
+  private void setPendingCaller(Translation2d currentRobotPos, PathfindingSession caller) {
+    synchronized (pendingObstacleLock) {
+      pendingRobotPos = currentRobotPos;
+      pendingCaller = caller;
+    }
+  }
 
-      for (int x = minX; x <= maxX; x++) {
-        for (int y = minY; y <= maxY; y++) {
-          newObs.add(new GridPosition(x, y));
-        }
+  /** Schedule the newest obstacle map snapshot to be applied, if it isn't already scheduled */
+  private void scheduleObstacleApply() {
+    synchronized (pendingObstacleLock) {
+      if (obstacleApplyScheduled) {
+        return;
       }
+      obstacleApplyScheduled = true;
     }
 
-    dynamicObstacles.clear();
-    dynamicObstacles.addAll(newObs);
+    obstacleExecutor.execute(this::applyPendingObstacles);
+  }
+
+  /**
+   * Apply the newest obstacle map snapshot, then restart any session whose path is now blocked.
+   * Does nothing if the snapshot has already been applied.
+   */
+  void applyPendingObstacles() {
+    synchronized (obstacleApplyLock) {
+      Translation2d currentRobotPos;
+      PathfindingSession caller;
+      synchronized (pendingObstacleLock) {
+        obstacleApplyScheduled = false;
+        currentRobotPos = pendingRobotPos;
+        caller = pendingCaller;
+        pendingRobotPos = null;
+        pendingCaller = null;
+      }
+
+      requestLock.writeLock().lock();
+      if (obstacleMap.getSnapshot().getVersion() == appliedObstacleVersion) {
+        requestLock.writeLock().unlock();
+        return;
+      }
+      GridSnapshot previousGrid = requestGrid;
+      BitSet newlyBlocked = applyObstacleMap();
+      GridSnapshot grid = requestGrid;
+      requestLock.writeLock().unlock();
+
+      replanBlockedSessions(previousGrid, grid, newlyBlocked, currentRobotPos, caller);
+    }
+  }
+
+  /**
+   * Set the obstacles that move around the field, such as other robots, along with their predicted
+   * motion. With {@link SearchMode#kSpaceTime}, paths avoid where these obstacles will be when the
+   * robot gets there, and a path is only recalculated when the new predictions run into it. Every
+   * other search mode treats them as dynamic obstacles at their current positions.
+   *
+   * <p>These are kept separately from the obstacles set with {@link #setDynamicObstacles(List,
+   * Translation2d)}, so both can be used at the same time. Their current positions are stored in
+   * the {@link ObstacleMap.Layer#kMoving} layer of the obstacle map, and are applied in the
+   * background.
+   *
+   * @param obs The moving obstacles
+   * @param currentRobotPos The current position of the robot. This is needed to change the start
+   *     position of the path if the robot is now within an obstacle.
+   */
+  @Override
+  public void setMovingObstacles(List<MovingObstacle> obs, Translation2d currentRobotPos) {
+    setMovingObstacles(obs, currentRobotPos, defaultSession);
+  }
+
+  /**
+   * Set the moving obstacles shared by every session. With {@link SearchMode#kSpaceTime}, any
+   * session whose path now collides with their predicted motion is restarted.
+   *
+   * @param obs The moving obstacles
+   * @param currentRobotPos The current position of the robot using the calling session
+   * @param caller The session that set the obstacles
+   */
+  void setMovingObstacles(
+      List<MovingObstacle> obs, Translation2d currentRobotPos, PathfindingSession caller) {
     requestLock.writeLock().lock();
-    requestObstacles.clear();
-    requestObstacles.addAll(staticObstacles);
-    requestObstacles.addAll(dynamicObstacles);
+    requestPrediction = new ObstaclePrediction(obs, nodeSize, robotRadius, System.nanoTime());
+    SearchMode searchMode = requestSearchMode;
     requestLock.writeLock().unlock();
 
-    pathLock.readLock().lock();
-    boolean recalculate = false;
-    for (GridPosition pos : currentPathFull) {
-      if (requestObstacles.contains(pos)) {
-        recalculate = true;
-        break;
+    List<Pair<Translation2d, Translation2d>> bounds = new ArrayList<>();
+    for (MovingObstacle obstacle : obs) {
+      bounds.add(obstacle.getBoundsAt(0.0));
+    }
+    setPendingCaller(currentRobotPos, caller);
+    obstacleMap.setLayerBoxes(ObstacleMap.Layer.kMoving, bounds);
+
+    if (searchMode != SearchMode.kSpaceTime) {
+      return;
+    }
+
+    // Other sessions don't know where their robot is, so they are checked from their last start
+    for (PathfindingSession session : getSessions()) {
+      if (session.isPaused()) {
+        continue;
+      }
+      if (session.replanIfConflicting(session == caller ? currentRobotPos : null)) {
+        metrics.recordObstacleReplan();
       }
     }
-    pathLock.readLock().unlock();
+  }
 
-    if (recalculate) {
-      setStartPosition(currentRobotPos);
-      setGoalPosition(requestRealGoalPos);
+  /**
+   * Check if a path will run into the predicted position of a moving obstacle
+   *
+   * @param path Every node along the path
+   * @param currentRobotPos The current position of the robot along the path
+   * @return True if the path ahead of the robot will be blocked when it gets there
+   */
+  boolean hasPredictedConflict(List<GridPosition> path, Translation2d currentRobotPos) {
+    ObstaclePrediction prediction = getPlanningState().prediction();
+    if (path.isEmpty() || prediction.isEmpty()) {
+      return false;
     }
+
+    return SpaceTimeAStar.hasConflict(
+        path,
+        currentRobotPos.getX() / nodeSize,
+        currentRobotPos.getY() / nodeSize,
+        prediction,
+        prediction.now(),
+        nodeSize / cruiseVelocity);
   }
 
-  @SuppressWarnings("BusyWait")
-  private void runThread() {
-    while (true) {
-      try {
-        requestLock.readLock().lock();
-        boolean reset = requestReset;
-        boolean minor = requestMinor;
-        boolean major = requestMajor;
-        GridPosition start = requestStart;
-        Translation2d realStart = requestRealStartPos;
-        GridPosition goal = requestGoal;
-        Translation2d realGoal = requestRealGoalPos;
-        Set<GridPosition> obstacles = new HashSet<>(requestObstacles);
-
-        // Change the request booleans based on what will be done this loop
-        if (reset) {
-          requestReset = false;
-        }
+  /**
+   * Update the obstacles in the grid from the newest obstacle map snapshot. Moving obstacles are
+   * left out when planning against their predicted motion. Only the nodes that changed are updated,
+   * so the distance field can be updated incrementally. Must be called with the request write lock
+   * held.
+   *
+   * @return The nodes that became blocked, after inflation
+   */
+  private BitSet applyObstacleMap() {
+    ObstacleMap.Snapshot snapshot = obstacleMap.getSnapshot();
+    appliedObstacleVersion = snapshot.getVersion();
 
-        if (minor) {
-          requestMinor = false;
-        } else if (major && (eps - 0.5) <= 1.0) {
-          requestMajor = false;
-        }
-        requestLock.readLock().unlock();
-
-        if (reset || minor || major) {
-          doWork(reset, minor, major, start, goal, realStart, realGoal, obstacles);
-        } else {
-          try {
-            Thread.sleep(10);
-          } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-          }
+    Set<ObstacleMap.Layer> layers = EnumSet.allOf(ObstacleMap.Layer.class);
+    if (requestSearchMode == SearchMode.kSpaceTime) {
+      layers.remove(ObstacleMap.Layer.kMoving);
+    }
+    BitSet newObs = snapshot.getObstacles(layers);
+    if (newObs.equals(appliedObstacles)) {
+      return new BitSet();
+    }
+
+    BitSet removed = (BitSet) appliedObstacles.clone();
+    removed.andNot(newObs);
+    for (int i = removed.nextSetBit(0); i >= 0; i = removed.nextSetBit(i + 1)) {
+      distanceField.removeObstacle(i % nodesX, i / nodesX);
+    }
+
+    BitSet added = (BitSet) newObs.clone();
+    added.andNot(appliedObstacles);
+    for (int i = added.nextSetBit(0); i >= 0; i = added.nextSetBit(i + 1)) {
+      distanceField.setObstacle(i % nodesX, i / nodesX);
+    }
+
+    appliedObstacles = newObs;
+    metrics.recordObstacleUpdate();
+    return updateRequestObstacles();
+  }
+
+  /**
+   * Restart every session whose path goes through a newly blocked node
+   *
+   * @param previousGrid The grid before the update
+   * @param grid The grid after the update
+   * @param newlyBlocked The nodes that became blocked
+   * @param currentRobotPos The current position of the robot using the calling session
+   * @param caller The session that updated the obstacles
+   */
+  private void replanBlockedSessions(
+      GridSnapshot previousGrid,
+      GridSnapshot grid,
+      BitSet newlyBlocked,
+      Translation2d currentRobotPos,
+      PathfindingSession caller) {
+    // Other sessions don't know where their robot is, so they restart from their last start
+    for (PathfindingSession session : getSessions()) {
+      if (session.isPaused()) {
+        continue;
+      }
+      Translation2d robotPos = session == caller ? currentRobotPos : null;
+      if (session.replanIfBlocked(previousGrid, grid, newlyBlocked, robotPos)) {
+        metrics.recordObstacleReplan();
+      }
+    }
+  }
+
+  private PathfindingResult findPath(
+      Translation2d startPosition,
+      Translation2d goalPosition,
+      PathConstraints constraints,
+      GoalEndState goalEndState,
+      long deadlineNanos) {
+    PlanningState state = getPlanningState();
+    GridSnapshot grid = state.grid();
+
+    GridPosition start = findClosestNonObstacle(getGridPos(startPosition), grid);
+    GridPosition goal = findClosestNonObstacle(getGridPos(goalPosition), grid);
+    if (start == null || goal == null) {
+      return new PathfindingResult(null, Double.POSITIVE_INFINITY);
+    }
+
+    if (!state.usesCachedPath(goal)) {
+      SearchPath searchPath = null;
+      if (state.searchMode() == SearchMode.kHybridAStar) {
+        searchPath =
+            hybridSearch(
+                grid,
+                start,
+                goal,
+                startPosition,
+                goalPosition,
+                getSearchCostField(state, goal, null),
+                Translation2d.kZero);
+      } else if (state.searchMode() == SearchMode.kSpaceTime) {
+        searchPath =
+            spaceTimeSearch(
+                state,
+                start,
+                goal,
+                startPosition,
+                goalPosition,
+                getSearchCostField(state, goal, null));
+      }
+
+      if (searchPath != null) {
+        return new PathfindingResult(
+            new PathPlannerPath(searchPath.waypoints(), constraints, null, goalEndState),
+            searchPath.cost() * nodeSize);
+      }
+    }
+
+    List<GridPosition> pathPositions;
+    if (state.usesCachedPath(goal)) {
+      pathPositions = findCachedPath(start, goal, grid);
+    } else if (state.searchMode() != SearchMode.kADStar) {
+      pathPositions = singleSearch(state, start, goal);
+    } else if (grid.hasUniformCost()) {
+      // JPS finds the optimal path directly, so there is nothing for AD* to improve
+      pathPositions = JumpPointSearch.findPath(start, goal, grid);
+    } else {
+      ADStarSearch search = new ADStarSearch();
+      search.reset(start, goal, grid, state.anytimeSchedule());
+      search.computeOrImprovePath(start, goal, grid);
+      while (System.nanoTime() < deadlineNanos && search.improvePath(start, goal, grid)) {
+        // Keep lowering the heuristic inflation until the path is optimal or time runs out
+      }
+
+      pathPositions = new ArrayList<>();
+      if (Double.isFinite(search.pathCost(start))) {
+        pathPositions = search.extractPath(start, goal, grid);
+      }
+    }
+
+    List<Waypoint> waypoints = createWaypoints(pathPositions, startPosition, goalPosition, grid);
+    if (waypoints.size() < 2) {
+      return new PathfindingResult(null, Double.POSITIVE_INFINITY);
+    }
+
+    double cost = 0.0;
+    for (int i = 1; i < pathPositions.size(); i++) {
+      cost += grid.lineCost(pathPositions.get(i - 1), pathPositions.get(i));
+    }
+
+    return new PathfindingResult(
+        new PathPlannerPath(waypoints, constraints, null, goalEndState), cost * nodeSize);
+  }
+
+  /**
+   * Run a search mode that finds a single path instead of improving it over time
+   *
+   * @param state The planning state, which selects the search mode
+   * @param sStart Start node
+   * @param sGoal Goal node
+   * @return Every node along the path, including the start and goal. Empty if no path was found.
+   */
+  List<GridPosition> singleSearch(PlanningState state, GridPosition sStart, GridPosition sGoal) {
+    GridSnapshot grid = state.grid();
+    List<GridPosition> pathPositions = new ArrayList<>();
+
+    if (state.searchMode() == SearchMode.kLazyThetaStar
+        || state.searchMode() == SearchMode.kQuadtree
+        || state.searchMode() == SearchMode.kHybridAStar
+        || state.searchMode() == SearchMode.kSpaceTime) {
+      List<GridPosition> vertices;
+      if (state.searchMode() != SearchMode.kQuadtree) {
+        vertices = LazyThetaStar.findPath(sStart, sGoal, grid);
+      } else {
+        // The quadtree is rebuilt during the search, so only one search can use it at a time
+        synchronized (state.quadtree()) {
+          vertices = state.quadtree().findPath(sStart, sGoal, grid);
         }
-      } catch (Exception e) {
-        // Something messed up. Reset and hope for the best
-        requestLock.writeLock().lock();
-        requestReset = true;
-        requestLock.writeLock().unlock();
+      }
+
+      // Fill in the nodes between vertices so the path can be checked against new obstacles
+      for (int i = 0; i < vertices.size() - 1; i++) {
+        List<GridPosition> segment = GridSnapshot.traceLine(vertices.get(i), vertices.get(i + 1));
+        pathPositions.addAll(i == 0 ? segment : segment.subList(1, segment.size()));
+      }
+    } else if (state.searchMode() == SearchMode.kHierarchical) {
+      // The abstract graph is repaired during the search, so only one search can use it at a time
+      synchronized (state.hpaGraph()) {
+        pathPositions = state.hpaGraph().findPath(sStart, sGoal, grid);
       }
     }
+
+    return pathPositions;
   }
 
-  private void doWork(
-      boolean needsReset,
-      boolean doMinor,
-      boolean doMajor,
+  /**
+   * Find a drivable path with hybrid A*, using the current turning radius
+   *
+   * @param grid Grid to search
+   * @param sStart Start node
+   * @param sGoal Goal node
+   * @param realStartPos Exact start position of the path. Used if it is inside the start node.
+   * @param realGoalPos Exact goal position of the path. Used if it is inside the goal node.
+   * @param costToGo Cost field of the goal node, from {@link #getSearchCostField}
+   * @param startVelocity Field-relative velocity of the robot at the start, in meters per second.
+   *     If the robot is moving, the path prefers to start in the direction it is moving.
+   * @return The path, or null if no drivable path was found
+   */
+  SearchPath hybridSearch(
+      GridSnapshot grid,
       GridPosition sStart,
       GridPosition sGoal,
       Translation2d realStartPos,
       Translation2d realGoalPos,
-      Set<GridPosition> obstacles) {
-    if (needsReset) {
-      reset(sStart, sGoal);
+      GoalCostField costToGo,
+      Translation2d startVelocity) {
+    if (sStart.equals(sGoal)) {
+      return null;
     }
 
-    if (doMinor) {
-      computeOrImprovePath(sStart, sGoal, obstacles);
-
-      List<GridPosition> pathPositions = extractPath(sStart, sGoal, obstacles);
-      List<Waypoint> waypoints =
-          createWaypoints(pathPositions, realStartPos, realGoalPos, obstacles);
-
-      pathLock.writeLock().lock();
-      currentPathFull = pathPositions;
-      currentWaypoints = waypoints;
-      pathLock.writeLock().unlock();
+    // Positions that were moved out of an obstacle start from the center of their new node
+    Translation2d start =
+        getGridPos(realStartPos).equals(sStart) ? realStartPos : gridPosToTranslation2d(sStart);
+    Translation2d goal =
+        getGridPos(realGoalPos).equals(sGoal) ? realGoalPos : gridPosToTranslation2d(sGoal);
+
+    HybridAStar.Result result =
+        HybridAStar.findPath(
+            start.getX() / nodeSize,
+            start.getY() / nodeSize,
+            goal.getX() / nodeSize,
+            goal.getY() / nodeSize,
+            grid,
+            costToGo,
+            turningRadius / nodeSize,
+            startVelocity.getNorm() > MIN_START_HEADING_SPEED
+                ? startVelocity.getAngle().getRadians()
+                : Double.NaN);
+    if (result == null) {
+      return null;
+    }
 
-      newPathAvailable = true;
-    } else if (doMajor) {
-      if (eps > 1.0) {
-        eps -= 0.5;
-        open.putAll(incons);
+    List<Waypoint> waypoints = HybridAStar.createWaypoints(result.segments(), nodeSize);
+    return new SearchPath(waypoints, result.cells(), result.cost());
+  }
 
-        open.replaceAll((s, v) -> key(s, sStart));
-        closed.clear();
-        computeOrImprovePath(sStart, sGoal, obstacles);
+  /**
+   * Find a path with space-time A*, avoiding the predicted positions of the moving obstacles
+   *
+   * @param state The planning state, which has the grid and the moving obstacles
+   * @param sStart Start node
+   * @param sGoal Goal node
+   * @param realStartPos Exact start position of the path
+   * @param realGoalPos Exact goal position of the path
+   * @param costToGo Cost field of the goal node, from {@link #getSearchCostField}
+   * @return The path, or null if no path was found
+   */
+  SearchPath spaceTimeSearch(
+      PlanningState state,
+      GridPosition sStart,
+      GridPosition sGoal,
+      Translation2d realStartPos,
+      Translation2d realGoalPos,
+      GoalCostField costToGo) {
+    GridSnapshot grid = state.grid();
+    ObstaclePrediction prediction = state.prediction();
+    double secondsPerNode = nodeSize / cruiseVelocity;
+    double startTime = prediction.now();
+
+    List<GridPosition> cells =
+        SpaceTimeAStar.findPath(
+            sStart, sGoal, grid, costToGo, prediction, startTime, secondsPerNode);
+    if (cells.size() < 2) {
+      return null;
+    }
 
-        List<GridPosition> pathPositions = extractPath(sStart, sGoal, obstacles);
-        List<Waypoint> waypoints =
-            createWaypoints(pathPositions, realStartPos, realGoalPos, obstacles);
+    // Only cut corners where the shortcut also avoids the moving obstacles. The elastic band would
+    // pull the path back through them, so the corners are only rounded.
+    List<Translation2d> fieldPosPath =
+        toFieldPositions(
+            SpaceTimeAStar.simplify(cells, grid, prediction, startTime, secondsPerNode),
+            realStartPos,
+            realGoalPos);
+
+    double cost = 0.0;
+    for (int i = 1; i < cells.size(); i++) {
+      cost += grid.lineCost(cells.get(i - 1), cells.get(i));
+    }
 
-        pathLock.writeLock().lock();
-        currentPathFull = pathPositions;
-        currentWaypoints = waypoints;
-        pathLock.writeLock().unlock();
+    return new SearchPath(smoothWaypoints(fieldPosPath), cells, cost);
+  }
 
-        newPathAvailable = true;
-      }
+  /**
+   * Get the cost field of a goal to use as the heuristic of a search. Registered goals use their
+   * cached field. Other goals repair the field of the previous search if it was for the same goal,
+   * so replanning only updates the costs that changed since then.
+   *
+   * @param state The planning state
+   * @param sGoal Goal node
+   * @param previous Field used by the previous search, or null if there wasn't one
+   * @return The cost field, up to date with the grid of the planning state
+   */
+  GoalCostField getSearchCostField(
+      PlanningState state, GridPosition sGoal, GoalCostField previous) {
+    if (state.registeredGoals().contains(sGoal)) {
+      return getGoalCostField(sGoal, state.grid());
+    } else if (previous != null && previous.getGoal().equals(sGoal)) {
+      return previous.repaired(state.grid());
     }
+    return new GoalCostField(sGoal, state.grid());
   }
 
-  private List<GridPosition> extractPath(
-      GridPosition sStart, GridPosition sGoal, Set<GridPosition> obstacles) {
-    if (sGoal.equals(sStart)) {
-      return new ArrayList<>();
-    }
+  /**
+   * Get the obstacles and search settings that should be used for a planning loop
+   *
+   * @return The current planning state
+   */
+  PlanningState getPlanningState() {
+    requestLock.readLock().lock();
+    PlanningState state =
+        new PlanningState(
+            requestGrid,
+            requestSearchMode,
+            hierarchicalGraph,
+            quadtreeGraph,
+            requestRegisteredGoalNodes,
+            requestPrediction,
+            requestAnytimeSchedule);
+    requestLock.readLock().unlock();
+    return state;
+  }
 
-    List<GridPosition> path = new ArrayList<>();
-    path.add(sStart);
+  /**
+   * Find a path to a registered goal using its cached costs, computing them first if needed
+   *
+   * @param sStart Start node
+   * @param sGoal Registered goal node
+   * @param grid Grid to find the path on
+   * @return Every node along the path, including the start and goal
+   */
+  List<GridPosition> findCachedPath(GridPosition sStart, GridPosition sGoal, GridSnapshot grid) {
+    return getGoalCostField(sGoal, grid).extractPath(sStart);
+  }
+
+  /**
+   * Drop the cached cost field of a goal, so it is computed from scratch the next time it is used.
+   * Does nothing if the goal has no cached field.
+   *
+   * @param sGoal Goal node
+   */
+  void invalidateGoalCostField(GridPosition sGoal) {
+    goalCostFields.remove(sGoal);
+  }
 
-    var s = sStart;
+  /**
+   * Get the cost field of a goal on a grid. A cached field is reused if it is up to date, or
+   * repaired if it isn't. The field is computed without holding any lock, so other threads can keep
+   * using the cached fields, then it is cached unless another thread already replaced the cached
+   * field.
+   *
+   * @param sGoal Goal node
+   * @param grid Grid the field should be up to date with
+   * @return The cost field
+   */
+  private GoalCostField getGoalCostField(GridPosition sGoal, GridSnapshot grid) {
+    GoalCostField cached = goalCostFields.get(sGoal);
+    if (cached == null) {
+      GoalCostField field = new GoalCostField(sGoal, grid);
+      goalCostFields.putIfAbsent(sGoal, field);
+      return field;
+    }
 
-    for (int k = 0; k < 200; k++) {
-      HashMap<GridPosition, Double> gList = new HashMap<>();
+    GoalCostField field = cached.repaired(grid);
+    if (field != cached) {
+      goalCostFields.replace(sGoal, cached, field);
+    }
+    return field;
+  }
 
-      for (GridPosition x : getOpenNeighbors(s, obstacles)) {
-        gList.put(x, g.get(x));
+  @SuppressWarnings("BusyWait")
+  private void runThread() {
+    while (!Thread.currentThread().isInterrupted()) {
+      // The session and each goal cost field handle their own failures, so one bad goal doesn't
+      // throw away the cached costs of every other goal
+      boolean didWork = defaultSession.plan() || updateGoalCostFields();
+
+      if (publishMetrics
+          && System.nanoTime() - lastMetricsPublishNanos > METRICS_PUBLISH_PERIOD_NANOS) {
+        metrics.publish();
+        lastMetricsPublishNanos = System.nanoTime();
       }
 
-      Map.Entry<GridPosition, Double> min = Map.entry(sGoal, Double.POSITIVE_INFINITY);
-      for (var entry : gList.entrySet()) {
-        if (entry.getValue() < min.getValue()) {
-          min = entry;
+      if (!didWork) {
+        try {
+          Thread.sleep(10);
+        } catch (InterruptedException e) {
+          // The pathfinder was shut down
+          return;
         }
       }
-      s = min.getKey();
+    }
+  }
 
-      path.add(s);
-      if (s.equals(sGoal)) {
-        break;
+  /**
+   * Compute or repair the cost field of one registered goal that is not up to date with the grid.
+   * If that fails, only the cached field of that goal is dropped.
+   *
+   * @return True if a field was updated, false if they were all up to date or the update failed
+   */
+  private boolean updateGoalCostFields() {
+    PlanningState state = getPlanningState();
+
+    goalCostFields.keySet().retainAll(state.registeredGoals());
+
+    for (GridPosition goal : state.registeredGoals()) {
+      GoalCostField field = goalCostFields.get(goal);
+      if (field == null || !field.isUpToDate(state.grid())) {
+        try {
+          getGoalCostField(goal, state.grid());
+        } catch (Exception e) {
+          DriverStation.reportError(
+              "Failed to update the costs of a registered goal, computing them again",
+              e.getStackTrace());
+          invalidateGoalCostField(goal);
+          return false;
+        }
+        return true;
       }
     }
 
-    return path;
+    return false;
+  }
+
+  private synchronized ExecutorService getSessionExecutor() {
+    if (sessionExecutor == null) {
+      sessionExecutor =
+          Executors.newFixedThreadPool(
+              sessionThreadCount(),
+              r -> {
+                Thread t = new Thread(r);
+                t.setDaemon(true);
+                t.setName("ADStar Session Thread");
+                return t;
+              });
+    }
+
+    return sessionExecutor;
   }
 
-  private List<Waypoint> createWaypoints(
+  /** Get the number of threads in the session thread pool */
+  private static int sessionThreadCount() {
+    return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+  }
+
+  private List<PathfindingSession> getSessions() {
+    List<PathfindingSession> ret = new ArrayList<>();
+    ret.add(defaultSession);
+    synchronized (sessions) {
+      ret.addAll(sessions);
+    }
+    return ret;
+  }
+
+  /**
+   * Find the nodes of all registered goals. Must be called with the request write lock held, or
+   * before the planning thread is started.
+   */
+  private void updateRegisteredGoalNodes() {
+    Set<GridPosition> goalNodes = new HashSet<>();
+    boolean moved = false;
+    for (Translation2d goalPos : requestRegisteredGoals.values()) {
+      GridPosition gridPos = findClosestNonObstacle(getGridPos(goalPos), requestGrid);
+      if (gridPos != null) {
+        goalNodes.add(gridPos);
+      }
+      moved |= !getGridPos(goalPos).equals(gridPos);
+    }
+    requestRegisteredGoalNodes = goalNodes;
+    registeredGoalMoved = moved;
+  }
+
+  /**
+   * Create the waypoints of a smooth path following the nodes found by a search. The path is
+   * smoothed with {@link PathSmoother} if path smoothing is enabled.
+   *
+   * @param path Every node along the path
+   * @param realStartPos Exact start position of the path
+   * @param realGoalPos Exact goal position of the path
+   * @param grid Grid that was searched
+   * @return Path waypoints, or an empty list if the path is too short
+   */
+  List<Waypoint> createWaypoints(
       List<GridPosition> path,
       Translation2d realStartPos,
       Translation2d realGoalPos,
-      Set<GridPosition> obstacles) {
+      GridSnapshot grid) {
     if (path.isEmpty()) {
       return new ArrayList<>();
     }
@@ -398,25 +1362,51 @@ public class LocalADStar implements Pathfinder {
     List<GridPosition> simplifiedPath = new ArrayList<>();
     simplifiedPath.add(path.get(0));
     for (int i = 1; i < path.size() - 1; i++) {
-      if (!walkable(simplifiedPath.get(simplifiedPath.size() - 1), path.get(i + 1), obstacles)) {
+      if (!grid.lineOfSight(simplifiedPath.get(simplifiedPath.size() - 1), path.get(i + 1))) {
         simplifiedPath.add(path.get(i));
       }
     }
     simplifiedPath.add(path.get(path.size() - 1));
 
+    List<Translation2d> fieldPosPath = toFieldPositions(simplifiedPath, realStartPos, realGoalPos);
+    if (fieldPosPath.size() < 2) {
+      return new ArrayList<>();
+    }
+
+    if (pathSmoothing) {
+      return PathSmoother.smooth(
+          fieldPosPath, grid, nodeSize, robotRadius, Math.max(clearanceDistance, nodeSize));
+    }
+    return smoothWaypoints(fieldPosPath);
+  }
+
+  /**
+   * Convert the nodes of a path to field positions, replacing the start and goal with their real
+   * positions
+   */
+  private List<Translation2d> toFieldPositions(
+      List<GridPosition> path, Translation2d realStartPos, Translation2d realGoalPos) {
     List<Translation2d> fieldPosPath = new ArrayList<>();
-    for (GridPosition pos : simplifiedPath) {
+    for (GridPosition pos : path) {
       fieldPosPath.add(gridPosToTranslation2d(pos));
     }
 
-    if (fieldPosPath.size() < 2) {
-      return new ArrayList<>();
+    if (fieldPosPath.size() >= 2) {
+      fieldPosPath.set(0, realStartPos);
+      fieldPosPath.set(fieldPosPath.size() - 1, realGoalPos);
     }
+    return fieldPosPath;
+  }
 
-    // Replace start and end positions with their real positions
-    fieldPosPath.set(0, realStartPos);
-    fieldPosPath.set(fieldPosPath.size() - 1, realGoalPos);
-
+  /**
+   * Create smoothed waypoints that follow a path of field positions, rounding each corner with
+   * Bezier anchors
+   *
+   * @param fieldPosPath Positions along the path, including the start and goal. Must contain at
+   *     least 2 positions.
+   * @return The waypoints of the path
+   */
+  static List<Waypoint> smoothWaypoints(List<Translation2d> fieldPosPath) {
     List<Pose2d> pathPoses = new ArrayList<>();
     pathPoses.add(
         new Pose2d(fieldPosPath.get(0), fieldPosPath.get(1).minus(fieldPosPath.get(0)).getAngle()));
@@ -444,8 +1434,23 @@ public class LocalADStar implements Pathfinder {
     return PathPlannerPath.waypointsFromPoses(pathPoses);
   }
 
-  private GridPosition findClosestNonObstacle(GridPosition pos, Set<GridPosition> obstacles) {
-    if (!obstacles.contains(pos)) {
+  /**
+   * Find the closest node to a position that is not an obstacle
+   *
+   * @param position Position on the field
+   * @return The node containing the position, or the closest non-obstacle node if it is an
+   *     obstacle. Null if every node is an obstacle.
+   */
+  GridPosition findClosestNonObstacle(Translation2d position) {
+    requestLock.readLock().lock();
+    GridSnapshot grid = requestGrid;
+    requestLock.readLock().unlock();
+
+    return findClosestNonObstacle(getGridPos(position), grid);
+  }
+
+  private GridPosition findClosestNonObstacle(GridPosition pos, GridSnapshot grid) {
+    if (!grid.isObstacle(pos)) {
       return pos;
     }
 
@@ -455,7 +1460,7 @@ public class LocalADStar implements Pathfinder {
 
     while (!queue.isEmpty()) {
       GridPosition check = queue.poll();
-      if (!obstacles.contains(check)) {
+      if (!grid.isObstacle(check)) {
         return check;
       }
       visited.add(check);
@@ -469,168 +1474,84 @@ public class LocalADStar implements Pathfinder {
     return null;
   }
 
-  private boolean walkable(GridPosition s1, GridPosition s2, Set<GridPosition> obstacles) {
-    int x0 = s1.x;
-    int y0 = s1.y;
-    int x1 = s2.x;
-    int y1 = s2.y;
-
-    int dx = Math.abs(x1 - x0);
-    int dy = Math.abs(y1 - y0);
-    int x = x0;
-    int y = y0;
-    int n = 1 + dx + dy;
-    int xInc = (x1 > x0) ? 1 : -1;
-    int yInc = (y1 > y0) ? 1 : -1;
-    int error = dx - dy;
-    dx *= 2;
-    dy *= 2;
-
-    for (; n > 0; n--) {
-      if (obstacles.contains(new GridPosition(x, y))) {
-        return false;
-      }
-
-      if (error > 0) {
-        x += xInc;
-        error -= dy;
-      } else if (error < 0) {
-        y += yInc;
-        error += dx;
-      } else {
-        x += xInc;
-        y += yInc;
-        error -= dy;
-        error += dx;
-        n--;
-      }
-    }
-
-    return true;
-  }
-
-  private void reset(GridPosition sStart, GridPosition sGoal) {
-    g.clear();
-    rhs.clear();
-    open.clear();
-    incons.clear();
-    closed.clear();
-
-    for (int x = 0; x < nodesX; x++) {
-      for (int y = 0; y < nodesY; y++) {
-        g.put(new GridPosition(x, y), Double.POSITIVE_INFINITY);
-        rhs.put(new GridPosition(x, y), Double.POSITIVE_INFINITY);
-      }
+  /**
+   * Build the first grid snapshot from the distance field. Must be called before the planning
+   * thread is started.
+   */
+  private void initRequestGrid() {
+    distanceField.update();
+    distanceField.pollChangedNodes();
+
+    double[] dist = distanceField.getDistances();
+    double[] clearance = new double[0];
+    if (clearanceWeight > 0 && clearanceDistance > 0) {
+      clearance = new double[dist.length];
     }
-
-    rhs.put(sGoal, 0.0);
-
-    eps = EPS;
-
-    open.put(sGoal, key(sGoal, sStart));
-  }
-
-  private void computeOrImprovePath(
-      GridPosition sStart, GridPosition sGoal, Set<GridPosition> obstacles) {
-    while (true) {
-      var sv = topKey();
-      if (sv == null) {
-        break;
+    for (int i = 0; i < dist.length; i++) {
+      if (dist[i] * nodeSize <= robotRadius) {
+        requestObstacleNodes.set(i);
       }
-      var s = sv.getFirst();
-      var v = sv.getSecond();
-
-      if (comparePair(v, key(sStart, sStart)) >= 0 && rhs.get(sStart).equals(g.get(sStart))) {
-        break;
-      }
-
-      open.remove(s);
-
-      if (g.get(s) > rhs.get(s)) {
-        g.put(s, rhs.get(s));
-        closed.add(s);
-
-        for (GridPosition sn : getOpenNeighbors(s, obstacles)) {
-          updateState(sn, sStart, sGoal, obstacles);
-        }
-      } else {
-        g.put(s, Double.POSITIVE_INFINITY);
-        for (GridPosition sn : getOpenNeighbors(s, obstacles)) {
-          updateState(sn, sStart, sGoal, obstacles);
-        }
-        updateState(s, sStart, sGoal, obstacles);
-      }
-    }
-  }
-
-  private void updateState(
-      GridPosition s, GridPosition sStart, GridPosition sGoal, Set<GridPosition> obstacles) {
-    if (!s.equals(sGoal)) {
-      rhs.put(s, Double.POSITIVE_INFINITY);
-
-      for (GridPosition x : getOpenNeighbors(s, obstacles)) {
-        rhs.put(s, Math.min(rhs.get(s), g.get(x) + cost(s, x, obstacles)));
+      if (clearance.length != 0) {
+        clearance[i] = clearanceCost(dist[i]);
       }
     }
 
-    open.remove(s);
-
-    if (!g.get(s).equals(rhs.get(s))) {
-      if (!closed.contains(s)) {
-        open.put(s, key(s, sStart));
-      } else {
-        incons.put(s, Pair.of(0.0, 0.0));
-      }
-    }
+    requestGrid = new GridSnapshot(nodesX, nodesY, requestObstacleNodes, clearance, dist);
+    updateRegisteredGoalNodes();
   }
 
-  private double cost(GridPosition sStart, GridPosition sGoal, Set<GridPosition> obstacles) {
-    if (isCollision(sStart, sGoal, obstacles)) {
-      return Double.POSITIVE_INFINITY;
+  /**
+   * Update the obstacles and clearance used for new requests from the distance field. Only the
+   * nodes whose distance changed are updated, and the new grid snapshot shares every other row with
+   * the previous one. Must be called with the request write lock held.
+   *
+   * @return The nodes that became obstacles since the last update
+   */
+  private BitSet updateRequestObstacles() {
+    distanceField.update();
+    BitSet changed = distanceField.pollChangedNodes();
+
+    BitSet newlyBlocked = new BitSet();
+    boolean cleared = false;
+    for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+      boolean blocked = distanceField.getDistance(i % nodesX, i / nodesX) * nodeSize <= robotRadius;
+      if (blocked && !requestObstacleNodes.get(i)) {
+        requestObstacleNodes.set(i);
+        newlyBlocked.set(i);
+      } else if (!blocked && requestObstacleNodes.get(i)) {
+        requestObstacleNodes.clear(i);
+        cleared = true;
+      }
     }
 
-    return heuristic(sStart, sGoal);
-  }
-
-  private boolean isCollision(GridPosition sStart, GridPosition sEnd, Set<GridPosition> obstacles) {
-    if (obstacles.contains(sStart) || obstacles.contains(sEnd)) {
-      return true;
+    requestGrid =
+        requestGrid.withChanges(
+            requestObstacleNodes,
+            changed,
+            i -> clearanceCost(distanceField.getDistance(i % nodesX, i / nodesX)),
+            i -> distanceField.getDistance(i % nodesX, i / nodesX));
+
+    // Goals only need to be found again if one was blocked, or one that was moved out of an
+    // obstacle might be able to move back
+    boolean goalBlocked = false;
+    for (GridPosition goal : requestRegisteredGoalNodes) {
+      goalBlocked |= newlyBlocked.get((goal.y() * nodesX) + goal.x());
     }
-
-    if (sStart.x != sEnd.x && sStart.y != sEnd.y) {
-      GridPosition s1;
-      GridPosition s2;
-
-      if (sEnd.x - sStart.x == sStart.y - sEnd.y) {
-        s1 = new GridPosition(Math.min(sStart.x, sEnd.x), Math.min(sStart.y, sEnd.y));
-        s2 = new GridPosition(Math.max(sStart.x, sEnd.x), Math.max(sStart.y, sEnd.y));
-      } else {
-        s1 = new GridPosition(Math.min(sStart.x, sEnd.x), Math.max(sStart.y, sEnd.y));
-        s2 = new GridPosition(Math.max(sStart.x, sEnd.x), Math.min(sStart.y, sEnd.y));
-      }
-
-      return obstacles.contains(s1) || obstacles.contains(s2);
+    if (goalBlocked || (cleared && registeredGoalMoved)) {
+      updateRegisteredGoalNodes();
     }
-
-    return false;
+    return newlyBlocked;
   }
 
-  private List<GridPosition> getOpenNeighbors(GridPosition s, Set<GridPosition> obstacles) {
-    List<GridPosition> ret = new ArrayList<>();
-
-    for (int xMove = -1; xMove <= 1; xMove++) {
-      for (int yMove = -1; yMove <= 1; yMove++) {
-        GridPosition sNext = new GridPosition(s.x + xMove, s.y + yMove);
-        if (!obstacles.contains(sNext)
-            && sNext.x >= 0
-            && sNext.x < nodesX
-            && sNext.y >= 0
-            && sNext.y < nodesY) {
-          ret.add(sNext);
-        }
-      }
-    }
-    return ret;
+  /**
+   * Get the clearance cost of a node
+   *
+   * @param dist Distance from the node to the closest obstacle before inflation, in nodes
+   * @return Additional cost multiplier for moving through the node
+   */
+  private double clearanceCost(double dist) {
+    double distFromInflated = (dist * nodeSize) - robotRadius;
+    return clearanceWeight * MathUtil.clamp(1.0 - (distFromInflated / clearanceDistance), 0.0, 1.0);
   }
 
   private List<GridPosition> getAllNeighbors(GridPosition s) {
@@ -647,42 +1568,6 @@ public class LocalADStar implements Pathfinder {
     return ret;
   }
 
-  private Pair<Double, Double> key(GridPosition s, GridPosition sStart) {
-    if (g.get(s) > rhs.get(s)) {
-      return Pair.of(rhs.get(s) + eps * heuristic(sStart, s), rhs.get(s));
-    } else {
-      return Pair.of(g.get(s) + heuristic(sStart, s), g.get(s));
-    }
-  }
-
-  private Pair<GridPosition, Pair<Double, Double>> topKey() {
-    Map.Entry<GridPosition, Pair<Double, Double>> min = null;
-    for (var entry : open.entrySet()) {
-      if (min == null || comparePair(entry.getValue(), min.getValue()) < 0) {
-        min = entry;
-      }
-    }
-
-    if (min == null) {
-      return null;
-    }
-
-    return Pair.of(min.getKey(), min.getValue());
-  }
-
-  private double heuristic(GridPosition sStart, GridPosition sGoal) {
-    return Math.hypot(sGoal.x - sStart.x, sGoal.y - sStart.y);
-  }
-
-  private int comparePair(Pair<Double, Double> a, Pair<Double, Double> b) {
-    int first = Double.compare(a.getFirst(), b.getFirst());
-    if (first == 0) {
-      return Double.compare(a.getSecond(), b.getSecond());
-    } else {
-      return first;
-    }
-  }
-
   private GridPosition getGridPos(Translation2d pos) {
     int x = (int) Math.floor(pos.getX() / nodeSize);
     int y = (int) Math.floor(pos.getY() / nodeSize);
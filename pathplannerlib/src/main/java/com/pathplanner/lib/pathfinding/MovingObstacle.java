@@ -0,0 +1,121 @@
+package com.pathplanner.lib.pathfinding;
+
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An obstacle that moves around the field, such as another robot. Its bounding box keeps the same
+ * size, and moves either at a constant velocity or along a predicted trajectory.
+ *
+ * <p>Times are in seconds from the moment the obstacle was given to the pathfinder.
+ */
+public final class MovingObstacle {
+  private final Translation2d corner1;
+  private final Translation2d corner2;
+  private final double[] times;
+  private final Translation2d[] offsets;
+  private final Translation2d endVelocity;
+
+  private MovingObstacle(
+      Translation2d corner1,
+      Translation2d corner2,
+      double[] times,
+      Translation2d[] offsets,
+      Translation2d endVelocity) {
+    this.corner1 = corner1;
+    this.corner2 = corner2;
+    this.times = times;
+    this.offsets = offsets;
+    this.endVelocity = endVelocity;
+  }
+
+  /**
+   * Create an obstacle that moves at a constant velocity
+   *
+   * @param corner1 A corner of the obstacle's current bounding box
+   * @param corner2 The opposite corner of the obstacle's current bounding box
+   * @param velocityMPS Field-relative velocity of the obstacle, in meters per second
+   * @return The moving obstacle
+   */
+  public static MovingObstacle withVelocity(
+      Translation2d corner1, Translation2d corner2, Translation2d velocityMPS) {
+    return new MovingObstacle(
+        corner1,
+        corner2,
+        new double[] {0.0},
+        new Translation2d[] {Translation2d.kZero},
+        velocityMPS);
+  }
+
+  /**
+   * Create an obstacle that follows a predicted trajectory. The obstacle moves in a straight line
+   * between the predicted positions, and stays at the last one after the prediction ends.
+   *
+   * @param corner1 A corner of the obstacle's current bounding box
+   * @param corner2 The opposite corner of the obstacle's current bounding box
+   * @param predictedOffsets Predicted movement of the obstacle. Each pair is a time in seconds, and
+   *     how far the obstacle will have moved from its current bounding box at that time.
+   * @return The moving obstacle
+   */
+  public static MovingObstacle withPrediction(
+      Translation2d corner1,
+      Translation2d corner2,
+      List<Pair<Double, Translation2d>> predictedOffsets) {
+    List<Pair<Double, Translation2d>> sorted = new ArrayList<>(predictedOffsets);
+    sorted.sort(Comparator.comparingDouble(Pair::getFirst));
+
+    // The obstacle is at its current bounding box until the prediction starts
+    double[] times = new double[sorted.size() + 1];
+    Translation2d[] offsets = new Translation2d[sorted.size() + 1];
+    offsets[0] = Translation2d.kZero;
+    for (int i = 0; i < sorted.size(); i++) {
+      times[i + 1] = Math.max(sorted.get(i).getFirst(), 0.0);
+      offsets[i + 1] = sorted.get(i).getSecond();
+    }
+
+    return new MovingObstacle(corner1, corner2, times, offsets, Translation2d.kZero);
+  }
+
+  /**
+   * Get the predicted bounding box of the obstacle
+   *
+   * @param timeSeconds Time in seconds from the moment the obstacle was given to the pathfinder
+   * @return Opposite corners of the bounding box at the given time
+   */
+  public Pair<Translation2d, Translation2d> getBoundsAt(double timeSeconds) {
+    Translation2d offset = getOffsetAt(timeSeconds);
+    return Pair.of(corner1.plus(offset), corner2.plus(offset));
+  }
+
+  /** Get how far the obstacle will have moved from its current bounding box at a time */
+  Translation2d getOffsetAt(double timeSeconds) {
+    int last = times.length - 1;
+    if (timeSeconds >= times[last]) {
+      return offsets[last].plus(endVelocity.times(timeSeconds - times[last]));
+    }
+
+    int i = 0;
+    while (times[i + 1] <= timeSeconds) {
+      i++;
+    }
+
+    double span = times[i + 1] - times[i];
+    double t = span > 1e-9 ? (timeSeconds - times[i]) / span : 1.0;
+    return offsets[i].interpolate(offsets[i + 1], Math.max(t, 0.0));
+  }
+
+  /** Get the center of the obstacle's current bounding box */
+  Translation2d getCenter() {
+    return corner1.plus(corner2).div(2.0);
+  }
+
+  /** Get half the size of the obstacle's bounding box in each direction */
+  Translation2d getHalfSize() {
+    return new Translation2d(
+        Math.abs(corner2.getX() - corner1.getX()) / 2.0,
+        Math.abs(corner2.getY() - corner1.getY()) / 2.0);
+  }
+}
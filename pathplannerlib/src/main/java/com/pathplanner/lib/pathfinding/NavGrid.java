@@ -0,0 +1,256 @@
+package com.pathplanner.lib.pathfinding;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.BitSet;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Occupancy grid of the static obstacles on the field, used by the pathfinder. This can be loaded
+ * from the navgrid.json file created by the GUI, or from a compact binary navgrid, which loads much
+ * faster.
+ *
+ * <p>The binary format is big-endian, and starts with a header containing the magic number {@code
+ * PPNG}, the format version (int), node size in meters (double), field length and width in meters
+ * (double), and the number of nodes in the X and Y directions (int). The header is followed by one
+ * bit for each node, indexed by {@code y * nodesX + x}, with the lowest bit of each byte first.
+ */
+public class NavGrid {
+  private static final int BINARY_MAGIC = 0x50504E47;
+  private static final int BINARY_VERSION = 1;
+  private static final int BINARY_HEADER_SIZE = 40;
+
+  private final double nodeSize;
+  private final double fieldLength;
+  private final double fieldWidth;
+  private final int nodesX;
+  private final int nodesY;
+  private final BitSet obstacles;
+
+  /**
+   * Create a new navgrid
+   *
+   * @param nodeSizeMeters Width and height of each node, in meters
+   * @param fieldLengthMeters Length of the field, in meters
+   * @param fieldWidthMeters Width of the field, in meters
+   * @param nodesX Number of nodes in the X direction
+   * @param nodesY Number of nodes in the Y direction
+   * @param obstacles Obstacle nodes, indexed by {@code y * nodesX + x}
+   */
+  public NavGrid(
+      double nodeSizeMeters,
+      double fieldLengthMeters,
+      double fieldWidthMeters,
+      int nodesX,
+      int nodesY,
+      BitSet obstacles) {
+    this.nodeSize = nodeSizeMeters;
+    this.fieldLength = fieldLengthMeters;
+    this.fieldWidth = fieldWidthMeters;
+    this.nodesX = nodesX;
+    this.nodesY = nodesY;
+    this.obstacles = (BitSet) obstacles.clone();
+  }
+
+  /**
+   * Create a navgrid with no obstacles
+   *
+   * @param nodeSizeMeters Width and height of each node, in meters
+   * @param fieldLengthMeters Length of the field, in meters
+   * @param fieldWidthMeters Width of the field, in meters
+   * @return Navgrid covering the field with no obstacles
+   */
+  public static NavGrid empty(
+      double nodeSizeMeters, double fieldLengthMeters, double fieldWidthMeters) {
+    return new NavGrid(
+        nodeSizeMeters,
+        fieldLengthMeters,
+        fieldWidthMeters,
+        (int) Math.ceil(fieldLengthMeters / nodeSizeMeters),
+        (int) Math.ceil(fieldWidthMeters / nodeSizeMeters),
+        new BitSet());
+  }
+
+  /**
+   * Load a navgrid from a JSON file created by the GUI
+   *
+   * @param file The navgrid.json file
+   * @return The loaded navgrid
+   * @throws IOException if the file could not be read
+   * @throws ParseException if the file is not valid JSON
+   */
+  public static NavGrid fromJsonFile(File file) throws IOException, ParseException {
+    String fileContent = Files.readString(file.toPath());
+    return fromJson((JSONObject) new JSONParser().parse(fileContent));
+  }
+
+  /**
+   * Create a navgrid from its JSON representation
+   *
+   * @param json JSON object representing a navgrid
+   * @return The navgrid
+   */
+  public static NavGrid fromJson(JSONObject json) {
+    double nodeSize = ((Number) json.get("nodeSizeMeters")).doubleValue();
+
+    JSONArray grid = (JSONArray) json.get("grid");
+    int nodesY = grid.size();
+    int nodesX = nodesY > 0 ? ((JSONArray) grid.get(0)).size() : 0;
+
+    BitSet obstacles = new BitSet(nodesX * nodesY);
+    for (int row = 0; row < nodesY; row++) {
+      JSONArray rowArray = (JSONArray) grid.get(row);
+      for (int col = 0; col < Math.min(nodesX, rowArray.size()); col++) {
+        if ((boolean) rowArray.get(col)) {
+          obstacles.set(row * nodesX + col);
+        }
+      }
+    }
+
+    JSONObject fieldSize = (JSONObject) json.get("field_size");
+    double fieldLength = ((Number) fieldSize.get("x")).doubleValue();
+    double fieldWidth = ((Number) fieldSize.get("y")).doubleValue();
+
+    return new NavGrid(nodeSize, fieldLength, fieldWidth, nodesX, nodesY, obstacles);
+  }
+
+  /**
+   * Load a navgrid from a binary navgrid file. The file is memory mapped, so this does not need to
+   * parse anything other than the header.
+   *
+   * @param file The binary navgrid file
+   * @return The loaded navgrid
+   * @throws IOException if the file could not be read or is not a valid binary navgrid
+   */
+  public static NavGrid fromBinaryFile(File file) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+        FileChannel channel = raf.getChannel()) {
+      if (channel.size() < BINARY_HEADER_SIZE) {
+        throw new IOException("Binary navgrid is too short: " + file);
+      }
+
+      MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buf.getInt() != BINARY_MAGIC) {
+        throw new IOException("Not a binary navgrid: " + file);
+      }
+
+      int version = buf.getInt();
+      if (version != BINARY_VERSION) {
+        throw new IOException("Unsupported binary navgrid version " + version + ": " + file);
+      }
+
+      double nodeSize = buf.getDouble();
+      double fieldLength = buf.getDouble();
+      double fieldWidth = buf.getDouble();
+      int nodesX = buf.getInt();
+      int nodesY = buf.getInt();
+
+      if (nodesX < 0 || nodesY < 0 || buf.remaining() < numBytes(nodesX, nodesY)) {
+        throw new IOException("Binary navgrid is truncated: " + file);
+      }
+
+      BitSet obstacles = BitSet.valueOf(buf.slice().limit(numBytes(nodesX, nodesY)));
+      return new NavGrid(nodeSize, fieldLength, fieldWidth, nodesX, nodesY, obstacles);
+    }
+  }
+
+  /**
+   * Write this navgrid to a binary navgrid file
+   *
+   * @param file The file to write
+   * @throws IOException if the file could not be written
+   */
+  public void writeBinaryFile(File file) throws IOException {
+    int gridBytes = numBytes(nodesX, nodesY);
+    ByteBuffer buf = ByteBuffer.allocate(BINARY_HEADER_SIZE + gridBytes);
+    buf.putInt(BINARY_MAGIC);
+    buf.putInt(BINARY_VERSION);
+    buf.putDouble(nodeSize);
+    buf.putDouble(fieldLength);
+    buf.putDouble(fieldWidth);
+    buf.putInt(nodesX);
+    buf.putInt(nodesY);
+    // toByteArray() drops trailing zero bytes, so pad it back out to the full grid size
+    buf.put(Arrays.copyOf(obstacles.get(0, nodesX * nodesY).toByteArray(), gridBytes));
+
+    Files.write(file.toPath(), buf.array());
+  }
+
+  /**
+   * Get the width and height of each node
+   *
+   * @return Node size in meters
+   */
+  public double getNodeSize() {
+    return nodeSize;
+  }
+
+  /**
+   * Get the length of the field
+   *
+   * @return Field length in meters
+   */
+  public double getFieldLength() {
+    return fieldLength;
+  }
+
+  /**
+   * Get the width of the field
+   *
+   * @return Field width in meters
+   */
+  public double getFieldWidth() {
+    return fieldWidth;
+  }
+
+  /**
+   * Get the number of nodes in the X direction
+   *
+   * @return Number of nodes in the X direction
+   */
+  public int getNodesX() {
+    return nodesX;
+  }
+
+  /**
+   * Get the number of nodes in the Y direction
+   *
+   * @return Number of nodes in the Y direction
+   */
+  public int getNodesY() {
+    return nodesY;
+  }
+
+  /**
+   * Check if a node is an obstacle
+   *
+   * @param x X index of the node
+   * @param y Y index of the node
+   * @return True if the node is an obstacle. Nodes outside the grid are not obstacles.
+   */
+  public boolean isObstacle(int x, int y) {
+    return x >= 0 && x < nodesX && y >= 0 && y < nodesY && obstacles.get(y * nodesX + x);
+  }
+
+  /**
+   * Get a copy of the obstacle nodes
+   *
+   * @return Obstacle nodes, indexed by {@code y * nodesX + x}
+   */
+  public BitSet getObstacles() {
+    return (BitSet) obstacles.clone();
+  }
+
+  private static int numBytes(int nodesX, int nodesY) {
+    return (int) (((long) nodesX * nodesY + 7) / 8);
+  }
+}
@@ -0,0 +1,242 @@
+package com.pathplanner.lib.pathfinding;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.PriorityQueue;
+
+/**
+ * Euclidean distance transform of the obstacle layer of a pathfinding grid. This uses the dynamic
+ * brushfire algorithm, so adding or removing obstacles will only update the distances of nodes that
+ * are affected by the change instead of recomputing the whole field.
+ */
+public class ObstacleDistanceField {
+  private static final int[] NEIGHBOR_X = {-1, -1, -1, 0, 0, 1, 1, 1};
+  private static final int[] NEIGHBOR_Y = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+  private final int nodesX;
+  private final int nodesY;
+
+  private final boolean[] occupied;
+  private final boolean[] toRaise;
+  private final int[] closestObstacle;
+  private final double[] dist;
+  private final BitSet changed = new BitSet();
+
+  private final PriorityQueue<QueueEntry> open =
+      new PriorityQueue<>((a, b) -> Double.compare(a.priority, b.priority));
+
+  /**
+   * Create a new distance field with no obstacles
+   *
+   * @param nodesX Number of nodes in the X direction
+   * @param nodesY Number of nodes in the Y direction
+   */
+  public ObstacleDistanceField(int nodesX, int nodesY) {
+    this.nodesX = nodesX;
+    this.nodesY = nodesY;
+
+    this.occupied = new boolean[nodesX * nodesY];
+    this.toRaise = new boolean[nodesX * nodesY];
+    this.closestObstacle = new int[nodesX * nodesY];
+    this.dist = new double[nodesX * nodesY];
+
+    Arrays.fill(closestObstacle, -1);
+    Arrays.fill(dist, Double.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Mark a node as an obstacle. The distances will not change until {@link #update()} is called.
+   *
+   * @param x X index of the node
+   * @param y Y index of the node
+   */
+  public void setObstacle(int x, int y) {
+    if (!inBounds(x, y)) {
+      return;
+    }
+
+    int idx = index(x, y);
+    if (occupied[idx]) {
+      return;
+    }
+
+    occupied[idx] = true;
+    closestObstacle[idx] = idx;
+    dist[idx] = 0.0;
+    changed.set(idx);
+    toRaise[idx] = false;
+    open.add(new QueueEntry(idx, 0.0));
+  }
+
+  /**
+   * Remove an obstacle from a node. The distances will not change until {@link #update()} is
+   * called.
+   *
+   * @param x X index of the node
+   * @param y Y index of the node
+   */
+  public void removeObstacle(int x, int y) {
+    if (!inBounds(x, y)) {
+      return;
+    }
+
+    int idx = index(x, y);
+    if (!occupied[idx]) {
+      return;
+    }
+
+    occupied[idx] = false;
+    clearCell(idx);
+    toRaise[idx] = true;
+    open.add(new QueueEntry(idx, 0.0));
+  }
+
+  /** Propagate all obstacle changes made since the last update through the distance field */
+  public void update() {
+    while (!open.isEmpty()) {
+      int s = open.poll().index;
+
+      if (toRaise[s]) {
+        raise(s);
+      } else if (closestObstacle[s] != -1 && occupied[closestObstacle[s]]) {
+        lower(s);
+      }
+    }
+  }
+
+  /**
+   * Check if a node is an obstacle
+   *
+   * @param x X index of the node
+   * @param y Y index of the node
+   * @return True if the node is an obstacle. Nodes outside the grid are always obstacles.
+   */
+  public boolean isObstacle(int x, int y) {
+    return !inBounds(x, y) || occupied[index(x, y)];
+  }
+
+  /**
+   * Get the distance from a node to the closest obstacle
+   *
+   * @param x X index of the node
+   * @param y Y index of the node
+   * @return Distance to the closest obstacle, in nodes. This will be 0 for nodes outside the grid
+   *     and infinity if there are no obstacles.
+   */
+  public double getDistance(int x, int y) {
+    if (!inBounds(x, y)) {
+      return 0.0;
+    }
+
+    return dist[index(x, y)];
+  }
+
+  /**
+   * Get a copy of the distances for every node, indexed by {@code y * nodesX + x}
+   *
+   * @return Distance to the closest obstacle for every node, in nodes
+   */
+  public double[] getDistances() {
+    return Arrays.copyOf(dist, dist.length);
+  }
+
+  /**
+   * Get the nodes whose distance may have changed since the last call to this method, then start
+   * tracking changes again. A node is included if its distance was touched by an update, even if it
+   * ended up with the same value.
+   *
+   * @return Changed nodes, indexed by {@code y * nodesX + x}
+   */
+  public BitSet pollChangedNodes() {
+    BitSet ret = (BitSet) changed.clone();
+    changed.clear();
+    return ret;
+  }
+
+  /**
+   * Get the number of nodes in the X direction
+   *
+   * @return Number of nodes in the X direction
+   */
+  public int getNodesX() {
+    return nodesX;
+  }
+
+  /**
+   * Get the number of nodes in the Y direction
+   *
+   * @return Number of nodes in the Y direction
+   */
+  public int getNodesY() {
+    return nodesY;
+  }
+
+  private void raise(int s) {
+    int sx = s % nodesX;
+    int sy = s / nodesX;
+
+    for (int i = 0; i < NEIGHBOR_X.length; i++) {
+      int nx = sx + NEIGHBOR_X[i];
+      int ny = sy + NEIGHBOR_Y[i];
+      if (!inBounds(nx, ny)) {
+        continue;
+      }
+
+      int n = index(nx, ny);
+      if (closestObstacle[n] != -1 && !toRaise[n]) {
+        double priority = dist[n];
+        if (!occupied[closestObstacle[n]]) {
+          // This node's closest obstacle was removed, continue the raise wave through it
+          clearCell(n);
+          toRaise[n] = true;
+        }
+        open.add(new QueueEntry(n, priority));
+      }
+    }
+
+    toRaise[s] = false;
+  }
+
+  private void lower(int s) {
+    int obstacle = closestObstacle[s];
+    int ox = obstacle % nodesX;
+    int oy = obstacle / nodesX;
+    int sx = s % nodesX;
+    int sy = s / nodesX;
+
+    for (int i = 0; i < NEIGHBOR_X.length; i++) {
+      int nx = sx + NEIGHBOR_X[i];
+      int ny = sy + NEIGHBOR_Y[i];
+      if (!inBounds(nx, ny)) {
+        continue;
+      }
+
+      int n = index(nx, ny);
+      if (!toRaise[n]) {
+        double d = Math.hypot(nx - ox, ny - oy);
+        if (d < dist[n]) {
+          dist[n] = d;
+          closestObstacle[n] = obstacle;
+          changed.set(n);
+          open.add(new QueueEntry(n, d));
+        }
+      }
+    }
+  }
+
+  private void clearCell(int idx) {
+    dist[idx] = Double.POSITIVE_INFINITY;
+    closestObstacle[idx] = -1;
+    changed.set(idx);
+  }
+
+  private boolean inBounds(int x, int y) {
+    return x >= 0 && x < nodesX && y >= 0 && y < nodesY;
+  }
+
+  private int index(int x, int y) {
+    return y * nodesX + x;
+  }
+
+  private record QueueEntry(int index, double priority) {}
+}
@@ -0,0 +1,310 @@
+package com.pathplanner.lib.pathfinding;
+
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Obstacles on the pathfinding grid, kept in separate layers so each source of obstacles can be
+ * updated on its own. Every update publishes a new immutable {@link Snapshot} with a higher
+ * version, so any thread can read a consistent view of all layers without locking, and results can
+ * be cached by the version they were computed from.
+ *
+ * <p>Updates are serialized, and an update that doesn't change which nodes of its layer are blocked
+ * does not publish a new snapshot.
+ */
+public final class ObstacleMap {
+  /** A source of obstacles */
+  public enum Layer {
+    /** Obstacles from the navgrid */
+    kStatic,
+    /** Obstacles detected while the robot is running, such as game pieces or other robots */
+    kVision,
+    /** Current positions of the obstacles that move around the field */
+    kMoving,
+    /** Obstacles added by user code, such as areas of the field the robot should stay out of */
+    kUser
+  }
+
+  private static final Layer[] LAYERS = Layer.values();
+
+  private final double nodeSize;
+  private final int nodesX;
+  private final int nodesY;
+
+  private final Object writeLock = new Object();
+  private final BitSet scratch = new BitSet();
+  private final List<Consumer<Snapshot>> listeners = new CopyOnWriteArrayList<>();
+  private volatile Snapshot snapshot;
+
+  /**
+   * Create a new obstacle map, with the obstacles of a navgrid in the static layer
+   *
+   * @param navGrid The navgrid
+   */
+  public ObstacleMap(NavGrid navGrid) {
+    this.nodeSize = navGrid.getNodeSize();
+    this.nodesX = navGrid.getNodesX();
+    this.nodesY = navGrid.getNodesY();
+
+    BitSet[] layers = new BitSet[LAYERS.length];
+    for (int i = 0; i < layers.length; i++) {
+      layers[i] = new BitSet();
+    }
+    layers[Layer.kStatic.ordinal()] = navGrid.getObstacles();
+    snapshot = new Snapshot(0, new long[LAYERS.length], layers, nodesX, nodesY);
+  }
+
+  /**
+   * Get the newest snapshot of the obstacles. This never blocks.
+   *
+   * @return The current snapshot
+   */
+  public Snapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Replace the obstacles of a layer
+   *
+   * @param layer The layer to replace
+   * @param nodes Obstacle nodes, indexed by {@code y * nodesX + x}. Nodes outside the grid are
+   *     ignored.
+   * @return The snapshot containing the new obstacles
+   */
+  public Snapshot setLayer(Layer layer, BitSet nodes) {
+    Snapshot previous;
+    Snapshot next;
+    synchronized (writeLock) {
+      previous = snapshot;
+      scratch.clear();
+      scratch.or(nodes);
+      scratch.clear(nodesX * nodesY, Math.max(scratch.length(), nodesX * nodesY));
+      next = publish(layer);
+    }
+
+    notifyListeners(previous, next);
+    return next;
+  }
+
+  /**
+   * Replace the obstacles of a layer with the nodes covered by bounding boxes
+   *
+   * @param layer The layer to replace
+   * @param boxes A List of Translation2d pairs representing obstacles. Each Translation2d
+   *     represents opposite corners of a bounding box.
+   * @return The snapshot containing the new obstacles
+   */
+  public Snapshot setLayerBoxes(Layer layer, List<Pair<Translation2d, Translation2d>> boxes) {
+    Snapshot previous;
+    Snapshot next;
+    synchronized (writeLock) {
+      previous = snapshot;
+      scratch.clear();
+      for (var box : boxes) {
+        addBoxNodes(box, scratch);
+      }
+      next = publish(layer);
+    }
+
+    notifyListeners(previous, next);
+    return next;
+  }
+
+  /**
+   * Remove every obstacle from a layer
+   *
+   * @param layer The layer to clear
+   * @return The snapshot without the obstacles of the layer
+   */
+  public Snapshot clearLayer(Layer layer) {
+    return setLayerBoxes(layer, List.of());
+  }
+
+  /**
+   * Add a function that is called with each new snapshot. It is called on the thread that updated
+   * the map, after the snapshot is published and without holding any lock, so it may update the map
+   * itself. When several threads update the map at the same time, a listener can be called with an
+   * older snapshot after a newer one, so listeners that need the newest obstacles should use {@link
+   * #getSnapshot()}.
+   *
+   * @param listener The function to call
+   */
+  public void addListener(Consumer<Snapshot> listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Publish the scratch nodes as the new obstacles of a layer, if they changed. Must be called with
+   * the write lock held.
+   */
+  private Snapshot publish(Layer layer) {
+    Snapshot current = snapshot;
+    if (scratch.equals(current.layers[layer.ordinal()])) {
+      return current;
+    }
+
+    long version = current.version + 1;
+    long[] layerVersions = current.layerVersions.clone();
+    layerVersions[layer.ordinal()] = version;
+    BitSet[] layers = current.layers.clone();
+    layers[layer.ordinal()] = (BitSet) scratch.clone();
+
+    Snapshot next = new Snapshot(version, layerVersions, layers, nodesX, nodesY);
+    snapshot = next;
+    return next;
+  }
+
+  /**
+   * Call the listeners with a snapshot, if an update published it. Must be called without a lock.
+   */
+  private void notifyListeners(Snapshot previous, Snapshot next) {
+    if (next == previous) {
+      return;
+    }
+
+    for (Consumer<Snapshot> listener : listeners) {
+      listener.accept(next);
+    }
+  }
+
+  /** Set the bit of every node covered by a bounding box */
+  private void addBoxNodes(Pair<Translation2d, Translation2d> box, BitSet nodes) {
+    int x1 = (int) Math.floor(box.getFirst().getX() / nodeSize);
+    int y1 = (int) Math.floor(box.getFirst().getY() / nodeSize);
+    int x2 = (int) Math.floor(box.getSecond().getX() / nodeSize);
+    int y2 = (int) Math.floor(box.getSecond().getY() / nodeSize);
+
+    int minX = Math.max(Math.min(x1, x2), 0);
+    int maxX = Math.min(Math.max(x1, x2), nodesX - 1);
+
+    int minY = Math.max(Math.min(y1, y2), 0);
+    int maxY = Math.min(Math.max(y1, y2), nodesY - 1);
+
+    if (minX > maxX) {
+      return;
+    }
+    for (int y = minY; y <= maxY; y++) {
+      nodes.set((y * nodesX) + minX, (y * nodesX) + maxX + 1);
+    }
+  }
+
+  /**
+   * The obstacles of every layer at one point in time. A snapshot is never modified after it is
+   * published.
+   */
+  public static final class Snapshot {
+    private final long version;
+    private final long[] layerVersions;
+    private final BitSet[] layers;
+    private final BitSet obstacles;
+    private final int nodesX;
+    private final int nodesY;
+
+    private Snapshot(long version, long[] layerVersions, BitSet[] layers, int nodesX, int nodesY) {
+      this.version = version;
+      this.layerVersions = layerVersions;
+      this.layers = layers;
+      this.nodesX = nodesX;
+      this.nodesY = nodesY;
+
+      obstacles = new BitSet(nodesX * nodesY);
+      for (BitSet layer : layers) {
+        obstacles.or(layer);
+      }
+    }
+
+    /**
+     * Get the version of this snapshot. Each update to the map increases the version, so two
+     * snapshots with the same version contain the same obstacles.
+     *
+     * @return The version of this snapshot
+     */
+    public long getVersion() {
+      return version;
+    }
+
+    /**
+     * Get the version of the last update to a layer
+     *
+     * @param layer The layer
+     * @return The version of the snapshot that last changed the layer, or 0 if it never changed
+     */
+    public long getLayerVersion(Layer layer) {
+      return layerVersions[layer.ordinal()];
+    }
+
+    /**
+     * Get the number of nodes in the X direction
+     *
+     * @return Number of nodes in the X direction
+     */
+    public int getNodesX() {
+      return nodesX;
+    }
+
+    /**
+     * Get the number of nodes in the Y direction
+     *
+     * @return Number of nodes in the Y direction
+     */
+    public int getNodesY() {
+      return nodesY;
+    }
+
+    /**
+     * Check if a node is an obstacle in any layer
+     *
+     * @param x X index of the node
+     * @param y Y index of the node
+     * @return True if the node is an obstacle. Nodes outside the grid are not obstacles.
+     */
+    public boolean isObstacle(int x, int y) {
+      return x >= 0 && x < nodesX && y >= 0 && y < nodesY && obstacles.get(y * nodesX + x);
+    }
+
+    /**
+     * Check if a node is an obstacle in a layer
+     *
+     * @param layer The layer
+     * @param x X index of the node
+     * @param y Y index of the node
+     * @return True if the node is an obstacle. Nodes outside the grid are not obstacles.
+     */
+    public boolean isObstacle(Layer layer, int x, int y) {
+      return x >= 0
+          && x < nodesX
+          && y >= 0
+          && y < nodesY
+          && layers[layer.ordinal()].get(y * nodesX + x);
+    }
+
+    /**
+     * Get a copy of the obstacle nodes of a layer
+     *
+     * @param layer The layer
+     * @return Obstacle nodes, indexed by {@code y * nodesX + x}
+     */
+    public BitSet getLayer(Layer layer) {
+      return (BitSet) layers[layer.ordinal()].clone();
+    }
+
+    /**
+     * Get the obstacle nodes of several layers combined
+     *
+     * @param layers The layers to combine
+     * @return Nodes that are an obstacle in any of the layers, indexed by {@code y * nodesX + x}
+     */
+    public BitSet getObstacles(Set<Layer> layers) {
+      BitSet combined = new BitSet(nodesX * nodesY);
+      for (Layer layer : layers) {
+        combined.or(this.layers[layer.ordinal()]);
+      }
+      return combined;
+    }
+  }
+}
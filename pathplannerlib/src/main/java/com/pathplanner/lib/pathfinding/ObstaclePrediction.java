@@ -0,0 +1,95 @@
+package com.pathplanner.lib.pathfinding;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.List;
+
+/**
+ * Snapshot of the moving obstacles, used to check if a node will be blocked at a given time. The
+ * bounding boxes are converted to nodes and inflated by the robot radius once, so the check only
+ * needs to move each box to its predicted position.
+ *
+ * <p>Predictions become less reliable the further ahead they are, so obstacles are ignored after
+ * the prediction horizon. Times are in seconds from when the obstacles were set.
+ */
+final class ObstaclePrediction {
+  /** How far ahead predictions are trusted, in seconds */
+  static final double PREDICTION_HORIZON = 3.0;
+
+  static final ObstaclePrediction EMPTY = new ObstaclePrediction(List.of(), 1.0, 0.0, 0L);
+
+  private final MovingObstacle[] obstacles;
+  private final double[] centerX;
+  private final double[] centerY;
+  private final double[] halfX;
+  private final double[] halfY;
+  private final double nodeSize;
+  private final long timestampNanos;
+
+  /**
+   * Create a new prediction
+   *
+   * @param obstacles The moving obstacles
+   * @param nodeSize Size of a node, in meters
+   * @param inflation Distance to inflate the obstacles by, in meters
+   * @param timestampNanos Time the obstacles were set, from {@link System#nanoTime()}
+   */
+  ObstaclePrediction(
+      List<MovingObstacle> obstacles, double nodeSize, double inflation, long timestampNanos) {
+    this.obstacles = obstacles.toArray(new MovingObstacle[0]);
+    this.nodeSize = nodeSize;
+    this.timestampNanos = timestampNanos;
+
+    int n = this.obstacles.length;
+    centerX = new double[n];
+    centerY = new double[n];
+    halfX = new double[n];
+    halfY = new double[n];
+    for (int i = 0; i < n; i++) {
+      Translation2d center = this.obstacles[i].getCenter();
+      Translation2d halfSize = this.obstacles[i].getHalfSize();
+      centerX[i] = center.getX() / nodeSize;
+      centerY[i] = center.getY() / nodeSize;
+      halfX[i] = (halfSize.getX() + inflation) / nodeSize;
+      halfY[i] = (halfSize.getY() + inflation) / nodeSize;
+    }
+  }
+
+  /** Check if there are no moving obstacles */
+  boolean isEmpty() {
+    return obstacles.length == 0;
+  }
+
+  /**
+   * Get the current time of the prediction
+   *
+   * @return Seconds since the obstacles were set
+   */
+  double now() {
+    return (System.nanoTime() - timestampNanos) / 1e9;
+  }
+
+  /**
+   * Check if a node will be blocked by a moving obstacle
+   *
+   * @param x X index of the node
+   * @param y Y index of the node
+   * @param timeSeconds Time in seconds since the obstacles were set
+   * @return True if the center of the node is inside an inflated obstacle at the given time
+   */
+  boolean isBlocked(int x, int y, double timeSeconds) {
+    if (timeSeconds > PREDICTION_HORIZON) {
+      return false;
+    }
+
+    double px = x + 0.5;
+    double py = y + 0.5;
+    for (int i = 0; i < obstacles.length; i++) {
+      Translation2d offset = obstacles[i].getOffsetAt(Math.max(timeSeconds, 0.0));
+      if (Math.abs(px - centerX[i] - (offset.getX() / nodeSize)) <= halfX[i]
+          && Math.abs(py - centerY[i] - (offset.getY() / nodeSize)) <= halfY[i]) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
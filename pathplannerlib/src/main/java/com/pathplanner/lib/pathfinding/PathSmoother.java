@@ -0,0 +1,242 @@
+package com.pathplanner.lib.pathfinding;
+
+import com.pathplanner.lib.path.Waypoint;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Elastic band smoother for the paths found on the grid. The corners of a grid path are spread out
+ * into a band of evenly spaced points, which are then pulled tight and smoothed, while being pushed
+ * away from nearby obstacles using the obstacle distance field. The band never moves into an
+ * obstacle, so the smoothed path is always as safe as the original one.
+ *
+ * <p>The result has gentle, evenly distributed turns instead of tight corners, so the trajectory
+ * can keep a higher velocity through them. Points of the band that ended up on a straight line are
+ * merged back together, so straight sections only need a single waypoint on each end.
+ */
+final class PathSmoother {
+  private static final double BAND_SPACING = 2.0;
+  private static final int MAX_ITERATIONS = 100;
+  private static final double CONVERGED_MOVE = 1e-3;
+  private static final double MAX_MOVE = 0.25;
+  private static final double TENSION_WEIGHT = 0.4;
+  private static final double SMOOTHNESS_WEIGHT = 0.05;
+  private static final double CLEARANCE_WEIGHT = 0.5;
+  private static final double SIMPLIFY_TOLERANCE = 0.1;
+
+  private PathSmoother() {}
+
+  /**
+   * Smooth a path and create its waypoints
+   *
+   * @param fieldPosPath Positions along the path, including the start and goal. There must be a
+   *     straight line of sight between consecutive positions.
+   * @param grid The grid the path was found on
+   * @param nodeSize Size of a node, in meters
+   * @param inflation Distance obstacles were inflated by, in meters
+   * @param clearance Distance from the inflated obstacles the path should try to keep, in meters
+   * @return The waypoints of the smoothed path
+   */
+  static List<Waypoint> smooth(
+      List<Translation2d> fieldPosPath,
+      GridSnapshot grid,
+      double nodeSize,
+      double inflation,
+      double clearance) {
+    List<double[]> band = new ArrayList<>();
+    for (int i = 0; i < fieldPosPath.size() - 1; i++) {
+      Translation2d a = fieldPosPath.get(i).div(nodeSize);
+      Translation2d b = fieldPosPath.get(i + 1).div(nodeSize);
+      int pieces = Math.max(1, (int) Math.round(a.getDistance(b) / BAND_SPACING));
+      for (int j = 0; j < pieces; j++) {
+        Translation2d p = a.interpolate(b, (double) j / pieces);
+        band.add(new double[] {p.getX(), p.getY()});
+      }
+    }
+    Translation2d end = fieldPosPath.get(fieldPosPath.size() - 1).div(nodeSize);
+    band.add(new double[] {end.getX(), end.getY()});
+
+    relax(band, grid, inflation / nodeSize, clearance / nodeSize);
+
+    List<Translation2d> points = new ArrayList<>();
+    for (double[] p : simplify(band, grid)) {
+      points.add(new Translation2d(p[0] * nodeSize, p[1] * nodeSize));
+    }
+    // Keep the exact start and goal positions
+    points.set(0, fieldPosPath.get(0));
+    points.set(points.size() - 1, fieldPosPath.get(fieldPosPath.size() - 1));
+
+    return throughPoints(points);
+  }
+
+  /** Move the interior points of the band until it settles or the iteration budget runs out */
+  private static void relax(
+      List<double[]> band, GridSnapshot grid, double inflation, double clearance) {
+    int n = band.size();
+    for (int iter = 0; iter < MAX_ITERATIONS; iter++) {
+      double maxMove = 0.0;
+
+      for (int i = 1; i < n - 1; i++) {
+        double[] prev = band.get(i - 1);
+        double[] p = band.get(i);
+        double[] next = band.get(i + 1);
+
+        // Pulling towards the midpoint of the neighbors shortens the band and evens its spacing
+        double fx = TENSION_WEIGHT * (((prev[0] + next[0]) / 2.0) - p[0]);
+        double fy = TENSION_WEIGHT * (((prev[1] + next[1]) / 2.0) - p[1]);
+
+        // Spread out changes in curvature along the band
+        if (i >= 2 && i <= n - 3) {
+          double[] prev2 = band.get(i - 2);
+          double[] next2 = band.get(i + 2);
+          fx -=
+              SMOOTHNESS_WEIGHT
+                  * (prev2[0] - (4.0 * prev[0]) + (6.0 * p[0]) - (4.0 * next[0]) + next2[0]);
+          fy -=
+              SMOOTHNESS_WEIGHT
+                  * (prev2[1] - (4.0 * prev[1]) + (6.0 * p[1]) - (4.0 * next[1]) + next2[1]);
+        }
+
+        // Push away from obstacles that are closer than the clearance distance
+        double dist = grid.obstacleDistance(p[0], p[1]) - inflation;
+        if (clearance > 0.0 && dist < clearance) {
+          double gx =
+              (grid.obstacleDistance(p[0] + 0.5, p[1]) - grid.obstacleDistance(p[0] - 0.5, p[1]));
+          double gy =
+              (grid.obstacleDistance(p[0], p[1] + 0.5) - grid.obstacleDistance(p[0], p[1] - 0.5));
+          double norm = Math.hypot(gx, gy);
+          if (norm > 1e-9) {
+            double push = CLEARANCE_WEIGHT * (1.0 - (Math.max(dist, 0.0) / clearance));
+            fx += (push * gx) / norm;
+            fy += (push * gy) / norm;
+          }
+        }
+
+        double move = Math.hypot(fx, fy);
+        if (move > MAX_MOVE) {
+          fx *= MAX_MOVE / move;
+          fy *= MAX_MOVE / move;
+          move = MAX_MOVE;
+        }
+
+        double[] moved = {p[0] + fx, p[1] + fy};
+        if (move > 0.0 && isClear(prev, moved, grid) && isClear(moved, next, grid)) {
+          band.set(i, moved);
+          maxMove = Math.max(maxMove, move);
+        }
+      }
+
+      if (maxMove < CONVERGED_MOVE) {
+        break;
+      }
+    }
+  }
+
+  /** Remove points that are on a nearly straight line between the points around them */
+  private static List<double[]> simplify(List<double[]> band, GridSnapshot grid) {
+    List<double[]> simplified = new ArrayList<>();
+    simplified.add(band.get(0));
+
+    int anchor = 0;
+    for (int i = 2; i < band.size(); i++) {
+      double[] a = band.get(anchor);
+      double[] b = band.get(i);
+      boolean straight = isClear(a, b, grid);
+      for (int j = anchor + 1; j < i && straight; j++) {
+        straight = distanceToLine(band.get(j), a, b) <= SIMPLIFY_TOLERANCE;
+      }
+
+      if (!straight) {
+        anchor = i - 1;
+        simplified.add(band.get(anchor));
+      }
+    }
+
+    simplified.add(band.get(band.size() - 1));
+    return simplified;
+  }
+
+  /**
+   * Create waypoints for a smooth curve passing through every point. The curve at each point is
+   * parallel to the line between its neighbors, like a Catmull-Rom spline.
+   */
+  private static List<Waypoint> throughPoints(List<Translation2d> points) {
+    List<Waypoint> waypoints = new ArrayList<>();
+    for (int i = 0; i < points.size(); i++) {
+      Translation2d anchor = points.get(i);
+      Translation2d before = points.get(Math.max(i - 1, 0));
+      Translation2d after = points.get(Math.min(i + 1, points.size() - 1));
+      Translation2d direction = after.minus(before);
+      direction = direction.div(direction.getNorm());
+
+      Translation2d prevControl =
+          i > 0 ? anchor.minus(direction.times(anchor.getDistance(before) / 3.0)) : null;
+      Translation2d nextControl =
+          i < points.size() - 1
+              ? anchor.plus(direction.times(anchor.getDistance(after) / 3.0))
+              : null;
+      waypoints.add(new Waypoint(prevControl, anchor, nextControl));
+    }
+
+    return waypoints;
+  }
+
+  /**
+   * Check if a straight line between two positions only passes through open nodes. Every node the
+   * line touches is checked, so it can't clip the corner of an obstacle between samples.
+   */
+  private static boolean isClear(double[] a, double[] b, GridSnapshot grid) {
+    int x = (int) Math.floor(a[0]);
+    int y = (int) Math.floor(a[1]);
+    int endX = (int) Math.floor(b[0]);
+    int endY = (int) Math.floor(b[1]);
+    double dx = b[0] - a[0];
+    double dy = b[1] - a[1];
+    int xInc = dx > 0.0 ? 1 : -1;
+    int yInc = dy > 0.0 ? 1 : -1;
+
+    // Fraction of the line between crossing node edges, and until the next edge is crossed
+    double tDeltaX = Math.abs(1.0 / dx);
+    double tDeltaY = Math.abs(1.0 / dy);
+    double tMaxX = (dx > 0.0 ? (x + 1 - a[0]) : (a[0] - x)) * tDeltaX;
+    double tMaxY = (dy > 0.0 ? (y + 1 - a[1]) : (a[1] - y)) * tDeltaY;
+
+    if (isBlocked(x, y, grid)) {
+      return false;
+    }
+    while (x != endX || y != endY) {
+      // Passing exactly through a corner moves diagonally, like the line of sight check on the grid
+      boolean stepX = y == endY || (x != endX && tMaxX <= tMaxY);
+      boolean stepY = x == endX || (y != endY && tMaxY <= tMaxX);
+      if (stepX) {
+        x += xInc;
+        tMaxX += tDeltaX;
+      }
+      if (stepY) {
+        y += yInc;
+        tMaxY += tDeltaY;
+      }
+
+      if (isBlocked(x, y, grid)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isBlocked(int x, int y, GridSnapshot grid) {
+    return !grid.inBounds(x, y) || grid.isObstacle(new LocalADStar.GridPosition(x, y));
+  }
+
+  private static double distanceToLine(double[] p, double[] a, double[] b) {
+    double dx = b[0] - a[0];
+    double dy = b[1] - a[1];
+    double length = Math.hypot(dx, dy);
+    if (length < 1e-9) {
+      return Math.hypot(p[0] - a[0], p[1] - a[1]);
+    }
+
+    return Math.abs((dx * (a[1] - p[1])) - ((a[0] - p[0]) * dy)) / length;
+  }
+}
@@ -1,11 +1,16 @@
 package com.pathplanner.lib.pathfinding;
 
+import com.pathplanner.lib.config.RobotConfig;
 import com.pathplanner.lib.path.GoalEndState;
 import com.pathplanner.lib.path.PathConstraints;
 import com.pathplanner.lib.path.PathPlannerPath;
 import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 /** Interface for a pathfinder that can be used by PPLib's pathfinding commands */
 public interface Pathfinder {
@@ -33,6 +38,16 @@ public interface Pathfinder {
    */
   void setStartPosition(Translation2d startPosition);
 
+  /**
+   * Set the velocity of the robot at the start position. Pathfinders that find drivable paths can
+   * use this to start the path in the direction the robot is already moving. This does not cause a
+   * new path to be calculated on its own, so it should be set before the start position. The
+   * default implementation does nothing.
+   *
+   * @param velocityMPS Field-relative velocity of the robot, in meters per second
+   */
+  default void setStartVelocity(Translation2d velocityMPS) {}
+
   /**
    * Set the goal position to pathfind to
    *
@@ -41,9 +56,20 @@ public interface Pathfinder {
    */
   void setGoalPosition(Translation2d goalPosition);
 
+  /**
+   * Stop working on the current path until a new start or goal position is set, such as when the
+   * command using this pathfinder has ended. Obstacle updates will not recalculate the path while
+   * the pathfinder is paused.
+   */
+  default void pause() {}
+
   /**
    * Set the dynamic obstacles that should be avoided while pathfinding.
    *
+   * <p>Implementations may apply the obstacles asynchronously, so this can return before they are
+   * used. {@link LocalADStar} applies them on a background thread, and then recalculates any path
+   * that goes through a newly blocked node.
+   *
    * @param obs A List of Translation2d pairs representing obstacles. Each Translation2d represents
    *     opposite corners of a bounding box.
    * @param currentRobotPos The current position of the robot. This is needed to change the start
@@ -51,4 +77,147 @@ public interface Pathfinder {
    */
   void setDynamicObstacles(
       List<Pair<Translation2d, Translation2d>> obs, Translation2d currentRobotPos);
+
+  /**
+   * Set the obstacles that move around the field, such as other robots, along with their predicted
+   * motion. Pathfinders that can't plan against the predicted motion will treat them as dynamic
+   * obstacles at their current positions, replacing any set with {@link #setDynamicObstacles(List,
+   * Translation2d)}.
+   *
+   * @param obs The moving obstacles
+   * @param currentRobotPos The current position of the robot. This is needed to change the start
+   *     position of the path to properly avoid obstacles
+   */
+  default void setMovingObstacles(List<MovingObstacle> obs, Translation2d currentRobotPos) {
+    List<Pair<Translation2d, Translation2d>> boxes = new ArrayList<>();
+    for (MovingObstacle obstacle : obs) {
+      boxes.add(obstacle.getBoundsAt(0.0));
+    }
+    setDynamicObstacles(boxes, currentRobotPos);
+  }
+
+  /**
+   * Create a new pathfinding session with its own start, goal, and current path, so multiple
+   * commands can pathfind at the same time. Pathfinders that do not support multiple sessions will
+   * return themselves, in which case all sessions share the same request.
+   *
+   * @return The new session
+   */
+  default Pathfinder createSession() {
+    return this;
+  }
+
+  /**
+   * Get the metrics describing what this pathfinder is doing, such as how many searches it has run
+   * and how long they took
+   *
+   * @return The pathfinder's metrics, or an empty optional if it does not collect metrics
+   */
+  default Optional<PathfindingMetrics> getMetrics() {
+    return Optional.empty();
+  }
+
+  /**
+   * Find a path between two positions, blocking the calling thread. The default implementation
+   * creates a new session and returns the first path it calculates, with the length of the path as
+   * its cost. If no path is calculated before the time budget runs out, no path is returned. If
+   * this pathfinder does not support multiple sessions, this will replace its current request.
+   *
+   * <p>Implementations may treat the time budget differently. A pathfinder that improves its paths
+   * over time can use the rest of the budget to improve the first path it finds, and one that
+   * always finds the optimal path right away can ignore the budget.
+   *
+   * @param startPosition Start position on the field
+   * @param goalPosition Goal position on the field
+   * @param constraints The path constraints to use when creating the path
+   * @param goalEndState The goal end state to use when creating the path
+   * @param timeBudgetSeconds Time allowed to find the path, in seconds
+   * @return The path that was found and its cost, or no path and an infinite cost if none was found
+   */
+  default PathfindingResult findPath(
+      Translation2d startPosition,
+      Translation2d goalPosition,
+      PathConstraints constraints,
+      GoalEndState goalEndState,
+      double timeBudgetSeconds) {
+    Pathfinder session = createSession();
+    session.setStartPosition(startPosition);
+    session.setGoalPosition(goalPosition);
+
+    long deadline = System.nanoTime() + (long) (timeBudgetSeconds * 1e9);
+    PathPlannerPath path = null;
+    while (path == null) {
+      if (session.isNewPathAvailable()) {
+        path = session.getCurrentPath(constraints, goalEndState);
+      } else if (System.nanoTime() >= deadline) {
+        break;
+      } else {
+        try {
+          Thread.sleep(1);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+    }
+
+    // Stop the session from planning in the background, unless it is this pathfinder's only request
+    if (session != this) {
+      session.pause();
+    }
+
+    if (path == null) {
+      return new PathfindingResult(null, Double.POSITIVE_INFINITY);
+    }
+
+    double length = 0.0;
+    List<Pose2d> poses = path.getPathPoses();
+    for (int i = 1; i < poses.size(); i++) {
+      length += poses.get(i - 1).getTranslation().getDistance(poses.get(i).getTranslation());
+    }
+    return new PathfindingResult(path, length);
+  }
+
+  /**
+   * Find which of several goals is the fastest to reach, such as choosing between scoring
+   * positions. A path is found to each goal, and the time to reach it is estimated by generating a
+   * trajectory for the path. The default implementation finds the paths one at a time, splitting
+   * the time budget between them.
+   *
+   * @param startPose The current pose of the robot
+   * @param startSpeeds The current robot-relative speeds of the robot
+   * @param goals The candidate goal poses. The robot will stop at the chosen goal, facing the
+   *     rotation of its pose.
+   * @param constraints The path constraints to use when creating the paths
+   * @param robotConfig The robot configuration, used to generate the trajectories
+   * @param timeBudgetSeconds Time allowed to find all of the paths, in seconds
+   * @return The fastest goal to reach and the path to it
+   */
+  default GoalSelectionResult findBestGoal(
+      Pose2d startPose,
+      ChassisSpeeds startSpeeds,
+      List<Pose2d> goals,
+      PathConstraints constraints,
+      RobotConfig robotConfig,
+      double timeBudgetSeconds) {
+    GoalSelectionResult best = GoalSelectionResult.none();
+    for (int i = 0; i < goals.size(); i++) {
+      Pose2d goal = goals.get(i);
+      PathfindingResult result =
+          findPath(
+              startPose.getTranslation(),
+              goal.getTranslation(),
+              constraints,
+              new GoalEndState(0.0, goal.getRotation()),
+              timeBudgetSeconds / goals.size());
+
+      double time =
+          GoalSelectionResult.estimateTime(result.path(), startPose, startSpeeds, robotConfig);
+      if (time < best.estimatedTimeSeconds()) {
+        best = new GoalSelectionResult(i, result.path(), time);
+      }
+    }
+
+    return best;
+  }
 }
@@ -1,11 +1,15 @@
 package com.pathplanner.lib.pathfinding;
 
+import com.pathplanner.lib.config.RobotConfig;
 import com.pathplanner.lib.path.GoalEndState;
 import com.pathplanner.lib.path.PathConstraints;
 import com.pathplanner.lib.path.PathPlannerPath;
 import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Static class for interacting with the chosen pathfinding implementation from the pathfinding
@@ -32,6 +36,78 @@ public class Pathfinding {
     }
   }
 
+  /**
+   * Create a new pathfinding session with its own start, goal, and current path. This allows
+   * multiple commands to pathfind at the same time without changing each other's goals.
+   *
+   * @return The new session
+   */
+  public static Pathfinder createSession() {
+    return pathfinder.createSession();
+  }
+
+  /**
+   * Find a path between two positions on the calling thread. If the pathfinder supports sessions,
+   * this does not change the current request, so it can be used while a pathfinding command is
+   * running.
+   *
+   * <p>How the time budget is used depends on the pathfinder. {@link LocalADStar} always returns
+   * the first path it finds, even if that takes longer than the budget. The budget is only used by
+   * its AD* search mode on a grid with clearance cost, to improve that path. Jump point search,
+   * which is used instead on grids without clearance cost, and the other search modes ignore the
+   * budget. Other pathfinders return the first path they calculate, or no path if none is
+   * calculated within the budget.
+   *
+   * @param startPosition Start position on the field
+   * @param goalPosition Goal position on the field
+   * @param constraints The path constraints to use when creating the path
+   * @param goalEndState The goal end state to use when creating the path
+   * @param timeBudgetSeconds Time allowed to find the path, in seconds
+   * @return The path that was found and its cost, or no path and an infinite cost if none was found
+   */
+  public static PathfindingResult findPath(
+      Translation2d startPosition,
+      Translation2d goalPosition,
+      PathConstraints constraints,
+      GoalEndState goalEndState,
+      double timeBudgetSeconds) {
+    return pathfinder.findPath(
+        startPosition, goalPosition, constraints, goalEndState, timeBudgetSeconds);
+  }
+
+  /**
+   * Find which of several goals is the fastest to reach, such as choosing between scoring
+   * positions. If the pathfinder supports sessions, this does not change the current request.
+   *
+   * @param startPose The current pose of the robot
+   * @param startSpeeds The current robot-relative speeds of the robot
+   * @param goals The candidate goal poses. The robot will stop at the chosen goal, facing the
+   *     rotation of its pose.
+   * @param constraints The path constraints to use when creating the paths
+   * @param robotConfig The robot configuration, used to generate the trajectories
+   * @param timeBudgetSeconds Time allowed to find the paths, in seconds
+   * @return The fastest goal to reach and the path to it
+   */
+  public static GoalSelectionResult findBestGoal(
+      Pose2d startPose,
+      ChassisSpeeds startSpeeds,
+      List<Pose2d> goals,
+      PathConstraints constraints,
+      RobotConfig robotConfig,
+      double timeBudgetSeconds) {
+    return pathfinder.findBestGoal(
+        startPose, startSpeeds, goals, constraints, robotConfig, timeBudgetSeconds);
+  }
+
+  /**
+   * Get the metrics describing what the pathfinder is doing
+   *
+   * @return The pathfinder's metrics, or an empty optional if it does not collect metrics
+   */
+  public static Optional<PathfindingMetrics> getMetrics() {
+    return pathfinder.getMetrics();
+  }
+
   /**
    * Get if a new path has been calculated since the last time a path was retrieved
    *
@@ -74,7 +150,8 @@ public class Pathfinding {
   }
 
   /**
-   * Set the dynamic obstacles that should be avoided while pathfinding.
+   * Set the dynamic obstacles that should be avoided while pathfinding. Depending on the
+   * pathfinder, the obstacles may be applied asynchronously after this returns.
    *
    * @param obs A List of Translation2d pairs representing obstacles. Each Translation2d represents
    *     opposite corners of a bounding box.
@@ -85,4 +162,17 @@ public class Pathfinding {
       List<Pair<Translation2d, Translation2d>> obs, Translation2d currentRobotPos) {
     pathfinder.setDynamicObstacles(obs, currentRobotPos);
   }
+
+  /**
+   * Set the obstacles that move around the field, such as other robots, along with their predicted
+   * motion. Pathfinders that can't plan against the predicted motion will treat them as dynamic
+   * obstacles at their current positions.
+   *
+   * @param obs The moving obstacles
+   * @param currentRobotPos The current position of the robot. This is needed to change the start
+   *     position of the path if the robot is now within an obstacle.
+   */
+  public static void setMovingObstacles(List<MovingObstacle> obs, Translation2d currentRobotPos) {
+    pathfinder.setMovingObstacles(obs, currentRobotPos);
+  }
 }
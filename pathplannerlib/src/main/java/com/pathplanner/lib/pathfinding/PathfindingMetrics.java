@@ -0,0 +1,325 @@
+package com.pathplanner.lib.pathfinding;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms describing what a pathfinder is doing. All methods are thread
+ * safe, so the metrics can be read from the main robot thread while the planner is running.
+ */
+public class PathfindingMetrics {
+  private static final String NT_PREFIX = "/PathPlanner/Pathfinding/";
+
+  private final LongAdder searches = new LongAdder();
+  private final LongAdder incrementalReplans = new LongAdder();
+  private final LongAdder improvements = new LongAdder();
+  private final LongAdder cachedGoalPaths = new LongAdder();
+  private final LongAdder obstacleUpdates = new LongAdder();
+  private final LongAdder obstacleReplans = new LongAdder();
+  private final LongAdder expansions = new LongAdder();
+  private volatile double currentEps = Double.NaN;
+
+  private final LatencyHistogram searchLatency = new LatencyHistogram();
+  private final LatencyHistogram replanLatency = new LatencyHistogram();
+  private final LatencyHistogram improvementLatency = new LatencyHistogram();
+
+  private NTPublishers publishers = null;
+
+  /**
+   * Get the number of searches started from scratch, such as after a new goal was set
+   *
+   * @return Number of searches
+   */
+  public long getSearchCount() {
+    return searches.sum();
+  }
+
+  /**
+   * Get the number of times a search was repaired after the start position changed, instead of
+   * being restarted
+   *
+   * @return Number of incremental replans
+   */
+  public long getIncrementalReplanCount() {
+    return incrementalReplans.sum();
+  }
+
+  /**
+   * Get the number of times an anytime search improved its path by lowering the heuristic inflation
+   *
+   * @return Number of path improvements
+   */
+  public long getImprovementCount() {
+    return improvements.sum();
+  }
+
+  /**
+   * Get the number of paths found using the cached costs of a registered goal
+   *
+   * @return Number of cached goal paths
+   */
+  public long getCachedGoalPathCount() {
+    return cachedGoalPaths.sum();
+  }
+
+  /**
+   * Get the number of times the dynamic obstacles were changed
+   *
+   * @return Number of obstacle updates
+   */
+  public long getObstacleUpdateCount() {
+    return obstacleUpdates.sum();
+  }
+
+  /**
+   * Get the number of times a path had to be replanned because it was blocked by new obstacles. If
+   * this grows quickly, the dynamic obstacles are causing a replanning storm.
+   *
+   * @return Number of replans caused by obstacles
+   */
+  public long getObstacleReplanCount() {
+    return obstacleReplans.sum();
+  }
+
+  /**
+   * Get the total number of nodes expanded by AD* searches
+   *
+   * @return Number of node expansions
+   */
+  public long getExpansionCount() {
+    return expansions.sum();
+  }
+
+  /**
+   * Get the heuristic inflation reached by the most recent AD* search. A value of 1 means the path
+   * is optimal.
+   *
+   * @return The current inflation factor, or NaN if no AD* search has been run
+   */
+  public double getCurrentEps() {
+    return currentEps;
+  }
+
+  /**
+   * Get the latency of searches started from scratch, until their first path was found
+   *
+   * @return Search latency histogram
+   */
+  public LatencyHistogram getSearchLatency() {
+    return searchLatency;
+  }
+
+  /**
+   * Get the latency of repairing a search after the start position changed
+   *
+   * @return Incremental replan latency histogram
+   */
+  public LatencyHistogram getReplanLatency() {
+    return replanLatency;
+  }
+
+  /**
+   * Get the latency of each anytime path improvement
+   *
+   * @return Improvement latency histogram
+   */
+  public LatencyHistogram getImprovementLatency() {
+    return improvementLatency;
+  }
+
+  /**
+   * Publish all metrics to NetworkTables under {@code /PathPlanner/Pathfinding/}. The latency
+   * histograms are published as their count, mean, median, 95th percentile, and max in
+   * milliseconds.
+   */
+  public synchronized void publish() {
+    if (publishers == null) {
+      publishers = new NTPublishers();
+    }
+
+    publishers.searches.set(getSearchCount());
+    publishers.incrementalReplans.set(getIncrementalReplanCount());
+    publishers.improvements.set(getImprovementCount());
+    publishers.cachedGoalPaths.set(getCachedGoalPathCount());
+    publishers.obstacleUpdates.set(getObstacleUpdateCount());
+    publishers.obstacleReplans.set(getObstacleReplanCount());
+    publishers.expansions.set(getExpansionCount());
+    publishers.eps.set(getCurrentEps());
+    publishers.searchLatency.publish(searchLatency);
+    publishers.replanLatency.publish(replanLatency);
+    publishers.improvementLatency.publish(improvementLatency);
+  }
+
+  void recordSearch(long nanos) {
+    searches.increment();
+    searchLatency.record(nanos);
+  }
+
+  void recordIncrementalReplan(long nanos) {
+    incrementalReplans.increment();
+    replanLatency.record(nanos);
+  }
+
+  void recordImprovement(long nanos) {
+    improvements.increment();
+    improvementLatency.record(nanos);
+  }
+
+  void recordCachedGoalPath() {
+    cachedGoalPaths.increment();
+  }
+
+  void recordObstacleUpdate() {
+    obstacleUpdates.increment();
+  }
+
+  void recordObstacleReplan() {
+    obstacleReplans.increment();
+  }
+
+  void recordExpansions(long count) {
+    expansions.add(count);
+  }
+
+  void setCurrentEps(double eps) {
+    currentEps = eps;
+  }
+
+  /**
+   * Histogram of latencies with power of 2 bucket sizes, from 1 microsecond to over an hour. Values
+   * read from the histogram are accurate to within a factor of 2, except for the mean and max,
+   * which are exact.
+   */
+  public static class LatencyHistogram {
+    private static final int NUM_BUCKETS = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    private LatencyHistogram() {}
+
+    /**
+     * Get the number of recorded latencies
+     *
+     * @return Number of samples
+     */
+    public long getCount() {
+      return count.sum();
+    }
+
+    /**
+     * Get the mean latency
+     *
+     * @return Mean latency in seconds, or 0 if nothing was recorded
+     */
+    public double getMean() {
+      long n = count.sum();
+      return n == 0 ? 0.0 : (totalNanos.sum() / 1e9) / n;
+    }
+
+    /**
+     * Get the maximum latency
+     *
+     * @return Max latency in seconds
+     */
+    public double getMax() {
+      return maxNanos.get() / 1e9;
+    }
+
+    /**
+     * Get an approximate percentile of the latency
+     *
+     * @param percentile Percentile to get, from 0 to 1
+     * @return Upper bound of the bucket containing the percentile, in seconds. This is at most
+     *     twice the actual value.
+     */
+    public double getPercentile(double percentile) {
+      long[] counts = new long[NUM_BUCKETS];
+      long total = 0;
+      for (int i = 0; i < NUM_BUCKETS; i++) {
+        counts[i] = buckets.get(i);
+        total += counts[i];
+      }
+
+      if (total == 0) {
+        return 0.0;
+      }
+
+      long target = (long) Math.ceil(percentile * total);
+      long seen = 0;
+      for (int i = 0; i < NUM_BUCKETS; i++) {
+        seen += counts[i];
+        if (seen >= Math.max(1, target)) {
+          // The last bucket has no upper bound, so the max is the only upper bound for it
+          if (i == NUM_BUCKETS - 1) {
+            return getMax();
+          }
+          return Math.min((1L << (i + 1)) / 1e6, getMax());
+        }
+      }
+
+      return getMax();
+    }
+
+    void record(long nanos) {
+      long micros = Math.max(1, nanos / 1000);
+      int bucket = Math.min(NUM_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+      buckets.incrementAndGet(bucket);
+      count.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+  }
+
+  private static class NTPublishers {
+    final IntegerPublisher searches = intPub("searches");
+    final IntegerPublisher incrementalReplans = intPub("incrementalReplans");
+    final IntegerPublisher improvements = intPub("improvements");
+    final IntegerPublisher cachedGoalPaths = intPub("cachedGoalPaths");
+    final IntegerPublisher obstacleUpdates = intPub("obstacleUpdates");
+    final IntegerPublisher obstacleReplans = intPub("obstacleReplans");
+    final IntegerPublisher expansions = intPub("expansions");
+    final DoublePublisher eps = doublePub("eps");
+    final HistogramPublishers searchLatency = new HistogramPublishers("searchLatency");
+    final HistogramPublishers replanLatency = new HistogramPublishers("replanLatency");
+    final HistogramPublishers improvementLatency = new HistogramPublishers("improvementLatency");
+  }
+
+  private static class HistogramPublishers {
+    final IntegerPublisher count;
+    final DoublePublisher meanMs;
+    final DoublePublisher p50Ms;
+    final DoublePublisher p95Ms;
+    final DoublePublisher maxMs;
+
+    HistogramPublishers(String name) {
+      count = intPub(name + "/count");
+      meanMs = doublePub(name + "/meanMs");
+      p50Ms = doublePub(name + "/p50Ms");
+      p95Ms = doublePub(name + "/p95Ms");
+      maxMs = doublePub(name + "/maxMs");
+    }
+
+    void publish(LatencyHistogram histogram) {
+      count.set(histogram.getCount());
+      meanMs.set(histogram.getMean() * 1000.0);
+      p50Ms.set(histogram.getPercentile(0.5) * 1000.0);
+      p95Ms.set(histogram.getPercentile(0.95) * 1000.0);
+      maxMs.set(histogram.getMax() * 1000.0);
+    }
+  }
+
+  private static IntegerPublisher intPub(String name) {
+    return NetworkTableInstance.getDefault().getIntegerTopic(NT_PREFIX + name).publish();
+  }
+
+  private static DoublePublisher doublePub(String name) {
+    return NetworkTableInstance.getDefault().getDoubleTopic(NT_PREFIX + name).publish();
+  }
+}
@@ -0,0 +1,22 @@
+package com.pathplanner.lib.pathfinding;
+
+import com.pathplanner.lib.path.PathPlannerPath;
+
+/**
+ * Result of a one-shot pathfinding query
+ *
+ * @param path The path that was found, or null if no path could be found
+ * @param cost Cost of the path, in meters of travel. This includes any clearance cost, so it can be
+ *     longer than the actual path. Infinity if no path could be found, or NaN if the pathfinder
+ *     does not report costs.
+ */
+public record PathfindingResult(PathPlannerPath path, double cost) {
+  /**
+   * Get if a path was found
+   *
+   * @return True if a path was found
+   */
+  public boolean hasPath() {
+    return path != null;
+  }
+}
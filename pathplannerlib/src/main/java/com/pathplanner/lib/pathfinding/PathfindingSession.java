@@ -0,0 +1,629 @@
+package com.pathplanner.lib.pathfinding;
+
+import com.pathplanner.lib.path.*;
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import com.pathplanner.lib.pathfinding.LocalADStar.SearchMode;
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.wpilibj.DriverStation;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A pathfinding session of a {@link LocalADStar} pathfinder. Each session has its own start, goal,
+ * and current path, so multiple commands can pathfind at the same time without changing each
+ * other's goals. All sessions of a pathfinder share the same obstacles, and their searches are run
+ * in parallel on the pathfinder's thread pool.
+ */
+public class PathfindingSession implements Pathfinder {
+  private static final double MAX_GOAL_DRIFT = 3.0;
+
+  private final LocalADStar planner;
+  private final Executor executor;
+  private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+  private final ADStarSearch adStar = new ADStarSearch();
+  private volatile GridPosition searchGoal = null;
+  // True if the current path came from JPS, and the AD* search for it has not been run yet
+  private boolean jpsOnly = false;
+
+  private GridPosition requestStart;
+  private Translation2d requestRealStartPos;
+  private Translation2d requestStartVelocity = Translation2d.kZero;
+  private GridPosition requestGoal;
+  private Translation2d requestRealGoalPos;
+
+  private boolean requestMinor = true;
+  private boolean requestMajor = true;
+  private boolean requestReset = true;
+  private volatile boolean newPathAvailable = false;
+  private volatile boolean paused = false;
+
+  // Heuristic of the last hybrid A* or space-time search, repaired for the next search to its goal
+  private GoalCostField searchCostField = null;
+
+  private final ReadWriteLock pathLock = new ReentrantReadWriteLock();
+  private final ReadWriteLock requestLock = new ReentrantReadWriteLock();
+
+  private List<Waypoint> currentWaypoints = new ArrayList<>();
+  private List<GridPosition> currentPathFull = new ArrayList<>();
+  // The newest grid the current path is known to be clear on
+  private GridSnapshot currentPathGrid = null;
+  private long lastPublishNanos = 0;
+  // Cost of the last path published from the AD* search, or infinity if it is not known
+  private double publishedCost = Double.POSITIVE_INFINITY;
+
+  /**
+   * Create a new session
+   *
+   * @param planner The pathfinder that owns this session
+   * @param executor Executor that will run this session's searches. If this is null, {@link
+   *     #plan()} must be called by the owner instead.
+   */
+  PathfindingSession(LocalADStar planner, Executor executor) {
+    this.planner = planner;
+    this.executor = executor;
+
+    requestStart = new GridPosition(0, 0);
+    requestRealStartPos = Translation2d.kZero;
+    requestGoal = new GridPosition(0, 0);
+    requestRealGoalPos = Translation2d.kZero;
+  }
+
+  /**
+   * Get if a new path has been calculated since the last time a path was retrieved
+   *
+   * @return True if a new path is available
+   */
+  @Override
+  public boolean isNewPathAvailable() {
+    return newPathAvailable;
+  }
+
+  /**
+   * Get the most recently calculated path
+   *
+   * @param constraints The path constraints to use when creating the path
+   * @param goalEndState The goal end state to use when creating the path
+   * @return The PathPlannerPath created from the points calculated by the pathfinder
+   */
+  @Override
+  public PathPlannerPath getCurrentPath(PathConstraints constraints, GoalEndState goalEndState) {
+    List<Waypoint> waypoints;
+
+    pathLock.readLock().lock();
+    waypoints = new ArrayList<>(currentWaypoints);
+    pathLock.readLock().unlock();
+
+    newPathAvailable = false;
+
+    if (waypoints.size() < 2) {
+      // Not enough points. Something got borked somewhere
+      return null;
+    }
+
+    return new PathPlannerPath(waypoints, constraints, null, goalEndState);
+  }
+
+  /**
+   * Set the start position to pathfind from. Moving the start within the same node as the previous
+   * start position does not cause a new path to be calculated.
+   *
+   * @param startPosition Start position on the field. If this is within an obstacle it will be
+   *     moved to the nearest non-obstacle node.
+   */
+  @Override
+  public void setStartPosition(Translation2d startPosition) {
+    GridPosition startPos = planner.findClosestNonObstacle(startPosition);
+
+    requestLock.writeLock().lock();
+    boolean changed = startPos != null && !startPos.equals(requestStart);
+    if (changed) {
+      requestStart = startPos;
+      requestRealStartPos = startPosition;
+
+      requestMinor = true;
+      newPathAvailable = false;
+    }
+    boolean resumed = resume();
+    requestLock.writeLock().unlock();
+
+    if (changed || resumed) {
+      schedule();
+    }
+  }
+
+  /**
+   * Set the velocity of the robot at the start position. {@link SearchMode#kHybridAStar} uses this
+   * to start the path in the direction the robot is already moving. This does not cause a new path
+   * to be calculated on its own.
+   *
+   * @param velocityMPS Field-relative velocity of the robot, in meters per second
+   */
+  @Override
+  public void setStartVelocity(Translation2d velocityMPS) {
+    requestLock.writeLock().lock();
+    requestStartVelocity = velocityMPS;
+    requestLock.writeLock().unlock();
+  }
+
+  /**
+   * Set the goal position to pathfind to. When pathfinding with AD*, small movements of the goal,
+   * such as when following a moving target, will reuse the current search instead of starting a new
+   * one.
+   *
+   * @param goalPosition Goal position on the field. f this is within an obstacle it will be moved
+   *     to the nearest non-obstacle node.
+   */
+  @Override
+  public void setGoalPosition(Translation2d goalPosition) {
+    setGoalPosition(goalPosition, true);
+  }
+
+  private void setGoalPosition(Translation2d goalPosition, boolean allowReuse) {
+    GridPosition gridPos = planner.findClosestNonObstacle(goalPosition);
+
+    if (gridPos != null) {
+      boolean reuse =
+          allowReuse
+              && planner.getPlanningState().searchMode() == SearchMode.kADStar
+              && isNearSearchGoal(gridPos);
+
+      requestLock.writeLock().lock();
+      requestGoal = gridPos;
+      requestRealGoalPos = goalPosition;
+
+      requestMinor = true;
+      if (!reuse) {
+        requestMajor = true;
+        requestReset = true;
+      }
+      newPathAvailable = false;
+      resume();
+      requestLock.writeLock().unlock();
+
+      schedule();
+    }
+  }
+
+  /**
+   * Check if a goal node is close enough to the goal of the current AD* search that the search can
+   * be reused
+   */
+  private boolean isNearSearchGoal(GridPosition goal) {
+    GridPosition current = searchGoal;
+    return current != null
+        && Math.hypot(goal.x() - current.x(), goal.y() - current.y()) <= MAX_GOAL_DRIFT;
+  }
+
+  /**
+   * Set the dynamic obstacles that should be avoided while pathfinding. The obstacles are shared by
+   * every session of the pathfinder.
+   *
+   * @param obs A List of Translation2d pairs representing obstacles. Each Translation2d represents
+   *     opposite corners of a bounding box.
+   * @param currentRobotPos The current position of the robot. This is needed to change the start
+   *     position of the path if the robot is now within an obstacle.
+   */
+  @Override
+  public void setDynamicObstacles(
+      List<Pair<Translation2d, Translation2d>> obs, Translation2d currentRobotPos) {
+    planner.setDynamicObstacles(obs, currentRobotPos, this);
+  }
+
+  /**
+   * Set the obstacles that move around the field, such as other robots, along with their predicted
+   * motion. The obstacles are shared by every session of the pathfinder.
+   *
+   * @param obs The moving obstacles
+   * @param currentRobotPos The current position of the robot. This is needed to change the start
+   *     position of the path if the robot is now within an obstacle.
+   */
+  @Override
+  public void setMovingObstacles(List<MovingObstacle> obs, Translation2d currentRobotPos) {
+    planner.setMovingObstacles(obs, currentRobotPos, this);
+  }
+
+  /**
+   * Stop working on the current path until a new start or goal position is set. Obstacle updates
+   * will not recalculate the path while the session is paused.
+   */
+  @Override
+  public void pause() {
+    requestLock.writeLock().lock();
+    paused = true;
+    newPathAvailable = false;
+    requestLock.writeLock().unlock();
+  }
+
+  /**
+   * Check if the session is paused
+   *
+   * @return True if the session is waiting for a new start or goal position
+   */
+  boolean isPaused() {
+    return paused;
+  }
+
+  /**
+   * Resume a paused session. The search is started again, since obstacle updates were not applied
+   * to it while it was paused. Must be called with the request write lock held.
+   *
+   * @return True if the session was paused
+   */
+  private boolean resume() {
+    if (!paused) {
+      return false;
+    }
+
+    paused = false;
+    requestMinor = true;
+    requestMajor = true;
+    requestReset = true;
+    return true;
+  }
+
+  /** Restart the search from scratch, such as after the search mode has changed */
+  void restart() {
+    requestLock.writeLock().lock();
+    requestMinor = true;
+    requestMajor = true;
+    requestReset = true;
+    newPathAvailable = false;
+    requestLock.writeLock().unlock();
+
+    schedule();
+  }
+
+  /**
+   * Restart the search if the current path goes through a node that was just blocked
+   *
+   * @param previousGrid The grid before the obstacles were updated
+   * @param grid The grid with the new obstacles
+   * @param newlyBlocked The nodes that became blocked, as bits at index y * nodesX + x
+   * @param currentRobotPos The current position of the robot, or null to restart from the last
+   *     start position
+   * @return True if the search was restarted
+   */
+  boolean replanIfBlocked(
+      GridSnapshot previousGrid,
+      GridSnapshot grid,
+      BitSet newlyBlocked,
+      Translation2d currentRobotPos) {
+    pathLock.writeLock().lock();
+    // A path that was last checked against an older grid could go through nodes blocked before
+    // this update
+    boolean checkAll = currentPathGrid != previousGrid;
+    boolean recalculate = false;
+    if (checkAll || !newlyBlocked.isEmpty()) {
+      for (GridPosition pos : currentPathFull) {
+        boolean blocked =
+            checkAll
+                ? grid.isObstacle(pos)
+                : grid.inBounds(pos.x(), pos.y())
+                    && newlyBlocked.get((pos.y() * grid.nodesX) + pos.x());
+        if (blocked) {
+          recalculate = true;
+          break;
+        }
+      }
+    }
+    if (!recalculate) {
+      currentPathGrid = grid;
+    }
+    pathLock.writeLock().unlock();
+
+    if (recalculate) {
+      replan(currentRobotPos);
+    }
+
+    return recalculate;
+  }
+
+  /**
+   * Restart the search if the current path will run into the predicted position of a moving
+   * obstacle
+   *
+   * @param currentRobotPos The current position of the robot, or null to check from the last start
+   *     position
+   * @return True if the search was restarted
+   */
+  boolean replanIfConflicting(Translation2d currentRobotPos) {
+    pathLock.readLock().lock();
+    List<GridPosition> path = currentPathFull;
+    pathLock.readLock().unlock();
+
+    requestLock.readLock().lock();
+    Translation2d robotPos = currentRobotPos != null ? currentRobotPos : requestRealStartPos;
+    requestLock.readLock().unlock();
+
+    boolean recalculate = planner.hasPredictedConflict(path, robotPos);
+    if (recalculate) {
+      replan(currentRobotPos);
+    }
+
+    return recalculate;
+  }
+
+  /** Start a new search from the current position of the robot, or the last start position */
+  private void replan(Translation2d currentRobotPos) {
+    requestLock.readLock().lock();
+    Translation2d startPos = currentRobotPos != null ? currentRobotPos : requestRealStartPos;
+    Translation2d goalPos = requestRealGoalPos;
+    requestLock.readLock().unlock();
+
+    // The search does not know about the new obstacles, so it can't be reused
+    setStartPosition(startPos);
+    setGoalPosition(goalPos, false);
+  }
+
+  /**
+   * Do the planning work needed for the latest request
+   *
+   * @return True if any work was done, false if the current path is already up to date
+   */
+  boolean plan() {
+    GridPosition planGoal = null;
+    try {
+      LocalADStar.PlanningState state = planner.getPlanningState();
+      GridSnapshot grid = state.grid();
+
+      requestLock.writeLock().lock();
+      if (paused) {
+        requestLock.writeLock().unlock();
+        return false;
+      }
+      boolean reset = requestReset;
+      boolean minor = requestMinor;
+      boolean major = requestMajor;
+      GridPosition start = requestStart;
+      Translation2d realStart = requestRealStartPos;
+      Translation2d startVelocity = requestStartVelocity;
+      GridPosition goal = requestGoal;
+      Translation2d realGoal = requestRealGoalPos;
+      boolean cachedGoal = state.usesCachedPath(goal);
+      planGoal = goal;
+
+      // Change the request booleans based on what will be done this loop
+      if (reset) {
+        requestReset = false;
+        // The search will be started again for this goal, unless a registered goal is used instead
+        searchGoal = null;
+      }
+
+      if (minor) {
+        requestMinor = false;
+      } else if (major
+          && (state.searchMode() != SearchMode.kADStar || cachedGoal || !adStar.canImprove())) {
+        // There is nothing left to improve
+        requestMajor = false;
+        major = false;
+      }
+      requestLock.writeLock().unlock();
+
+      PathfindingMetrics metrics = planner.getPathfindingMetrics();
+      long startNanos = System.nanoTime();
+      long startExpansions = adStar.getExpansions();
+      lastPublishNanos = 0;
+
+      if ((reset || minor) && cachedGoal) {
+        // The cached costs are already optimal, so a major improvement is never needed
+        publishPath(planner.findCachedPath(start, goal, grid), realStart, realGoal, grid);
+        metrics.recordCachedGoalPath();
+        return true;
+      } else if (reset || minor || major) {
+        if (state.searchMode() == SearchMode.kADStar) {
+          doWork(
+              reset, minor, major, start, goal, realStart, realGoal, grid, state.anytimeSchedule());
+
+          metrics.recordExpansions(adStar.getExpansions() - startExpansions);
+          metrics.setCurrentEps(adStar.getEps());
+        } else if (reset || minor) {
+          doWorkSingleSearch(state, start, goal, realStart, realGoal, startVelocity);
+        }
+      } else {
+        return false;
+      }
+
+      // Measure until the first path was published, since AD* may keep working after that
+      long latency = (lastPublishNanos != 0 ? lastPublishNanos : System.nanoTime()) - startNanos;
+      if (reset || (minor && state.searchMode() != SearchMode.kADStar)) {
+        metrics.recordSearch(latency);
+      } else if (minor) {
+        metrics.recordIncrementalReplan(latency);
+      } else if (lastPublishNanos != 0) {
+        metrics.recordImprovement(latency);
+      }
+
+      return true;
+    } catch (Exception e) {
+      // Something messed up. Reset and hope for the best. If the goal has cached costs they may be
+      // the problem, so drop them, but leave the cached costs of every other goal alone
+      DriverStation.reportError("Pathfinding failed, restarting the search", e.getStackTrace());
+      if (planGoal != null) {
+        planner.invalidateGoalCostField(planGoal);
+      }
+      requestLock.writeLock().lock();
+      requestReset = true;
+      requestLock.writeLock().unlock();
+      return false;
+    }
+  }
+
+  private void schedule() {
+    if (executor != null && scheduled.compareAndSet(false, true)) {
+      executor.execute(this::runScheduled);
+    }
+  }
+
+  private void runScheduled() {
+    do {
+      while (plan()) {
+        // Keep planning until the path is up to date, including any anytime improvements
+      }
+      scheduled.set(false);
+
+      // A new request could have been made after the last plan() but before the flag was cleared
+    } while (hasNewRequest() && scheduled.compareAndSet(false, true));
+  }
+
+  private boolean hasNewRequest() {
+    requestLock.readLock().lock();
+    // A reset is also requested after a failed plan, which must be retried even without a new call
+    boolean newRequest = !paused && (requestReset || requestMajor || requestMinor);
+    requestLock.readLock().unlock();
+    return newRequest;
+  }
+
+  private void doWork(
+      boolean needsReset,
+      boolean doMinor,
+      boolean doMajor,
+      GridPosition sStart,
+      GridPosition sGoal,
+      Translation2d realStartPos,
+      Translation2d realGoalPos,
+      GridSnapshot grid,
+      AnytimeSchedule schedule) {
+    // The search keeps working towards the goal it was started with, even if the goal has moved
+    GridPosition sSearchGoal = searchGoal;
+    if (sSearchGoal == null) {
+      needsReset = true;
+    }
+    if (needsReset) {
+      adStar.reset(sStart, sGoal, grid, schedule);
+      sSearchGoal = sGoal;
+      searchGoal = sGoal;
+      jpsOnly = false;
+
+      if (doMinor && grid.hasUniformCost()) {
+        // JPS can find the optimal path much faster than AD* when all moves have the same cost, so
+        // use it to get the first path out as soon as possible
+        List<GridPosition> jpsPath = JumpPointSearch.findPath(sStart, sGoal, grid);
+        if (!jpsPath.isEmpty()) {
+          publishPath(jpsPath, realStartPos, realGoalPos, grid);
+
+          // The JPS path is already optimal, so there is nothing left for AD* to improve. Running
+          // AD* without inflation is its most expensive search, so it is only run if a repair
+          // can't be done with JPS.
+          adStar.disableInflation(sStart);
+          jpsOnly = true;
+          return;
+        }
+      }
+    }
+
+    if (doMinor && jpsOnly) {
+      if (grid.hasUniformCost()) {
+        List<GridPosition> jpsPath = JumpPointSearch.findPath(sStart, sGoal, grid);
+        if (!jpsPath.isEmpty()) {
+          publishPath(jpsPath, realStartPos, realGoalPos, grid);
+          return;
+        }
+      }
+
+      // Build the AD* search now, it is then repaired like any other search
+      jpsOnly = false;
+    }
+
+    if (doMinor) {
+      adStar.computeOrImprovePath(sStart, sSearchGoal, grid);
+
+      publishSearchPath(sStart, sSearchGoal, sGoal, realStartPos, realGoalPos, grid);
+    } else if (doMajor) {
+      // Small improvements aren't worth the trajectory regeneration a new path causes
+      if (adStar.improvePath(sStart, sSearchGoal, grid)
+          && schedule.isWorthPublishing(publishedCost, adStar.pathCost(sStart))) {
+        publishSearchPath(sStart, sSearchGoal, sGoal, realStartPos, realGoalPos, grid);
+      }
+    }
+  }
+
+  private void publishSearchPath(
+      GridPosition sStart,
+      GridPosition sSearchGoal,
+      GridPosition sGoal,
+      Translation2d realStartPos,
+      Translation2d realGoalPos,
+      GridSnapshot grid) {
+    if (sSearchGoal.equals(sGoal)) {
+      publishPath(adStar.extractPath(sStart, sGoal, grid), realStartPos, realGoalPos, grid);
+      publishedCost = adStar.pathCost(sStart);
+      return;
+    }
+
+    List<GridPosition> path =
+        adStar.extractPathToMovedGoal(sStart, sSearchGoal, sGoal, grid, 3.0 * MAX_GOAL_DRIFT);
+    if (path.size() < 2) {
+      // The goal can't be reached from the current search, so start a new one
+      restart();
+      return;
+    }
+    publishPath(path, realStartPos, realGoalPos, grid);
+  }
+
+  private void doWorkSingleSearch(
+      LocalADStar.PlanningState state,
+      GridPosition sStart,
+      GridPosition sGoal,
+      Translation2d realStartPos,
+      Translation2d realGoalPos,
+      Translation2d startVelocity) {
+    LocalADStar.SearchPath searchPath = null;
+    if (state.searchMode() == SearchMode.kHybridAStar) {
+      searchCostField = planner.getSearchCostField(state, sGoal, searchCostField);
+      searchPath =
+          planner.hybridSearch(
+              state.grid(),
+              sStart,
+              sGoal,
+              realStartPos,
+              realGoalPos,
+              searchCostField,
+              startVelocity);
+    } else if (state.searchMode() == SearchMode.kSpaceTime) {
+      searchCostField = planner.getSearchCostField(state, sGoal, searchCostField);
+      searchPath =
+          planner.spaceTimeSearch(state, sStart, sGoal, realStartPos, realGoalPos, searchCostField);
+    }
+
+    if (searchPath != null) {
+      publishWaypoints(searchPath.waypoints(), searchPath.cells(), state.grid());
+      return;
+    }
+
+    publishPath(
+        planner.singleSearch(state, sStart, sGoal), realStartPos, realGoalPos, state.grid());
+  }
+
+  private void publishPath(
+      List<GridPosition> pathPositions,
+      Translation2d realStartPos,
+      Translation2d realGoalPos,
+      GridSnapshot grid) {
+    publishWaypoints(
+        planner.createWaypoints(pathPositions, realStartPos, realGoalPos, grid),
+        pathPositions,
+        grid);
+  }
+
+  private void publishWaypoints(
+      List<Waypoint> waypoints, List<GridPosition> pathPositions, GridSnapshot grid) {
+    pathLock.writeLock().lock();
+    currentPathFull = pathPositions;
+    currentPathGrid = grid;
+    currentWaypoints = waypoints;
+    pathLock.writeLock().unlock();
+
+    publishedCost = Double.POSITIVE_INFINITY;
+    newPathAvailable = true;
+    if (lastPublishNanos == 0) {
+      lastPublishNanos = System.nanoTime();
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package com.pathplanner.lib.pathfinding;
+
+import com.pathplanner.lib.config.RobotConfig;
+import com.pathplanner.lib.path.GoalEndState;
+import com.pathplanner.lib.path.PathConstraints;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.trajectory.PathPlannerTrajectory;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Generates trajectories for the paths found by a pathfinder on a background thread. Retrieving the
+ * path and generating its trajectory can take a few milliseconds for long paths, and the pathfinder
+ * may improve its path several times, so doing this on the robot's main loop would make its loop
+ * time depend on how often the pathfinder finds a new path.
+ *
+ * <p>Each call to {@link #poll(PathConstraints, GoalEndState)} returns the newest trajectory that
+ * has finished generating since the last call, and checks for a new path in the background. Only
+ * the newest trajectory is kept, so trajectories that were never polled are skipped.
+ */
+public class PathfindingTrajectoryGenerator {
+  private static ExecutorService executor = null;
+
+  private final Pathfinder pathfinder;
+  private final RobotConfig robotConfig;
+
+  private final AtomicBoolean working = new AtomicBoolean(false);
+  private final AtomicReference<GeneratedTrajectory> mailbox = new AtomicReference<>();
+  private volatile StartState startState = new StartState(Pose2d.kZero, new ChassisSpeeds());
+
+  /**
+   * A trajectory generated for a path found by the pathfinder
+   *
+   * @param path The path found by the pathfinder
+   * @param trajectory The trajectory generated for the path
+   */
+  public record GeneratedTrajectory(PathPlannerPath path, PathPlannerTrajectory trajectory) {}
+
+  private record StartState(Pose2d pose, ChassisSpeeds speeds) {}
+
+  /**
+   * Create a new trajectory generator
+   *
+   * @param pathfinder The pathfinder to generate trajectories for. This should be a session that is
+   *     only used by the owner of this generator.
+   * @param robotConfig The robot configuration
+   */
+  public PathfindingTrajectoryGenerator(Pathfinder pathfinder, RobotConfig robotConfig) {
+    this.pathfinder = pathfinder;
+    this.robotConfig = robotConfig;
+  }
+
+  /**
+   * Set the state of the robot at the start of the path. This sets the start position and velocity
+   * of the pathfinder, and trajectories for new paths will start with this rotation and speed.
+   *
+   * @param pose The field-relative pose of the robot at the start of the path
+   * @param robotRelativeSpeeds The robot-relative speeds of the robot at the start of the path
+   */
+  public void setStartState(Pose2d pose, ChassisSpeeds robotRelativeSpeeds) {
+    startState = new StartState(pose, robotRelativeSpeeds);
+    pathfinder.setStartVelocity(
+        new Translation2d(
+                robotRelativeSpeeds.vxMetersPerSecond, robotRelativeSpeeds.vyMetersPerSecond)
+            .rotateBy(pose.getRotation()));
+    pathfinder.setStartPosition(pose.getTranslation());
+  }
+
+  /**
+   * Get the newest trajectory that finished generating since the last call, and start checking for
+   * a new path in the background if that isn't already happening. This never blocks.
+   *
+   * @param constraints The path constraints to use when creating the path
+   * @param goalEndState The goal end state to use when creating the path
+   * @return The newest generated trajectory, or null if there isn't a new one
+   */
+  public GeneratedTrajectory poll(PathConstraints constraints, GoalEndState goalEndState) {
+    GeneratedTrajectory generated = mailbox.getAndSet(null);
+
+    if (working.compareAndSet(false, true)) {
+      getExecutor()
+          .execute(
+              () -> {
+                try {
+                  generate(constraints, goalEndState);
+                } finally {
+                  working.set(false);
+                }
+              });
+    }
+
+    return generated;
+  }
+
+  /** Throw away any trajectory that has not been polled yet */
+  public void clear() {
+    mailbox.set(null);
+  }
+
+  private void generate(PathConstraints constraints, GoalEndState goalEndState) {
+    if (!pathfinder.isNewPathAvailable()) {
+      return;
+    }
+
+    PathPlannerPath path = pathfinder.getCurrentPath(constraints, goalEndState);
+    if (path == null) {
+      return;
+    }
+
+    // Read the start state after the path, so it is never older than the start the path was found
+    // from. If it is newer, the path does not start at its position, which the owner can check.
+    StartState start = startState;
+    mailbox.set(
+        new GeneratedTrajectory(
+            path,
+            new PathPlannerTrajectory(
+                path, start.speeds(), start.pose().getRotation(), robotConfig)));
+  }
+
+  private static synchronized ExecutorService getExecutor() {
+    if (executor == null) {
+      executor =
+          Executors.newSingleThreadExecutor(
+              r -> {
+                Thread t = new Thread(r);
+                t.setDaemon(true);
+                t.setName("Pathfinding Trajectory Thread");
+                return t;
+              });
+    }
+
+    return executor;
+  }
+}
@@ -0,0 +1,412 @@
+package com.pathplanner.lib.pathfinding;
+
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import java.util.*;
+
+/**
+ * Multi-resolution graph of the free space on the grid. The grid is recursively split into square
+ * quadtree cells until each cell is either entirely blocked, or entirely open with the same
+ * clearance cost. The open leaf cells are the nodes of the graph, and leaves that share an edge are
+ * connected. Since most of the field is open, this has far fewer nodes than the grid, while keeping
+ * full resolution near obstacles.
+ *
+ * <p>Each leaf is convex and open, so the robot can move in a straight line between any two nodes
+ * within a leaf. A path moves between leaves through a single node on each side of their shared
+ * edge.
+ *
+ * <p>The grid is covered by independent subtrees of {@value #MAX_LEAF_SIZE} nodes on a side. When
+ * the obstacles change, only the subtrees containing a changed node are rebuilt.
+ */
+final class QuadtreeGraph {
+  private static final int MAX_LEAF_SIZE = 16;
+
+  private final int nodesX;
+  private final int nodesY;
+  private final int[] leafOf;
+  private final boolean[] blocked;
+  private final double[] cost;
+  private final int blocksX;
+  private final int blocksY;
+  // Leaves of rebuilt subtrees are removed by setting them to null, and their indices are reused
+  private final List<Leaf> leaves = new ArrayList<>();
+  private final Deque<Integer> freeLeaves = new ArrayDeque<>();
+  private int leafCount = 0;
+
+  private GridSnapshot grid;
+
+  private record Leaf(int x, int y, int size, double cost, List<Integer> neighbors) {}
+
+  private record Entry(int leaf, double f) {}
+
+  /**
+   * Build the quadtree for a grid
+   *
+   * @param grid The grid to build the quadtree from
+   */
+  QuadtreeGraph(GridSnapshot grid) {
+    this.nodesX = grid.nodesX;
+    this.nodesY = grid.nodesY;
+    this.leafOf = new int[nodesX * nodesY];
+    this.blocked = new boolean[nodesX * nodesY];
+    this.cost = new double[nodesX * nodesY];
+    this.blocksX = (nodesX + MAX_LEAF_SIZE - 1) / MAX_LEAF_SIZE;
+    this.blocksY = (nodesY + MAX_LEAF_SIZE - 1) / MAX_LEAF_SIZE;
+
+    build(grid);
+  }
+
+  /**
+   * Get the number of open leaves in the quadtree
+   *
+   * @return Number of graph nodes
+   */
+  int getLeafCount() {
+    return leafCount;
+  }
+
+  /**
+   * Find a path between two nodes. The subtrees containing nodes whose obstacles or clearance cost
+   * changed since the last search will be rebuilt first.
+   *
+   * @param sStart Start node
+   * @param sGoal Goal node
+   * @param newGrid The grid to search. Must have the same size as the grid used to build the
+   *     quadtree.
+   * @return The vertices of the path, including the start and goal. There is a straight line of
+   *     sight between consecutive vertices. Empty if no path was found.
+   */
+  List<GridPosition> findPath(GridPosition sStart, GridPosition sGoal, GridSnapshot newGrid) {
+    if (newGrid != grid) {
+      update(newGrid);
+    }
+
+    if (sStart.equals(sGoal) || !inBounds(sStart) || !inBounds(sGoal)) {
+      return new ArrayList<>();
+    }
+
+    int startLeaf = leafOf[sStart.y() * nodesX + sStart.x()];
+    int goalLeaf = leafOf[sGoal.y() * nodesX + sGoal.x()];
+    if (startLeaf < 0 || goalLeaf < 0) {
+      return new ArrayList<>();
+    }
+
+    if (startLeaf == goalLeaf) {
+      return new ArrayList<>(List.of(sStart, sGoal));
+    }
+
+    int n = leaves.size();
+    double[] g = new double[n];
+    int[] parent = new int[n];
+    GridPosition[] entryNode = new GridPosition[n];
+    GridPosition[] exitNode = new GridPosition[n];
+    Arrays.fill(g, Double.POSITIVE_INFINITY);
+    Arrays.fill(parent, -1);
+
+    PriorityQueue<Entry> open = new PriorityQueue<>(Comparator.comparingDouble(Entry::f));
+    g[startLeaf] = 0.0;
+    entryNode[startLeaf] = sStart;
+    open.add(new Entry(startLeaf, heuristic(sStart, sGoal)));
+
+    while (!open.isEmpty()) {
+      Entry e = open.poll();
+      // The goal leaf holds the total cost of the path, so stop once nothing can beat it
+      if (e.f() >= g[goalLeaf]) {
+        break;
+      }
+      if (e.leaf() == goalLeaf || e.f() > g[e.leaf()] + heuristic(entryNode[e.leaf()], sGoal)) {
+        continue;
+      }
+
+      Leaf leaf = leaves.get(e.leaf());
+      GridPosition entry = entryNode[e.leaf()];
+      for (int neighbor : leaf.neighbors()) {
+        Leaf next = leaves.get(neighbor);
+        GridPosition[] portal = portal(leaf, next, entry, sGoal);
+
+        double newG =
+            g[e.leaf()]
+                + segmentCost(entry, portal[0], leaf.cost(), leaf.cost())
+                + segmentCost(portal[0], portal[1], leaf.cost(), next.cost());
+        if (neighbor == goalLeaf) {
+          newG += segmentCost(portal[1], sGoal, next.cost(), next.cost());
+        }
+
+        if (newG < g[neighbor]) {
+          g[neighbor] = newG;
+          parent[neighbor] = e.leaf();
+          exitNode[neighbor] = portal[0];
+          entryNode[neighbor] = portal[1];
+
+          if (neighbor != goalLeaf) {
+            open.add(new Entry(neighbor, newG + heuristic(portal[1], sGoal)));
+          }
+        }
+      }
+    }
+
+    if (parent[goalLeaf] < 0) {
+      return new ArrayList<>();
+    }
+
+    List<GridPosition> path = new ArrayList<>();
+    path.add(sGoal);
+    for (int l = goalLeaf; l != startLeaf; l = parent[l]) {
+      addVertex(path, entryNode[l]);
+      addVertex(path, exitNode[l]);
+    }
+    addVertex(path, sStart);
+    Collections.reverse(path);
+
+    return path;
+  }
+
+  private void build(GridSnapshot newGrid) {
+    grid = newGrid;
+    leaves.clear();
+    freeLeaves.clear();
+    leafCount = 0;
+    Arrays.fill(leafOf, -1);
+
+    for (int bx = 0; bx < blocksX; bx++) {
+      for (int by = 0; by < blocksY; by++) {
+        readNodes(bx, by);
+        subdivide(bx * MAX_LEAF_SIZE, by * MAX_LEAF_SIZE, MAX_LEAF_SIZE);
+      }
+    }
+
+    for (int i = 0; i < leaves.size(); i++) {
+      findNeighbors(i);
+    }
+  }
+
+  /**
+   * Rebuild the subtrees containing a node that changed since the last grid
+   *
+   * @param newGrid The new grid
+   */
+  private void update(GridSnapshot newGrid) {
+    BitSet changed = newGrid.changedNodes(grid);
+    grid = newGrid;
+
+    Set<Integer> dirty = new HashSet<>();
+    for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+      dirty.add(((i / nodesX) / MAX_LEAF_SIZE) * blocksX + ((i % nodesX) / MAX_LEAF_SIZE));
+    }
+    if (dirty.isEmpty()) {
+      return;
+    }
+
+    for (int block : dirty) {
+      int bx = block % blocksX;
+      int by = block / blocksX;
+      for (int leaf : leavesIn(bx, by)) {
+        leaves.set(leaf, null);
+        freeLeaves.add(leaf);
+        leafCount--;
+      }
+      readNodes(bx, by);
+      subdivide(bx * MAX_LEAF_SIZE, by * MAX_LEAF_SIZE, MAX_LEAF_SIZE);
+    }
+
+    // Leaves only connect through shared edges, so only the rebuilt subtrees and the ones next to
+    // them can have different neighbors
+    Set<Integer> reconnect = new HashSet<>();
+    for (int block : dirty) {
+      int bx = block % blocksX;
+      int by = block / blocksX;
+      reconnect.add(block);
+      if (bx > 0) {
+        reconnect.add(block - 1);
+      }
+      if (bx < blocksX - 1) {
+        reconnect.add(block + 1);
+      }
+      if (by > 0) {
+        reconnect.add(block - blocksX);
+      }
+      if (by < blocksY - 1) {
+        reconnect.add(block + blocksX);
+      }
+    }
+    for (int block : reconnect) {
+      for (int leaf : leavesIn(block % blocksX, block / blocksX)) {
+        leaves.get(leaf).neighbors().clear();
+        findNeighbors(leaf);
+      }
+    }
+  }
+
+  /** Get the indices of the leaves in a subtree */
+  private Set<Integer> leavesIn(int bx, int by) {
+    Set<Integer> inBlock = new HashSet<>();
+    for (int y = by * MAX_LEAF_SIZE; y < Math.min((by + 1) * MAX_LEAF_SIZE, nodesY); y++) {
+      for (int x = bx * MAX_LEAF_SIZE; x < Math.min((bx + 1) * MAX_LEAF_SIZE, nodesX); x++) {
+        if (leafOf[y * nodesX + x] >= 0) {
+          inBlock.add(leafOf[y * nodesX + x]);
+        }
+      }
+    }
+    return inBlock;
+  }
+
+  /** Read the obstacles and clearance cost of the nodes in a subtree from the grid */
+  private void readNodes(int bx, int by) {
+    for (int y = by * MAX_LEAF_SIZE; y < Math.min((by + 1) * MAX_LEAF_SIZE, nodesY); y++) {
+      for (int x = bx * MAX_LEAF_SIZE; x < Math.min((bx + 1) * MAX_LEAF_SIZE, nodesX); x++) {
+        GridPosition pos = new GridPosition(x, y);
+        blocked[y * nodesX + x] = grid.isObstacle(pos);
+        cost[y * nodesX + x] = grid.clearanceCost(pos);
+        leafOf[y * nodesX + x] = -1;
+      }
+    }
+  }
+
+  private void subdivide(int x, int y, int size) {
+    if (x >= nodesX || y >= nodesY) {
+      return;
+    }
+
+    boolean anyOpen = false;
+    boolean uniform = x + size <= nodesX && y + size <= nodesY;
+    double leafCost = cost[y * nodesX + x];
+    for (int j = y; j < Math.min(y + size, nodesY); j++) {
+      for (int i = x; i < Math.min(x + size, nodesX); i++) {
+        int index = j * nodesX + i;
+        if (blocked[index]) {
+          uniform = false;
+        } else {
+          anyOpen = true;
+          if (cost[index] != leafCost) {
+            uniform = false;
+          }
+        }
+      }
+    }
+
+    if (!anyOpen) {
+      return;
+    }
+
+    if (uniform || size == 1) {
+      Leaf leaf = new Leaf(x, y, size, leafCost, new ArrayList<>());
+      int index;
+      if (freeLeaves.isEmpty()) {
+        index = leaves.size();
+        leaves.add(leaf);
+      } else {
+        index = freeLeaves.poll();
+        leaves.set(index, leaf);
+      }
+      leafCount++;
+      for (int i = x; i < x + size; i++) {
+        for (int j = y; j < y + size; j++) {
+          leafOf[j * nodesX + i] = index;
+        }
+      }
+      return;
+    }
+
+    int half = size / 2;
+    subdivide(x, y, half);
+    subdivide(x + half, y, half);
+    subdivide(x, y + half, half);
+    subdivide(x + half, y + half, half);
+  }
+
+  private void findNeighbors(int index) {
+    Leaf leaf = leaves.get(index);
+    int x = leaf.x();
+    int y = leaf.y();
+    int size = leaf.size();
+
+    for (int i = 0; i < size; i++) {
+      addNeighbor(leaf, x + size, y + i);
+      addNeighbor(leaf, x - 1, y + i);
+      addNeighbor(leaf, x + i, y + size);
+      addNeighbor(leaf, x + i, y - 1);
+    }
+  }
+
+  private void addNeighbor(Leaf leaf, int x, int y) {
+    if (x < 0 || x >= nodesX || y < 0 || y >= nodesY) {
+      return;
+    }
+
+    int neighbor = leafOf[y * nodesX + x];
+    if (neighbor >= 0 && !leaf.neighbors().contains(neighbor)) {
+      leaf.neighbors().add(neighbor);
+    }
+  }
+
+  /**
+   * Find where to cross the shared edge between two leaves, aiming for a straight line from the
+   * entry node of the first leaf to the goal
+   *
+   * @return The node on each side of the shared edge
+   */
+  private GridPosition[] portal(Leaf from, Leaf to, GridPosition entry, GridPosition goal) {
+    boolean vertical = to.x() == from.x() + from.size() || to.x() + to.size() == from.x();
+
+    int lo;
+    int hi;
+    double aim;
+    if (vertical) {
+      lo = Math.max(from.y(), to.y());
+      hi = Math.min(from.y() + from.size(), to.y() + to.size()) - 1;
+      double edge = to.x() > from.x() ? from.x() + from.size() - 0.5 : from.x() - 0.5;
+      aim = crossing(entry.x(), entry.y(), goal.x(), goal.y(), edge);
+    } else {
+      lo = Math.max(from.x(), to.x());
+      hi = Math.min(from.x() + from.size(), to.x() + to.size()) - 1;
+      double edge = to.y() > from.y() ? from.y() + from.size() - 0.5 : from.y() - 0.5;
+      aim = crossing(entry.y(), entry.x(), goal.y(), goal.x(), edge);
+    }
+    int c = (int) Math.max(lo, Math.min(hi, Math.round(aim)));
+
+    if (vertical) {
+      int fromX = to.x() > from.x() ? from.x() + from.size() - 1 : from.x();
+      int toX = to.x() > from.x() ? to.x() : from.x() - 1;
+      return new GridPosition[] {new GridPosition(fromX, c), new GridPosition(toX, c)};
+    } else {
+      int fromY = to.y() > from.y() ? from.y() + from.size() - 1 : from.y();
+      int toY = to.y() > from.y() ? to.y() : from.y() - 1;
+      return new GridPosition[] {new GridPosition(c, fromY), new GridPosition(c, toY)};
+    }
+  }
+
+  /**
+   * Find where the line from a to b crosses the line u = edge
+   *
+   * @return The v coordinate of the crossing, or b's v coordinate if the line does not cross
+   */
+  private static double crossing(double au, double av, double bu, double bv, double edge) {
+    if (bu == au) {
+      return bv;
+    }
+
+    double t = (edge - au) / (bu - au);
+    if (t < 0.0 || t > 1.0) {
+      return bv;
+    }
+    return av + t * (bv - av);
+  }
+
+  private static double segmentCost(
+      GridPosition a, GridPosition b, double clearanceA, double clearanceB) {
+    return heuristic(a, b) * (1.0 + ((clearanceA + clearanceB) / 2.0));
+  }
+
+  private static double heuristic(GridPosition a, GridPosition b) {
+    return Math.hypot(b.x() - a.x(), b.y() - a.y());
+  }
+
+  private boolean inBounds(GridPosition pos) {
+    return pos.x() >= 0 && pos.x() < nodesX && pos.y() >= 0 && pos.y() < nodesY;
+  }
+
+  private static void addVertex(List<GridPosition> path, GridPosition pos) {
+    if (!path.get(path.size() - 1).equals(pos)) {
+      path.add(pos);
+    }
+  }
+}
@@ -0,0 +1,243 @@
+package com.pathplanner.lib.pathfinding;
+
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import java.util.*;
+
+/**
+ * A* search over (node, time) states, which avoids where the moving obstacles are predicted to be
+ * when the robot reaches each node instead of where they are now. The time to cross a node is
+ * approximated with a constant velocity, and arrival times are grouped into steps of that length to
+ * keep the search finite. Obstacles are ignored after the prediction horizon, so every state after
+ * it shares a single time step and the search finishes like a normal grid search.
+ *
+ * <p>The robot can't be told to wait in place, so the search only moves between nodes. Costs are in
+ * seconds of travel including the clearance cost, and the cost to reach the goal on the grid is
+ * used as the heuristic.
+ */
+final class SpaceTimeAStar {
+  private static final int MAX_EXPANSIONS = 50000;
+  private static final double SQRT2 = Math.sqrt(2.0);
+
+  private record Node(int x, int y, double time, double g, double f, int parent) {}
+
+  private SpaceTimeAStar() {}
+
+  /**
+   * Find a path that avoids the predicted positions of the moving obstacles
+   *
+   * @param sStart Start node. Must not be a static obstacle.
+   * @param sGoal Goal node. Must not be a static obstacle.
+   * @param grid The grid to search
+   * @param costToGo Cost field of the goal node, used as the heuristic
+   * @param prediction The moving obstacles
+   * @param startTime Time of the prediction when the robot is at the start node, in seconds
+   * @param secondsPerNode Approximate time for the robot to cross one node, in seconds
+   * @return Every node along the path, including the start and goal. Empty if no path was found
+   *     within the expansion limit.
+   */
+  static List<GridPosition> findPath(
+      GridPosition sStart,
+      GridPosition sGoal,
+      GridSnapshot grid,
+      GoalCostField costToGo,
+      ObstaclePrediction prediction,
+      double startTime,
+      double secondsPerNode) {
+    double h = costToGo.costToGoal(sStart);
+    if (!Double.isFinite(h) || sStart.equals(sGoal)) {
+      return new ArrayList<>();
+    }
+
+    double predictedTime = Math.max(ObstaclePrediction.PREDICTION_HORIZON - startTime, 0.0);
+    int steps = (int) Math.ceil(predictedTime / secondsPerNode) + 1;
+
+    List<Node> nodes = new ArrayList<>();
+    double[] bestG = new double[grid.nodesX * grid.nodesY * steps];
+    Arrays.fill(bestG, Double.POSITIVE_INFINITY);
+    PriorityQueue<Integer> open =
+        new PriorityQueue<>(Comparator.comparingDouble(i -> nodes.get(i).f()));
+
+    nodes.add(new Node(sStart.x(), sStart.y(), startTime, 0.0, h * secondsPerNode, -1));
+    bestG[key(sStart.x(), sStart.y(), 0, grid.nodesX, steps)] = 0.0;
+    open.add(0);
+
+    int expansions = 0;
+    while (!open.isEmpty() && expansions < MAX_EXPANSIONS) {
+      int index = open.poll();
+      Node node = nodes.get(index);
+
+      int step = step(node.time(), startTime, secondsPerNode, steps);
+      if (node.g() > bestG[key(node.x(), node.y(), step, grid.nodesX, steps)]) {
+        continue;
+      }
+      if (node.x() == sGoal.x() && node.y() == sGoal.y()) {
+        return buildPath(nodes, index);
+      }
+      expansions++;
+
+      GridPosition from = new GridPosition(node.x(), node.y());
+      for (int dx = -1; dx <= 1; dx++) {
+        for (int dy = -1; dy <= 1; dy++) {
+          if (dx == 0 && dy == 0) {
+            continue;
+          }
+
+          GridPosition to = new GridPosition(node.x() + dx, node.y() + dy);
+          if (!grid.inBounds(to.x(), to.y())) {
+            continue;
+          }
+
+          double cost = grid.cost(from, to);
+          double nextH = costToGo.costToGoal(to);
+          if (!Double.isFinite(cost) || !Double.isFinite(nextH)) {
+            continue;
+          }
+
+          // Also check when leaving, so an obstacle moving towards the robot can't pass through it
+          double time = node.time() + ((dx != 0 && dy != 0 ? SQRT2 : 1.0) * secondsPerNode);
+          if (prediction.isBlocked(to.x(), to.y(), time)
+              || prediction.isBlocked(to.x(), to.y(), node.time())) {
+            continue;
+          }
+
+          double g = node.g() + (cost * secondsPerNode);
+          int key =
+              key(to.x(), to.y(), step(time, startTime, secondsPerNode, steps), grid.nodesX, steps);
+          if (g < bestG[key]) {
+            bestG[key] = g;
+            nodes.add(new Node(to.x(), to.y(), time, g, g + (nextH * secondsPerNode), index));
+            open.add(nodes.size() - 1);
+          }
+        }
+      }
+    }
+
+    return new ArrayList<>();
+  }
+
+  /**
+   * Remove the nodes of a path that can be skipped with a straight line, without hitting a static
+   * obstacle or the predicted position of a moving obstacle
+   *
+   * @param path Every node along the path, including the start and goal
+   * @param grid The grid the path was found on
+   * @param prediction The moving obstacles
+   * @param startTime Time of the prediction when the robot is at the start node, in seconds
+   * @param secondsPerNode Approximate time for the robot to cross one node, in seconds
+   * @return The nodes at the corners of the path, including the start and goal
+   */
+  static List<GridPosition> simplify(
+      List<GridPosition> path,
+      GridSnapshot grid,
+      ObstaclePrediction prediction,
+      double startTime,
+      double secondsPerNode) {
+    List<GridPosition> simplified = new ArrayList<>();
+    if (path.isEmpty()) {
+      return simplified;
+    }
+
+    simplified.add(path.get(0));
+    double anchorTime = startTime;
+    double time = startTime;
+    for (int i = 1; i < path.size() - 1; i++) {
+      time += distance(path.get(i - 1), path.get(i)) * secondsPerNode;
+
+      GridPosition anchor = simplified.get(simplified.size() - 1);
+      if (!isClear(anchor, path.get(i + 1), anchorTime, grid, prediction, secondsPerNode)) {
+        simplified.add(path.get(i));
+        anchorTime = time;
+      }
+    }
+    simplified.add(path.get(path.size() - 1));
+
+    return simplified;
+  }
+
+  /**
+   * Check if a path will run into the predicted position of a moving obstacle
+   *
+   * @param path Every node along the path
+   * @param x Current X position of the robot, in nodes
+   * @param y Current Y position of the robot, in nodes
+   * @param prediction The moving obstacles
+   * @param startTime Current time of the prediction, in seconds
+   * @param secondsPerNode Approximate time for the robot to cross one node, in seconds
+   * @return True if any node of the path ahead of the robot will be blocked when it gets there
+   */
+  static boolean hasConflict(
+      List<GridPosition> path,
+      double x,
+      double y,
+      ObstaclePrediction prediction,
+      double startTime,
+      double secondsPerNode) {
+    // The robot is somewhere along the path, so only check the part it hasn't driven yet
+    int closest = 0;
+    double closestDist = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < path.size(); i++) {
+      double dist = Math.hypot(path.get(i).x() + 0.5 - x, path.get(i).y() + 0.5 - y);
+      if (dist < closestDist) {
+        closestDist = dist;
+        closest = i;
+      }
+    }
+
+    double time = startTime;
+    for (int i = closest + 1; i < path.size(); i++) {
+      time += distance(path.get(i - 1), path.get(i)) * secondsPerNode;
+      if (time > ObstaclePrediction.PREDICTION_HORIZON) {
+        break;
+      }
+      if (prediction.isBlocked(path.get(i).x(), path.get(i).y(), time)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private static boolean isClear(
+      GridPosition a,
+      GridPosition b,
+      double startTime,
+      GridSnapshot grid,
+      ObstaclePrediction prediction,
+      double secondsPerNode) {
+    if (!grid.lineOfSight(a, b)) {
+      return false;
+    }
+
+    for (GridPosition pos : GridSnapshot.traceLine(a, b)) {
+      double time = startTime + (distance(a, pos) * secondsPerNode);
+      if (prediction.isBlocked(pos.x(), pos.y(), time)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static List<GridPosition> buildPath(List<Node> nodes, int goalIndex) {
+    List<GridPosition> path = new ArrayList<>();
+    for (int i = goalIndex; i != -1; i = nodes.get(i).parent()) {
+      path.add(new GridPosition(nodes.get(i).x(), nodes.get(i).y()));
+    }
+    Collections.reverse(path);
+    return path;
+  }
+
+  private static double distance(GridPosition a, GridPosition b) {
+    return Math.hypot(b.x() - a.x(), b.y() - a.y());
+  }
+
+  private static int step(double time, double startTime, double secondsPerNode, int steps) {
+    if (time > ObstaclePrediction.PREDICTION_HORIZON) {
+      return steps - 1;
+    }
+    return Math.min((int) ((time - startTime) / secondsPerNode), steps - 1);
+  }
+
+  private static int key(int x, int y, int step, int nodesX, int steps) {
+    return (((y * nodesX) + x) * steps) + step;
+  }
+}
@@ -0,0 +1,616 @@
+package com.pathplanner.lib.pathfinding;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.*;
+
+/**
+ * Reduced visibility graph of a set of convex polygonal obstacles. The nodes of the graph are the
+ * obstacle vertices, and two vertices are connected if there is a straight line between them that
+ * does not pass through any obstacle, and that line is tangent to the obstacles at both ends. The
+ * shortest path between two points around the obstacles only ever uses these edges, so the graph is
+ * much smaller than a grid while still giving optimal paths.
+ *
+ * <p>A graph is never modified after it is created. Temporary obstacles are added with {@link
+ * #withObstacles(List)}, which creates a new graph that reuses the edges of this one.
+ */
+final class VisibilityGraph {
+  private static final double EPS = 1e-6;
+  private static final double MAX_ARC_STEP = Math.PI / 4.0;
+
+  private final double fieldLength;
+  private final double fieldWidth;
+  private final List<Polygon> polygons;
+  private final int numBasePolygons;
+
+  private final double[] vx;
+  private final double[] vy;
+  private final int[] vertexPolygon;
+  private final int[] vertexIndex;
+  private final boolean[] active;
+  private final List<List<Integer>> edges;
+
+  /**
+   * Convex obstacle polygon, with its vertices in counter-clockwise order
+   *
+   * @param xs X coordinates of the vertices
+   * @param ys Y coordinates of the vertices
+   * @param nx X components of the outward unit normal of each edge, from vertex i to i + 1
+   * @param ny Y components of the outward unit normal of each edge
+   * @param offset Offset of each edge along its normal
+   * @param minX Minimum X coordinate of the bounding box
+   * @param minY Minimum Y coordinate of the bounding box
+   * @param maxX Maximum X coordinate of the bounding box
+   * @param maxY Maximum Y coordinate of the bounding box
+   */
+  record Polygon(
+      double[] xs,
+      double[] ys,
+      double[] nx,
+      double[] ny,
+      double[] offset,
+      double minX,
+      double minY,
+      double maxX,
+      double maxY) {
+    /**
+     * Create the convex hull of a set of points, inflated by a radius. The rounded corners of the
+     * inflated polygon are approximated from the outside, so it always contains every point within
+     * the radius of the hull.
+     *
+     * @param points Points to create the polygon from. At least one point is required.
+     * @param radius Distance to inflate the polygon by
+     * @return The inflated convex polygon
+     */
+    static Polygon inflatedHull(List<Translation2d> points, double radius) {
+      List<Translation2d> hull = convexHull(points);
+      int n = hull.size();
+
+      if (radius <= 0.0) {
+        if (n < 3) {
+          // Degenerate obstacles still need an area to block anything
+          return inflatedHull(points, EPS * 10.0);
+        }
+        return fromCCW(hull);
+      }
+
+      List<Translation2d> inflated = new ArrayList<>();
+      for (int i = 0; i < n; i++) {
+        Translation2d v = hull.get(i);
+
+        double inAngle;
+        double outAngle;
+        if (n == 1) {
+          inAngle = 0.0;
+          outAngle = 2.0 * Math.PI;
+        } else {
+          Translation2d prev = hull.get((i + n - 1) % n);
+          Translation2d next = hull.get((i + 1) % n);
+          inAngle = normalAngle(prev, v);
+          outAngle = normalAngle(v, next);
+          if (outAngle < inAngle) {
+            outAngle += 2.0 * Math.PI;
+          }
+        }
+
+        // Circumscribe the arc around the vertex with segments tangent to it
+        double arc = outAngle - inAngle;
+        int steps = Math.max(1, (int) Math.ceil(arc / MAX_ARC_STEP));
+        double step = arc / steps;
+        double outerRadius = radius / Math.cos(step / 2.0);
+
+        if (n > 1) {
+          inflated.add(offset(v, radius, inAngle));
+        }
+        for (int j = 0; j < steps; j++) {
+          double angle = inAngle + (j + 0.5) * step;
+          inflated.add(offset(v, outerRadius, angle));
+        }
+        if (n > 1) {
+          inflated.add(offset(v, radius, outAngle));
+        }
+      }
+
+      return fromCCW(convexHull(inflated));
+    }
+
+    private static Polygon fromCCW(List<Translation2d> points) {
+      int n = points.size();
+      double[] xs = new double[n];
+      double[] ys = new double[n];
+      double[] nx = new double[n];
+      double[] ny = new double[n];
+      double[] offset = new double[n];
+      double minX = Double.POSITIVE_INFINITY;
+      double minY = Double.POSITIVE_INFINITY;
+      double maxX = Double.NEGATIVE_INFINITY;
+      double maxY = Double.NEGATIVE_INFINITY;
+
+      for (int i = 0; i < n; i++) {
+        xs[i] = points.get(i).getX();
+        ys[i] = points.get(i).getY();
+        minX = Math.min(minX, xs[i]);
+        minY = Math.min(minY, ys[i]);
+        maxX = Math.max(maxX, xs[i]);
+        maxY = Math.max(maxY, ys[i]);
+      }
+
+      for (int i = 0; i < n; i++) {
+        int j = (i + 1) % n;
+        double dx = xs[j] - xs[i];
+        double dy = ys[j] - ys[i];
+        double len = Math.hypot(dx, dy);
+        nx[i] = dy / len;
+        ny[i] = -dx / len;
+        offset[i] = nx[i] * xs[i] + ny[i] * ys[i];
+      }
+
+      return new Polygon(xs, ys, nx, ny, offset, minX, minY, maxX, maxY);
+    }
+
+    private static Translation2d offset(Translation2d v, double distance, double angle) {
+      return new Translation2d(
+          v.getX() + distance * Math.cos(angle), v.getY() + distance * Math.sin(angle));
+    }
+
+    /** Angle of the outward normal of the edge from a to b on a counter-clockwise polygon */
+    private static double normalAngle(Translation2d a, Translation2d b) {
+      double angle = Math.atan2(b.getY() - a.getY(), b.getX() - a.getX()) - Math.PI / 2.0;
+      return angle < 0.0 ? angle + 2.0 * Math.PI : angle;
+    }
+
+    int size() {
+      return xs.length;
+    }
+
+    /** Check if a point is strictly inside the polygon, not on its boundary */
+    boolean contains(double x, double y) {
+      if (x < minX || x > maxX || y < minY || y > maxY) {
+        return false;
+      }
+
+      for (int i = 0; i < xs.length; i++) {
+        if (nx[i] * x + ny[i] * y - offset[i] > -EPS) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /** Check if a line segment passes through the inside of the polygon */
+    boolean intersects(double x0, double y0, double x1, double y1) {
+      if (Math.max(x0, x1) < minX
+          || Math.min(x0, x1) > maxX
+          || Math.max(y0, y1) < minY
+          || Math.min(y0, y1) > maxY) {
+        return false;
+      }
+
+      // Clip the segment to the inside of every edge. Whatever is left is inside the polygon.
+      double dx = x1 - x0;
+      double dy = y1 - y0;
+      double tEnter = 0.0;
+      double tExit = 1.0;
+      for (int i = 0; i < xs.length; i++) {
+        double denom = nx[i] * dx + ny[i] * dy;
+        double num = -EPS - (nx[i] * x0 + ny[i] * y0 - offset[i]);
+
+        if (Math.abs(denom) < 1e-12) {
+          if (num <= 0.0) {
+            return false;
+          }
+        } else if (denom > 0.0) {
+          tExit = Math.min(tExit, num / denom);
+        } else {
+          tEnter = Math.max(tEnter, num / denom);
+        }
+
+        if (tEnter >= tExit) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Get the points just outside of the polygon that could be the closest free position to a
+     * point. These are the closest point on each edge and each vertex, moved slightly outwards.
+     */
+    List<Translation2d> exitCandidates(double x, double y) {
+      List<Translation2d> candidates = new ArrayList<>();
+      double push = EPS * 10.0;
+      for (int i = 0; i < xs.length; i++) {
+        int j = (i + 1) % xs.length;
+        int prev = (i + xs.length - 1) % xs.length;
+        double dx = xs[j] - xs[i];
+        double dy = ys[j] - ys[i];
+        double t = ((x - xs[i]) * dx + (y - ys[i]) * dy) / (dx * dx + dy * dy);
+        t = Math.max(0.0, Math.min(1.0, t));
+
+        candidates.add(
+            new Translation2d(xs[i] + t * dx + nx[i] * push, ys[i] + t * dy + ny[i] * push));
+        candidates.add(
+            new Translation2d(
+                xs[i] + (nx[i] + nx[prev]) * push, ys[i] + (ny[i] + ny[prev]) * push));
+      }
+      return candidates;
+    }
+  }
+
+  /**
+   * Build the visibility graph of a set of obstacles
+   *
+   * @param obstacles Inflated obstacle polygons
+   * @param fieldLength Length of the field, in meters. Vertices outside of the field are not used.
+   * @param fieldWidth Width of the field, in meters
+   */
+  VisibilityGraph(List<Polygon> obstacles, double fieldLength, double fieldWidth) {
+    this.fieldLength = fieldLength;
+    this.fieldWidth = fieldWidth;
+    this.polygons = List.copyOf(obstacles);
+    this.numBasePolygons = 0;
+
+    int numVertices = 0;
+    for (Polygon p : polygons) {
+      numVertices += p.size();
+    }
+
+    vx = new double[numVertices];
+    vy = new double[numVertices];
+    vertexPolygon = new int[numVertices];
+    vertexIndex = new int[numVertices];
+    active = new boolean[numVertices];
+    edges = new ArrayList<>(numVertices);
+
+    addVertices(0, 0);
+    for (int i = 0; i < numVertices; i++) {
+      edges.add(new ArrayList<>());
+    }
+    for (int i = 0; i < numVertices; i++) {
+      for (int j = i + 1; j < numVertices; j++) {
+        connectIfVisible(i, j);
+      }
+    }
+  }
+
+  private VisibilityGraph(VisibilityGraph base, List<Polygon> extra) {
+    this.fieldLength = base.fieldLength;
+    this.fieldWidth = base.fieldWidth;
+    this.numBasePolygons = base.polygons.size();
+
+    List<Polygon> all = new ArrayList<>(base.polygons);
+    all.addAll(extra);
+    this.polygons = List.copyOf(all);
+
+    int baseVertices = base.vx.length;
+    int numVertices = baseVertices;
+    for (Polygon p : extra) {
+      numVertices += p.size();
+    }
+
+    vx = Arrays.copyOf(base.vx, numVertices);
+    vy = Arrays.copyOf(base.vy, numVertices);
+    vertexPolygon = Arrays.copyOf(base.vertexPolygon, numVertices);
+    vertexIndex = Arrays.copyOf(base.vertexIndex, numVertices);
+    active = Arrays.copyOf(base.active, numVertices);
+    edges = new ArrayList<>(numVertices);
+
+    // Base vertices covered by a new obstacle can no longer be used
+    for (int i = 0; i < baseVertices; i++) {
+      if (active[i] && insideAny(vx[i], vy[i], numBasePolygons, -1)) {
+        active[i] = false;
+      }
+    }
+    addVertices(numBasePolygons, baseVertices);
+
+    // Keep the base edges that are not blocked by a new obstacle
+    for (int i = 0; i < baseVertices; i++) {
+      List<Integer> kept = new ArrayList<>();
+      if (active[i]) {
+        for (int j : base.edges.get(i)) {
+          if (active[j] && !segmentBlocked(vx[i], vy[i], vx[j], vy[j], numBasePolygons)) {
+            kept.add(j);
+          }
+        }
+      }
+      edges.add(kept);
+    }
+    for (int i = baseVertices; i < numVertices; i++) {
+      edges.add(new ArrayList<>());
+    }
+
+    for (int i = baseVertices; i < numVertices; i++) {
+      for (int j = 0; j < i; j++) {
+        connectIfVisible(j, i);
+      }
+    }
+  }
+
+  /**
+   * Create a new graph with additional obstacles. Only the edges blocked by or connecting to the
+   * new obstacles need to be calculated.
+   *
+   * @param extra Inflated polygons of the additional obstacles
+   * @return The new graph
+   */
+  VisibilityGraph withObstacles(List<Polygon> extra) {
+    return new VisibilityGraph(this, extra);
+  }
+
+  /**
+   * Get the number of edges in the graph
+   *
+   * @return Number of edges
+   */
+  int getEdgeCount() {
+    int count = 0;
+    for (List<Integer> e : edges) {
+      count += e.size();
+    }
+    return count / 2;
+  }
+
+  /**
+   * Move a position out of any obstacles and into the field
+   *
+   * @param position Position on the field
+   * @return The closest free position, or null if one could not be found
+   */
+  Translation2d closestFreePosition(Translation2d position) {
+    double x = Math.max(0.0, Math.min(fieldLength, position.getX()));
+    double y = Math.max(0.0, Math.min(fieldWidth, position.getY()));
+
+    if (isFree(x, y)) {
+      return new Translation2d(x, y);
+    }
+
+    // Obstacles can overlap, so check every position just outside of any obstacle
+    Translation2d best = null;
+    double bestDist = Double.POSITIVE_INFINITY;
+    for (Polygon p : polygons) {
+      for (Translation2d candidate : p.exitCandidates(x, y)) {
+        double dist = Math.hypot(candidate.getX() - x, candidate.getY() - y);
+        if (dist < bestDist && isFree(candidate.getX(), candidate.getY())) {
+          bestDist = dist;
+          best = candidate;
+        }
+      }
+    }
+
+    return best;
+  }
+
+  private boolean isFree(double x, double y) {
+    return x >= 0.0 && x <= fieldLength && y >= 0.0 && y <= fieldWidth && !insideAny(x, y, 0, -1);
+  }
+
+  /**
+   * Check if a path is clear of every obstacle
+   *
+   * @param path Positions along the path
+   * @return True if no segment of the path passes through an obstacle
+   */
+  boolean isClear(List<Translation2d> path) {
+    for (int i = 1; i < path.size(); i++) {
+      Translation2d a = path.get(i - 1);
+      Translation2d b = path.get(i);
+      if (segmentBlocked(a.getX(), a.getY(), b.getX(), b.getY(), 0)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Find the shortest path between two free positions
+   *
+   * @param start Start position. Must not be inside an obstacle.
+   * @param goal Goal position. Must not be inside an obstacle.
+   * @return Positions along the path, including the start and goal. Empty if no path was found.
+   */
+  List<Translation2d> findPath(Translation2d start, Translation2d goal) {
+    double sx = start.getX();
+    double sy = start.getY();
+    double gx = goal.getX();
+    double gy = goal.getY();
+
+    if (!segmentBlocked(sx, sy, gx, gy, 0)) {
+      return new ArrayList<>(List.of(start, goal));
+    }
+
+    int n = vx.length;
+    int startNode = n;
+    int goalNode = n + 1;
+
+    // Temporarily connect the start and goal to every vertex they can see
+    List<Integer> startEdges = new ArrayList<>();
+    boolean[] seesGoal = new boolean[n];
+    for (int i = 0; i < n; i++) {
+      if (!active[i]) {
+        continue;
+      }
+      if (isTangent(i, sx, sy) && !segmentBlocked(sx, sy, vx[i], vy[i], 0)) {
+        startEdges.add(i);
+      }
+      if (isTangent(i, gx, gy) && !segmentBlocked(gx, gy, vx[i], vy[i], 0)) {
+        seesGoal[i] = true;
+      }
+    }
+
+    double[] g = new double[n + 2];
+    int[] parent = new int[n + 2];
+    Arrays.fill(g, Double.POSITIVE_INFINITY);
+    Arrays.fill(parent, -1);
+
+    PriorityQueue<double[]> open = new PriorityQueue<>(Comparator.comparingDouble(e -> e[0]));
+    g[startNode] = 0.0;
+    open.add(new double[] {Math.hypot(gx - sx, gy - sy), startNode});
+
+    while (!open.isEmpty()) {
+      double[] e = open.poll();
+      int s = (int) e[1];
+      if (s == goalNode) {
+        break;
+      }
+
+      double x = s == startNode ? sx : vx[s];
+      double y = s == startNode ? sy : vy[s];
+      if (e[0] > g[s] + Math.hypot(gx - x, gy - y) + EPS) {
+        continue;
+      }
+
+      List<Integer> neighbors = s == startNode ? startEdges : edges.get(s);
+      for (int next : neighbors) {
+        relax(open, g, parent, s, next, x, y, vx[next], vy[next], gx, gy);
+      }
+      if (s != startNode && seesGoal[s]) {
+        relax(open, g, parent, s, goalNode, x, y, gx, gy, gx, gy);
+      }
+    }
+
+    if (parent[goalNode] < 0) {
+      return new ArrayList<>();
+    }
+
+    List<Translation2d> path = new ArrayList<>();
+    path.add(goal);
+    for (int s = parent[goalNode]; s != startNode; s = parent[s]) {
+      path.add(new Translation2d(vx[s], vy[s]));
+    }
+    path.add(start);
+    Collections.reverse(path);
+
+    return path;
+  }
+
+  private static void relax(
+      PriorityQueue<double[]> open,
+      double[] g,
+      int[] parent,
+      int from,
+      int to,
+      double x0,
+      double y0,
+      double x1,
+      double y1,
+      double gx,
+      double gy) {
+    double newG = g[from] + Math.hypot(x1 - x0, y1 - y0);
+    if (newG < g[to]) {
+      g[to] = newG;
+      parent[to] = from;
+      open.add(new double[] {newG + Math.hypot(gx - x1, gy - y1), to});
+    }
+  }
+
+  /** Add the vertices of the polygons starting at the given index, and mark which are usable */
+  private void addVertices(int firstPolygon, int firstVertex) {
+    int v = firstVertex;
+    for (int p = firstPolygon; p < polygons.size(); p++) {
+      Polygon polygon = polygons.get(p);
+      for (int k = 0; k < polygon.size(); k++) {
+        vx[v] = polygon.xs()[k];
+        vy[v] = polygon.ys()[k];
+        vertexPolygon[v] = p;
+        vertexIndex[v] = k;
+        active[v] =
+            vx[v] >= 0.0
+                && vx[v] <= fieldLength
+                && vy[v] >= 0.0
+                && vy[v] <= fieldWidth
+                && !insideAny(vx[v], vy[v], 0, p);
+        v++;
+      }
+    }
+  }
+
+  private void connectIfVisible(int i, int j) {
+    if (!active[i] || !active[j]) {
+      return;
+    }
+
+    if (vertexPolygon[i] == vertexPolygon[j]) {
+      // Within a convex polygon, only the edges of the polygon can be used
+      int size = polygons.get(vertexPolygon[i]).size();
+      int diff = Math.abs(vertexIndex[i] - vertexIndex[j]);
+      if (diff != 1 && diff != size - 1) {
+        return;
+      }
+    } else if (!isTangent(i, vx[j], vy[j]) || !isTangent(j, vx[i], vy[i])) {
+      return;
+    }
+
+    if (!segmentBlocked(vx[i], vy[i], vx[j], vy[j], 0)) {
+      edges.get(i).add(j);
+      edges.get(j).add(i);
+    }
+  }
+
+  /**
+   * Check if the line from a point through a vertex is tangent to the vertex's polygon, meaning
+   * both neighboring vertices are on the same side of the line. A shortest path can only bend
+   * around a vertex at such a line.
+   */
+  private boolean isTangent(int vertex, double x, double y) {
+    Polygon p = polygons.get(vertexPolygon[vertex]);
+    int k = vertexIndex[vertex];
+    int n = p.size();
+    int prev = (k + n - 1) % n;
+    int next = (k + 1) % n;
+
+    double dx = vx[vertex] - x;
+    double dy = vy[vertex] - y;
+    double crossPrev = dx * (p.ys()[prev] - vy[vertex]) - dy * (p.xs()[prev] - vx[vertex]);
+    double crossNext = dx * (p.ys()[next] - vy[vertex]) - dy * (p.xs()[next] - vx[vertex]);
+
+    return crossPrev * crossNext >= -EPS;
+  }
+
+  private boolean segmentBlocked(double x0, double y0, double x1, double y1, int firstPolygon) {
+    for (int p = firstPolygon; p < polygons.size(); p++) {
+      if (polygons.get(p).intersects(x0, y0, x1, y1)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean insideAny(double x, double y, int firstPolygon, int exclude) {
+    for (int p = firstPolygon; p < polygons.size(); p++) {
+      if (p != exclude && polygons.get(p).contains(x, y)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static List<Translation2d> convexHull(List<Translation2d> points) {
+    List<Translation2d> sorted = new ArrayList<>(points);
+    sorted.sort(
+        Comparator.comparingDouble(Translation2d::getX).thenComparingDouble(Translation2d::getY));
+
+    // Andrew's monotone chain, giving the hull in counter-clockwise order
+    List<Translation2d> hull = new ArrayList<>();
+    for (int pass = 0; pass < 2; pass++) {
+      int base = hull.size();
+      for (Translation2d p : sorted) {
+        while (hull.size() >= base + 2
+            && cross(hull.get(hull.size() - 2), hull.get(hull.size() - 1), p) <= 1e-12) {
+          hull.remove(hull.size() - 1);
+        }
+        hull.add(p);
+      }
+      hull.remove(hull.size() - 1);
+      Collections.reverse(sorted);
+    }
+
+    if (hull.isEmpty()) {
+      hull.add(sorted.get(0));
+    }
+    return hull;
+  }
+
+  private static double cross(Translation2d o, Translation2d a, Translation2d b) {
+    return (a.getX() - o.getX()) * (b.getY() - o.getY())
+        - (a.getY() - o.getY()) * (b.getX() - o.getX());
+  }
+}
@@ -0,0 +1,407 @@
+package com.pathplanner.lib.pathfinding;
+
+import com.pathplanner.lib.path.GoalEndState;
+import com.pathplanner.lib.path.PathConstraints;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.pathfinding.VisibilityGraph.Polygon;
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Pathfinder that finds optimal any-angle paths around polygonal obstacles, using a visibility
+ * graph of the obstacle corners instead of a grid. Field elements are usually a small number of
+ * convex shapes, so the graph only has a few hundred edges, and paths are found in well under a
+ * millisecond. Grids converted with {@link #fromNavGrid(NavGrid, double)} can have many more, so
+ * paths are found on a background thread shared by every session, the same way {@link LocalADStar}
+ * does, and the calling thread only picks up the newest path.
+ *
+ * <p>Obstacles are inflated by the robot's radius, so paths keep the robot's footprint clear of
+ * them. Dynamic obstacles are added to the graph as temporary polygons, and are shared by every
+ * session created from this pathfinder.
+ */
+public class VisibilityGraphPathfinder implements Pathfinder {
+  private final double robotRadius;
+  private final VisibilityGraph staticGraph;
+  private final AtomicReference<VisibilityGraph> graph;
+  // Position of the robot when the dynamic obstacles were last set, shared with every session
+  private final AtomicReference<Translation2d> robotPosition;
+  // Builds obstacle graphs and finds paths for this pathfinder and every session created from it
+  private final ExecutorService planningExecutor;
+
+  private Translation2d requestStart = null;
+  private Translation2d requestGoal = null;
+  private boolean requestChanged = false;
+  private long requestVersion = 0;
+  private boolean updateScheduled = false;
+
+  private VisibilityGraph pathGraph = null;
+  private List<Translation2d> currentPath = new ArrayList<>();
+  private Translation2d currentStart = null;
+  private Translation2d currentGoal = null;
+  private boolean newPathAvailable = false;
+
+  /**
+   * Create a new visibility graph pathfinder
+   *
+   * @param obstacles The static obstacles on the field. Each obstacle is a list of its corners.
+   *     Each obstacle should be convex, since the convex hull of its corners will be used.
+   * @param fieldLengthMeters Length of the field, in meters
+   * @param fieldWidthMeters Width of the field, in meters
+   * @param robotRadiusMeters Radius of the robot's footprint, in meters. Obstacles will be inflated
+   *     by this distance.
+   */
+  public VisibilityGraphPathfinder(
+      List<List<Translation2d>> obstacles,
+      double fieldLengthMeters,
+      double fieldWidthMeters,
+      double robotRadiusMeters) {
+    this.robotRadius = robotRadiusMeters;
+
+    List<Polygon> polygons = new ArrayList<>();
+    for (List<Translation2d> obstacle : obstacles) {
+      if (!obstacle.isEmpty()) {
+        polygons.add(Polygon.inflatedHull(obstacle, robotRadiusMeters));
+      }
+    }
+
+    this.staticGraph = new VisibilityGraph(polygons, fieldLengthMeters, fieldWidthMeters);
+    this.graph = new AtomicReference<>(staticGraph);
+    this.robotPosition = new AtomicReference<>(null);
+    this.planningExecutor =
+        Executors.newSingleThreadExecutor(
+            r -> {
+              Thread t = new Thread(r);
+              t.setDaemon(true);
+              t.setName("Visibility Graph Planning Thread");
+              return t;
+            });
+  }
+
+  private VisibilityGraphPathfinder(VisibilityGraphPathfinder parent) {
+    this.robotRadius = parent.robotRadius;
+    this.staticGraph = parent.staticGraph;
+    this.graph = parent.graph;
+    this.robotPosition = parent.robotPosition;
+    this.planningExecutor = parent.planningExecutor;
+  }
+
+  /**
+   * Create a visibility graph pathfinder from the obstacles in a navgrid. Neighboring obstacle
+   * nodes are merged into as few rectangles as possible, so this works best with navgrids made of
+   * axis-aligned shapes.
+   *
+   * @param navGrid The navgrid containing the static obstacles
+   * @param robotRadiusMeters Radius of the robot's footprint, in meters
+   * @return The new pathfinder
+   */
+  public static VisibilityGraphPathfinder fromNavGrid(NavGrid navGrid, double robotRadiusMeters) {
+    int nodesX = navGrid.getNodesX();
+    int nodesY = navGrid.getNodesY();
+    double nodeSize = navGrid.getNodeSize();
+    boolean[] covered = new boolean[nodesX * nodesY];
+
+    List<List<Translation2d>> obstacles = new ArrayList<>();
+    for (int y = 0; y < nodesY; y++) {
+      for (int x = 0; x < nodesX; x++) {
+        if (covered[y * nodesX + x] || !navGrid.isObstacle(x, y)) {
+          continue;
+        }
+
+        // Grow the rectangle as far right as possible, then as far up as every column allows
+        int maxX = x;
+        while (maxX + 1 < nodesX
+            && navGrid.isObstacle(maxX + 1, y)
+            && !covered[y * nodesX + maxX + 1]) {
+          maxX++;
+        }
+
+        int maxY = y;
+        boolean canGrow = true;
+        while (canGrow && maxY + 1 < nodesY) {
+          for (int i = x; i <= maxX; i++) {
+            if (!navGrid.isObstacle(i, maxY + 1) || covered[(maxY + 1) * nodesX + i]) {
+              canGrow = false;
+              break;
+            }
+          }
+          if (canGrow) {
+            maxY++;
+          }
+        }
+
+        for (int j = y; j <= maxY; j++) {
+          for (int i = x; i <= maxX; i++) {
+            covered[j * nodesX + i] = true;
+          }
+        }
+
+        obstacles.add(
+            List.of(
+                new Translation2d(x * nodeSize, y * nodeSize),
+                new Translation2d((maxX + 1) * nodeSize, y * nodeSize),
+                new Translation2d((maxX + 1) * nodeSize, (maxY + 1) * nodeSize),
+                new Translation2d(x * nodeSize, (maxY + 1) * nodeSize)));
+      }
+    }
+
+    return new VisibilityGraphPathfinder(
+        obstacles, navGrid.getFieldLength(), navGrid.getFieldWidth(), robotRadiusMeters);
+  }
+
+  /**
+   * Create a new pathfinding session with its own start, goal, and current path. Sessions share the
+   * static and dynamic obstacles of this pathfinder.
+   *
+   * @return The new session
+   */
+  @Override
+  public VisibilityGraphPathfinder createSession() {
+    return new VisibilityGraphPathfinder(this);
+  }
+
+  /**
+   * Get if a new path has been calculated since the last time a path was retrieved
+   *
+   * @return True if a new path is available
+   */
+  @Override
+  public synchronized boolean isNewPathAvailable() {
+    scheduleUpdate();
+    return newPathAvailable;
+  }
+
+  /**
+   * Get the most recently calculated path
+   *
+   * @param constraints The path constraints to use when creating the path
+   * @param goalEndState The goal end state to use when creating the path
+   * @return The PathPlannerPath created from the points calculated by the pathfinder
+   */
+  @Override
+  public synchronized PathPlannerPath getCurrentPath(
+      PathConstraints constraints, GoalEndState goalEndState) {
+    newPathAvailable = false;
+
+    if (currentPath.size() < 2) {
+      return null;
+    }
+
+    return new PathPlannerPath(
+        LocalADStar.smoothWaypoints(withEndpoints(currentPath, currentStart, currentGoal)),
+        constraints,
+        null,
+        goalEndState);
+  }
+
+  /**
+   * Set the start position to pathfind from
+   *
+   * @param startPosition Start position on the field. If this is within an obstacle it will be
+   *     moved to the closest position outside of it.
+   */
+  @Override
+  public synchronized void setStartPosition(Translation2d startPosition) {
+    requestStart = startPosition;
+    requestChanged = true;
+    requestVersion++;
+    newPathAvailable = false;
+    scheduleUpdate();
+  }
+
+  /**
+   * Set the goal position to pathfind to
+   *
+   * @param goalPosition Goal position on the field. If this is within an obstacle it will be moved
+   *     to the closest position outside of it.
+   */
+  @Override
+  public synchronized void setGoalPosition(Translation2d goalPosition) {
+    requestGoal = goalPosition;
+    requestChanged = true;
+    requestVersion++;
+    newPathAvailable = false;
+    scheduleUpdate();
+  }
+
+  /**
+   * Set the dynamic obstacles that should be avoided while pathfinding. The obstacles are shared by
+   * every session of the pathfinder, and each session will replan if its path is now blocked. The
+   * obstacles are added to the graph on the planning thread.
+   *
+   * @param obs A List of Translation2d pairs representing obstacles. Each Translation2d represents
+   *     opposite corners of a bounding box.
+   * @param currentRobotPos The current position of the robot. If the path of any session is
+   *     blocked, it will be replanned from this position.
+   */
+  @Override
+  public void setDynamicObstacles(
+      List<Pair<Translation2d, Translation2d>> obs, Translation2d currentRobotPos) {
+    List<Pair<Translation2d, Translation2d>> boxes = List.copyOf(obs);
+    planningExecutor.execute(
+        () -> {
+          List<Polygon> polygons = new ArrayList<>();
+          for (var box : boxes) {
+            Translation2d a = box.getFirst();
+            Translation2d b = box.getSecond();
+            polygons.add(
+                Polygon.inflatedHull(
+                    List.of(
+                        a,
+                        new Translation2d(a.getX(), b.getY()),
+                        b,
+                        new Translation2d(b.getX(), a.getY())),
+                    robotRadius));
+          }
+
+          // Set the position first, so a session that sees the new graph also sees the new
+          // position
+          robotPosition.set(currentRobotPos);
+          graph.set(polygons.isEmpty() ? staticGraph : staticGraph.withObstacles(polygons));
+        });
+  }
+
+  /**
+   * Stop the planning thread shared by this pathfinder and its sessions. The pathfinder should not
+   * be used after this. This is only needed when several pathfinders are created over the life of a
+   * program, such as in tests.
+   */
+  public void shutdown() {
+    planningExecutor.shutdownNow();
+  }
+
+  /**
+   * Find a path between two positions on the calling thread. The optimal path is always found
+   * immediately, so the time budget is not used.
+   *
+   * @param startPosition Start position on the field
+   * @param goalPosition Goal position on the field
+   * @param constraints The path constraints to use when creating the path
+   * @param goalEndState The goal end state to use when creating the path
+   * @param timeBudgetSeconds Not used
+   * @return The optimal path and its length in meters
+   */
+  @Override
+  public PathfindingResult findPath(
+      Translation2d startPosition,
+      Translation2d goalPosition,
+      PathConstraints constraints,
+      GoalEndState goalEndState,
+      double timeBudgetSeconds) {
+    List<Translation2d> path =
+        withEndpoints(
+            findPath(graph.get(), startPosition, goalPosition), startPosition, goalPosition);
+    if (path.size() < 2) {
+      return new PathfindingResult(null, Double.POSITIVE_INFINITY);
+    }
+
+    double length = 0.0;
+    for (int i = 1; i < path.size(); i++) {
+      length += path.get(i - 1).getDistance(path.get(i));
+    }
+
+    return new PathfindingResult(
+        new PathPlannerPath(LocalADStar.smoothWaypoints(path), constraints, null, goalEndState),
+        length);
+  }
+
+  /** Schedule the path to be recalculated if the request or the obstacles changed */
+  private synchronized void scheduleUpdate() {
+    if (updateScheduled || requestStart == null || requestGoal == null) {
+      return;
+    }
+    if (!requestChanged && graph.get() == pathGraph) {
+      return;
+    }
+
+    updateScheduled = true;
+    planningExecutor.execute(this::update);
+  }
+
+  /**
+   * Recalculate the path if the request changed, or if the current path is now blocked. Runs on the
+   * planning thread.
+   */
+  private void update() {
+    VisibilityGraph current = graph.get();
+    Translation2d start;
+    Translation2d goal;
+    List<Translation2d> path;
+    boolean changed;
+    long version;
+    synchronized (this) {
+      updateScheduled = false;
+      start = requestStart;
+      goal = requestGoal;
+      path = currentPath;
+      changed = requestChanged;
+      version = requestVersion;
+      requestChanged = false;
+      if (!changed && current == pathGraph) {
+        return;
+      }
+    }
+
+    if (!changed) {
+      if (current.isClear(path)) {
+        synchronized (this) {
+          if (version == requestVersion) {
+            pathGraph = current;
+          }
+        }
+        return;
+      }
+
+      // The path is blocked by new obstacles, so replan from where the robot is now
+      Translation2d robotPos = robotPosition.get();
+      if (robotPos != null) {
+        start = robotPos;
+      }
+    }
+
+    path = findPath(current, start, goal);
+    synchronized (this) {
+      if (version != requestVersion) {
+        // The request changed while planning, and the new request is already scheduled
+        return;
+      }
+
+      pathGraph = current;
+      currentStart = start;
+      currentGoal = goal;
+      currentPath = path;
+      newPathAvailable = path.size() >= 2;
+    }
+  }
+
+  private static List<Translation2d> findPath(
+      VisibilityGraph graph, Translation2d startPosition, Translation2d goalPosition) {
+    Translation2d start = graph.closestFreePosition(startPosition);
+    Translation2d goal = graph.closestFreePosition(goalPosition);
+    if (start == null || goal == null || start.getDistance(goal) < 1e-6) {
+      return new ArrayList<>();
+    }
+
+    return graph.findPath(start, goal);
+  }
+
+  /**
+   * Replace the ends of a path with the requested positions, which may have been moved out of an
+   * obstacle to find the path
+   */
+  private static List<Translation2d> withEndpoints(
+      List<Translation2d> path, Translation2d start, Translation2d goal) {
+    if (path.size() < 2) {
+      return path;
+    }
+
+    List<Translation2d> realPath = new ArrayList<>(path);
+    realPath.set(0, start);
+    realPath.set(realPath.size() - 1, goal);
+    return realPath;
+  }
+}
@@ -21,8 +21,11 @@ import java.util.*;
 
 /** Trajectory generated for a PathPlanner path */
 public class PathPlannerTrajectory {
+  private static final double SPLICE_STEP = 0.02;
+
   private final List<PathPlannerTrajectoryState> states;
   private final List<Event> events;
+  private volatile TrajectorySpatialIndex spatialIndex = null;
 
   /**
    * Create a trajectory with pre-generated states and list of events
@@ -714,6 +717,36 @@ public class PathPlannerTrajectory {
     return sample(time.in(Seconds));
   }
 
+  /**
+   * Get the closest point on this trajectory to a position, such as the robot's current position.
+   * The first call builds a spatial index of the trajectory, so later calls only need to check the
+   * states near the position.
+   *
+   * @param position Position on the field
+   * @return The time and distance along the trajectory at the closest point, and the distance from
+   *     the position to it
+   */
+  public TrajectoryProjection projectOnto(Translation2d position) {
+    TrajectorySpatialIndex index = spatialIndex;
+    if (index == null) {
+      index = new TrajectorySpatialIndex(states);
+      spatialIndex = index;
+    }
+
+    return index.project(position);
+  }
+
+  /**
+   * Get the state at the closest point on this trajectory to a position, such as the robot's
+   * current position
+   *
+   * @param position Position on the field
+   * @return The state at the closest point
+   */
+  public PathPlannerTrajectoryState nearestState(Translation2d position) {
+    return sample(projectOnto(position).timeSeconds());
+  }
+
   /**
    * Flip this trajectory for the other side of the field, maintaining a blue alliance origin
    *
@@ -727,6 +760,160 @@ public class PathPlannerTrajectory {
     return new PathPlannerTrajectory(mirroredStates, getEvents());
   }
 
+  /**
+   * Get the rest of this trajectory from a point in time. The returned trajectory starts at the
+   * state sampled at that time, and its timestamps and events are relative to it.
+   *
+   * @param time The time along this trajectory to start from
+   * @return The trajectory from the given time on
+   */
+  public PathPlannerTrajectory startingAt(double time) {
+    List<PathPlannerTrajectoryState> trimmedStates = new ArrayList<>();
+    trimmedStates.add(sample(time).copyWithTime(0.0));
+    for (var state : states) {
+      if (state.timeSeconds > time) {
+        trimmedStates.add(state.copyWithTime(state.timeSeconds - time));
+      }
+    }
+
+    List<Event> trimmedEvents = new ArrayList<>();
+    for (Event e : events) {
+      if (e.getTimestampSeconds() >= time) {
+        trimmedEvents.add(e.copyWithTimestamp(e.getTimestampSeconds() - time));
+      }
+    }
+
+    return new PathPlannerTrajectory(trimmedStates, trimmedEvents);
+  }
+
+  /**
+   * Splice another trajectory onto this one. The states of this trajectory are kept until the
+   * splice time, then the trajectory smoothly blends into the other one, which is followed from
+   * then on. The position, velocity, and feedforwards are continuous at both ends of the blend, so
+   * the trajectory being followed can be replaced without a jump in the target state.
+   *
+   * <p>The spliced trajectory keeps the timestamps of this trajectory, so it can continue to be
+   * sampled with the same timer.
+   *
+   * @param other The trajectory to splice onto this one
+   * @param otherStartTime The time along this trajectory that the other trajectory starts at
+   * @param spliceTime The time along this trajectory to start blending into the other trajectory.
+   *     Every state before this time is kept unchanged.
+   * @param blendTime How long to blend between the two trajectories, in seconds
+   * @return The spliced trajectory
+   */
+  public PathPlannerTrajectory splice(
+      PathPlannerTrajectory other, double otherStartTime, double spliceTime, double blendTime) {
+    List<PathPlannerTrajectoryState> splicedStates = new ArrayList<>();
+    for (var state : states) {
+      if (state.timeSeconds >= spliceTime) {
+        break;
+      }
+      splicedStates.add(state);
+    }
+
+    double blendEnd = spliceTime;
+    if (blendTime > 0) {
+      blendEnd += blendTime;
+
+      int steps = (int) Math.ceil(blendTime / SPLICE_STEP);
+      for (int i = 0; i <= steps; i++) {
+        double t = (double) i / steps;
+        double time = spliceTime + (blendTime * t);
+
+        // Smoothstep weight, which has no slope at either end so the velocity stays continuous
+        double weight = t * t * (3.0 - (2.0 * t));
+        double weightRate = (6.0 * t * (1.0 - t)) / blendTime;
+
+        splicedStates.add(
+            blendStates(
+                sample(time), other.sample(time - otherStartTime), weight, weightRate, time));
+      }
+    }
+
+    for (var state : other.getStates()) {
+      double time = state.timeSeconds + otherStartTime;
+      if (time > blendEnd) {
+        splicedStates.add(state.copyWithTime(time));
+      }
+    }
+
+    List<Event> splicedEvents = new ArrayList<>();
+    for (Event e : events) {
+      if (e.getTimestampSeconds() < spliceTime) {
+        splicedEvents.add(e);
+      }
+    }
+    for (Event e : other.getEvents()) {
+      double time = e.getTimestampSeconds() + otherStartTime;
+      if (time >= spliceTime) {
+        splicedEvents.add(e.copyWithTimestamp(time));
+      }
+    }
+
+    return new PathPlannerTrajectory(splicedStates, splicedEvents);
+  }
+
+  /**
+   * Blend between the states of two trajectories
+   *
+   * @param start The state of the trajectory being blended away from
+   * @param end The state of the trajectory being blended into
+   * @param weight How far through the blend this state is, from 0.0 to 1.0
+   * @param weightRate The rate of change of the weight, in 1/seconds
+   * @param time The time of the blended state
+   * @return The blended state
+   */
+  private static PathPlannerTrajectoryState blendStates(
+      PathPlannerTrajectoryState start,
+      PathPlannerTrajectoryState end,
+      double weight,
+      double weightRate,
+      double time) {
+    var blended = new PathPlannerTrajectoryState();
+    blended.timeSeconds = time;
+
+    Translation2d startPos = start.pose.getTranslation();
+    Translation2d endPos = end.pose.getTranslation();
+    Rotation2d rotation = start.pose.getRotation().interpolate(end.pose.getRotation(), weight);
+    blended.pose = new Pose2d(startPos.interpolate(endPos, weight), rotation);
+
+    // The changing weight moves the blended state from one trajectory to the other, which adds to
+    // the blended velocity
+    blended.fieldSpeeds =
+        new ChassisSpeeds(
+            MathUtil.interpolate(
+                    start.fieldSpeeds.vxMetersPerSecond, end.fieldSpeeds.vxMetersPerSecond, weight)
+                + (weightRate * (endPos.getX() - startPos.getX())),
+            MathUtil.interpolate(
+                    start.fieldSpeeds.vyMetersPerSecond, end.fieldSpeeds.vyMetersPerSecond, weight)
+                + (weightRate * (endPos.getY() - startPos.getY())),
+            MathUtil.interpolate(
+                    start.fieldSpeeds.omegaRadiansPerSecond,
+                    end.fieldSpeeds.omegaRadiansPerSecond,
+                    weight)
+                + (weightRate
+                    * end.pose.getRotation().minus(start.pose.getRotation()).getRadians()));
+    blended.linearVelocity =
+        Math.hypot(blended.fieldSpeeds.vxMetersPerSecond, blended.fieldSpeeds.vyMetersPerSecond);
+    if (blended.linearVelocity > 1e-6) {
+      // States are interpolated by moving along the heading, so it must match the velocity
+      blended.heading =
+          new Rotation2d(
+              blended.fieldSpeeds.vxMetersPerSecond, blended.fieldSpeeds.vyMetersPerSecond);
+    } else {
+      blended.heading = start.heading.interpolate(end.heading, weight);
+    }
+
+    if (start.feedforwards != null && end.feedforwards != null) {
+      blended.feedforwards = start.feedforwards.interpolate(end.feedforwards, weight);
+    } else {
+      blended.feedforwards = weight < 0.5 ? start.feedforwards : end.feedforwards;
+    }
+
+    return blended;
+  }
+
   private static void desaturateWheelSpeeds(
       SwerveModuleState[] moduleStates,
       ChassisSpeeds desiredSpeeds,
@@ -81,7 +81,8 @@ public class PathPlannerTrajectoryState implements Interpolatable<PathPlannerTra
       double intVY = intLinearVel * lerpedState.heading.getSin();
 
       if (intTime >= lerpedState.timeSeconds - 0.01) {
-        double dt = lerpedState.timeSeconds - intTime;
+        // The last step runs from the end of the previous one, so it is up to 0.02s long
+        double dt = lerpedState.timeSeconds - (intTime - 0.01);
         lerpedXPos += intVX * dt;
         lerpedYPos += intVY * dt;
         break;
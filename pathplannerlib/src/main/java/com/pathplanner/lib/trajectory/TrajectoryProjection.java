@@ -0,0 +1,13 @@
+package com.pathplanner.lib.trajectory;
+
+/**
+ * The closest point on a trajectory to a position on the field
+ *
+ * @param timeSeconds The time along the trajectory at the closest point, in seconds
+ * @param distanceAlongMeters The distance traveled along the trajectory to reach the closest point,
+ *     in meters
+ * @param distanceFromMeters The distance between the position and the closest point, in meters.
+ *     This is the cross-track error when the position is the robot's current position.
+ */
+public record TrajectoryProjection(
+    double timeSeconds, double distanceAlongMeters, double distanceFromMeters) {}
@@ -0,0 +1,195 @@
+package com.pathplanner.lib.trajectory;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Spatial hash of the segments between the states of a trajectory, used to find the closest point
+ * on the trajectory to a position. Each segment is added to every grid cell its bounding box
+ * overlaps, and queries search rings of cells outwards from the position until no closer segment
+ * can exist. Segments are short compared to the cells, so a query only needs to check the few
+ * segments near the position instead of every state in the trajectory.
+ */
+final class TrajectorySpatialIndex {
+  private static final double CELL_SIZE = 0.5;
+
+  private final double[] x;
+  private final double[] y;
+  private final double[] times;
+  private final double[] distances;
+
+  private final double minX;
+  private final double minY;
+  private final int cellsX;
+  private final int cellsY;
+  // Segments in each cell, stored as the range cellStart[i] until cellStart[i + 1] of cellSegments
+  private final int[] cellStart;
+  private final int[] cellSegments;
+
+  /**
+   * Build the index for the given states
+   *
+   * @param states The states of the trajectory, in order. There must be at least one state.
+   */
+  TrajectorySpatialIndex(List<PathPlannerTrajectoryState> states) {
+    int n = states.size();
+    x = new double[n];
+    y = new double[n];
+    times = new double[n];
+    distances = new double[n];
+
+    double minX = Double.POSITIVE_INFINITY;
+    double minY = Double.POSITIVE_INFINITY;
+    double maxX = Double.NEGATIVE_INFINITY;
+    double maxY = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < n; i++) {
+      var state = states.get(i);
+      x[i] = state.pose.getX();
+      y[i] = state.pose.getY();
+      times[i] = state.timeSeconds;
+      if (i > 0) {
+        distances[i] = distances[i - 1] + Math.hypot(x[i] - x[i - 1], y[i] - y[i - 1]);
+      }
+
+      minX = Math.min(minX, x[i]);
+      minY = Math.min(minY, y[i]);
+      maxX = Math.max(maxX, x[i]);
+      maxY = Math.max(maxY, y[i]);
+    }
+
+    this.minX = minX;
+    this.minY = minY;
+    this.cellsX = (int) ((maxX - minX) / CELL_SIZE) + 1;
+    this.cellsY = (int) ((maxY - minY) / CELL_SIZE) + 1;
+
+    // Count the segments in each cell first, so they can all be stored in one array
+    cellStart = new int[(cellsX * cellsY) + 1];
+    for (int i = 0; i < n - 1; i++) {
+      forEachCell(i, cell -> cellStart[cell + 1]++);
+    }
+    for (int i = 0; i < cellsX * cellsY; i++) {
+      cellStart[i + 1] += cellStart[i];
+    }
+
+    cellSegments = new int[cellStart[cellsX * cellsY]];
+    int[] filled = new int[cellsX * cellsY];
+    for (int i = 0; i < n - 1; i++) {
+      int segment = i;
+      forEachCell(i, cell -> cellSegments[cellStart[cell] + filled[cell]++] = segment);
+    }
+  }
+
+  /**
+   * Find the closest point on the trajectory to a position
+   *
+   * @param position Position on the field
+   * @return The closest point on the trajectory
+   */
+  TrajectoryProjection project(Translation2d position) {
+    double px = position.getX();
+    double py = position.getY();
+
+    if (x.length == 1) {
+      return new TrajectoryProjection(times[0], 0.0, Math.hypot(px - x[0], py - y[0]));
+    }
+
+    int centerX = MathUtil.clamp((int) Math.floor((px - minX) / CELL_SIZE), 0, cellsX - 1);
+    int centerY = MathUtil.clamp((int) Math.floor((py - minY) / CELL_SIZE), 0, cellsY - 1);
+
+    double bestDist = Double.POSITIVE_INFINITY;
+    int bestSegment = 0;
+    double bestT = 0.0;
+
+    int maxRing = Math.max(cellsX, cellsY);
+    for (int ring = 0; ring <= maxRing; ring++) {
+      // Only the cells of the ring inside the grid are searched
+      int maxCy = Math.min(centerY + ring, cellsY - 1);
+      int maxCx = Math.min(centerX + ring, cellsX - 1);
+      for (int cy = Math.max(centerY - ring, 0); cy <= maxCy; cy++) {
+        // Only the edges of the square are part of this ring
+        boolean edgeRow = cy == centerY - ring || cy == centerY + ring;
+        int step = edgeRow ? 1 : 2 * ring;
+        for (int cx = edgeRow ? Math.max(centerX - ring, 0) : centerX - ring;
+            cx <= maxCx;
+            cx += step) {
+          if (cx < 0) {
+            continue;
+          }
+
+          int cell = (cy * cellsX) + cx;
+          for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+            int segment = cellSegments[i];
+            double t = projectOntoSegment(segment, px, py);
+            double dist =
+                Math.hypot(
+                    px - (x[segment] + (t * (x[segment + 1] - x[segment]))),
+                    py - (y[segment] + (t * (y[segment + 1] - y[segment]))));
+            if (dist < bestDist) {
+              bestDist = dist;
+              bestSegment = segment;
+              bestT = t;
+            }
+          }
+        }
+      }
+
+      // Every cell outside the rings searched so far is at least this far from the position. The
+      // sides of the rings that already reach the edge of the grid have no cells beyond them, so a
+      // position outside of the grid only needs to search until the rest of the grid is farther
+      // away than the closest segment.
+      double outsideDist = Double.POSITIVE_INFINITY;
+      if (centerX - ring > 0) {
+        outsideDist = Math.min(outsideDist, px - (minX + ((centerX - ring) * CELL_SIZE)));
+      }
+      if (centerX + ring < cellsX - 1) {
+        outsideDist = Math.min(outsideDist, minX + ((centerX + ring + 1) * CELL_SIZE) - px);
+      }
+      if (centerY - ring > 0) {
+        outsideDist = Math.min(outsideDist, py - (minY + ((centerY - ring) * CELL_SIZE)));
+      }
+      if (centerY + ring < cellsY - 1) {
+        outsideDist = Math.min(outsideDist, minY + ((centerY + ring + 1) * CELL_SIZE) - py);
+      }
+      if (bestDist <= outsideDist) {
+        break;
+      }
+    }
+
+    int i = bestSegment;
+    return new TrajectoryProjection(
+        times[i] + (bestT * (times[i + 1] - times[i])),
+        distances[i] + (bestT * (distances[i + 1] - distances[i])),
+        bestDist);
+  }
+
+  /**
+   * Get how far along a segment the closest point to a position is
+   *
+   * @return The interpolation factor of the closest point, from 0.0 to 1.0
+   */
+  private double projectOntoSegment(int segment, double px, double py) {
+    double dx = x[segment + 1] - x[segment];
+    double dy = y[segment + 1] - y[segment];
+    double lengthSq = (dx * dx) + (dy * dy);
+    if (lengthSq < 1e-12) {
+      return 0.0;
+    }
+
+    double t = (((px - x[segment]) * dx) + ((py - y[segment]) * dy)) / lengthSq;
+    return MathUtil.clamp(t, 0.0, 1.0);
+  }
+
+  private void forEachCell(int segment, IntConsumer action) {
+    int x0 = (int) ((Math.min(x[segment], x[segment + 1]) - minX) / CELL_SIZE);
+    int x1 = (int) ((Math.max(x[segment], x[segment + 1]) - minX) / CELL_SIZE);
+    int y0 = (int) ((Math.min(y[segment], y[segment + 1]) - minY) / CELL_SIZE);
+    int y1 = (int) ((Math.max(y[segment], y[segment + 1]) - minY) / CELL_SIZE);
+    for (int cy = y0; cy <= y1; cy++) {
+      for (int cx = x0; cx <= x1; cx++) {
+        action.accept((cy * cellsX) + cx);
+      }
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package com.pathplanner.lib.commands;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.trajectory.PathPlannerTrajectory;
+import com.pathplanner.lib.trajectory.PathPlannerTrajectoryState;
+import com.pathplanner.lib.util.DriveFeedforwards;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class PathRequestPredictorTest {
+  private static final double DELTA = 1e-6;
+
+  /** A trajectory along the x axis at a constant 2 m/s, for 2 seconds */
+  private static PathPlannerTrajectory straightTrajectory() {
+    List<PathPlannerTrajectoryState> states = new ArrayList<>();
+    for (int i = 0; i <= 20; i++) {
+      double t = i * 0.1;
+      PathPlannerTrajectoryState state = new PathPlannerTrajectoryState();
+      state.timeSeconds = t;
+      state.pose = new Pose2d(2.0 * t, 0.0, Rotation2d.kZero);
+      state.linearVelocity = 2.0;
+      state.heading = Rotation2d.kZero;
+      state.feedforwards = DriveFeedforwards.zeros(4);
+      states.add(state);
+    }
+    return new PathPlannerTrajectory(states, List.of());
+  }
+
+  @Test
+  public void testLatencyEstimate() {
+    PathRequestPredictor predictor = new PathRequestPredictor(0.05);
+    assertEquals(0.05, predictor.getLatencyEstimate(), DELTA);
+
+    // A single slow request only moves the estimate part of the way
+    predictor.recordLatency(0.15);
+    assertEquals(0.07, predictor.getLatencyEstimate(), DELTA);
+
+    // Consistent latencies are converged to
+    for (int i = 0; i < 100; i++) {
+      predictor.recordLatency(0.15);
+    }
+    assertEquals(0.15, predictor.getLatencyEstimate(), DELTA);
+  }
+
+  @Test
+  public void testPredictWithoutTrajectory() {
+    // Facing +y, so driving forward moves the robot along +y on the field
+    Pose2d currentPose = new Pose2d(1.0, 1.0, Rotation2d.kCCW_90deg);
+    Pose2d predicted =
+        PathRequestPredictor.predictPose(
+            null, 0.0, currentPose, new ChassisSpeeds(2.0, 0.0, 1.0), 0.5);
+
+    assertEquals(1.0, predicted.getX(), DELTA);
+    assertEquals(2.0, predicted.getY(), DELTA);
+    assertEquals(Math.PI / 2.0 + 0.5, predicted.getRotation().getRadians(), DELTA);
+  }
+
+  @Test
+  public void testPredictAlongTrajectory() {
+    PathPlannerTrajectory trajectory = straightTrajectory();
+
+    // The robot is off to the side of the trajectory, and is predicted to move the same way the
+    // trajectory does from where it actually is. Its current speeds are ignored.
+    Pose2d currentPose = new Pose2d(1.0, 0.5, Rotation2d.kZero);
+    Pose2d predicted =
+        PathRequestPredictor.predictPose(
+            trajectory, 0.5, currentPose, new ChassisSpeeds(0.0, 3.0, 0.0), 0.25);
+
+    assertEquals(1.5, predicted.getX(), DELTA);
+    assertEquals(0.5, predicted.getY(), DELTA);
+  }
+
+  @Test
+  public void testPredictPastEndOfTrajectory() {
+    PathPlannerTrajectory trajectory = straightTrajectory();
+
+    // The robot stops at the end of the trajectory
+    Pose2d currentPose = new Pose2d(3.8, 0.0, Rotation2d.kZero);
+    Pose2d predicted =
+        PathRequestPredictor.predictPose(trajectory, 1.9, currentPose, new ChassisSpeeds(), 1.0);
+
+    assertEquals(4.0, predicted.getX(), DELTA);
+  }
+
+  @Test
+  public void testIsNearRobot() {
+    PathPlannerTrajectory trajectory = straightTrajectory();
+    PathRequestPredictor predictor = new PathRequestPredictor(0.5);
+    Pose2d currentPose = new Pose2d(1.0, 0.0, Rotation2d.kZero);
+    ChassisSpeeds speeds = new ChassisSpeeds(2.0, 0.0, 0.0);
+
+    // Paths can start where the robot is now, or where it will be once a path is ready
+    assertTrue(
+        predictor.isNearRobot(new Translation2d(1.1, 0.0), trajectory, 0.5, currentPose, speeds));
+    assertTrue(
+        predictor.isNearRobot(new Translation2d(2.0, 0.1), trajectory, 0.5, currentPose, speeds));
+
+    // Halfway between is too far from both
+    assertFalse(
+        predictor.isNearRobot(new Translation2d(1.5, 0.0), trajectory, 0.5, currentPose, speeds));
+    assertFalse(
+        predictor.isNearRobot(new Translation2d(1.0, 1.0), trajectory, 0.5, currentPose, speeds));
+
+    // Without a trajectory, the current speeds are used to predict instead
+    assertTrue(predictor.isNearRobot(new Translation2d(2.0, 0.0), null, 0.0, currentPose, speeds));
+  }
+}
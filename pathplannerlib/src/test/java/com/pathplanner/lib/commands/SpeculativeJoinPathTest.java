@@ -0,0 +1,147 @@
+package com.pathplanner.lib.commands;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.path.GoalEndState;
+import com.pathplanner.lib.path.PathConstraints;
+import com.pathplanner.lib.path.PathPlannerPath;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+
+public class SpeculativeJoinPathTest {
+  private static final double DELTA = 1e-6;
+
+  private static final double REBUILD_DISTANCE = 0.1;
+  private static final double TOLERANCE = 0.25;
+
+  private static PathPlannerPath joinPath(Pose2d start) {
+    return new PathPlannerPath(
+        PathPlannerPath.waypointsFromPoses(start, new Pose2d(5.0, 5.0, Rotation2d.kZero)),
+        new PathConstraints(3.0, 3.0, 6.0, 6.0),
+        null,
+        new GoalEndState(0.0, Rotation2d.kZero));
+  }
+
+  /** Builds join paths right away, on the calling thread, and counts how many were built */
+  private static class CountingBuilder {
+    private final AtomicInteger builds = new AtomicInteger();
+
+    Supplier<PathPlannerPath> from(Pose2d start) {
+      return () -> {
+        builds.incrementAndGet();
+        return joinPath(start);
+      };
+    }
+  }
+
+  @Test
+  public void testNothingBuilt() {
+    SpeculativeJoinPath speculative =
+        new SpeculativeJoinPath(REBUILD_DISTANCE, TOLERANCE, Runnable::run);
+
+    assertNull(speculative.take(Pose2d.kZero));
+  }
+
+  @Test
+  public void testPathIsUsedOnce() {
+    SpeculativeJoinPath speculative =
+        new SpeculativeJoinPath(REBUILD_DISTANCE, TOLERANCE, Runnable::run);
+    PathPlannerPath path = joinPath(new Pose2d(1.0, 1.0, Rotation2d.kZero));
+
+    speculative.update(new Pose2d(1.0, 1.0, Rotation2d.kZero), () -> path);
+
+    // The robot doesn't end up exactly where it was predicted to
+    assertSame(path, speculative.take(new Pose2d(1.2, 1.0, Rotation2d.kZero)));
+    assertNull(speculative.take(new Pose2d(1.2, 1.0, Rotation2d.kZero)));
+  }
+
+  @Test
+  public void testPathFarFromRobotIsNotUsed() {
+    SpeculativeJoinPath speculative =
+        new SpeculativeJoinPath(REBUILD_DISTANCE, TOLERANCE, Runnable::run);
+    Pose2d predicted = new Pose2d(1.0, 1.0, Rotation2d.kZero);
+
+    speculative.update(predicted, () -> joinPath(predicted));
+
+    // The path is thrown away, so it isn't used for a later start either
+    assertNull(speculative.take(new Pose2d(1.0, 1.5, Rotation2d.kZero)));
+    assertNull(speculative.take(predicted));
+  }
+
+  @Test
+  public void testRebuiltOnlyWhenPredictionMoves() {
+    SpeculativeJoinPath speculative =
+        new SpeculativeJoinPath(REBUILD_DISTANCE, TOLERANCE, Runnable::run);
+    CountingBuilder builder = new CountingBuilder();
+
+    Pose2d first = new Pose2d(1.0, 1.0, Rotation2d.kZero);
+    speculative.update(first, builder.from(first));
+    Pose2d close = new Pose2d(1.05, 1.0, Rotation2d.kZero);
+    speculative.update(close, builder.from(close));
+    assertEquals(1, builder.builds.get());
+
+    Pose2d moved = new Pose2d(1.5, 1.0, Rotation2d.kZero);
+    speculative.update(moved, builder.from(moved));
+    assertEquals(2, builder.builds.get());
+
+    // The path that is used starts from the newest prediction
+    PathPlannerPath path = speculative.take(moved);
+    assertNotNull(path);
+    assertEquals(
+        0.0,
+        path.getPathPoses().get(0).getTranslation().getDistance(moved.getTranslation()),
+        DELTA);
+  }
+
+  @Test
+  public void testUnfinishedPathIsNotUsed() {
+    List<Runnable> queued = new ArrayList<>();
+    SpeculativeJoinPath speculative =
+        new SpeculativeJoinPath(REBUILD_DISTANCE, TOLERANCE, queued::add);
+    Pose2d predicted = new Pose2d(1.0, 1.0, Rotation2d.kZero);
+
+    speculative.update(predicted, () -> joinPath(predicted));
+    assertEquals(1, queued.size());
+    assertNull(speculative.take(predicted));
+
+    // Finishing after it was given up on doesn't bring it back
+    queued.get(0).run();
+    assertNull(speculative.take(predicted));
+  }
+
+  @Test
+  public void testFailedPathIsNotUsed() {
+    SpeculativeJoinPath speculative =
+        new SpeculativeJoinPath(REBUILD_DISTANCE, TOLERANCE, Runnable::run);
+    Pose2d predicted = new Pose2d(1.0, 1.0, Rotation2d.kZero);
+
+    speculative.update(
+        predicted,
+        () -> {
+          throw new IllegalStateException("Could not build path");
+        });
+    assertNull(speculative.take(predicted));
+  }
+
+  @Test
+  public void testClearAllowsRebuild() {
+    SpeculativeJoinPath speculative =
+        new SpeculativeJoinPath(REBUILD_DISTANCE, TOLERANCE, Runnable::run);
+    CountingBuilder builder = new CountingBuilder();
+    Pose2d predicted = new Pose2d(1.0, 1.0, Rotation2d.kZero);
+
+    speculative.update(predicted, builder.from(predicted));
+    speculative.clear();
+    assertNull(speculative.take(predicted));
+
+    // A new run of the command builds its path again, even for the same prediction
+    speculative.update(predicted, builder.from(predicted));
+    assertEquals(2, builder.builds.get());
+    assertNotNull(speculative.take(predicted));
+  }
+}
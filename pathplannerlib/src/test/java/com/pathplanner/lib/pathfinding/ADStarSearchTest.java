@@ -0,0 +1,146 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class ADStarSearchTest {
+  public static final double DELTA = 1e-9;
+  private static final double MAX_DETOUR = 3.0;
+
+  private static ADStarSearch optimalSearch(
+      GridPosition sStart, GridPosition sGoal, GridSnapshot grid) {
+    ADStarSearch search = new ADStarSearch();
+    search.reset(sStart, sGoal, grid, AnytimeSchedule.defaults());
+    search.computeOrImprovePath(sStart, sGoal, grid);
+    while (search.improvePath(sStart, sGoal, grid)) {
+      // Improve until the path is optimal
+    }
+    return search;
+  }
+
+  /** Check that every move along a path is to an open neighbor, without cutting corners */
+  private static void assertConnectedPath(
+      GridSnapshot grid, GridPosition start, GridPosition goal, List<GridPosition> path) {
+    assertFalse(path.isEmpty(), "No path from " + start + " to " + goal);
+    assertEquals(start, path.get(0));
+    assertEquals(goal, path.get(path.size() - 1));
+    for (int i = 1; i < path.size(); i++) {
+      GridPosition a = path.get(i - 1);
+      GridPosition b = path.get(i);
+      assertTrue(Math.abs(a.x() - b.x()) <= 1 && Math.abs(a.y() - b.y()) <= 1);
+      assertFalse(grid.isCollision(a, b), "Move from " + a + " to " + b + " is blocked");
+    }
+  }
+
+  @Test
+  public void testOptimalPaths() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.WALLS);
+
+    for (GridPosition[] query : TestGrids.randomQueries(grid, 20, 3015)) {
+      ADStarSearch search = optimalSearch(query[0], query[1], grid);
+      assertEquals(1.0, search.getEps(), DELTA);
+
+      List<GridPosition> path = search.extractPath(query[0], query[1], grid);
+      assertConnectedPath(grid, query[0], query[1], path);
+      assertEquals(
+          TestGrids.optimalCost(grid, query[0], query[1]), TestGrids.pathCost(grid, path), DELTA);
+      assertEquals(TestGrids.pathCost(grid, path), search.pathCost(query[0]), DELTA);
+    }
+  }
+
+  @Test
+  public void testPathToMovedGoal() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.WALLS);
+    Random rand = new Random(3015);
+
+    for (GridPosition[] query : TestGrids.randomQueries(grid, 20, 3015)) {
+      ADStarSearch search = optimalSearch(query[0], query[1], grid);
+
+      for (int i = 0; i < 5; i++) {
+        GridPosition movedGoal =
+            new GridPosition(
+                query[1].x() + rand.nextInt(5) - 2, query[1].y() + rand.nextInt(5) - 2);
+        if (!grid.inBounds(movedGoal.x(), movedGoal.y()) || grid.isObstacle(movedGoal)) {
+          continue;
+        }
+
+        double optimal = TestGrids.optimalCost(grid, query[0], movedGoal);
+        double detour = TestGrids.optimalCost(grid, query[1], movedGoal);
+        List<GridPosition> path =
+            search.extractPathToMovedGoal(query[0], query[1], movedGoal, grid, MAX_DETOUR);
+        if (detour > MAX_DETOUR) {
+          // The new goal may be too far from the old path to reuse it
+          if (!path.isEmpty()) {
+            assertConnectedPath(grid, query[0], movedGoal, path);
+          }
+          continue;
+        }
+
+        // Leaving the old path at its goal is always possible, so a path is always found
+        assertConnectedPath(grid, query[0], movedGoal, path);
+        double cost = TestGrids.pathCost(grid, path);
+        assertTrue(cost >= optimal - DELTA);
+        assertTrue(
+            cost <= optimal + (2.0 * detour) + DELTA,
+            "Path from " + query[0] + " to " + movedGoal + " costs " + cost);
+      }
+    }
+  }
+
+  @Test
+  public void testSameGoal() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.WALLS);
+    GridPosition start = new GridPosition(2, 1);
+    GridPosition goal = new GridPosition(9, 6);
+    ADStarSearch search = optimalSearch(start, goal, grid);
+
+    assertEquals(
+        TestGrids.pathCost(grid, search.extractPath(start, goal, grid)),
+        TestGrids.pathCost(
+            grid, search.extractPathToMovedGoal(start, goal, goal, grid, MAX_DETOUR)),
+        DELTA);
+  }
+
+  @Test
+  public void testMovedGoalTooFar() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.WALLS);
+    GridPosition start = new GridPosition(0, 0);
+    GridPosition goal = new GridPosition(3, 0);
+    ADStarSearch search = optimalSearch(start, goal, grid);
+
+    // Every node of the old path is further than the max detour from the new goal
+    assertTrue(
+        search
+            .extractPathToMovedGoal(start, goal, new GridPosition(19, 9), grid, MAX_DETOUR)
+            .isEmpty());
+  }
+
+  @Test
+  public void testLongPath() {
+    // Corridors that wind back and forth, so the path is several hundred nodes long
+    String open = ".".repeat(60);
+    String[] rows = new String[9];
+    for (int y = 0; y < rows.length; y++) {
+      if (y % 2 == 0) {
+        rows[y] = open;
+      } else if (y % 4 == 1) {
+        rows[y] = "#".repeat(59) + ".";
+      } else {
+        rows[y] = "." + "#".repeat(59);
+      }
+    }
+    GridSnapshot grid = TestGrids.uniform(rows);
+    GridPosition start = new GridPosition(0, 0);
+    GridPosition goal = new GridPosition(59, 8);
+    ADStarSearch search = optimalSearch(start, goal, grid);
+
+    List<GridPosition> path = search.extractPath(start, goal, grid);
+    assertTrue(path.size() > 200);
+    assertConnectedPath(grid, start, goal, path);
+    assertEquals(TestGrids.optimalCost(grid, start, goal), TestGrids.pathCost(grid, path), DELTA);
+  }
+}
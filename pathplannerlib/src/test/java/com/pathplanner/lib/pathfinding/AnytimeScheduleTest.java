@@ -0,0 +1,77 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class AnytimeScheduleTest {
+  public static final double DELTA = 1e-9;
+
+  @Test
+  public void testValidation() {
+    assertDoesNotThrow(() -> new AnytimeSchedule(1.0, 0.1, 0.01, 0.0));
+    assertDoesNotThrow(() -> new AnytimeSchedule(3.0, 10.0, Double.POSITIVE_INFINITY, 0.99));
+
+    assertThrows(IllegalArgumentException.class, () -> new AnytimeSchedule(0.99, 0.5, 1.0, 0.0));
+    assertThrows(
+        IllegalArgumentException.class, () -> new AnytimeSchedule(Double.NaN, 0.5, 1.0, 0.0));
+    assertThrows(IllegalArgumentException.class, () -> new AnytimeSchedule(2.0, 0.0, 1.0, 0.0));
+    assertThrows(IllegalArgumentException.class, () -> new AnytimeSchedule(2.0, -0.5, 1.0, 0.0));
+    assertThrows(IllegalArgumentException.class, () -> new AnytimeSchedule(2.0, 0.5, 0.0, 0.0));
+    assertThrows(
+        IllegalArgumentException.class, () -> new AnytimeSchedule(2.0, 0.5, Double.NaN, 0.0));
+    assertThrows(IllegalArgumentException.class, () -> new AnytimeSchedule(2.0, 0.5, 1.0, -0.1));
+    assertThrows(IllegalArgumentException.class, () -> new AnytimeSchedule(2.0, 0.5, 1.0, 1.0));
+  }
+
+  @Test
+  public void testDefaults() {
+    AnytimeSchedule schedule = AnytimeSchedule.defaults();
+
+    assertEquals(2.5, schedule.initialInflation(), DELTA);
+    assertEquals(0.5, schedule.inflationStep(), DELTA);
+    assertEquals(Long.MAX_VALUE, schedule.improvementBudgetNanos());
+    assertEquals(0.0, schedule.minCostImprovement(), DELTA);
+  }
+
+  @Test
+  public void testImprovementBudget() {
+    assertEquals(10_000_000L, new AnytimeSchedule(2.0, 0.5, 0.01, 0.0).improvementBudgetNanos());
+    assertEquals(Long.MAX_VALUE, new AnytimeSchedule(2.0, 0.5, 1e12, 0.0).improvementBudgetNanos());
+  }
+
+  @Test
+  public void testWorthPublishing() {
+    AnytimeSchedule everyImprovement = AnytimeSchedule.defaults();
+    assertTrue(everyImprovement.isWorthPublishing(10.0, 9.99));
+    assertTrue(everyImprovement.isWorthPublishing(10.0, 10.0));
+
+    AnytimeSchedule tenPercent = new AnytimeSchedule(2.5, 0.5, Double.POSITIVE_INFINITY, 0.1);
+    assertTrue(tenPercent.isWorthPublishing(10.0, 9.0));
+    assertFalse(tenPercent.isWorthPublishing(10.0, 9.5));
+    // The first path is always published
+    assertTrue(tenPercent.isWorthPublishing(Double.POSITIVE_INFINITY, 100.0));
+  }
+
+  @Test
+  public void testInflationSteps() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.WALLS);
+    GridPosition start = new GridPosition(2, 1);
+    GridPosition goal = new GridPosition(9, 6);
+    ADStarSearch search = new ADStarSearch();
+    search.reset(start, goal, grid, new AnytimeSchedule(3.0, 0.75, Double.POSITIVE_INFINITY, 0.0));
+    search.computeOrImprovePath(start, goal, grid);
+
+    // The last step stops at 1.0, where the path is optimal
+    List<Double> inflations = new ArrayList<>(List.of(search.getEps()));
+    while (search.improvePath(start, goal, grid)) {
+      inflations.add(search.getEps());
+    }
+    assertEquals(List.of(3.0, 2.25, 1.5, 1.0), inflations);
+    assertFalse(search.canImprove());
+    assertEquals(TestGrids.optimalCost(grid, start, goal), search.pathCost(start), DELTA);
+  }
+}
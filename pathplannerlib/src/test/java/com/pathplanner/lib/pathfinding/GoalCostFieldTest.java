@@ -0,0 +1,152 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class GoalCostFieldTest {
+  public static final double DELTA = 1e-9;
+
+  private static final Translation2d START = new Translation2d(0.75, 0.75);
+  private static final Translation2d GOAL = new Translation2d(9.25, 0.75);
+  private static final GridPosition GOAL_NODE = new GridPosition(18, 1);
+
+  /** Blocks the straight line along the bottom of the walls grid */
+  private static final List<Pair<Translation2d, Translation2d>> BLOCKER =
+      List.of(Pair.of(new Translation2d(4.6, 0.0), new Translation2d(4.9, 1.4)));
+
+  @Test
+  public void testCostsMatchOptimal() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.WALLS);
+    GoalCostField field = new GoalCostField(GOAL_NODE, grid);
+
+    for (GridPosition[] query : TestGrids.randomQueries(grid, 20, 3015)) {
+      double optimal = TestGrids.optimalCost(grid, query[0], GOAL_NODE);
+      assertEquals(optimal, field.costToGoal(query[0]), DELTA);
+
+      List<GridPosition> path = field.extractPath(query[0]);
+      if (!query[0].equals(GOAL_NODE)) {
+        TestGrids.assertValidPath(grid, query[0], GOAL_NODE, path);
+        assertEquals(optimal, TestGrids.pathCost(grid, path), DELTA);
+      }
+    }
+  }
+
+  @Test
+  public void testRepairedMatchesFresh() {
+    String[] blocked = TestGrids.WALLS.clone();
+    blocked[6] = "......#......######.";
+
+    GridSnapshot grid = TestGrids.withClearance(3.0, TestGrids.WALLS);
+    GoalCostField field = new GoalCostField(GOAL_NODE, grid);
+
+    // Close the opening on the right, then open it again
+    for (String[] rows : List.of(blocked, TestGrids.WALLS)) {
+      GridSnapshot newGrid = TestGrids.withClearance(3.0, rows);
+      GoalCostField repaired = field.repaired(newGrid);
+      GoalCostField fresh = new GoalCostField(GOAL_NODE, newGrid);
+
+      assertNotSame(field, repaired);
+      assertTrue(repaired.isUpToDate(newGrid));
+      assertFalse(field.isUpToDate(newGrid));
+      for (int x = 0; x < newGrid.nodesX; x++) {
+        for (int y = 0; y < newGrid.nodesY; y++) {
+          GridPosition pos = new GridPosition(x, y);
+          assertEquals(fresh.costToGoal(pos), repaired.costToGoal(pos), DELTA, "Cost at " + pos);
+        }
+      }
+      field = repaired;
+    }
+  }
+
+  @Test
+  public void testRegisteredGoalIsCached() {
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 0.0, 0.0);
+    try {
+      planner.registerGoal("goal", GOAL);
+      LocalADStar.PlanningState state = planner.getPlanningState();
+      assertTrue(state.usesCachedPath(GOAL_NODE));
+
+      // The planning thread may cache the field at the same time, so warm the cache first
+      planner.getSearchCostField(state, GOAL_NODE, null);
+      GoalCostField cached = planner.getSearchCostField(state, GOAL_NODE, null);
+      assertSame(cached, planner.getSearchCostField(state, GOAL_NODE, null));
+      assertTrue(cached.isUpToDate(state.grid()));
+
+      // Goals that aren't registered get a new field every time
+      GridPosition other = new GridPosition(18, 8);
+      assertFalse(state.usesCachedPath(other));
+      assertNotSame(
+          planner.getSearchCostField(state, other, null),
+          planner.getSearchCostField(state, other, null));
+    } finally {
+      planner.shutdown();
+    }
+  }
+
+  @Test
+  public void testInvalidatedGoalIsRecomputed() {
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 0.0, 0.0);
+    try {
+      planner.registerGoal("goal", GOAL);
+      planner.registerGoal("other", new Translation2d(9.25, 4.25));
+      LocalADStar.PlanningState state = planner.getPlanningState();
+      GridPosition otherNode = new GridPosition(18, 8);
+
+      planner.getSearchCostField(state, GOAL_NODE, null);
+      planner.getSearchCostField(state, otherNode, null);
+      GoalCostField cached = planner.getSearchCostField(state, GOAL_NODE, null);
+      GoalCostField otherCached = planner.getSearchCostField(state, otherNode, null);
+
+      // Only the invalidated goal loses its cached costs
+      planner.invalidateGoalCostField(GOAL_NODE);
+      GoalCostField recomputed = planner.getSearchCostField(state, GOAL_NODE, null);
+      assertNotSame(cached, recomputed);
+      assertSame(otherCached, planner.getSearchCostField(state, otherNode, null));
+
+      GridPosition start = new GridPosition(1, 1);
+      assertEquals(cached.costToGoal(start), recomputed.costToGoal(start), DELTA);
+    } finally {
+      planner.shutdown();
+    }
+  }
+
+  @Test
+  public void testCachedGoalFollowsObstacles() {
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 0.0, 0.0);
+    try {
+      planner.registerGoal("goal", GOAL);
+      planner.setStartPosition(START);
+      planner.setGoalPosition(GOAL);
+      List<Pose2d> poses = TestGrids.waitForFinalPath(planner).getPathPoses();
+      assertEquals(0.0, poses.get(poses.size() - 1).getTranslation().getDistance(GOAL), DELTA);
+      long cachedPaths = planner.getPathfindingMetrics().getCachedGoalPathCount();
+      assertTrue(cachedPaths > 0);
+
+      // The cached costs are repaired for the new obstacles, and the path goes around them
+      planner.setDynamicObstacles(BLOCKER, START);
+      planner.applyPendingObstacles();
+      LocalADStar.PlanningState state = planner.getPlanningState();
+      assertTrue(state.grid().isObstacle(new GridPosition(9, 1)));
+      TestGrids.waitForPath(planner);
+      assertTrue(planner.getPathfindingMetrics().getCachedGoalPathCount() > cachedPaths);
+
+      GoalCostField field = planner.getSearchCostField(state, GOAL_NODE, null);
+      assertTrue(field.isUpToDate(state.grid()));
+      List<GridPosition> path =
+          planner.findCachedPath(new GridPosition(1, 1), GOAL_NODE, state.grid());
+      TestGrids.assertValidPath(state.grid(), new GridPosition(1, 1), GOAL_NODE, path);
+      assertEquals(
+          TestGrids.optimalCost(state.grid(), new GridPosition(1, 1), GOAL_NODE),
+          TestGrids.pathCost(state.grid(), path),
+          DELTA);
+    } finally {
+      planner.shutdown();
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.config.ModuleConfig;
+import com.pathplanner.lib.config.RobotConfig;
+import com.pathplanner.lib.path.PathConstraints;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.system.plant.DCMotor;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class GoalSelectionTest {
+  public static final double DELTA = 1e-6;
+
+  private static final double TIME_BUDGET = 1.0;
+
+  private static final PathConstraints CONSTRAINTS = new PathConstraints(3.0, 3.0, 6.0, 6.0);
+  private static final RobotConfig ROBOT_CONFIG =
+      new RobotConfig(
+          75,
+          6.8,
+          new ModuleConfig(0.048, 5.0, 1.2, DCMotor.getKrakenX60(1).withReduction(6.14), 60.0, 1),
+          0.55);
+
+  private static final Pose2d START = new Pose2d(0.75, 0.75, Rotation2d.kZero);
+  // On the enclosed grid, inside the closed off area
+  private static final Pose2d UNREACHABLE = new Pose2d(7.25, 0.75, Rotation2d.kZero);
+  private static final Pose2d FAR = new Pose2d(7.25, 2.75, Rotation2d.kZero);
+  private static final Pose2d NEAR = new Pose2d(2.25, 2.25, Rotation2d.kCCW_90deg);
+
+  private static void assertChosen(
+      List<Pose2d> goals, int expectedIndex, GoalSelectionResult result) {
+    assertTrue(result.hasPath());
+    assertEquals(expectedIndex, result.goalIndex());
+
+    List<Pose2d> poses = result.path().getPathPoses();
+    assertEquals(
+        0.0,
+        poses
+            .get(poses.size() - 1)
+            .getTranslation()
+            .getDistance(goals.get(expectedIndex).getTranslation()),
+        DELTA);
+    assertEquals(
+        GoalSelectionResult.estimateTime(result.path(), START, new ChassisSpeeds(), ROBOT_CONFIG),
+        result.estimatedTimeSeconds(),
+        DELTA);
+  }
+
+  @Test
+  public void testChoosesFastestGoal() {
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.ENCLOSED), 0.0, 0.0, 0.0);
+    try {
+      List<Pose2d> goals = List.of(UNREACHABLE, FAR, NEAR);
+      GoalSelectionResult result =
+          planner.findBestGoal(
+              START, new ChassisSpeeds(), goals, CONSTRAINTS, ROBOT_CONFIG, TIME_BUDGET);
+
+      assertChosen(goals, 2, result);
+    } finally {
+      planner.shutdown();
+    }
+  }
+
+  @Test
+  public void testSkipsUnreachableGoals() {
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.ENCLOSED), 0.0, 0.0, 0.0);
+    try {
+      // The unreachable goal is closer, but the robot has to go to the far one
+      List<Pose2d> goals = List.of(UNREACHABLE, FAR);
+      GoalSelectionResult result =
+          planner.findBestGoal(
+              START, new ChassisSpeeds(), goals, CONSTRAINTS, ROBOT_CONFIG, TIME_BUDGET);
+
+      assertChosen(goals, 1, result);
+    } finally {
+      planner.shutdown();
+    }
+  }
+
+  @Test
+  public void testNoReachableGoal() {
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.ENCLOSED), 0.0, 0.0, 0.0);
+    try {
+      for (List<Pose2d> goals : List.of(List.of(UNREACHABLE), List.<Pose2d>of())) {
+        GoalSelectionResult result =
+            planner.findBestGoal(
+                START, new ChassisSpeeds(), goals, CONSTRAINTS, ROBOT_CONFIG, TIME_BUDGET);
+
+        assertFalse(result.hasPath());
+        assertEquals(-1, result.goalIndex());
+        assertEquals(Double.POSITIVE_INFINITY, result.estimatedTimeSeconds());
+      }
+    } finally {
+      planner.shutdown();
+    }
+  }
+
+  @Test
+  public void testSessionsAreUntouched() {
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.ENCLOSED), 0.0, 0.0, 0.0);
+    try {
+      planner.setStartPosition(START.getTranslation());
+      planner.setGoalPosition(FAR.getTranslation());
+      TestGrids.waitForFinalPath(planner);
+
+      planner.findBestGoal(
+          START, new ChassisSpeeds(), List.of(NEAR), CONSTRAINTS, ROBOT_CONFIG, TIME_BUDGET);
+      assertFalse(planner.isNewPathAvailable());
+    } finally {
+      planner.shutdown();
+    }
+  }
+
+  @Test
+  public void testDefaultImplementation() {
+    // The visibility graph pathfinder uses the default implementation, which finds one path at a
+    // time
+    VisibilityGraphPathfinder pathfinder =
+        new VisibilityGraphPathfinder(
+            List.of(
+                List.of(
+                    new Translation2d(4.0, 2.0),
+                    new Translation2d(6.0, 2.0),
+                    new Translation2d(6.0, 6.0),
+                    new Translation2d(4.0, 6.0))),
+            10.0,
+            8.0,
+            0.0);
+    try {
+      List<Pose2d> goals =
+          List.of(
+              new Pose2d(9.0, 7.0, Rotation2d.kZero),
+              new Pose2d(3.0, 4.0, Rotation2d.kZero),
+              new Pose2d(9.0, 1.0, Rotation2d.kZero));
+      Pose2d start = new Pose2d(1.0, 1.0, Rotation2d.kZero);
+      GoalSelectionResult result =
+          pathfinder.findBestGoal(
+              start, new ChassisSpeeds(), goals, CONSTRAINTS, ROBOT_CONFIG, TIME_BUDGET);
+
+      assertTrue(result.hasPath());
+      assertEquals(1, result.goalIndex());
+      assertTrue(Double.isFinite(result.estimatedTimeSeconds()));
+    } finally {
+      pathfinder.shutdown();
+    }
+  }
+}
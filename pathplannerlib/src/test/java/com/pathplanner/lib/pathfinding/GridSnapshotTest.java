@@ -0,0 +1,65 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class GridSnapshotTest {
+  public static final double DELTA = 1e-9;
+
+  /** A single obstacle in the middle of an open area */
+  private static final String[] PILLAR = {
+    "....................",
+    "....................",
+    "....................",
+    "..........#.........",
+    "....................",
+    "....................",
+    "....................",
+  };
+
+  @Test
+  public void testLineCostBetweenNeighbors() {
+    GridSnapshot grid = TestGrids.withClearance(3.0, PILLAR);
+    GridPosition a = new GridPosition(9, 2);
+    GridPosition b = new GridPosition(8, 1);
+
+    assertEquals(
+        Math.sqrt(2.0) * (1.0 + ((grid.clearanceCost(a) + grid.clearanceCost(b)) / 2.0)),
+        grid.lineCost(a, b),
+        DELTA);
+  }
+
+  @Test
+  public void testLineCostPassingObstacle() {
+    GridSnapshot grid = TestGrids.withClearance(3.0, PILLAR);
+    GridPosition start = new GridPosition(0, 2);
+    GridPosition goal = new GridPosition(19, 2);
+
+    // Both ends are too far from the pillar to cost more, but the line passes right next to it
+    assertEquals(0.0, grid.clearanceCost(start), DELTA);
+    assertEquals(0.0, grid.clearanceCost(goal), DELTA);
+    double cost = grid.lineCost(start, goal);
+    assertTrue(cost > 19.0 + DELTA);
+
+    // The same as moving between each pair of neighbors along the line
+    List<GridPosition> cells = GridSnapshot.traceLine(start, goal);
+    double stepCost = 0.0;
+    for (int i = 1; i < cells.size(); i++) {
+      stepCost += grid.lineCost(cells.get(i - 1), cells.get(i));
+    }
+    assertEquals(stepCost, cost, DELTA);
+  }
+
+  @Test
+  public void testLineCostWithoutClearance() {
+    GridSnapshot grid = TestGrids.uniform(PILLAR);
+
+    assertEquals(
+        Math.hypot(19.0, 4.0),
+        grid.lineCost(new GridPosition(0, 0), new GridPosition(19, 4)),
+        DELTA);
+  }
+}
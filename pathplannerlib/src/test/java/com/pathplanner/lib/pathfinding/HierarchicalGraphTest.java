@@ -0,0 +1,47 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class HierarchicalGraphTest {
+  /** Grid with a wall between the two clusters, except for a single gap at y = 1 */
+  private static GridSnapshot wallWithGap() {
+    return TestGrids.uniform("....#...", "........", "....#...", "....#...");
+  }
+
+  @Test
+  public void testPathThroughGap() {
+    GridSnapshot grid = wallWithGap();
+    HierarchicalGraph graph = new HierarchicalGraph(grid, 4);
+
+    List<GridPosition> path = graph.findPath(new GridPosition(1, 3), new GridPosition(6, 3), grid);
+
+    assertFalse(path.isEmpty());
+    assertEquals(new GridPosition(1, 3), path.get(0));
+    assertEquals(new GridPosition(6, 3), path.get(path.size() - 1));
+    assertTrue(path.contains(new GridPosition(4, 1)));
+    for (int i = 1; i < path.size(); i++) {
+      assertFalse(grid.isCollision(path.get(i - 1), path.get(i)));
+    }
+  }
+
+  @Test
+  public void testStartOnEntrance() {
+    GridSnapshot grid = wallWithGap();
+    HierarchicalGraph graph = new HierarchicalGraph(grid, 4);
+
+    // The start is the only entrance out of its cluster, so its own crossing must be used
+    List<GridPosition> path = graph.findPath(new GridPosition(3, 1), new GridPosition(6, 1), grid);
+
+    assertEquals(
+        List.of(
+            new GridPosition(3, 1),
+            new GridPosition(4, 1),
+            new GridPosition(5, 1),
+            new GridPosition(6, 1)),
+        path);
+  }
+}
@@ -0,0 +1,131 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.pathfinding.HybridAStar.PathState;
+import com.pathplanner.lib.pathfinding.HybridAStar.Result;
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class HybridAStarTest {
+  public static final double DELTA = 1e-6;
+  private static final double TURNING_RADIUS = 1.0;
+  // Arcs can't cut corners as tightly as the grid, and turning adds a small penalty
+  private static final double MAX_COST_RATIO = 1.25;
+
+  private static Result findPath(
+      GridSnapshot grid, GridPosition start, GridPosition goal, double startHeading) {
+    return HybridAStar.findPath(
+        start.x() + 0.5,
+        start.y() + 0.5,
+        goal.x() + 0.5,
+        goal.y() + 0.5,
+        grid,
+        new GoalCostField(goal, grid),
+        TURNING_RADIUS,
+        startHeading);
+  }
+
+  private static double angleDiff(double a, double b) {
+    return Math.atan2(Math.sin(a - b), Math.cos(a - b));
+  }
+
+  /** Check that a path is drivable and doesn't pass through any obstacles */
+  private static void assertDrivablePath(
+      GridSnapshot grid, GridPosition start, GridPosition goal, Result result) {
+    assertNotNull(result, "No path from " + start + " to " + goal);
+
+    List<PathState> segments = result.segments();
+    assertTrue(segments.size() >= 2);
+    assertEquals(start.x() + 0.5, segments.get(0).x(), DELTA);
+    assertEquals(start.y() + 0.5, segments.get(0).y(), DELTA);
+    assertEquals(goal.x() + 0.5, segments.get(segments.size() - 1).x(), DELTA);
+    assertEquals(goal.y() + 0.5, segments.get(segments.size() - 1).y(), DELTA);
+
+    // Each segment is a single arc, no sharper than the turning radius
+    for (int i = 1; i < segments.size(); i++) {
+      PathState a = segments.get(i - 1);
+      PathState b = segments.get(i);
+      double turn = Math.abs(angleDiff(b.heading(), a.heading()));
+      assertTrue(turn <= Math.PI / 2.0 + DELTA);
+      if (turn > 1e-3) {
+        double chord = Math.hypot(b.x() - a.x(), b.y() - a.y());
+        assertTrue(chord / (2.0 * Math.sin(turn / 2.0)) >= TURNING_RADIUS - DELTA);
+      }
+    }
+
+    List<GridPosition> cells = result.cells();
+    assertEquals(start, cells.get(0));
+    assertEquals(goal, cells.get(cells.size() - 1));
+    for (int i = 0; i < cells.size(); i++) {
+      assertFalse(grid.isObstacle(cells.get(i)), "Path goes through " + cells.get(i));
+      if (i > 0) {
+        GridPosition a = cells.get(i - 1);
+        GridPosition b = cells.get(i);
+        assertTrue(Math.abs(a.x() - b.x()) <= 1 && Math.abs(a.y() - b.y()) <= 1);
+      }
+    }
+  }
+
+  @Test
+  public void testPathsAroundWalls() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.WALLS);
+
+    for (GridPosition[] query : TestGrids.randomQueries(grid, 50, 3015)) {
+      Result result = findPath(grid, query[0], query[1], Double.NaN);
+      assertDrivablePath(grid, query[0], query[1], result);
+
+      double distance = Math.hypot(query[1].x() - query[0].x(), query[1].y() - query[0].y());
+      assertTrue(result.cost() >= distance - DELTA);
+      assertTrue(
+          result.cost() <= TestGrids.optimalCost(grid, query[0], query[1]) * MAX_COST_RATIO,
+          "Path from " + query[0] + " to " + query[1] + " costs " + result.cost());
+    }
+  }
+
+  @Test
+  public void testPathsWithClearance() {
+    GridSnapshot grid = TestGrids.withClearance(3.0, TestGrids.WALLS);
+
+    for (GridPosition[] query : TestGrids.randomQueries(grid, 50, 3015)) {
+      Result result = findPath(grid, query[0], query[1], Double.NaN);
+      assertDrivablePath(grid, query[0], query[1], result);
+      assertTrue(
+          result.cost() <= TestGrids.optimalCost(grid, query[0], query[1]) * MAX_COST_RATIO,
+          "Path from " + query[0] + " to " + query[1] + " costs " + result.cost());
+    }
+  }
+
+  @Test
+  public void testStartHeading() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.WALLS);
+    GridPosition start = new GridPosition(2, 1);
+    GridPosition goal = new GridPosition(17, 1);
+
+    // The goal is straight ahead below the walls
+    Result stopped = findPath(grid, start, goal, Double.NaN);
+    assertDrivablePath(grid, start, goal, stopped);
+    assertEquals(2, stopped.segments().size());
+    assertEquals(15.0, stopped.cost(), DELTA);
+
+    Result ahead = findPath(grid, start, goal, 0.0);
+    assertEquals(stopped.cost(), ahead.cost(), DELTA);
+
+    // Moving away from the goal, the path has to turn around first, which costs more
+    Result sideways = findPath(grid, start, goal, Math.PI / 2.0);
+    Result behind = findPath(grid, start, goal, Math.PI);
+    assertDrivablePath(grid, start, goal, sideways);
+    assertDrivablePath(grid, start, goal, behind);
+    assertTrue(sideways.cost() > stopped.cost());
+    assertTrue(behind.cost() > sideways.cost());
+    assertTrue(Math.abs(angleDiff(sideways.segments().get(0).heading(), 0.0)) > DELTA);
+  }
+
+  @Test
+  public void testNoPath() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.ENCLOSED);
+
+    assertNull(findPath(grid, new GridPosition(2, 1), new GridPosition(13, 1), Double.NaN));
+  }
+}
@@ -0,0 +1,61 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class JumpPointSearchTest {
+  public static final double DELTA = 1e-9;
+
+  @Test
+  public void testOptimalPaths() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.WALLS);
+
+    for (GridPosition[] query : TestGrids.randomQueries(grid, 100, 3015)) {
+      List<GridPosition> path = JumpPointSearch.findPath(query[0], query[1], grid);
+      TestGrids.assertValidPath(grid, query[0], query[1], path);
+
+      // Every node along the path is included, so each move is to a neighbor
+      for (int i = 1; i < path.size(); i++) {
+        GridPosition a = path.get(i - 1);
+        GridPosition b = path.get(i);
+        assertTrue(Math.abs(a.x() - b.x()) <= 1 && Math.abs(a.y() - b.y()) <= 1);
+        assertFalse(grid.isCollision(a, b), "Move from " + a + " to " + b + " cuts a corner");
+      }
+
+      assertEquals(
+          TestGrids.optimalCost(grid, query[0], query[1]), TestGrids.pathCost(grid, path), DELTA);
+    }
+  }
+
+  @Test
+  public void testSameCostAsADStar() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.WALLS);
+    ADStarSearch search = new ADStarSearch();
+
+    for (GridPosition[] query : TestGrids.randomQueries(grid, 20, 3015)) {
+      search.reset(query[0], query[1], grid, AnytimeSchedule.defaults());
+      search.computeOrImprovePath(query[0], query[1], grid);
+      while (search.improvePath(query[0], query[1], grid)) {
+        // Improve until the path is optimal
+      }
+
+      assertEquals(
+          search.pathCost(query[0]),
+          TestGrids.pathCost(grid, JumpPointSearch.findPath(query[0], query[1], grid)),
+          DELTA);
+    }
+  }
+
+  @Test
+  public void testNoPath() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.ENCLOSED);
+
+    assertTrue(
+        JumpPointSearch.findPath(new GridPosition(2, 1), new GridPosition(13, 1), grid).isEmpty());
+    assertTrue(
+        JumpPointSearch.findPath(new GridPosition(2, 1), new GridPosition(2, 1), grid).isEmpty());
+  }
+}
@@ -0,0 +1,65 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class LazyThetaStarTest {
+  public static final double DELTA = 1e-9;
+
+  @Test
+  public void testStraightLine() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.WALLS);
+    GridPosition start = new GridPosition(0, 0);
+    GridPosition goal = new GridPosition(19, 1);
+
+    // There is a clear line of sight below the walls, so no turns are needed
+    List<GridPosition> path = LazyThetaStar.findPath(start, goal, grid);
+    TestGrids.assertValidPath(grid, start, goal, path);
+    assertEquals(List.of(start, goal), path);
+  }
+
+  @Test
+  public void testPathsAroundWalls() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.WALLS);
+
+    for (GridPosition[] query : TestGrids.randomQueries(grid, 100, 3015)) {
+      List<GridPosition> path = LazyThetaStar.findPath(query[0], query[1], grid);
+      TestGrids.assertValidPath(grid, query[0], query[1], path);
+
+      // Any-angle paths can't be shorter than a straight line, and cut the corners of the optimal
+      // path on the grid so they are never longer than it
+      double cost = TestGrids.pathCost(grid, path);
+      double distance = Math.hypot(query[1].x() - query[0].x(), query[1].y() - query[0].y());
+      assertTrue(cost >= distance - DELTA);
+      assertTrue(
+          cost <= TestGrids.optimalCost(grid, query[0], query[1]) + DELTA,
+          "Path from " + query[0] + " to " + query[1] + " costs " + cost);
+    }
+  }
+
+  @Test
+  public void testPathsWithClearance() {
+    GridSnapshot grid = TestGrids.withClearance(3.0, TestGrids.WALLS);
+
+    // The clearance cost of an any-angle segment is averaged over the nodes it crosses, which
+    // doesn't match the cost of moves between neighbors, so its cost can't be compared to the grid
+    // optimum
+    for (GridPosition[] query : TestGrids.randomQueries(grid, 100, 3015)) {
+      TestGrids.assertValidPath(
+          grid, query[0], query[1], LazyThetaStar.findPath(query[0], query[1], grid));
+    }
+  }
+
+  @Test
+  public void testNoPath() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.ENCLOSED);
+
+    assertTrue(
+        LazyThetaStar.findPath(new GridPosition(2, 1), new GridPosition(13, 1), grid).isEmpty());
+    assertTrue(
+        LazyThetaStar.findPath(new GridPosition(2, 1), new GridPosition(2, 1), grid).isEmpty());
+  }
+}
@@ -0,0 +1,217 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.path.PathConstraints;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.path.Waypoint;
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import com.pathplanner.lib.pathfinding.LocalADStar.SearchMode;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class LocalADStarTest {
+  public static final double DELTA = 1e-9;
+
+  // On the walls grid, the goal can only be reached through the gaps in the walls
+  private static final Translation2d START = new Translation2d(0.75, 0.75);
+  private static final Translation2d GOAL = new Translation2d(9.25, 4.25);
+  private static final Translation2d OTHER_GOAL = new Translation2d(9.25, 0.75);
+
+  private static void assertPath(
+      LocalADStar planner, Translation2d start, Translation2d goal, PathPlannerPath path) {
+    assertNotNull(path);
+    List<Pose2d> poses = path.getPathPoses();
+    assertEquals(0.0, poses.get(0).getTranslation().getDistance(start), DELTA);
+    assertEquals(0.0, poses.get(poses.size() - 1).getTranslation().getDistance(goal), DELTA);
+
+    GridSnapshot grid = planner.getPlanningState().grid();
+    for (Waypoint waypoint : path.getWaypoints()) {
+      GridPosition pos =
+          new GridPosition(
+              (int) (waypoint.anchor().getX() / TestGrids.NODE_SIZE),
+              (int) (waypoint.anchor().getY() / TestGrids.NODE_SIZE));
+      assertFalse(grid.isObstacle(pos), "Waypoint in obstacle at " + pos);
+    }
+  }
+
+  @Test
+  public void testEverySearchMode() {
+    for (SearchMode searchMode : SearchMode.values()) {
+      LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 1.0, 1.0);
+      try {
+        planner.setSearchMode(searchMode);
+        planner.setStartPosition(START);
+        planner.setGoalPosition(GOAL);
+
+        // The start is set before the goal, so the first path may still go to the old goal
+        assertEquals(searchMode, planner.getPlanningState().searchMode());
+        assertPath(planner, START, GOAL, TestGrids.waitForFinalPath(planner));
+      } finally {
+        planner.shutdown();
+      }
+    }
+  }
+
+  @Test
+  public void testChangingSearchModeReplans() throws InterruptedException {
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 0.0, 0.0);
+    try {
+      Pathfinder session = planner.createSession();
+      session.setStartPosition(START);
+      session.setGoalPosition(GOAL);
+      TestGrids.waitForFinalPath(session);
+
+      // Setting the mode that is already used changes nothing
+      planner.setSearchMode(SearchMode.kADStar);
+      Thread.sleep(200);
+      assertFalse(session.isNewPathAvailable());
+
+      // A new mode finds a new path for every session
+      planner.setSearchMode(SearchMode.kLazyThetaStar);
+      assertPath(planner, START, GOAL, TestGrids.waitForPath(session));
+    } finally {
+      planner.shutdown();
+    }
+  }
+
+  @Test
+  public void testRegisteredGoal() {
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 0.0, 0.0);
+    try {
+      PathfindingMetrics metrics = planner.getPathfindingMetrics();
+      planner.registerGoal("goal", GOAL);
+
+      // Paths to the registered goal from anywhere come from its cached costs
+      for (Translation2d start :
+          List.of(START, new Translation2d(0.75, 4.25), new Translation2d(5.25, 2.75))) {
+        long cachedPaths = metrics.getCachedGoalPathCount();
+        Pathfinder session = planner.createSession();
+        session.setStartPosition(start);
+        session.setGoalPosition(GOAL);
+
+        // The start is set before the goal, so the first path may still go to the old goal
+        assertPath(planner, start, GOAL, TestGrids.waitForFinalPath(session));
+        assertTrue(metrics.getCachedGoalPathCount() > cachedPaths);
+        session.pause();
+      }
+
+      // Once unregistered, paths to it are searched for again
+      planner.unregisterGoal("goal");
+      assertFalse(planner.getPlanningState().usesCachedPath(new GridPosition(18, 8)));
+      long cachedPaths = metrics.getCachedGoalPathCount();
+      Pathfinder session = planner.createSession();
+      session.setStartPosition(START);
+      session.setGoalPosition(GOAL);
+
+      assertPath(planner, START, GOAL, TestGrids.waitForFinalPath(session));
+      assertEquals(cachedPaths, metrics.getCachedGoalPathCount());
+    } finally {
+      planner.shutdown();
+    }
+  }
+
+  @Test
+  public void testKinematicLimits() throws InterruptedException {
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 0.0, 0.0);
+    try {
+      planner.setStartPosition(START);
+      planner.setGoalPosition(GOAL);
+      TestGrids.waitForFinalPath(planner);
+
+      // Searches that don't use the limits are left alone
+      planner.setKinematicLimits(new PathConstraints(1.5, 3.0, 6.0, 6.0));
+      Thread.sleep(200);
+      assertFalse(planner.isNewPathAvailable());
+
+      planner.setSearchMode(SearchMode.kHybridAStar);
+      TestGrids.waitForFinalPath(planner);
+
+      // Drivable paths are found again with the new limits
+      planner.setKinematicLimits(new PathConstraints(2.0, 4.0, 6.0, 6.0));
+      assertPath(planner, START, GOAL, TestGrids.waitForPath(planner));
+    } finally {
+      planner.shutdown();
+    }
+  }
+
+  private static boolean hasSameWaypoints(PathPlannerPath a, PathPlannerPath b) {
+    if (a.getWaypoints().size() != b.getWaypoints().size()) {
+      return false;
+    }
+    for (int i = 0; i < a.getWaypoints().size(); i++) {
+      if (a.getWaypoints().get(i).anchor().getDistance(b.getWaypoints().get(i).anchor()) > DELTA) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Test
+  public void testPathSmoothing() {
+    LocalADStar smoothed = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 0.0, 0.0);
+    LocalADStar unsmoothed = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 0.0, 0.0);
+    try {
+      unsmoothed.setPathSmoothingEnabled(false);
+      unsmoothed.setStartPosition(START);
+      unsmoothed.setGoalPosition(GOAL);
+      PathPlannerPath unsmoothedPath = TestGrids.waitForFinalPath(unsmoothed);
+      assertPath(unsmoothed, START, GOAL, unsmoothedPath);
+
+      smoothed.setStartPosition(START);
+      smoothed.setGoalPosition(GOAL);
+      PathPlannerPath smoothedPath = TestGrids.waitForFinalPath(smoothed);
+      assertPath(smoothed, START, GOAL, smoothedPath);
+      assertFalse(hasSameWaypoints(unsmoothedPath, smoothedPath));
+
+      // Disabling smoothing applies to the next path that is found
+      smoothed.setPathSmoothingEnabled(false);
+      smoothed.setGoalPosition(OTHER_GOAL);
+      TestGrids.waitForFinalPath(smoothed);
+      smoothed.setGoalPosition(GOAL);
+      assertTrue(hasSameWaypoints(unsmoothedPath, TestGrids.waitForFinalPath(smoothed)));
+    } finally {
+      smoothed.shutdown();
+      unsmoothed.shutdown();
+    }
+  }
+
+  @Test
+  public void testAnytimeSchedule() throws InterruptedException {
+    // With clearance cost, paths are found with AD* instead of jump point search
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 1.0, 1.0);
+    try {
+      PathfindingMetrics metrics = planner.getPathfindingMetrics();
+      planner.setStartPosition(START);
+      planner.setGoalPosition(GOAL);
+      TestGrids.waitForFinalPath(planner);
+
+      // Setting the schedule that is already used changes nothing
+      planner.setAnytimeSchedule(AnytimeSchedule.defaults());
+      Thread.sleep(200);
+      assertFalse(planner.isNewPathAvailable());
+
+      // A new schedule finds a new path. The path is still improved until it is optimal, but only
+      // a much cheaper path would be published, so it is the only path published.
+      AnytimeSchedule schedule = new AnytimeSchedule(3.0, 1.0, Double.POSITIVE_INFINITY, 0.9);
+      planner.setAnytimeSchedule(schedule);
+      assertEquals(schedule, planner.getPlanningState().anytimeSchedule());
+      assertPath(planner, START, GOAL, TestGrids.waitForPath(planner));
+
+      Thread.sleep(500);
+      assertFalse(planner.isNewPathAvailable());
+      assertEquals(1.0, metrics.getCurrentEps(), DELTA);
+
+      // Other search modes don't use the schedule
+      planner.setSearchMode(SearchMode.kLazyThetaStar);
+      TestGrids.waitForFinalPath(planner);
+      planner.setAnytimeSchedule(AnytimeSchedule.defaults());
+      Thread.sleep(200);
+      assertFalse(planner.isNewPathAvailable());
+    } finally {
+      planner.shutdown();
+    }
+  }
+}
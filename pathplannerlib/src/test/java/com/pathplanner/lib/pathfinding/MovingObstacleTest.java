@@ -0,0 +1,102 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class MovingObstacleTest {
+  public static final double DELTA = 1e-9;
+
+  private static void assertTranslationEquals(Translation2d expected, Translation2d actual) {
+    assertEquals(expected.getX(), actual.getX(), DELTA);
+    assertEquals(expected.getY(), actual.getY(), DELTA);
+  }
+
+  @Test
+  public void testConstantVelocity() {
+    MovingObstacle obstacle =
+        MovingObstacle.withVelocity(
+            new Translation2d(1.0, 2.0), new Translation2d(2.0, 3.0), new Translation2d(0.5, -1.0));
+
+    Pair<Translation2d, Translation2d> bounds = obstacle.getBoundsAt(2.0);
+    assertTranslationEquals(new Translation2d(2.0, 0.0), bounds.getFirst());
+    assertTranslationEquals(new Translation2d(3.0, 1.0), bounds.getSecond());
+    assertTranslationEquals(Translation2d.kZero, obstacle.getOffsetAt(0.0));
+  }
+
+  @Test
+  public void testPrediction() {
+    // The predicted offsets don't need to be in order
+    MovingObstacle obstacle =
+        MovingObstacle.withPrediction(
+            new Translation2d(0.0, 0.0),
+            new Translation2d(1.0, 1.0),
+            List.of(
+                Pair.of(2.0, new Translation2d(2.0, 2.0)),
+                Pair.of(1.0, new Translation2d(2.0, 0.0))));
+
+    // Moves from the current position to the first prediction, then between predictions
+    assertTranslationEquals(Translation2d.kZero, obstacle.getOffsetAt(0.0));
+    assertTranslationEquals(new Translation2d(1.0, 0.0), obstacle.getOffsetAt(0.5));
+    assertTranslationEquals(new Translation2d(2.0, 0.0), obstacle.getOffsetAt(1.0));
+    assertTranslationEquals(new Translation2d(2.0, 1.0), obstacle.getOffsetAt(1.5));
+
+    // And stays at the last prediction
+    assertTranslationEquals(new Translation2d(2.0, 2.0), obstacle.getOffsetAt(2.0));
+    assertTranslationEquals(new Translation2d(2.0, 2.0), obstacle.getOffsetAt(10.0));
+  }
+
+  @Test
+  public void testPredictionInThePast() {
+    MovingObstacle obstacle =
+        MovingObstacle.withPrediction(
+            new Translation2d(0.0, 0.0),
+            new Translation2d(1.0, 1.0),
+            List.of(
+                Pair.of(-1.0, new Translation2d(1.0, 0.0)),
+                Pair.of(1.0, new Translation2d(3.0, 0.0))));
+
+    // A prediction before now is where the obstacle is now
+    assertTranslationEquals(new Translation2d(1.0, 0.0), obstacle.getOffsetAt(0.0));
+    assertTranslationEquals(new Translation2d(2.0, 0.0), obstacle.getOffsetAt(0.5));
+  }
+
+  @Test
+  public void testSize() {
+    // The corners can be given in any order
+    MovingObstacle obstacle =
+        MovingObstacle.withVelocity(
+            new Translation2d(3.0, 1.0), new Translation2d(1.0, 2.0), Translation2d.kZero);
+
+    assertTranslationEquals(new Translation2d(2.0, 1.5), obstacle.getCenter());
+    assertTranslationEquals(new Translation2d(1.0, 0.5), obstacle.getHalfSize());
+  }
+
+  @Test
+  public void testPredictionBlocksNodes() {
+    MovingObstacle obstacle =
+        MovingObstacle.withVelocity(
+            new Translation2d(0.9, 0.9), new Translation2d(1.1, 1.1), new Translation2d(1.0, 0.0));
+    // 0.5 meter nodes, inflated by 0.2 meters
+    ObstaclePrediction prediction = new ObstaclePrediction(List.of(obstacle), 0.5, 0.2, 0L);
+
+    // Node (1, 1) has its center at (0.75, 0.75), so it is only inside the inflated obstacle
+    assertTrue(prediction.isBlocked(1, 1, 0.0));
+    assertTrue(prediction.isBlocked(2, 2, 0.0));
+    assertFalse(prediction.isBlocked(0, 0, 0.0));
+
+    // After moving a meter to the right
+    assertFalse(prediction.isBlocked(2, 2, 1.0));
+    assertTrue(prediction.isBlocked(4, 2, 1.0));
+
+    // Obstacles aren't predicted after the horizon
+    assertFalse(
+        prediction.isBlocked(
+            (int) (ObstaclePrediction.PREDICTION_HORIZON / 0.5) + 2,
+            2,
+            ObstaclePrediction.PREDICTION_HORIZON + 0.1));
+  }
+}
@@ -0,0 +1,77 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.BitSet;
+import java.util.Random;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class NavGridTest {
+  public static final double DELTA = 1e-6;
+
+  @TempDir File tempDir;
+
+  @Test
+  public void testFromJson() throws ParseException {
+    String json =
+        "{\"field_size\":{\"x\":1.5,\"y\":1.0},\"nodeSizeMeters\":0.5,"
+            + "\"grid\":[[true,false,false],[false,false,true]]}";
+    NavGrid grid = NavGrid.fromJson((JSONObject) new JSONParser().parse(json));
+
+    assertEquals(0.5, grid.getNodeSize(), DELTA);
+    assertEquals(1.5, grid.getFieldLength(), DELTA);
+    assertEquals(1.0, grid.getFieldWidth(), DELTA);
+    assertEquals(3, grid.getNodesX());
+    assertEquals(2, grid.getNodesY());
+
+    assertTrue(grid.isObstacle(0, 0));
+    assertFalse(grid.isObstacle(1, 0));
+    assertFalse(grid.isObstacle(0, 1));
+    assertTrue(grid.isObstacle(2, 1));
+    assertFalse(grid.isObstacle(3, 1));
+  }
+
+  @Test
+  public void testBinaryRoundTrip() throws IOException {
+    Random rand = new Random(5);
+    int nodesX = 83;
+    int nodesY = 41;
+    BitSet obstacles = new BitSet();
+    for (int i = 0; i < nodesX * nodesY; i++) {
+      if (rand.nextDouble() < 0.3) {
+        obstacles.set(i);
+      }
+    }
+    // Leave the last nodes empty to make sure trailing zero bytes are written
+    obstacles.clear(nodesX * nodesY - 20, nodesX * nodesY);
+
+    NavGrid grid = new NavGrid(0.2, 16.54, 8.02, nodesX, nodesY, obstacles);
+    File file = new File(tempDir, "navgrid.bin");
+    grid.writeBinaryFile(file);
+
+    assertEquals(40 + (nodesX * nodesY + 7) / 8, file.length());
+
+    NavGrid loaded = NavGrid.fromBinaryFile(file);
+    assertEquals(0.2, loaded.getNodeSize(), DELTA);
+    assertEquals(16.54, loaded.getFieldLength(), DELTA);
+    assertEquals(8.02, loaded.getFieldWidth(), DELTA);
+    assertEquals(nodesX, loaded.getNodesX());
+    assertEquals(nodesY, loaded.getNodesY());
+    assertEquals(obstacles, loaded.getObstacles());
+  }
+
+  @Test
+  public void testInvalidBinary() throws IOException {
+    File file = new File(tempDir, "navgrid.bin");
+    Files.write(file.toPath(), new byte[64]);
+
+    assertThrows(IOException.class, () -> NavGrid.fromBinaryFile(file));
+  }
+}
@@ -0,0 +1,87 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class ObstacleDistanceFieldTest {
+  public static final double DELTA = 1e-6;
+
+  @Test
+  public void testEmptyField() {
+    ObstacleDistanceField field = new ObstacleDistanceField(10, 5);
+    field.update();
+
+    assertEquals(Double.POSITIVE_INFINITY, field.getDistance(3, 3));
+    assertFalse(field.isObstacle(3, 3));
+    assertTrue(field.isObstacle(-1, 0));
+    assertEquals(0.0, field.getDistance(10, 0), DELTA);
+  }
+
+  @Test
+  public void testSingleObstacle() {
+    ObstacleDistanceField field = new ObstacleDistanceField(10, 10);
+    field.setObstacle(2, 2);
+    field.update();
+
+    assertEquals(0.0, field.getDistance(2, 2), DELTA);
+    assertEquals(1.0, field.getDistance(3, 2), DELTA);
+    assertEquals(Math.sqrt(2), field.getDistance(3, 3), DELTA);
+    assertEquals(Math.hypot(7, 5), field.getDistance(9, 7), DELTA);
+  }
+
+  @Test
+  public void testRemoveObstacle() {
+    ObstacleDistanceField field = new ObstacleDistanceField(10, 10);
+    field.setObstacle(2, 2);
+    field.setObstacle(8, 8);
+    field.update();
+    assertEquals(2.0, field.getDistance(4, 2), DELTA);
+
+    field.removeObstacle(2, 2);
+    field.update();
+    assertFalse(field.isObstacle(2, 2));
+    assertEquals(Math.hypot(6, 6), field.getDistance(2, 2), DELTA);
+    assertEquals(Math.hypot(4, 6), field.getDistance(4, 2), DELTA);
+
+    field.removeObstacle(8, 8);
+    field.update();
+    assertEquals(Double.POSITIVE_INFINITY, field.getDistance(8, 8));
+  }
+
+  @Test
+  public void testIncrementalMatchesFullUpdate() {
+    Random rand = new Random(3512);
+    int nodesX = 40;
+    int nodesY = 20;
+    ObstacleDistanceField incremental = new ObstacleDistanceField(nodesX, nodesY);
+    boolean[] obstacles = new boolean[nodesX * nodesY];
+
+    for (int iter = 0; iter < 20; iter++) {
+      for (int i = 0; i < 30; i++) {
+        int x = rand.nextInt(nodesX);
+        int y = rand.nextInt(nodesY);
+        obstacles[y * nodesX + x] = !obstacles[y * nodesX + x];
+        if (obstacles[y * nodesX + x]) {
+          incremental.setObstacle(x, y);
+        } else {
+          incremental.removeObstacle(x, y);
+        }
+      }
+      incremental.update();
+
+      ObstacleDistanceField full = new ObstacleDistanceField(nodesX, nodesY);
+      for (int x = 0; x < nodesX; x++) {
+        for (int y = 0; y < nodesY; y++) {
+          if (obstacles[y * nodesX + x]) {
+            full.setObstacle(x, y);
+          }
+        }
+      }
+      full.update();
+
+      assertArrayEquals(full.getDistances(), incremental.getDistances(), DELTA);
+    }
+  }
+}
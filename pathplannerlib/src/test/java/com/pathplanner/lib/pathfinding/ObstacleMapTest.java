@@ -0,0 +1,156 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.pathfinding.ObstacleMap.Layer;
+import com.pathplanner.lib.pathfinding.ObstacleMap.Snapshot;
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+public class ObstacleMapTest {
+  private static final int NODES_X = 10;
+  private static final int NODES_Y = 5;
+
+  /** Map of a 2.0 x 1.0 field with 0.2 meter nodes and a single static obstacle at (0, 0) */
+  private static ObstacleMap newMap() {
+    BitSet obstacles = new BitSet();
+    obstacles.set(0);
+    return new ObstacleMap(new NavGrid(0.2, 2.0, 1.0, NODES_X, NODES_Y, obstacles));
+  }
+
+  private static BitSet nodes(int... indices) {
+    BitSet nodes = new BitSet();
+    for (int i : indices) {
+      nodes.set(i);
+    }
+    return nodes;
+  }
+
+  @Test
+  public void testLayerVersions() {
+    ObstacleMap map = newMap();
+    Snapshot initial = map.getSnapshot();
+    assertEquals(0, initial.getVersion());
+    for (Layer layer : Layer.values()) {
+      assertEquals(0, initial.getLayerVersion(layer));
+    }
+
+    Snapshot vision = map.setLayer(Layer.kVision, nodes(12));
+    assertEquals(1, vision.getVersion());
+    assertEquals(1, vision.getLayerVersion(Layer.kVision));
+    assertEquals(0, vision.getLayerVersion(Layer.kUser));
+
+    Snapshot user = map.setLayer(Layer.kUser, nodes(13));
+    assertEquals(2, user.getVersion());
+    assertEquals(1, user.getLayerVersion(Layer.kVision));
+    assertEquals(2, user.getLayerVersion(Layer.kUser));
+    assertSame(user, map.getSnapshot());
+  }
+
+  @Test
+  public void testNoOpUpdatePublishesNothing() {
+    ObstacleMap map = newMap();
+    List<Snapshot> published = new ArrayList<>();
+    map.addListener(published::add);
+
+    Snapshot first = map.setLayer(Layer.kVision, nodes(12, 13));
+    assertEquals(1, published.size());
+
+    // The same nodes, set again or from a box covering exactly them
+    assertSame(first, map.setLayer(Layer.kVision, nodes(12, 13)));
+    assertSame(
+        first,
+        map.setLayerBoxes(
+            Layer.kVision,
+            List.of(Pair.of(new Translation2d(0.41, 0.21), new Translation2d(0.79, 0.39)))));
+    // Nodes outside the grid are ignored
+    assertSame(first, map.setLayer(Layer.kVision, nodes(12, 13, NODES_X * NODES_Y + 3)));
+    // Clearing a layer that is already empty
+    assertSame(first, map.clearLayer(Layer.kUser));
+
+    assertEquals(1, published.size());
+    assertSame(first, map.getSnapshot());
+  }
+
+  @Test
+  public void testSnapshotIsImmutable() {
+    ObstacleMap map = newMap();
+    BitSet input = nodes(12);
+    Snapshot snapshot = map.setLayer(Layer.kVision, input);
+
+    // Changing the input or a returned copy doesn't change the snapshot
+    input.set(20);
+    snapshot.getLayer(Layer.kVision).set(21);
+    snapshot.getObstacles(EnumSet.allOf(Layer.class)).set(22);
+
+    // Later updates don't change the snapshot either
+    map.setLayer(Layer.kVision, nodes(30));
+    map.setLayer(Layer.kUser, nodes(31));
+
+    assertEquals(nodes(12), snapshot.getLayer(Layer.kVision));
+    assertEquals(new BitSet(), snapshot.getLayer(Layer.kUser));
+    assertTrue(snapshot.isObstacle(2, 1));
+    assertFalse(snapshot.isObstacle(0, 2));
+    assertFalse(snapshot.isObstacle(0, 3));
+    assertFalse(snapshot.isObstacle(1, 3));
+    assertFalse(snapshot.isObstacle(2, 2));
+  }
+
+  @Test
+  public void testComposedObstacles() {
+    ObstacleMap map = newMap();
+    map.setLayer(Layer.kVision, nodes(12));
+    map.setLayer(Layer.kMoving, nodes(13));
+    Snapshot snapshot =
+        map.setLayerBoxes(
+            Layer.kUser,
+            List.of(Pair.of(new Translation2d(0.0, 0.8), new Translation2d(0.3, 0.9))));
+
+    assertEquals(nodes(0, 40, 41), snapshot.getObstacles(EnumSet.of(Layer.kStatic, Layer.kUser)));
+    assertEquals(nodes(12, 13), snapshot.getObstacles(EnumSet.of(Layer.kVision, Layer.kMoving)));
+    assertEquals(nodes(0, 12, 13, 40, 41), snapshot.getObstacles(EnumSet.allOf(Layer.class)));
+    assertEquals(new BitSet(), snapshot.getObstacles(Set.of()));
+
+    assertTrue(snapshot.isObstacle(3, 1));
+    assertTrue(snapshot.isObstacle(Layer.kMoving, 3, 1));
+    assertFalse(snapshot.isObstacle(Layer.kVision, 3, 1));
+    assertFalse(snapshot.isObstacle(-1, 0));
+    assertFalse(snapshot.isObstacle(NODES_X, 0));
+  }
+
+  @Test
+  public void testListenerIsCalledWithoutLock() {
+    ObstacleMap map = newMap();
+    AtomicBoolean otherThreadUpdated = new AtomicBoolean(false);
+
+    // Another thread can update the map while a listener is running
+    map.addListener(
+        snapshot -> {
+          if (snapshot.getLayerVersion(Layer.kUser) != 0) {
+            return;
+          }
+
+          Thread other = new Thread(() -> map.setLayer(Layer.kUser, nodes(13)));
+          other.start();
+          try {
+            other.join(1000);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          otherThreadUpdated.set(!other.isAlive());
+        });
+
+    map.setLayer(Layer.kVision, nodes(12));
+
+    assertTrue(otherThreadUpdated.get());
+    assertEquals(2, map.getSnapshot().getVersion());
+    assertEquals(nodes(13), map.getSnapshot().getLayer(Layer.kUser));
+  }
+}
@@ -0,0 +1,158 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ObstacleUpdateTest {
+  public static final double DELTA = 1e-9;
+
+  private static final Translation2d START = new Translation2d(0.75, 0.75);
+  private static final Translation2d GOAL = new Translation2d(9.25, 0.75);
+
+  /**
+   * Blocks the straight line along the bottom of the walls grid, covering nodes (9, 0) to (9, 2)
+   */
+  private static final List<Pair<Translation2d, Translation2d>> BLOCKER =
+      List.of(Pair.of(new Translation2d(4.6, 0.0), new Translation2d(4.9, 1.4)));
+
+  private static List<Pair<Translation2d, Translation2d>> box(double x, double y) {
+    return List.of(Pair.of(new Translation2d(x, y), new Translation2d(x + 0.3, y + 0.3)));
+  }
+
+  private static void assertSameGrid(GridSnapshot expected, GridSnapshot actual) {
+    for (int x = 0; x < expected.nodesX; x++) {
+      for (int y = 0; y < expected.nodesY; y++) {
+        GridPosition pos = new GridPosition(x, y);
+        assertEquals(expected.isObstacle(pos), actual.isObstacle(pos), "Obstacle at " + pos);
+        assertEquals(
+            expected.clearanceCost(pos), actual.clearanceCost(pos), DELTA, "Clearance at " + pos);
+      }
+    }
+  }
+
+  @Test
+  public void testSameNodesAreIgnored() {
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 0.0, 0.0);
+    try {
+      PathfindingMetrics metrics = planner.getPathfindingMetrics();
+      planner.setDynamicObstacles(BLOCKER, START);
+      planner.applyPendingObstacles();
+      GridSnapshot grid = planner.getPlanningState().grid();
+      long updates = metrics.getObstacleUpdateCount();
+      assertTrue(grid.isObstacle(new GridPosition(9, 1)));
+
+      // The box moved a little, but blocks the same nodes
+      planner.setDynamicObstacles(
+          List.of(Pair.of(new Translation2d(4.55, 0.05), new Translation2d(4.95, 1.3))), START);
+      planner.applyPendingObstacles();
+      assertEquals(updates, metrics.getObstacleUpdateCount());
+      assertSame(grid, planner.getPlanningState().grid());
+    } finally {
+      planner.shutdown();
+    }
+  }
+
+  @Test
+  public void testDiffedUpdatesMatchFresh() {
+    // With clearance cost, the distance field is updated from the diff of each frame
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 1.0, 1.0);
+    LocalADStar fresh = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 1.0, 1.0);
+    LocalADStar empty = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 1.0, 1.0);
+    try {
+      for (double x = 1.0; x <= 8.0; x += 1.5) {
+        planner.setDynamicObstacles(box(x, 4.1), START);
+        planner.applyPendingObstacles();
+      }
+      List<Pair<Translation2d, Translation2d>> last = new ArrayList<>(box(7.0, 4.1));
+      last.addAll(BLOCKER);
+      planner.setDynamicObstacles(last, START);
+      planner.applyPendingObstacles();
+
+      fresh.setDynamicObstacles(last, START);
+      fresh.applyPendingObstacles();
+      assertSameGrid(fresh.getPlanningState().grid(), planner.getPlanningState().grid());
+
+      // Removing every obstacle goes back to the static grid
+      planner.setDynamicObstacles(List.of(), START);
+      planner.applyPendingObstacles();
+      assertSameGrid(empty.getPlanningState().grid(), planner.getPlanningState().grid());
+    } finally {
+      planner.shutdown();
+      fresh.shutdown();
+      empty.shutdown();
+    }
+  }
+
+  @Test
+  public void testNewestUpdateIsApplied() {
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 0.0, 0.0);
+    try {
+      PathfindingMetrics metrics = planner.getPathfindingMetrics();
+      long updates = metrics.getObstacleUpdateCount();
+
+      // Updates that arrive faster than they are applied replace each other, so only the newest
+      // frame is left once they have been applied
+      int frames = 20;
+      for (int i = 0; i < frames; i++) {
+        planner.setDynamicObstacles(box(0.1 + 0.5 * i, 4.6), START);
+      }
+      planner.applyPendingObstacles();
+      long applied = metrics.getObstacleUpdateCount() - updates;
+      assertTrue(applied >= 1);
+
+      GridSnapshot grid = planner.getPlanningState().grid();
+      assertTrue(grid.isObstacle(new GridPosition(frames - 1, 9)));
+      for (int i = 0; i < frames - 1; i++) {
+        assertFalse(grid.isObstacle(new GridPosition(i, 9)), "Obstacle at x = " + i);
+      }
+
+      // Once applied, applying again does nothing
+      planner.applyPendingObstacles();
+      assertEquals(updates + applied, metrics.getObstacleUpdateCount());
+    } finally {
+      planner.shutdown();
+    }
+  }
+
+  @Test
+  public void testReplansOnlyWhenPathIsBlocked() throws InterruptedException {
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 0.0, 0.0);
+    try {
+      PathfindingMetrics metrics = planner.getPathfindingMetrics();
+      planner.setStartPosition(START);
+      planner.setGoalPosition(GOAL);
+      TestGrids.waitForFinalPath(planner);
+      long replans = metrics.getObstacleReplanCount();
+
+      // An obstacle away from the path doesn't change it
+      planner.setDynamicObstacles(box(0.1, 4.1), START);
+      planner.applyPendingObstacles();
+      assertTrue(planner.getPlanningState().grid().isObstacle(new GridPosition(0, 8)));
+      assertEquals(replans, metrics.getObstacleReplanCount());
+      Thread.sleep(200);
+      assertFalse(planner.isNewPathAvailable());
+
+      // An obstacle on the path does
+      planner.setDynamicObstacles(BLOCKER, START);
+      planner.applyPendingObstacles();
+      assertEquals(replans + 1, metrics.getObstacleReplanCount());
+      GridSnapshot grid = planner.getPlanningState().grid();
+      for (Pose2d pose : TestGrids.waitForPath(planner).getPathPoses()) {
+        GridPosition pos =
+            new GridPosition(
+                (int) (pose.getX() / TestGrids.NODE_SIZE),
+                (int) (pose.getY() / TestGrids.NODE_SIZE));
+        assertFalse(grid.isObstacle(pos), "Path goes through " + pos);
+      }
+    } finally {
+      planner.shutdown();
+    }
+  }
+}
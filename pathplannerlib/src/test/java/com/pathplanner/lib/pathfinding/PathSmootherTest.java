@@ -0,0 +1,108 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.path.Waypoint;
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class PathSmootherTest {
+  public static final double DELTA = 1e-9;
+  private static final double NODE_SIZE = 0.5;
+
+  private static Translation2d nodeCenter(GridPosition pos) {
+    return new Translation2d((pos.x() + 0.5) * NODE_SIZE, (pos.y() + 0.5) * NODE_SIZE);
+  }
+
+  private static double length(List<Translation2d> points) {
+    double length = 0.0;
+    for (int i = 1; i < points.size(); i++) {
+      length += points.get(i - 1).getDistance(points.get(i));
+    }
+    return length;
+  }
+
+  /** Check that a straight line between two field positions doesn't touch any obstacles */
+  private static void assertClear(GridSnapshot grid, Translation2d a, Translation2d b) {
+    int samples = (int) Math.ceil(a.getDistance(b) / (0.01 * NODE_SIZE));
+    for (int i = 0; i <= samples; i++) {
+      Translation2d p = a.interpolate(b, (double) i / samples).div(NODE_SIZE);
+      GridPosition pos = new GridPosition((int) Math.floor(p.getX()), (int) Math.floor(p.getY()));
+      assertTrue(grid.inBounds(pos.x(), pos.y()));
+      assertFalse(grid.isObstacle(pos), "Line from " + a + " to " + b + " goes through " + pos);
+    }
+  }
+
+  @Test
+  public void testStraightLine() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.WALLS);
+    Translation2d start = nodeCenter(new GridPosition(0, 0));
+    Translation2d goal = nodeCenter(new GridPosition(19, 0));
+
+    List<Waypoint> waypoints =
+        PathSmoother.smooth(List.of(start, goal), grid, NODE_SIZE, 0.0, NODE_SIZE);
+    assertEquals(2, waypoints.size());
+    assertEquals(start, waypoints.get(0).anchor());
+    assertEquals(goal, waypoints.get(1).anchor());
+  }
+
+  @Test
+  public void testPathsAroundWalls() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.WALLS);
+
+    for (GridPosition[] query : TestGrids.randomQueries(grid, 100, 3015)) {
+      List<Translation2d> path = new ArrayList<>();
+      for (GridPosition pos : LazyThetaStar.findPath(query[0], query[1], grid)) {
+        path.add(nodeCenter(pos));
+      }
+
+      List<Waypoint> waypoints = PathSmoother.smooth(path, grid, NODE_SIZE, 0.0, NODE_SIZE);
+      List<Translation2d> anchors = new ArrayList<>();
+      for (Waypoint waypoint : waypoints) {
+        anchors.add(waypoint.anchor());
+      }
+
+      assertEquals(path.get(0), anchors.get(0));
+      assertEquals(path.get(path.size() - 1), anchors.get(anchors.size() - 1));
+      for (int i = 1; i < anchors.size(); i++) {
+        assertClear(grid, anchors.get(i - 1), anchors.get(i));
+      }
+
+      // Smoothing rounds off the corners, but doesn't take a long way around
+      assertTrue(length(anchors) <= length(path) * 1.1);
+
+      // The curve is tangent continuous through every anchor
+      for (int i = 1; i < waypoints.size() - 1; i++) {
+        Waypoint waypoint = waypoints.get(i);
+        Translation2d in = waypoint.anchor().minus(waypoint.prevControl());
+        Translation2d out = waypoint.nextControl().minus(waypoint.anchor());
+        assertEquals(0.0, (in.getX() * out.getY()) - (in.getY() * out.getX()), DELTA);
+        assertTrue((in.getX() * out.getX()) + (in.getY() * out.getY()) > 0.0);
+      }
+    }
+  }
+
+  @Test
+  public void testMovesAwayFromWall() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.WALLS);
+    // Runs right along the top of the wall in row 7
+    Translation2d start = nodeCenter(new GridPosition(7, 8));
+    Translation2d goal = nodeCenter(new GridPosition(12, 8));
+
+    // Without a clearance distance, there is nothing to smooth
+    assertEquals(2, PathSmoother.smooth(List.of(start, goal), grid, NODE_SIZE, 0.0, 0.0).size());
+
+    List<Waypoint> waypoints =
+        PathSmoother.smooth(List.of(start, goal), grid, NODE_SIZE, 0.0, 3.0 * NODE_SIZE);
+    assertTrue(waypoints.size() > 2);
+    for (int i = 1; i < waypoints.size() - 1; i++) {
+      assertTrue(waypoints.get(i).anchor().getY() > start.getY());
+    }
+    for (int i = 1; i < waypoints.size(); i++) {
+      assertClear(grid, waypoints.get(i - 1).anchor(), waypoints.get(i).anchor());
+    }
+  }
+}
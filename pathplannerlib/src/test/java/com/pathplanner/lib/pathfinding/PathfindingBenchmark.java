@@ -0,0 +1,398 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.pathplanner.lib.path.GoalEndState;
+import com.pathplanner.lib.path.PathConstraints;
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.nio.file.Files;
+import java.util.*;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Benchmark and regression suite for the pathfinder. This is excluded from the normal test run, and
+ * can be run with {@code ./gradlew pathfindingBenchmark}.
+ *
+ * <p>Each scenario measures the time to the first AD* path, the time until the path is optimal (eps
+ * = 1), the time of a one-shot {@link LocalADStar#findPath} query, the memory used by the
+ * pathfinder, and the cost of a stream of dynamic obstacle updates. The results are printed and
+ * written to {@code build/reports/pathfinding-benchmark.json}. If a baseline results file is given
+ * with {@code -PbenchmarkBaseline=<file>}, any timing that is more than {@code
+ * -PbenchmarkMaxSlowdown} (default 1.5) times slower than the baseline will fail the benchmark.
+ */
+@Tag("benchmark")
+public class PathfindingBenchmark {
+  private static final double FIELD_LENGTH = 16.54;
+  private static final double FIELD_WIDTH = 8.21;
+  private static final double NODE_SIZE = 0.2;
+
+  private static final double ROBOT_RADIUS = 0.0;
+  private static final double CLEARANCE = 0.5;
+  private static final double CLEARANCE_WEIGHT = 1.0;
+
+  private static final int NUM_QUERIES = 8;
+  private static final int NUM_OBSTACLE_UPDATES = 50;
+  private static final long SEED = 3015;
+
+  private static final File EXAMPLE_NAVGRID =
+      new File(
+          System.getProperty(
+              "pathfinding.benchmark.navgrid",
+              "../examples/java/src/main/deploy/pathplanner/navgrid.json"));
+  private static final File RESULTS_FILE =
+      new File(
+          System.getProperty(
+              "pathfinding.benchmark.results", "build/reports/pathfinding-benchmark.json"));
+
+  // Timings faster than this are too noisy to compare against a baseline
+  private static final double MIN_COMPARED_MS = 1.0;
+
+  private static final PathConstraints CONSTRAINTS = new PathConstraints(3.0, 3.0, 6.0, 6.0);
+  private static final GoalEndState END_STATE = new GoalEndState(0.0, Rotation2d.kZero);
+
+  private static final Map<String, Map<String, Double>> results = new LinkedHashMap<>();
+
+  @BeforeAll
+  public static void warmUp() {
+    // Give the JIT a chance to compile the search before anything is measured
+    runScenario("warmup", NavGrid.empty(NODE_SIZE, FIELD_LENGTH, FIELD_WIDTH), true);
+    results.clear();
+  }
+
+  @Test
+  public void testEmptyField() {
+    runScenario("empty", NavGrid.empty(NODE_SIZE, FIELD_LENGTH, FIELD_WIDTH), true);
+  }
+
+  @Test
+  public void testExampleNavGrid() throws IOException, ParseException {
+    assumeTrue(EXAMPLE_NAVGRID.exists(), "Example navgrid not found: " + EXAMPLE_NAVGRID);
+    runScenario("example", NavGrid.fromJsonFile(EXAMPLE_NAVGRID), true);
+  }
+
+  @Test
+  public void testRandomClutter() {
+    // Dense clutter can disconnect parts of the field, so not every query has to find a path
+    for (double density : new double[] {0.1, 0.2, 0.3}) {
+      runScenario(
+          String.format("clutter-%.0f%%", density * 100),
+          randomClutter(NODE_SIZE, FIELD_LENGTH, FIELD_WIDTH, density, new Random(SEED)),
+          false);
+    }
+  }
+
+  @Test
+  public void testMaze() {
+    // Every open node of a perfect maze is connected, so every query must find a path
+    runScenario("maze", maze(NODE_SIZE, FIELD_LENGTH, FIELD_WIDTH, new Random(SEED)), true);
+  }
+
+  @AfterAll
+  public static void report() throws IOException, ParseException {
+    System.out.println();
+    System.out.printf(
+        "%-14s %10s %10s %10s %10s %10s %10s %8s%n",
+        "scenario",
+        "first ms",
+        "eps=1 ms",
+        "find ms",
+        "memory KB",
+        "update ms",
+        "upd p95 ms",
+        "replans");
+    for (var entry : results.entrySet()) {
+      Map<String, Double> r = entry.getValue();
+      System.out.printf(
+          "%-14s %10.2f %10.2f %10.2f %10.0f %10.3f %10.3f %8.0f%n",
+          entry.getKey(),
+          r.get("firstPathMs"),
+          r.get("optimalPathMs"),
+          r.get("findPathMs"),
+          r.get("memoryKB"),
+          r.get("obstacleUpdateMs"),
+          r.get("obstacleUpdateP95Ms"),
+          r.get("obstacleReplans"));
+    }
+
+    JSONObject json = new JSONObject();
+    for (var entry : results.entrySet()) {
+      json.put(entry.getKey(), new JSONObject(entry.getValue()));
+    }
+    RESULTS_FILE.getParentFile().mkdirs();
+    Files.writeString(RESULTS_FILE.toPath(), json.toJSONString());
+    System.out.println("Results written to " + RESULTS_FILE.getAbsolutePath());
+
+    String baseline = System.getProperty("pathfinding.benchmark.baseline");
+    if (baseline != null && !baseline.isEmpty()) {
+      compareToBaseline(
+          new File(baseline),
+          Double.parseDouble(System.getProperty("pathfinding.benchmark.maxSlowdown", "1.5")));
+    }
+  }
+
+  private static void runScenario(String name, NavGrid navGrid, boolean allReachable) {
+    long memoryBefore = usedMemory();
+    // Each scenario has its own navgrid, so each needs its own planner. Shut it down afterwards so
+    // the threads of earlier scenarios don't compete with later ones.
+    LocalADStar planner = new LocalADStar(navGrid, ROBOT_RADIUS, CLEARANCE, CLEARANCE_WEIGHT);
+    try {
+      runScenario(name, navGrid, allReachable, planner, memoryBefore);
+    } finally {
+      planner.shutdown();
+    }
+  }
+
+  private static void runScenario(
+      String name, NavGrid navGrid, boolean allReachable, LocalADStar planner, long memoryBefore) {
+    GridSnapshot grid = planner.getPlanningState().grid();
+    ADStarSearch search = new ADStarSearch();
+    AnytimeSchedule schedule = AnytimeSchedule.defaults();
+
+    List<Pair<Translation2d, Translation2d>> queries =
+        randomQueries(planner, navGrid, new Random(SEED));
+
+    List<Double> firstPathMs = new ArrayList<>();
+    List<Double> optimalPathMs = new ArrayList<>();
+    List<Double> findPathMs = new ArrayList<>();
+    int found = 0;
+
+    for (var query : queries) {
+      GridPosition start = planner.findClosestNonObstacle(query.getFirst());
+      GridPosition goal = planner.findClosestNonObstacle(query.getSecond());
+
+      long t0 = System.nanoTime();
+      search.reset(start, goal, grid, schedule);
+      search.computeOrImprovePath(start, goal, grid);
+      long t1 = System.nanoTime();
+      double firstCost = search.pathCost(start);
+      while (search.improvePath(start, goal, grid)) {
+        // Improve until the path is optimal
+      }
+      long t2 = System.nanoTime();
+      double optimalCost = search.pathCost(start);
+
+      firstPathMs.add((t1 - t0) / 1e6);
+      optimalPathMs.add((t2 - t0) / 1e6);
+
+      if (Double.isFinite(optimalCost)) {
+        found++;
+        assertTrue(
+            optimalCost <= firstCost + 1e-9,
+            name + ": improved path cost " + optimalCost + " > first path cost " + firstCost);
+        assertTrue(
+            firstCost <= schedule.initialInflation() * optimalCost + 1e-9,
+            name + ": first path cost " + firstCost + " exceeds the inflation bound");
+      }
+
+      long t3 = System.nanoTime();
+      PathfindingResult result =
+          planner.findPath(query.getFirst(), query.getSecond(), CONSTRAINTS, END_STATE, 0.0);
+      findPathMs.add((System.nanoTime() - t3) / 1e6);
+
+      assertTrue(
+          result.hasPath() == Double.isFinite(optimalCost) || start.equals(goal),
+          name + ": findPath and AD* disagree on whether a path exists");
+    }
+
+    long memoryAfter = usedMemory();
+    Reference.reachabilityFence(search);
+
+    if (allReachable) {
+      assertTrue(found == queries.size(), name + ": only " + found + " paths found");
+    }
+
+    Map<String, Double> r = new LinkedHashMap<>();
+    r.put("firstPathMs", median(firstPathMs));
+    r.put("optimalPathMs", median(optimalPathMs));
+    r.put("findPathMs", median(findPathMs));
+    r.put("memoryKB", Math.max(0, memoryAfter - memoryBefore) / 1024.0);
+    r.put("pathsFound", (double) found);
+    runObstacleUpdates(planner, queries.get(0), r);
+    results.put(name, r);
+  }
+
+  private static void runObstacleUpdates(
+      LocalADStar planner, Pair<Translation2d, Translation2d> query, Map<String, Double> r) {
+    PathfindingMetrics metrics = planner.getPathfindingMetrics();
+    PathfindingSession session = planner.createSession();
+    session.setStartPosition(query.getFirst());
+    session.setGoalPosition(query.getSecond());
+
+    long replansBefore = metrics.getObstacleReplanCount();
+    List<Double> updateMs = new ArrayList<>();
+
+    // Three robot-sized boxes sweeping across the field, like opponents crossing the robot's path
+    for (int i = 0; i < NUM_OBSTACLE_UPDATES; i++) {
+      double t = (double) i / NUM_OBSTACLE_UPDATES;
+      List<Pair<Translation2d, Translation2d>> obs = new ArrayList<>();
+      for (int j = 0; j < 3; j++) {
+        double x = FIELD_LENGTH * ((t + j / 3.0) % 1.0);
+        double y = FIELD_WIDTH * (j + 1) / 4.0;
+        obs.add(
+            Pair.of(new Translation2d(x - 0.45, y - 0.45), new Translation2d(x + 0.45, y + 0.45)));
+      }
+
+      // Updates are normally applied in the background, so apply each one here to time the whole
+      // update instead of only queueing it
+      long t0 = System.nanoTime();
+      session.setDynamicObstacles(obs, query.getFirst());
+      planner.applyPendingObstacles();
+      updateMs.add((System.nanoTime() - t0) / 1e6);
+    }
+
+    r.put("obstacleUpdateMs", median(updateMs));
+    r.put("obstacleUpdateP95Ms", percentile(updateMs, 0.95));
+    r.put("obstacleReplans", (double) (metrics.getObstacleReplanCount() - replansBefore));
+  }
+
+  private static void compareToBaseline(File baselineFile, double maxSlowdown)
+      throws IOException, ParseException {
+    JSONObject baseline =
+        (JSONObject) new JSONParser().parse(Files.readString(baselineFile.toPath()));
+
+    List<String> regressions = new ArrayList<>();
+    for (var entry : results.entrySet()) {
+      JSONObject base = (JSONObject) baseline.get(entry.getKey());
+      if (base == null) {
+        continue;
+      }
+
+      for (var metric : entry.getValue().entrySet()) {
+        Object baseValue = base.get(metric.getKey());
+        if (!metric.getKey().endsWith("Ms") || !(baseValue instanceof Number)) {
+          continue;
+        }
+
+        double before = ((Number) baseValue).doubleValue();
+        double after = metric.getValue();
+        if (Math.max(before, after) >= MIN_COMPARED_MS && after > before * maxSlowdown) {
+          regressions.add(
+              String.format(
+                  "%s %s: %.2f ms -> %.2f ms", entry.getKey(), metric.getKey(), before, after));
+        }
+      }
+    }
+
+    assertTrue(
+        regressions.isEmpty(),
+        "Regressions compared to " + baselineFile + ":\n" + String.join("\n", regressions));
+  }
+
+  private static List<Pair<Translation2d, Translation2d>> randomQueries(
+      LocalADStar planner, NavGrid navGrid, Random rand) {
+    List<Pair<Translation2d, Translation2d>> queries = new ArrayList<>();
+    while (queries.size() < NUM_QUERIES) {
+      Translation2d start = randomPosition(navGrid, rand);
+      Translation2d goal = randomPosition(navGrid, rand);
+
+      // Short queries don't say much about the planner, so only use ones across the field
+      if (start.getDistance(goal) > navGrid.getFieldLength() / 3.0
+          && planner.findClosestNonObstacle(start) != null
+          && planner.findClosestNonObstacle(goal) != null) {
+        queries.add(Pair.of(start, goal));
+      }
+    }
+    return queries;
+  }
+
+  private static Translation2d randomPosition(NavGrid navGrid, Random rand) {
+    while (true) {
+      int x = rand.nextInt(navGrid.getNodesX());
+      int y = rand.nextInt(navGrid.getNodesY());
+      if (!navGrid.isObstacle(x, y)) {
+        return new Translation2d(
+            (x + 0.5) * navGrid.getNodeSize(), (y + 0.5) * navGrid.getNodeSize());
+      }
+    }
+  }
+
+  private static NavGrid randomClutter(
+      double nodeSize, double fieldLength, double fieldWidth, double density, Random rand) {
+    NavGrid empty = NavGrid.empty(nodeSize, fieldLength, fieldWidth);
+    BitSet obstacles = new BitSet();
+    for (int i = 0; i < empty.getNodesX() * empty.getNodesY(); i++) {
+      if (rand.nextDouble() < density) {
+        obstacles.set(i);
+      }
+    }
+    return new NavGrid(
+        nodeSize, fieldLength, fieldWidth, empty.getNodesX(), empty.getNodesY(), obstacles);
+  }
+
+  private static NavGrid maze(double nodeSize, double fieldLength, double fieldWidth, Random rand) {
+    NavGrid empty = NavGrid.empty(nodeSize, fieldLength, fieldWidth);
+    int nodesX = empty.getNodesX();
+    int nodesY = empty.getNodesY();
+
+    // Cells are on odd nodes, with walls between them. Carve passages with a randomized DFS.
+    BitSet obstacles = new BitSet();
+    obstacles.set(0, nodesX * nodesY);
+
+    int cellsX = (nodesX - 1) / 2;
+    int cellsY = (nodesY - 1) / 2;
+    boolean[] visited = new boolean[cellsX * cellsY];
+    Deque<int[]> stack = new ArrayDeque<>();
+    stack.push(new int[] {0, 0});
+    visited[0] = true;
+    obstacles.clear(nodesX + 1);
+
+    int[][] dirs = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    while (!stack.isEmpty()) {
+      int[] cell = stack.peek();
+      List<int[]> unvisited = new ArrayList<>();
+      for (int[] d : dirs) {
+        int nx = cell[0] + d[0];
+        int ny = cell[1] + d[1];
+        if (nx >= 0 && nx < cellsX && ny >= 0 && ny < cellsY && !visited[ny * cellsX + nx]) {
+          unvisited.add(new int[] {nx, ny});
+        }
+      }
+
+      if (unvisited.isEmpty()) {
+        stack.pop();
+        continue;
+      }
+
+      int[] next = unvisited.get(rand.nextInt(unvisited.size()));
+      visited[next[1] * cellsX + next[0]] = true;
+      int wallX = cell[0] + next[0] + 1;
+      int wallY = cell[1] + next[1] + 1;
+      obstacles.clear(wallY * nodesX + wallX);
+      obstacles.clear((2 * next[1] + 1) * nodesX + (2 * next[0] + 1));
+      stack.push(next);
+    }
+
+    return new NavGrid(nodeSize, fieldLength, fieldWidth, nodesX, nodesY, obstacles);
+  }
+
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private static double median(List<Double> values) {
+    return percentile(values, 0.5);
+  }
+
+  private static double percentile(List<Double> values, double percentile) {
+    List<Double> sorted = new ArrayList<>(values);
+    Collections.sort(sorted);
+    return sorted.get(Math.min(sorted.size() - 1, (int) (percentile * sorted.size())));
+  }
+}
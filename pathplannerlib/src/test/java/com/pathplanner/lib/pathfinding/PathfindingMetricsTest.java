@@ -0,0 +1,118 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import org.junit.jupiter.api.Test;
+
+public class PathfindingMetricsTest {
+  public static final double DELTA = 1e-9;
+
+  private static final long MILLISECOND = 1_000_000L;
+
+  @Test
+  public void testCounters() {
+    PathfindingMetrics metrics = new PathfindingMetrics();
+    assertEquals(0, metrics.getSearchCount());
+    assertTrue(Double.isNaN(metrics.getCurrentEps()));
+
+    metrics.recordSearch(MILLISECOND);
+    metrics.recordSearch(MILLISECOND);
+    metrics.recordIncrementalReplan(MILLISECOND);
+    metrics.recordImprovement(MILLISECOND);
+    metrics.recordCachedGoalPath();
+    metrics.recordCachedGoalPath();
+    metrics.recordCachedGoalPath();
+    metrics.recordObstacleUpdate();
+    metrics.recordObstacleReplan();
+    metrics.recordExpansions(40);
+    metrics.recordExpansions(2);
+    metrics.setCurrentEps(1.5);
+
+    assertEquals(2, metrics.getSearchCount());
+    assertEquals(1, metrics.getIncrementalReplanCount());
+    assertEquals(1, metrics.getImprovementCount());
+    assertEquals(3, metrics.getCachedGoalPathCount());
+    assertEquals(1, metrics.getObstacleUpdateCount());
+    assertEquals(1, metrics.getObstacleReplanCount());
+    assertEquals(42, metrics.getExpansionCount());
+    assertEquals(1.5, metrics.getCurrentEps(), DELTA);
+
+    // Each kind of latency goes to its own histogram
+    assertEquals(2, metrics.getSearchLatency().getCount());
+    assertEquals(1, metrics.getReplanLatency().getCount());
+    assertEquals(1, metrics.getImprovementLatency().getCount());
+  }
+
+  @Test
+  public void testEmptyHistogram() {
+    PathfindingMetrics.LatencyHistogram histogram = new PathfindingMetrics().getSearchLatency();
+
+    assertEquals(0, histogram.getCount());
+    assertEquals(0.0, histogram.getMean(), DELTA);
+    assertEquals(0.0, histogram.getMax(), DELTA);
+    assertEquals(0.0, histogram.getPercentile(0.5), DELTA);
+  }
+
+  @Test
+  public void testHistogramPercentiles() {
+    PathfindingMetrics metrics = new PathfindingMetrics();
+    for (int i = 0; i < 90; i++) {
+      metrics.recordSearch(MILLISECOND);
+    }
+    for (int i = 0; i < 10; i++) {
+      metrics.recordSearch(10 * MILLISECOND);
+    }
+    PathfindingMetrics.LatencyHistogram histogram = metrics.getSearchLatency();
+
+    // The mean and max are exact
+    assertEquals(100, histogram.getCount());
+    assertEquals(0.0019, histogram.getMean(), DELTA);
+    assertEquals(0.010, histogram.getMax(), DELTA);
+
+    // Percentiles are the upper bound of their bucket, which is at most twice the actual value
+    double p50 = histogram.getPercentile(0.5);
+    assertTrue(p50 >= 0.001 && p50 <= 0.002, "p50 was " + p50);
+    double p90 = histogram.getPercentile(0.9);
+    assertTrue(p90 >= 0.001 && p90 <= 0.002, "p90 was " + p90);
+    double p95 = histogram.getPercentile(0.95);
+    assertTrue(p95 >= 0.010 && p95 <= 0.020, "p95 was " + p95);
+
+    // Never above the max, even though the bucket of the max goes higher
+    assertEquals(0.010, histogram.getPercentile(1.0), DELTA);
+    assertTrue(histogram.getPercentile(0.0) <= histogram.getPercentile(0.5));
+  }
+
+  @Test
+  public void testTinyAndHugeLatencies() {
+    PathfindingMetrics metrics = new PathfindingMetrics();
+    metrics.recordSearch(0);
+    metrics.recordSearch(Long.MAX_VALUE / 2);
+    PathfindingMetrics.LatencyHistogram histogram = metrics.getSearchLatency();
+
+    // Latencies below 1 microsecond and above the last bucket are still counted
+    assertEquals(2, histogram.getCount());
+    assertTrue(histogram.getPercentile(0.5) <= 2e-6);
+    assertEquals(histogram.getMax(), histogram.getPercentile(1.0), DELTA);
+  }
+
+  @Test
+  public void testPlannerRecordsSearches() {
+    // With clearance cost, paths are found with AD* instead of jump point search
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 1.0, 1.0);
+    try {
+      PathfindingMetrics metrics = planner.getMetrics().orElseThrow();
+      planner.setStartPosition(new Translation2d(0.75, 0.75));
+      planner.setGoalPosition(new Translation2d(9.25, 4.25));
+      TestGrids.waitForFinalPath(planner);
+
+      assertTrue(metrics.getSearchCount() >= 1);
+      assertEquals(metrics.getSearchCount(), metrics.getSearchLatency().getCount());
+      assertTrue(metrics.getExpansionCount() > 0);
+      assertTrue(metrics.getSearchLatency().getMax() > 0.0);
+      assertEquals(1.0, metrics.getCurrentEps(), DELTA);
+    } finally {
+      planner.shutdown();
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.path.PathPlannerPath;
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class PathfindingSessionTest {
+  public static final double DELTA = 1e-9;
+
+  private static final Translation2d START = new Translation2d(0.75, 0.75);
+  private static final Translation2d GOAL_A = new Translation2d(9.25, 0.75);
+  private static final Translation2d GOAL_B = new Translation2d(9.25, 4.25);
+
+  private static void assertPath(Translation2d start, Translation2d goal, PathPlannerPath path) {
+    assertNotNull(path);
+    List<Pose2d> poses = path.getPathPoses();
+    assertEquals(0.0, poses.get(0).getTranslation().getDistance(start), DELTA);
+    assertEquals(0.0, poses.get(poses.size() - 1).getTranslation().getDistance(goal), DELTA);
+  }
+
+  @Test
+  public void testIndependentGoals() {
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 0.0, 0.0);
+    try {
+      Pathfinder a = planner.createSession();
+      Pathfinder b = planner.createSession();
+
+      a.setStartPosition(START);
+      a.setGoalPosition(GOAL_A);
+      b.setStartPosition(START);
+      b.setGoalPosition(GOAL_B);
+
+      // The start is set before the goal, so the first path may still go to the old goal
+      assertPath(START, GOAL_A, TestGrids.waitForFinalPath(a));
+      assertPath(START, GOAL_B, TestGrids.waitForFinalPath(b));
+    } finally {
+      planner.shutdown();
+    }
+  }
+
+  @Test
+  public void testChangingGoalOnlyReplansOwnSession() {
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 0.0, 0.0);
+    try {
+      Pathfinder a = planner.createSession();
+      Pathfinder b = planner.createSession();
+
+      a.setStartPosition(START);
+      a.setGoalPosition(GOAL_A);
+      b.setStartPosition(START);
+      b.setGoalPosition(GOAL_B);
+      TestGrids.waitForFinalPath(a);
+      TestGrids.waitForFinalPath(b);
+
+      // Moving the goal of one session gives it a new path, and leaves the other one alone
+      a.setGoalPosition(GOAL_B);
+      assertPath(START, GOAL_B, TestGrids.waitForPath(a));
+      assertFalse(b.isNewPathAvailable());
+
+      b.setGoalPosition(GOAL_A);
+      assertPath(START, GOAL_A, TestGrids.waitForPath(b));
+    } finally {
+      planner.shutdown();
+    }
+  }
+
+  @Test
+  public void testSessionsDontChangeDefaultRequest() {
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 0.0, 0.0);
+    try {
+      planner.setStartPosition(START);
+      planner.setGoalPosition(GOAL_A);
+      TestGrids.waitForFinalPath(planner);
+
+      Pathfinder session = planner.createSession();
+      session.setStartPosition(START);
+      session.setGoalPosition(GOAL_B);
+      assertPath(START, GOAL_B, TestGrids.waitForFinalPath(session));
+      assertFalse(planner.isNewPathAvailable());
+    } finally {
+      planner.shutdown();
+    }
+  }
+
+  @Test
+  public void testPausedSessionResumes() throws InterruptedException {
+    LocalADStar planner = new LocalADStar(TestGrids.navGrid(TestGrids.WALLS), 0.0, 0.0, 0.0);
+    try {
+      Pathfinder session = planner.createSession();
+      session.setStartPosition(START);
+      session.setGoalPosition(GOAL_A);
+      TestGrids.waitForFinalPath(session);
+
+      // A paused session ignores obstacles that block its path, and plans again once it gets a new
+      // request
+      session.pause();
+      planner.setDynamicObstacles(
+          List.of(Pair.of(new Translation2d(4.6, 0.0), new Translation2d(4.9, 1.4))), START);
+      planner.applyPendingObstacles();
+      Thread.sleep(200);
+      assertFalse(session.isNewPathAvailable());
+
+      session.setGoalPosition(GOAL_B);
+      assertPath(START, GOAL_B, TestGrids.waitForPath(session));
+    } finally {
+      planner.shutdown();
+    }
+  }
+}
@@ -0,0 +1,234 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.config.ModuleConfig;
+import com.pathplanner.lib.config.RobotConfig;
+import com.pathplanner.lib.path.GoalEndState;
+import com.pathplanner.lib.path.PathConstraints;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.pathfinding.PathfindingTrajectoryGenerator.GeneratedTrajectory;
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.system.plant.DCMotor;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class PathfindingTrajectoryGeneratorTest {
+  public static final double DELTA = 1e-9;
+
+  private static final double TIMEOUT = 5.0;
+
+  private static final PathConstraints CONSTRAINTS = new PathConstraints(3.0, 3.0, 6.0, 6.0);
+  private static final GoalEndState END_STATE = new GoalEndState(0.0, Rotation2d.kZero);
+  private static final RobotConfig ROBOT_CONFIG =
+      new RobotConfig(
+          75,
+          6.8,
+          new ModuleConfig(0.048, 5.0, 1.2, DCMotor.getKrakenX60(1).withReduction(6.14), 60.0, 1),
+          0.55);
+
+  /** A pathfinder that publishes the paths it is given, and counts how often it is checked */
+  private static class ScriptedPathfinder implements Pathfinder {
+    private final AtomicInteger checks = new AtomicInteger();
+    private volatile Translation2d nextGoal = null;
+    private volatile CountDownLatch entered = null;
+    private volatile CountDownLatch release = null;
+
+    private volatile Translation2d startPosition = Translation2d.kZero;
+    private volatile Translation2d startVelocity = Translation2d.kZero;
+
+    /** Publish a new path from the start position to the given goal */
+    void publish(Translation2d goal) {
+      nextGoal = goal;
+    }
+
+    /** Make the next call to getCurrentPath block until the returned latch is counted down */
+    CountDownLatch blockNextPath() {
+      entered = new CountDownLatch(1);
+      release = new CountDownLatch(1);
+      return release;
+    }
+
+    @Override
+    public boolean isNewPathAvailable() {
+      checks.incrementAndGet();
+      return nextGoal != null;
+    }
+
+    @Override
+    public PathPlannerPath getCurrentPath(PathConstraints constraints, GoalEndState goalEndState) {
+      Translation2d goal = nextGoal;
+      nextGoal = null;
+
+      if (release != null) {
+        entered.countDown();
+        try {
+          assertTrue(release.await((long) (TIMEOUT * 1e9), TimeUnit.NANOSECONDS));
+        } catch (InterruptedException e) {
+          fail(e);
+        }
+        release = null;
+      }
+
+      return new PathPlannerPath(
+          PathPlannerPath.waypointsFromPoses(
+              new Pose2d(startPosition, Rotation2d.kZero), new Pose2d(goal, Rotation2d.kZero)),
+          constraints,
+          null,
+          goalEndState);
+    }
+
+    @Override
+    public void setStartPosition(Translation2d startPosition) {
+      this.startPosition = startPosition;
+    }
+
+    @Override
+    public void setStartVelocity(Translation2d velocityMPS) {
+      this.startVelocity = velocityMPS;
+    }
+
+    @Override
+    public void setGoalPosition(Translation2d goalPosition) {}
+
+    @Override
+    public void setDynamicObstacles(
+        List<Pair<Translation2d, Translation2d>> obs, Translation2d currentRobotPos) {}
+  }
+
+  /**
+   * Wait for all trajectories that have been requested so far to finish generating. Generators
+   * share a single thread, so once a request from another generator has been handled, the earlier
+   * ones have been as well.
+   */
+  private static void waitForGenerators() {
+    ScriptedPathfinder marker = new ScriptedPathfinder();
+    new PathfindingTrajectoryGenerator(marker, ROBOT_CONFIG).poll(CONSTRAINTS, END_STATE);
+
+    long deadline = System.nanoTime() + (long) (TIMEOUT * 1e9);
+    while (marker.checks.get() == 0) {
+      assertTrue(System.nanoTime() < deadline, "The generator thread did not respond");
+      try {
+        Thread.sleep(1);
+      } catch (InterruptedException e) {
+        fail(e);
+      }
+    }
+  }
+
+  private static void assertEndsAt(Translation2d goal, GeneratedTrajectory generated) {
+    assertNotNull(generated);
+    List<Pose2d> poses = generated.path().getPathPoses();
+    assertEquals(0.0, poses.get(poses.size() - 1).getTranslation().getDistance(goal), DELTA);
+    assertNotNull(generated.trajectory());
+  }
+
+  @Test
+  public void testNoPath() {
+    ScriptedPathfinder pathfinder = new ScriptedPathfinder();
+    PathfindingTrajectoryGenerator generator =
+        new PathfindingTrajectoryGenerator(pathfinder, ROBOT_CONFIG);
+
+    assertNull(generator.poll(CONSTRAINTS, END_STATE));
+    waitForGenerators();
+    assertNull(generator.poll(CONSTRAINTS, END_STATE));
+    assertTrue(pathfinder.checks.get() >= 1);
+  }
+
+  @Test
+  public void testTrajectoryIsPolledOnce() {
+    ScriptedPathfinder pathfinder = new ScriptedPathfinder();
+    PathfindingTrajectoryGenerator generator =
+        new PathfindingTrajectoryGenerator(pathfinder, ROBOT_CONFIG);
+    Translation2d goal = new Translation2d(3.0, 1.0);
+
+    // The first poll only starts generating, so the trajectory is returned by the next one
+    pathfinder.publish(goal);
+    assertNull(generator.poll(CONSTRAINTS, END_STATE));
+    waitForGenerators();
+    assertEndsAt(goal, generator.poll(CONSTRAINTS, END_STATE));
+
+    waitForGenerators();
+    assertNull(generator.poll(CONSTRAINTS, END_STATE));
+  }
+
+  @Test
+  public void testNewerPathIsReturnedNext() {
+    ScriptedPathfinder pathfinder = new ScriptedPathfinder();
+    PathfindingTrajectoryGenerator generator =
+        new PathfindingTrajectoryGenerator(pathfinder, ROBOT_CONFIG);
+    Translation2d first = new Translation2d(3.0, 1.0);
+    Translation2d second = new Translation2d(5.0, 2.0);
+
+    pathfinder.publish(first);
+    generator.poll(CONSTRAINTS, END_STATE);
+    waitForGenerators();
+
+    // Polling returns what was already generated, and picks up the newer path in the background
+    pathfinder.publish(second);
+    assertEndsAt(first, generator.poll(CONSTRAINTS, END_STATE));
+    waitForGenerators();
+    assertEndsAt(second, generator.poll(CONSTRAINTS, END_STATE));
+  }
+
+  @Test
+  public void testClearDiscardsTrajectory() {
+    ScriptedPathfinder pathfinder = new ScriptedPathfinder();
+    PathfindingTrajectoryGenerator generator =
+        new PathfindingTrajectoryGenerator(pathfinder, ROBOT_CONFIG);
+
+    pathfinder.publish(new Translation2d(3.0, 1.0));
+    generator.poll(CONSTRAINTS, END_STATE);
+    waitForGenerators();
+
+    generator.clear();
+    assertNull(generator.poll(CONSTRAINTS, END_STATE));
+  }
+
+  @Test
+  public void testPollDoesNotBlock() throws InterruptedException {
+    ScriptedPathfinder pathfinder = new ScriptedPathfinder();
+    PathfindingTrajectoryGenerator generator =
+        new PathfindingTrajectoryGenerator(pathfinder, ROBOT_CONFIG);
+    Translation2d goal = new Translation2d(3.0, 1.0);
+
+    CountDownLatch release = pathfinder.blockNextPath();
+    pathfinder.publish(goal);
+    assertNull(generator.poll(CONSTRAINTS, END_STATE));
+    assertTrue(pathfinder.entered.await((long) (TIMEOUT * 1e9), TimeUnit.NANOSECONDS));
+
+    // While the path is still being retrieved, polling returns right away, and doesn't queue up
+    // another check of the pathfinder
+    for (int i = 0; i < 10; i++) {
+      assertNull(generator.poll(CONSTRAINTS, END_STATE));
+    }
+    assertEquals(1, pathfinder.checks.get());
+
+    release.countDown();
+    waitForGenerators();
+    assertEndsAt(goal, generator.poll(CONSTRAINTS, END_STATE));
+  }
+
+  @Test
+  public void testStartState() {
+    ScriptedPathfinder pathfinder = new ScriptedPathfinder();
+    PathfindingTrajectoryGenerator generator =
+        new PathfindingTrajectoryGenerator(pathfinder, ROBOT_CONFIG);
+
+    // Facing +y, so driving forward moves the robot along +y on the field
+    generator.setStartState(
+        new Pose2d(1.0, 2.0, Rotation2d.kCCW_90deg), new ChassisSpeeds(1.5, 0.0, 0.0));
+
+    assertEquals(1.0, pathfinder.startPosition.getX(), DELTA);
+    assertEquals(2.0, pathfinder.startPosition.getY(), DELTA);
+    assertEquals(0.0, pathfinder.startVelocity.getX(), DELTA);
+    assertEquals(1.5, pathfinder.startVelocity.getY(), DELTA);
+  }
+}
@@ -0,0 +1,126 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class QuadtreeGraphTest {
+  // Paths cross each leaf edge at a single node, so they can be longer than the grid optimum
+  private static final double MAX_COST_RATIO = 1.5;
+
+  /** The walls grid, with a wall across the middle separating the left and right sides */
+  private static String[] splitWalls() {
+    String[] rows = TestGrids.WALLS.clone();
+    for (int y = 0; y < rows.length; y++) {
+      rows[y] = rows[y].substring(0, 10) + "#" + rows[y].substring(11);
+    }
+    return rows;
+  }
+
+  @Test
+  public void testFewerLeavesThanNodes() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.WALLS);
+    QuadtreeGraph graph = new QuadtreeGraph(grid);
+
+    assertTrue(graph.getLeafCount() > 0);
+    assertTrue(graph.getLeafCount() < (grid.nodesX * grid.nodesY) / 2);
+  }
+
+  @Test
+  public void testPathsAroundWalls() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.WALLS);
+    QuadtreeGraph graph = new QuadtreeGraph(grid);
+
+    for (GridPosition[] query : TestGrids.randomQueries(grid, 100, 3015)) {
+      List<GridPosition> path = graph.findPath(query[0], query[1], grid);
+      TestGrids.assertValidPath(grid, query[0], query[1], path);
+
+      double cost = TestGrids.pathCost(grid, path);
+      assertTrue(
+          cost <= TestGrids.optimalCost(grid, query[0], query[1]) * MAX_COST_RATIO,
+          "Path from " + query[0] + " to " + query[1] + " costs " + cost);
+    }
+  }
+
+  @Test
+  public void testPathsWithClearance() {
+    GridSnapshot grid = TestGrids.withClearance(3.0, TestGrids.WALLS);
+    QuadtreeGraph graph = new QuadtreeGraph(grid);
+
+    for (GridPosition[] query : TestGrids.randomQueries(grid, 100, 3015)) {
+      TestGrids.assertValidPath(grid, query[0], query[1], graph.findPath(query[0], query[1], grid));
+    }
+  }
+
+  @Test
+  public void testRebuildForNewObstacles() {
+    GridSnapshot open = TestGrids.uniform(TestGrids.WALLS);
+    GridSnapshot closed = TestGrids.uniform(splitWalls());
+    QuadtreeGraph graph = new QuadtreeGraph(open);
+    GridPosition start = new GridPosition(2, 1);
+    GridPosition goal = new GridPosition(13, 1);
+
+    TestGrids.assertValidPath(open, start, goal, graph.findPath(start, goal, open));
+
+    // The same graph is used with a grid of the same size where the goal can't be reached
+    assertTrue(graph.findPath(start, goal, closed).isEmpty());
+    TestGrids.assertValidPath(open, start, goal, graph.findPath(start, goal, open));
+  }
+
+  @Test
+  public void testUpdateMatchesRebuild() {
+    // Wide enough for several subtrees, so some are rebuilt and some are kept
+    String[] rows = new String[40];
+    for (int y = 0; y < rows.length; y++) {
+      rows[y] = TestGrids.WALLS[y % TestGrids.WALLS.length].repeat(3);
+    }
+    GridSnapshot grid = TestGrids.withClearance(3.0, rows);
+    QuadtreeGraph graph = new QuadtreeGraph(grid);
+    Random rand = new Random(3015);
+
+    for (int i = 0; i < 20; i++) {
+      // Toggle a small box of obstacles, and raise the clearance cost of a few other nodes
+      BitSet obstacles = new BitSet();
+      BitSet changed = new BitSet();
+      int bx = rand.nextInt(grid.nodesX - 3);
+      int by = rand.nextInt(grid.nodesY - 3);
+      for (int x = 0; x < grid.nodesX; x++) {
+        for (int y = 0; y < grid.nodesY; y++) {
+          GridPosition pos = new GridPosition(x, y);
+          boolean inBox = x >= bx && x < bx + 3 && y >= by && y < by + 3;
+          if (grid.isObstacle(pos) != inBox) {
+            obstacles.set((y * grid.nodesX) + x);
+          }
+          if (inBox || rand.nextInt(200) == 0) {
+            changed.set((y * grid.nodesX) + x);
+          }
+        }
+      }
+      final GridSnapshot previous = grid;
+      grid =
+          grid.withChanges(
+              obstacles,
+              changed,
+              n ->
+                  previous.clearanceCost(new GridPosition(n % previous.nodesX, n / previous.nodesX))
+                      + 0.5,
+              n -> 1.0);
+
+      // The updated graph has the same leaves as one built from scratch, so it finds the same paths
+      QuadtreeGraph rebuilt = new QuadtreeGraph(grid);
+      for (GridPosition[] query : TestGrids.randomQueries(grid, 10, i)) {
+        List<GridPosition> path = graph.findPath(query[0], query[1], grid);
+        TestGrids.assertValidPath(grid, query[0], query[1], path);
+        assertEquals(
+            TestGrids.pathCost(grid, rebuilt.findPath(query[0], query[1], grid)),
+            TestGrids.pathCost(grid, path),
+            1e-9);
+      }
+      assertEquals(rebuilt.getLeafCount(), graph.getLeafCount());
+    }
+  }
+}
@@ -0,0 +1,168 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class SpaceTimeAStarTest {
+  public static final double DELTA = 1e-9;
+  private static final double SECONDS_PER_NODE = 0.1;
+
+  private static final GridPosition START = new GridPosition(0, 5);
+  private static final GridPosition GOAL = new GridPosition(19, 5);
+
+  private static GridSnapshot openGrid() {
+    String[] rows = new String[10];
+    Arrays.fill(rows, "....................");
+    return TestGrids.uniform(rows);
+  }
+
+  /** Prediction for a single obstacle, with 1 meter nodes and no inflation */
+  private static ObstaclePrediction prediction(MovingObstacle obstacle) {
+    return new ObstaclePrediction(List.of(obstacle), 1.0, 0.0, 0L);
+  }
+
+  /** A wide obstacle above the straight path that drives down across it while the robot passes */
+  private static ObstaclePrediction crossing() {
+    return prediction(
+        MovingObstacle.withVelocity(
+            new Translation2d(7.8, 8.8), new Translation2d(13.2, 10.2), new Translation2d(0, -4)));
+  }
+
+  private static List<GridPosition> straightPath() {
+    List<GridPosition> path = new ArrayList<>();
+    for (int x = START.x(); x <= GOAL.x(); x++) {
+      path.add(new GridPosition(x, START.y()));
+    }
+    return path;
+  }
+
+  private static List<GridPosition> findPath(GridSnapshot grid, ObstaclePrediction prediction) {
+    return SpaceTimeAStar.findPath(
+        START, GOAL, grid, new GoalCostField(GOAL, grid), prediction, 0.0, SECONDS_PER_NODE);
+  }
+
+  @Test
+  public void testNoMovingObstacles() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.WALLS);
+
+    for (GridPosition[] query : TestGrids.randomQueries(grid, 50, 3015)) {
+      List<GridPosition> path =
+          SpaceTimeAStar.findPath(
+              query[0],
+              query[1],
+              grid,
+              new GoalCostField(query[1], grid),
+              ObstaclePrediction.EMPTY,
+              0.0,
+              SECONDS_PER_NODE);
+      TestGrids.assertValidPath(grid, query[0], query[1], path);
+      assertEquals(
+          TestGrids.optimalCost(grid, query[0], query[1]), TestGrids.pathCost(grid, path), DELTA);
+    }
+  }
+
+  @Test
+  public void testAvoidsCrossingObstacle() {
+    GridSnapshot grid = openGrid();
+    ObstaclePrediction prediction = crossing();
+
+    // Driving straight runs into the obstacle as it crosses
+    assertTrue(
+        SpaceTimeAStar.hasConflict(
+            straightPath(), START.x() + 0.5, START.y() + 0.5, prediction, 0.0, SECONDS_PER_NODE));
+
+    List<GridPosition> path = findPath(grid, prediction);
+    TestGrids.assertValidPath(grid, START, GOAL, path);
+    assertFalse(
+        SpaceTimeAStar.hasConflict(
+            path, START.x() + 0.5, START.y() + 0.5, prediction, 0.0, SECONDS_PER_NODE));
+    assertTrue(TestGrids.pathCost(grid, path) > GOAL.x() - START.x());
+  }
+
+  @Test
+  public void testIgnoresObstacleThatWillBeGone() {
+    GridSnapshot grid = openGrid();
+    // Currently on the straight path, but moving off of it long before the robot gets there
+    ObstaclePrediction prediction =
+        prediction(
+            MovingObstacle.withVelocity(
+                new Translation2d(7.8, 4.8),
+                new Translation2d(13.2, 6.2),
+                new Translation2d(0, 10)));
+    assertTrue(prediction.isBlocked(10, 5, 0.0));
+
+    List<GridPosition> path = findPath(grid, prediction);
+    TestGrids.assertValidPath(grid, START, GOAL, path);
+    assertEquals(GOAL.x() - START.x(), TestGrids.pathCost(grid, path), DELTA);
+    assertEquals(
+        List.of(START, GOAL),
+        SpaceTimeAStar.simplify(path, grid, prediction, 0.0, SECONDS_PER_NODE));
+  }
+
+  @Test
+  public void testSimplify() {
+    GridSnapshot grid = openGrid();
+    ObstaclePrediction prediction = crossing();
+    List<GridPosition> path = findPath(grid, prediction);
+
+    // The corners are a subset of the path, and the crossing obstacle keeps it from being
+    // straightened out
+    List<GridPosition> simplified =
+        SpaceTimeAStar.simplify(path, grid, prediction, 0.0, SECONDS_PER_NODE);
+    TestGrids.assertValidPath(grid, START, GOAL, simplified);
+    assertTrue(simplified.size() > 2);
+    assertTrue(simplified.size() < path.size());
+    int last = 0;
+    for (GridPosition corner : simplified) {
+      int index = path.subList(last, path.size()).indexOf(corner);
+      assertTrue(index >= 0, corner + " is not on the path in order");
+      last += index;
+    }
+
+    assertEquals(
+        List.of(START, GOAL),
+        SpaceTimeAStar.simplify(
+            straightPath(), grid, ObstaclePrediction.EMPTY, 0.0, SECONDS_PER_NODE));
+  }
+
+  @Test
+  public void testConflictOnlyAhead() {
+    ObstaclePrediction prediction = crossing();
+    List<GridPosition> path = straightPath();
+
+    // Once the robot has driven past the crossing, the obstacle is behind it
+    assertFalse(SpaceTimeAStar.hasConflict(path, 15.5, 5.5, prediction, 0.0, SECONDS_PER_NODE));
+    // Nothing is predicted after the horizon
+    assertFalse(
+        SpaceTimeAStar.hasConflict(
+            path,
+            START.x() + 0.5,
+            START.y() + 0.5,
+            prediction,
+            ObstaclePrediction.PREDICTION_HORIZON,
+            SECONDS_PER_NODE));
+  }
+
+  @Test
+  public void testNoPath() {
+    GridSnapshot grid = TestGrids.uniform(TestGrids.ENCLOSED);
+    GridPosition goal = new GridPosition(13, 1);
+
+    assertTrue(
+        SpaceTimeAStar.findPath(
+                new GridPosition(2, 1),
+                goal,
+                grid,
+                new GoalCostField(goal, grid),
+                ObstaclePrediction.EMPTY,
+                0.0,
+                SECONDS_PER_NODE)
+            .isEmpty());
+  }
+}
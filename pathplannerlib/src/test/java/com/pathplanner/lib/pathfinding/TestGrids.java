@@ -0,0 +1,260 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.path.GoalEndState;
+import com.pathplanner.lib.path.PathConstraints;
+import com.pathplanner.lib.path.PathPlannerPath;
+import com.pathplanner.lib.pathfinding.LocalADStar.GridPosition;
+import edu.wpi.first.math.geometry.Rotation2d;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/** Small fixed grids shared by the search tests, and checks for the paths found on them */
+final class TestGrids {
+  /** Walls that paths have to go around or through a gap in. Row 0 is y = 0. */
+  static final String[] WALLS = {
+    "....................",
+    "....................",
+    "......#......#......",
+    "......#......#......",
+    "......#......#......",
+    "......#......#####..",
+    "......#.............",
+    "......#######.......",
+    "....................",
+    "....................",
+  };
+
+  /** The right side is closed off from the rest of the grid */
+  static final String[] ENCLOSED = {
+    "..........#.....",
+    "..........#.....",
+    "..........#.....",
+    "..........######",
+    "................",
+    "................",
+  };
+
+  private TestGrids() {}
+
+  /** Size of each node of the navgrids created from rows, in meters */
+  static final double NODE_SIZE = 0.5;
+
+  private static final double PATH_TIMEOUT = 5.0;
+  // How long no new path has to be published for the path to be considered final
+  private static final double SETTLE_TIME = 0.2;
+
+  /**
+   * Create a grid with no clearance cost
+   *
+   * @param rows Rows of the grid, starting at y = 0. Obstacles are '#'.
+   * @return The grid
+   */
+  static GridSnapshot uniform(String... rows) {
+    return create(rows, 0.0);
+  }
+
+  /**
+   * Create a grid where nodes near obstacles cost more to move through
+   *
+   * @param clearance Distance from obstacles, in nodes, within which nodes cost more. The cost
+   *     multiplier grows linearly up to 1.0 next to an obstacle.
+   * @param rows Rows of the grid, starting at y = 0. Obstacles are '#'.
+   * @return The grid
+   */
+  static GridSnapshot withClearance(double clearance, String... rows) {
+    return create(rows, clearance);
+  }
+
+  private static GridSnapshot create(String[] rows, double clearance) {
+    int nodesX = rows[0].length();
+    int nodesY = rows.length;
+
+    BitSet obstacles = new BitSet();
+    ObstacleDistanceField field = new ObstacleDistanceField(nodesX, nodesY);
+    for (int y = 0; y < nodesY; y++) {
+      for (int x = 0; x < nodesX; x++) {
+        if (rows[y].charAt(x) == '#') {
+          obstacles.set((y * nodesX) + x);
+          field.setObstacle(x, y);
+        }
+      }
+    }
+    field.update();
+
+    double[] dist = field.getDistances();
+    double[] clearanceCost = new double[clearance > 0.0 ? dist.length : 0];
+    for (int i = 0; i < clearanceCost.length; i++) {
+      clearanceCost[i] = Math.max(0.0, (clearance - dist[i]) / clearance);
+    }
+
+    return new GridSnapshot(nodesX, nodesY, obstacles, clearanceCost, dist);
+  }
+
+  /**
+   * Create a navgrid for a whole pathfinder, with {@link #NODE_SIZE} nodes
+   *
+   * @param rows Rows of the grid, starting at y = 0. Obstacles are '#'.
+   * @return The navgrid
+   */
+  static NavGrid navGrid(String... rows) {
+    int nodesX = rows[0].length();
+    int nodesY = rows.length;
+
+    BitSet obstacles = new BitSet();
+    for (int y = 0; y < nodesY; y++) {
+      for (int x = 0; x < nodesX; x++) {
+        if (rows[y].charAt(x) == '#') {
+          obstacles.set((y * nodesX) + x);
+        }
+      }
+    }
+
+    return new NavGrid(
+        NODE_SIZE, nodesX * NODE_SIZE, nodesY * NODE_SIZE, nodesX, nodesY, obstacles);
+  }
+
+  /**
+   * Wait for a pathfinder to calculate a new path, failing if it takes too long
+   *
+   * @return The new path
+   */
+  static PathPlannerPath waitForPath(Pathfinder pathfinder) {
+    long deadline = System.nanoTime() + (long) (PATH_TIMEOUT * 1e9);
+    while (!pathfinder.isNewPathAvailable()) {
+      assertTrue(System.nanoTime() < deadline, "No path was found");
+      try {
+        Thread.sleep(1);
+      } catch (InterruptedException e) {
+        fail(e);
+      }
+    }
+
+    return pathfinder.getCurrentPath(
+        new PathConstraints(3.0, 3.0, 6.0, 6.0), new GoalEndState(0, Rotation2d.kZero));
+  }
+
+  /**
+   * Wait for a pathfinder to calculate a new path, then for it to stop publishing improved paths.
+   * Use this before checking that no new path is published, since AD* keeps improving its first
+   * path in the background.
+   *
+   * @return The last path that was published
+   */
+  static PathPlannerPath waitForFinalPath(Pathfinder pathfinder) {
+    PathPlannerPath path = waitForPath(pathfinder);
+    long settled = System.nanoTime() + (long) (SETTLE_TIME * 1e9);
+    while (System.nanoTime() < settled) {
+      if (pathfinder.isNewPathAvailable()) {
+        path = waitForPath(pathfinder);
+        settled = System.nanoTime() + (long) (SETTLE_TIME * 1e9);
+      }
+      try {
+        Thread.sleep(1);
+      } catch (InterruptedException e) {
+        fail(e);
+      }
+    }
+
+    return path;
+  }
+
+  /**
+   * Get the cost of the optimal path on the 8-connected grid, found with Dijkstra's algorithm
+   *
+   * @return The optimal cost, or infinity if the goal can't be reached
+   */
+  static double optimalCost(GridSnapshot grid, GridPosition start, GridPosition goal) {
+    double[] cost = new double[grid.nodesX * grid.nodesY];
+    Arrays.fill(cost, Double.POSITIVE_INFINITY);
+    PriorityQueue<double[]> open = new PriorityQueue<>(Comparator.comparingDouble(e -> e[0]));
+    cost[index(grid, start)] = 0.0;
+    open.add(new double[] {0.0, index(grid, start)});
+
+    while (!open.isEmpty()) {
+      double[] entry = open.poll();
+      int i = (int) entry[1];
+      if (entry[0] > cost[i]) {
+        continue;
+      }
+
+      GridPosition s = new GridPosition(i % grid.nodesX, i / grid.nodesX);
+      if (s.equals(goal)) {
+        return cost[i];
+      }
+
+      for (int dx = -1; dx <= 1; dx++) {
+        for (int dy = -1; dy <= 1; dy++) {
+          if ((dx != 0 || dy != 0) && grid.inBounds(s.x() + dx, s.y() + dy)) {
+            GridPosition n = new GridPosition(s.x() + dx, s.y() + dy);
+            double c = cost[i] + grid.cost(s, n);
+            if (c < cost[index(grid, n)]) {
+              cost[index(grid, n)] = c;
+              open.add(new double[] {c, index(grid, n)});
+            }
+          }
+        }
+      }
+    }
+
+    return Double.POSITIVE_INFINITY;
+  }
+
+  private static int index(GridSnapshot grid, GridPosition pos) {
+    return (pos.y() * grid.nodesX) + pos.x();
+  }
+
+  /** Get the cost of moving in a straight line between each pair of consecutive vertices */
+  static double pathCost(GridSnapshot grid, List<GridPosition> path) {
+    double cost = 0.0;
+    for (int i = 1; i < path.size(); i++) {
+      cost += grid.lineCost(path.get(i - 1), path.get(i));
+    }
+    return cost;
+  }
+
+  /**
+   * Check that a path connects the start and goal, with a clear line of sight between consecutive
+   * vertices
+   */
+  static void assertValidPath(
+      GridSnapshot grid, GridPosition start, GridPosition goal, List<GridPosition> path) {
+    assertTrue(path.size() >= 2, "No path from " + start + " to " + goal);
+    assertEquals(start, path.get(0));
+    assertEquals(goal, path.get(path.size() - 1));
+    for (int i = 1; i < path.size(); i++) {
+      assertTrue(
+          grid.lineOfSight(path.get(i - 1), path.get(i)),
+          "Path goes through an obstacle between " + path.get(i - 1) + " and " + path.get(i));
+    }
+  }
+
+  /** Get random pairs of open nodes that are connected to each other */
+  static List<GridPosition[]> randomQueries(GridSnapshot grid, int count, long seed) {
+    Random rand = new Random(seed);
+    List<GridPosition[]> queries = new ArrayList<>();
+    while (queries.size() < count) {
+      GridPosition start = randomOpenNode(grid, rand);
+      GridPosition goal = randomOpenNode(grid, rand);
+      if (!start.equals(goal) && Double.isFinite(optimalCost(grid, start, goal))) {
+        queries.add(new GridPosition[] {start, goal});
+      }
+    }
+    return queries;
+  }
+
+  private static GridPosition randomOpenNode(GridSnapshot grid, Random rand) {
+    while (true) {
+      GridPosition pos = new GridPosition(rand.nextInt(grid.nodesX), rand.nextInt(grid.nodesY));
+      if (!grid.isObstacle(pos)) {
+        return pos;
+      }
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package com.pathplanner.lib.pathfinding;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.path.GoalEndState;
+import com.pathplanner.lib.path.PathConstraints;
+import com.pathplanner.lib.path.PathPlannerPath;
+import edu.wpi.first.math.Pair;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class VisibilityGraphPathfinderTest {
+  private static final double DELTA = 1e-6;
+  private static final PathConstraints CONSTRAINTS = new PathConstraints(1.0, 1.0, 1.0, 1.0);
+  private static final GoalEndState END_STATE = new GoalEndState(0.0, Rotation2d.kZero);
+
+  private static VisibilityGraphPathfinder boxPathfinder() {
+    return new VisibilityGraphPathfinder(
+        List.of(
+            List.of(
+                new Translation2d(4.0, 2.0),
+                new Translation2d(6.0, 2.0),
+                new Translation2d(6.0, 6.0),
+                new Translation2d(4.0, 6.0))),
+        10.0,
+        8.0,
+        0.0);
+  }
+
+  @Test
+  public void testStraightLine() {
+    PathfindingResult result =
+        boxPathfinder()
+            .findPath(
+                new Translation2d(1.0, 1.0),
+                new Translation2d(9.0, 1.0),
+                CONSTRAINTS,
+                END_STATE,
+                0);
+
+    assertTrue(result.hasPath());
+    assertEquals(8.0, result.cost(), DELTA);
+  }
+
+  @Test
+  public void testShortestPathAroundObstacle() {
+    PathfindingResult result =
+        boxPathfinder()
+            .findPath(
+                new Translation2d(2.0, 4.0),
+                new Translation2d(8.0, 4.0),
+                CONSTRAINTS,
+                END_STATE,
+                0);
+
+    // Over one pair of corners of the box, then straight to the goal
+    assertTrue(result.hasPath());
+    assertEquals(4.0 * Math.sqrt(2.0) + 2.0, result.cost(), DELTA);
+  }
+
+  @Test
+  public void testStartInsideObstacle() {
+    PathfindingResult result =
+        boxPathfinder()
+            .findPath(
+                new Translation2d(4.5, 4.0),
+                new Translation2d(2.0, 4.0),
+                CONSTRAINTS,
+                END_STATE,
+                0);
+
+    assertTrue(result.hasPath());
+  }
+
+  @Test
+  public void testDynamicObstacles() {
+    VisibilityGraphPathfinder pathfinder = boxPathfinder();
+    try {
+      VisibilityGraphPathfinder session = pathfinder.createSession();
+      session.setStartPosition(new Translation2d(1.0, 1.0));
+      session.setGoalPosition(new Translation2d(9.0, 1.0));
+
+      assertNotNull(TestGrids.waitForPath(session));
+      assertFalse(session.isNewPathAvailable());
+
+      // Blocking the straight line from another session should make this session replan
+      pathfinder.setDynamicObstacles(
+          List.of(Pair.of(new Translation2d(7.0, 0.0), new Translation2d(8.0, 1.5))),
+          new Translation2d(1.0, 1.0));
+
+      assertNotNull(TestGrids.waitForPath(session));
+      PathfindingResult result =
+          session.findPath(
+              new Translation2d(1.0, 1.0), new Translation2d(9.0, 1.0), CONSTRAINTS, END_STATE, 0);
+      assertTrue(result.cost() > 8.0);
+    } finally {
+      pathfinder.shutdown();
+    }
+  }
+
+  @Test
+  public void testSessionReplansFromRobotPosition() {
+    VisibilityGraphPathfinder pathfinder = boxPathfinder();
+    try {
+      VisibilityGraphPathfinder session = pathfinder.createSession();
+      session.setStartPosition(new Translation2d(1.0, 1.0));
+      session.setGoalPosition(new Translation2d(9.0, 1.0));
+      assertNotNull(TestGrids.waitForPath(session));
+
+      // The robot has driven part of the path when the obstacles are set on the parent
+      Translation2d robotPos = new Translation2d(5.0, 1.0);
+      pathfinder.setDynamicObstacles(
+          List.of(Pair.of(new Translation2d(7.0, 0.0), new Translation2d(8.0, 1.5))), robotPos);
+
+      PathPlannerPath path = TestGrids.waitForPath(session);
+      assertNotNull(path);
+      assertEquals(robotPos, path.getWaypoints().get(0).anchor());
+    } finally {
+      pathfinder.shutdown();
+    }
+  }
+
+  @Test
+  public void testNewestRequestWins() {
+    VisibilityGraphPathfinder pathfinder = boxPathfinder();
+    try {
+      Translation2d goal = new Translation2d(9.0, 7.0);
+      pathfinder.setStartPosition(new Translation2d(1.0, 1.0));
+      pathfinder.setGoalPosition(new Translation2d(9.0, 1.0));
+      pathfinder.setGoalPosition(goal);
+
+      // Only the path to the newest goal is published, even if the first one was being planned
+      List<Pose2d> poses = TestGrids.waitForPath(pathfinder).getPathPoses();
+      assertEquals(goal, poses.get(poses.size() - 1).getTranslation());
+    } finally {
+      pathfinder.shutdown();
+    }
+  }
+}
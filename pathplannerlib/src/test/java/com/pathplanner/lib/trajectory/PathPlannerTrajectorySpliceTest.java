@@ -0,0 +1,265 @@
+package com.pathplanner.lib.trajectory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.events.Event;
+import com.pathplanner.lib.events.EventScheduler;
+import com.pathplanner.lib.util.DriveFeedforwards;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class PathPlannerTrajectorySpliceTest {
+  private static final double DELTA = 1e-6;
+  private static final double DT = 0.02;
+
+  private static final double SPLICE_TIME = 0.6;
+  private static final double BLEND_TIME = 0.5;
+  private static final double OTHER_START_TIME = 0.5;
+
+  /** Event that does nothing, to check which events are kept */
+  private static class MarkerEvent extends Event {
+    private final String name;
+
+    MarkerEvent(double timestampSeconds, String name) {
+      super(timestampSeconds);
+      this.name = name;
+    }
+
+    @Override
+    public void handleEvent(EventScheduler eventScheduler) {}
+
+    @Override
+    public void cancelEvent(EventScheduler eventScheduler) {}
+
+    @Override
+    public Event copyWithTimestamp(double timestampSeconds) {
+      return new MarkerEvent(timestampSeconds, name);
+    }
+  }
+
+  /** A trajectory that drives in a straight line at a constant velocity */
+  private static PathPlannerTrajectory line(
+      Translation2d start, Translation2d velocity, double duration, List<Event> events) {
+    List<PathPlannerTrajectoryState> states = new ArrayList<>();
+    int steps = (int) Math.round(duration / DT);
+    for (int i = 0; i <= steps; i++) {
+      PathPlannerTrajectoryState state = new PathPlannerTrajectoryState();
+      state.timeSeconds = i * DT;
+      state.pose = new Pose2d(start.plus(velocity.times(i * DT)), Rotation2d.fromDegrees(i));
+      state.fieldSpeeds =
+          new ChassisSpeeds(velocity.getX(), velocity.getY(), Math.toRadians(1.0) / DT);
+      state.linearVelocity = velocity.getNorm();
+      state.heading = velocity.getAngle();
+      state.feedforwards = DriveFeedforwards.zeros(4);
+      states.add(state);
+    }
+    return new PathPlannerTrajectory(states, events);
+  }
+
+  private static PathPlannerTrajectory current() {
+    return line(
+        Translation2d.kZero,
+        new Translation2d(2.0, 0.0),
+        3.0,
+        List.of(new MarkerEvent(0.2, "before"), new MarkerEvent(1.0, "after")));
+  }
+
+  /** The new path starts a little off to the side of the current one, and heads further left */
+  private static PathPlannerTrajectory replanned() {
+    return line(
+        new Translation2d(1.0, 0.3),
+        new Translation2d(1.8, 0.6),
+        3.0,
+        List.of(new MarkerEvent(0.05, "skipped"), new MarkerEvent(0.5, "new")));
+  }
+
+  private static double speed(ChassisSpeeds speeds) {
+    return Math.hypot(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond);
+  }
+
+  @Test
+  public void testKeepsStatesBeforeSplice() {
+    PathPlannerTrajectory current = current();
+    PathPlannerTrajectory spliced =
+        current.splice(replanned(), OTHER_START_TIME, SPLICE_TIME, BLEND_TIME);
+
+    int kept = 0;
+    for (PathPlannerTrajectoryState state : current.getStates()) {
+      if (state.timeSeconds < SPLICE_TIME) {
+        assertSame(state, spliced.getState(kept));
+        kept++;
+      }
+    }
+    assertTrue(kept > 0);
+    assertTrue(spliced.getState(kept).timeSeconds >= SPLICE_TIME);
+  }
+
+  @Test
+  public void testBlendEndpoints() {
+    PathPlannerTrajectory current = current();
+    PathPlannerTrajectory other = replanned();
+    PathPlannerTrajectory spliced =
+        current.splice(other, OTHER_START_TIME, SPLICE_TIME, BLEND_TIME);
+
+    // The blend starts exactly on the current trajectory
+    PathPlannerTrajectoryState start = spliced.sample(SPLICE_TIME);
+    PathPlannerTrajectoryState expectedStart = current.sample(SPLICE_TIME);
+    assertEquals(
+        0.0, start.pose.getTranslation().getDistance(expectedStart.pose.getTranslation()), DELTA);
+    assertEquals(
+        expectedStart.fieldSpeeds.vxMetersPerSecond, start.fieldSpeeds.vxMetersPerSecond, DELTA);
+    assertEquals(
+        expectedStart.fieldSpeeds.vyMetersPerSecond, start.fieldSpeeds.vyMetersPerSecond, DELTA);
+
+    // And ends on the other trajectory, which is followed from then on. Sampling between blended
+    // states moves in a straight line, so the curve of the blend is followed within a few mm.
+    double blendEnd = SPLICE_TIME + BLEND_TIME;
+    for (double t = blendEnd; t <= spliced.getTotalTimeSeconds(); t += 0.13) {
+      PathPlannerTrajectoryState state = spliced.sample(t);
+      PathPlannerTrajectoryState expected = other.sample(t - OTHER_START_TIME);
+      assertEquals(
+          0.0, state.pose.getTranslation().getDistance(expected.pose.getTranslation()), 0.005);
+      assertEquals(
+          expected.fieldSpeeds.vxMetersPerSecond, state.fieldSpeeds.vxMetersPerSecond, DELTA);
+      assertEquals(
+          expected.fieldSpeeds.vyMetersPerSecond, state.fieldSpeeds.vyMetersPerSecond, DELTA);
+    }
+    assertEquals(
+        other.getTotalTimeSeconds() + OTHER_START_TIME, spliced.getTotalTimeSeconds(), DELTA);
+  }
+
+  @Test
+  public void testContinuousBlend() {
+    PathPlannerTrajectory spliced =
+        current().splice(replanned(), OTHER_START_TIME, SPLICE_TIME, BLEND_TIME);
+
+    // Sampling through the splice never jumps in position or velocity. Moving 0.36m over to the
+    // other trajectory in half a second takes up to about 15 m/s^2.
+    double dt = 0.005;
+    PathPlannerTrajectoryState prev = spliced.sample(0.0);
+    for (double t = dt; t <= spliced.getTotalTimeSeconds(); t += dt) {
+      PathPlannerTrajectoryState state = spliced.sample(t);
+      double moved = state.pose.getTranslation().getDistance(prev.pose.getTranslation());
+      assertTrue(moved <= 4.0 * dt, "Position jumps by " + moved + " at " + t);
+
+      double dv =
+          Math.hypot(
+              state.fieldSpeeds.vxMetersPerSecond - prev.fieldSpeeds.vxMetersPerSecond,
+              state.fieldSpeeds.vyMetersPerSecond - prev.fieldSpeeds.vyMetersPerSecond);
+      assertTrue(dv <= 20.0 * dt, "Velocity jumps by " + dv + " at " + t);
+      prev = state;
+    }
+  }
+
+  @Test
+  public void testBlendVelocityMatchesMotion() {
+    PathPlannerTrajectory spliced =
+        current().splice(replanned(), OTHER_START_TIME, SPLICE_TIME, BLEND_TIME);
+    List<PathPlannerTrajectoryState> states = spliced.getStates();
+
+    // The velocity of each blended state includes the motion from one trajectory to the other
+    int checked = 0;
+    for (int i = 1; i < states.size() - 1; i++) {
+      PathPlannerTrajectoryState state = states.get(i);
+      if (state.timeSeconds <= SPLICE_TIME || state.timeSeconds >= SPLICE_TIME + BLEND_TIME) {
+        continue;
+      }
+
+      PathPlannerTrajectoryState before = states.get(i - 1);
+      PathPlannerTrajectoryState after = states.get(i + 1);
+      Translation2d velocity =
+          after
+              .pose
+              .getTranslation()
+              .minus(before.pose.getTranslation())
+              .div(after.timeSeconds - before.timeSeconds);
+      assertEquals(velocity.getX(), state.fieldSpeeds.vxMetersPerSecond, 0.05);
+      assertEquals(velocity.getY(), state.fieldSpeeds.vyMetersPerSecond, 0.05);
+      assertEquals(speed(state.fieldSpeeds), state.linearVelocity, DELTA);
+      assertEquals(velocity.getAngle().getRadians(), state.heading.getRadians(), 0.05);
+      checked++;
+    }
+    assertTrue(checked > 10);
+  }
+
+  @Test
+  public void testNoBlend() {
+    PathPlannerTrajectory current = current();
+    PathPlannerTrajectory other = replanned();
+    PathPlannerTrajectory spliced = current.splice(other, OTHER_START_TIME, SPLICE_TIME, 0.0);
+
+    for (PathPlannerTrajectoryState state : spliced.getStates()) {
+      PathPlannerTrajectoryState expected =
+          state.timeSeconds < SPLICE_TIME
+              ? current.sample(state.timeSeconds)
+              : other.sample(state.timeSeconds - OTHER_START_TIME);
+      assertEquals(
+          0.0, state.pose.getTranslation().getDistance(expected.pose.getTranslation()), DELTA);
+    }
+  }
+
+  @Test
+  public void testEvents() {
+    PathPlannerTrajectory spliced =
+        current().splice(replanned(), OTHER_START_TIME, SPLICE_TIME, BLEND_TIME);
+
+    // Events of the current trajectory after the splice and of the other trajectory before it are
+    // dropped, and the other trajectory's events are moved to the spliced timestamps
+    List<Event> events = spliced.getEvents();
+    assertEquals(2, events.size());
+    assertEquals("before", ((MarkerEvent) events.get(0)).name);
+    assertEquals(0.2, events.get(0).getTimestampSeconds(), DELTA);
+    assertEquals("new", ((MarkerEvent) events.get(1)).name);
+    assertEquals(0.5 + OTHER_START_TIME, events.get(1).getTimestampSeconds(), DELTA);
+  }
+
+  @Test
+  public void testStartingAt() {
+    PathPlannerTrajectory current = current();
+    PathPlannerTrajectory trimmed = current.startingAt(SPLICE_TIME - 0.01);
+
+    // States before the start are dropped, and the rest keep their poses at shifted times
+    assertEquals(0.0, trimmed.getInitialState().timeSeconds, DELTA);
+    assertEquals(
+        current.getTotalTimeSeconds() - (SPLICE_TIME - 0.01), trimmed.getTotalTimeSeconds(), DELTA);
+    for (double t = 0.0; t <= trimmed.getTotalTimeSeconds(); t += 0.13) {
+      PathPlannerTrajectoryState expected = current.sample(t + SPLICE_TIME - 0.01);
+      assertEquals(
+          0.0,
+          trimmed.sample(t).pose.getTranslation().getDistance(expected.pose.getTranslation()),
+          DELTA);
+    }
+
+    List<Event> events = trimmed.getEvents();
+    assertEquals(1, events.size());
+    assertEquals("after", ((MarkerEvent) events.get(0)).name);
+    assertEquals(1.0 - (SPLICE_TIME - 0.01), events.get(0).getTimestampSeconds(), DELTA);
+  }
+
+  @Test
+  public void testSpliceFromNow() {
+    // Splicing the rest of the current trajectory gives the same motion as splicing all of it,
+    // with times relative to now
+    double now = SPLICE_TIME - 0.1;
+    PathPlannerTrajectory full =
+        current().splice(replanned(), OTHER_START_TIME, SPLICE_TIME, BLEND_TIME);
+    PathPlannerTrajectory fromNow =
+        current()
+            .startingAt(now)
+            .splice(replanned(), OTHER_START_TIME - now, SPLICE_TIME - now, BLEND_TIME);
+
+    assertEquals(full.getTotalTimeSeconds() - now, fromNow.getTotalTimeSeconds(), DELTA);
+    for (double t = 0.0; t <= fromNow.getTotalTimeSeconds(); t += 0.07) {
+      PathPlannerTrajectoryState expected = full.sample(t + now);
+      assertEquals(
+          0.0,
+          fromNow.sample(t).pose.getTranslation().getDistance(expected.pose.getTranslation()),
+          0.005);
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.pathplanner.lib.trajectory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.util.DriveFeedforwards;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class PathPlannerTrajectoryTest {
+  private static final double DELTA = 1e-6;
+
+  /**
+   * A trajectory that accelerates along a straight line at 45 degrees, with states at the given
+   * times
+   */
+  private static PathPlannerTrajectory accelerating(
+      double startVelocity, double accel, double... times) {
+    Rotation2d heading = Rotation2d.fromDegrees(45.0);
+    List<PathPlannerTrajectoryState> states = new ArrayList<>();
+    for (double t : times) {
+      double v = startVelocity + (accel * t);
+      double dist = distance(startVelocity, accel, t);
+
+      PathPlannerTrajectoryState state = new PathPlannerTrajectoryState();
+      state.timeSeconds = t;
+      state.pose = new Pose2d(dist * heading.getCos(), dist * heading.getSin(), Rotation2d.kZero);
+      state.linearVelocity = v;
+      state.heading = heading;
+      state.feedforwards = DriveFeedforwards.zeros(4);
+      states.add(state);
+    }
+    return new PathPlannerTrajectory(states, List.of());
+  }
+
+  private static double distance(double startVelocity, double accel, double t) {
+    return (startVelocity * t) + (0.5 * accel * t * t);
+  }
+
+  private static double sampledDistance(PathPlannerTrajectory traj, double t) {
+    return traj.sample(t).pose.getTranslation().getNorm();
+  }
+
+  @Test
+  public void testSampleConstantVelocity() {
+    PathPlannerTrajectory traj = accelerating(2.0, 0.0, 0.0, 0.25, 0.5, 1.0);
+
+    for (double t = 0.0; t <= 1.0; t += 0.05) {
+      assertEquals(distance(2.0, 0.0, t), sampledDistance(traj, t), DELTA, "Sampled at " + t);
+    }
+  }
+
+  @Test
+  public void testSampleAtStateTimes() {
+    PathPlannerTrajectory traj = accelerating(2.0, 0.0, 0.0, 0.1, 0.3, 0.6, 1.0);
+
+    for (PathPlannerTrajectoryState state : traj.getStates()) {
+      assertEquals(
+          state.pose.getX(),
+          traj.sample(state.timeSeconds).pose.getX(),
+          DELTA,
+          "Sampled at " + state.timeSeconds);
+      assertEquals(
+          state.pose.getY(),
+          traj.sample(state.timeSeconds).pose.getY(),
+          DELTA,
+          "Sampled at " + state.timeSeconds);
+    }
+  }
+
+  @Test
+  public void testSampleAccelerating() {
+    PathPlannerTrajectory traj = accelerating(1.0, 3.0, 0.0, 0.1, 0.3, 0.6, 1.0);
+
+    // Positions are integrated in 0.01s steps using the velocity at the end of each step, which
+    // overestimates the distance slightly while accelerating
+    for (double t = 0.0; t <= 1.0; t += 0.05) {
+      assertEquals(distance(1.0, 3.0, t), sampledDistance(traj, t), 5e-3, "Sampled at " + t);
+    }
+  }
+}
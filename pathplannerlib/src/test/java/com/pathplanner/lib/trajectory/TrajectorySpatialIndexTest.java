@@ -0,0 +1,138 @@
+package com.pathplanner.lib.trajectory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.pathplanner.lib.util.DriveFeedforwards;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class TrajectorySpatialIndexTest {
+  private static final double DELTA = 1e-9;
+
+  /** A trajectory that spirals outwards, so distant parts of it pass close to each other */
+  private static List<PathPlannerTrajectoryState> windingStates() {
+    List<PathPlannerTrajectoryState> states = new ArrayList<>();
+    for (int i = 0; i <= 400; i++) {
+      double s = i * 0.025;
+      PathPlannerTrajectoryState state = new PathPlannerTrajectoryState();
+      state.timeSeconds = i * 0.02;
+      state.pose =
+          new Pose2d(2.0 + s * Math.cos(s), 3.0 + 1.5 * Math.sin(2.0 * s), Rotation2d.kZero);
+      state.feedforwards = DriveFeedforwards.zeros(4);
+      states.add(state);
+    }
+
+    // Drive straight towards the next state, so sampling between states follows the segments
+    for (int i = 0; i < states.size(); i++) {
+      PathPlannerTrajectoryState state = states.get(i);
+      int segment = Math.min(i, states.size() - 2);
+      Translation2d delta =
+          states
+              .get(segment + 1)
+              .pose
+              .getTranslation()
+              .minus(states.get(segment).pose.getTranslation());
+      state.heading = delta.getAngle();
+      state.linearVelocity = delta.getNorm() / 0.02;
+    }
+    return states;
+  }
+
+  /** Check every segment of the trajectory for the closest point to a position */
+  private static double bruteForceDistance(
+      List<PathPlannerTrajectoryState> states, Translation2d position) {
+    double best = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < states.size() - 1; i++) {
+      Translation2d a = states.get(i).pose.getTranslation();
+      Translation2d b = states.get(i + 1).pose.getTranslation();
+      Translation2d ab = b.minus(a);
+      double lengthSq = ab.getX() * ab.getX() + ab.getY() * ab.getY();
+      double t = 0.0;
+      if (lengthSq > 1e-12) {
+        Translation2d ap = position.minus(a);
+        t =
+            Math.max(
+                0.0, Math.min(1.0, (ap.getX() * ab.getX() + ap.getY() * ab.getY()) / lengthSq));
+      }
+      best = Math.min(best, position.getDistance(a.interpolate(b, t)));
+    }
+    return best;
+  }
+
+  private static void assertMatchesBruteForce(
+      List<PathPlannerTrajectoryState> states, Translation2d position) {
+    PathPlannerTrajectory trajectory = new PathPlannerTrajectory(states);
+    TrajectoryProjection projection = trajectory.projectOnto(position);
+
+    double expected = bruteForceDistance(states, position);
+    assertEquals(expected, projection.distanceFromMeters(), DELTA, "Projection of " + position);
+
+    // The state at the projected time must be the closest point that was found. Sampling blends
+    // the speeds of the states around it, so it is only close to the segment between them.
+    Translation2d nearest = trajectory.nearestState(position).pose.getTranslation();
+    assertEquals(expected, nearest.getDistance(position), 1e-3, "Nearest state to " + position);
+  }
+
+  @Test
+  public void testInsideBoundingBox() {
+    List<PathPlannerTrajectoryState> states = windingStates();
+    Random rand = new Random(3015);
+
+    // The trajectory spans about x = -7.5 to 8.4 and y = 1.5 to 4.5
+    for (int i = 0; i < 500; i++) {
+      assertMatchesBruteForce(
+          states,
+          new Translation2d(-7.5 + rand.nextDouble() * 15.9, 1.5 + rand.nextDouble() * 3.0));
+    }
+  }
+
+  @Test
+  public void testOutsideBoundingBox() {
+    List<PathPlannerTrajectoryState> states = windingStates();
+    Random rand = new Random(3015);
+
+    for (int i = 0; i < 200; i++) {
+      double angle = rand.nextDouble() * 2.0 * Math.PI;
+      double range = 15.0 + rand.nextDouble() * 100.0;
+      assertMatchesBruteForce(
+          states, new Translation2d(2.0 + range * Math.cos(angle), 3.0 + range * Math.sin(angle)));
+    }
+
+    // Far enough away that the cell of the position doesn't fit in an int
+    assertMatchesBruteForce(states, new Translation2d(1e12, -1e12));
+  }
+
+  @Test
+  public void testDistanceAlong() {
+    List<PathPlannerTrajectoryState> states = windingStates();
+    PathPlannerTrajectory trajectory = new PathPlannerTrajectory(states);
+
+    double distance = 0.0;
+    for (int i = 1; i <= 200; i++) {
+      distance +=
+          states.get(i - 1).pose.getTranslation().getDistance(states.get(i).pose.getTranslation());
+    }
+
+    TrajectoryProjection projection = trajectory.projectOnto(states.get(200).pose.getTranslation());
+    assertEquals(0.0, projection.distanceFromMeters(), DELTA);
+    assertEquals(distance, projection.distanceAlongMeters(), 1e-6);
+    assertEquals(states.get(200).timeSeconds, projection.timeSeconds(), 1e-6);
+  }
+
+  @Test
+  public void testSingleState() {
+    PathPlannerTrajectoryState state = new PathPlannerTrajectoryState();
+    state.pose = new Pose2d(1.0, 2.0, Rotation2d.kZero);
+    PathPlannerTrajectory trajectory = new PathPlannerTrajectory(List.of(state));
+
+    TrajectoryProjection projection = trajectory.projectOnto(new Translation2d(4.0, 6.0));
+    assertEquals(0.0, projection.timeSeconds(), DELTA);
+    assertEquals(0.0, projection.distanceAlongMeters(), DELTA);
+    assertEquals(5.0, projection.distanceFromMeters(), DELTA);
+  }
+}
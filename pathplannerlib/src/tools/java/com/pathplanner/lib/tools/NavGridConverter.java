@@ -0,0 +1,32 @@
+package com.pathplanner.lib.tools;
+
+import com.pathplanner.lib.pathfinding.NavGrid;
+import java.io.File;
+import java.io.IOException;
+import org.json.simple.parser.ParseException;
+
+/**
+ * Command line tool that converts a navgrid.json file to a binary navgrid, which loads faster on
+ * the robot. Run it with the {@code convertNavGrid} Gradle task.
+ */
+public final class NavGridConverter {
+  private NavGridConverter() {}
+
+  /**
+   * Convert a navgrid.json file to a binary navgrid
+   *
+   * <p>Usage: {@code NavGridConverter <navgrid.json> <navgrid.bin>}
+   *
+   * @param args Input JSON file and output binary file
+   * @throws IOException if a file could not be read or written
+   * @throws ParseException if the input is not valid JSON
+   */
+  public static void main(String[] args) throws IOException, ParseException {
+    if (args.length != 2) {
+      System.err.println("Usage: NavGridConverter <navgrid.json> <navgrid.bin>");
+      System.exit(1);
+    }
+
+    NavGrid.fromJsonFile(new File(args[0])).writeBinaryFile(new File(args[1]));
+  }
+}